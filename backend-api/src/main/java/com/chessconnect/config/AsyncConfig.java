@@ -7,6 +7,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
@@ -23,6 +24,59 @@ public class AsyncConfig implements AsyncConfigurer {
         return executor;
     }
 
+    @Bean(name = "thumbnailTaskExecutor")
+    public Executor thumbnailTaskExecutor() {
+        // FFmpeg is CPU and network heavy: keep concurrency low and queue the rest
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("thumbnail-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "pushTaskExecutor")
+    public Executor pushTaskExecutor() {
+        // Each task encrypts and sends a chunk of up to 100 pushes concurrently over HTTP/2
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(200);
+        // When the queue is full the producer sends the chunk itself, which slows a multicast down instead of dropping it
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("push-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "stripeEventTaskExecutor")
+    public Executor stripeEventTaskExecutor() {
+        // One task per customer in a claimed batch; the dispatcher waits for the whole batch
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(100);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("stripe-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "invoicePdfTaskExecutor")
+    public Executor invoicePdfTaskExecutor() {
+        // Renders missing PDFs for a ZIP archive; each PDF is built in memory, so keep few in flight
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(20);
+        // When the queue is full the streaming thread renders the PDF itself, which throttles the archive
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("invoice-pdf-");
+        executor.initialize();
+        return executor;
+    }
+
     @Override
     public Executor getAsyncExecutor() {
         return sseTaskExecutor();
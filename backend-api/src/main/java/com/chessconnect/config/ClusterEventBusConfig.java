@@ -0,0 +1,42 @@
+package com.chessconnect.config;
+
+import com.chessconnect.event.cluster.ClusterMessageBus;
+import com.chessconnect.event.cluster.LocalClusterMessageBus;
+import com.chessconnect.event.cluster.PostgresClusterMessageBus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+
+/**
+ * Selects the transport used to reach the other API nodes.
+ * "postgres" (default) uses LISTEN/NOTIFY; "local" keeps everything in this JVM.
+ */
+@Configuration
+public class ClusterEventBusConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cluster.event-bus", havingValue = "postgres", matchIfMissing = true)
+    public ClusterMessageBus postgresClusterMessageBus(DataSourceProperties dataSourceProperties, JdbcTemplate jdbcTemplate) {
+        return new PostgresClusterMessageBus(
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword(),
+                jdbcTemplate);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cluster.event-bus", havingValue = "local")
+    public ClusterMessageBus localClusterMessageBus() {
+        return new LocalClusterMessageBus();
+    }
+
+    // Presence expiry compares instants across nodes; injected so tests can move time
+    @Bean
+    public Clock clock() {
+        return Clock.systemUTC();
+    }
+}
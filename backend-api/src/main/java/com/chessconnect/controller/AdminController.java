@@ -1,6 +1,7 @@
 package com.chessconnect.controller;
 
 import com.chessconnect.dto.admin.*;
+import com.chessconnect.dto.CursorPage;
 import com.chessconnect.dto.VideoDTO;
 import com.chessconnect.dto.lesson.LessonResponse;
 import com.chessconnect.model.Availability;
@@ -15,14 +16,17 @@ import com.chessconnect.repository.UserRepository;
 import com.chessconnect.service.AdminService;
 import com.chessconnect.service.AnalyticsService;
 import com.chessconnect.service.EmailService;
+import com.chessconnect.service.LibraryService;
+import com.chessconnect.service.SchedulerStatusService;
+import com.chessconnect.service.StripeAccountSnapshotService;
 import com.chessconnect.service.StripeConnectService;
 import com.chessconnect.service.StripeService;
+import com.chessconnect.service.TeacherBalanceService;
 import com.chessconnect.service.ThumbnailService;
 import com.chessconnect.service.WalletService;
 import com.stripe.exception.StripeException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -52,6 +56,10 @@ public class AdminController {
     private final LessonRepository lessonRepository;
     private final AvailabilityRepository availabilityRepository;
     private final EmailService emailService;
+    private final LibraryService libraryService;
+    private final SchedulerStatusService schedulerStatusService;
+    private final StripeAccountSnapshotService stripeAccountSnapshotService;
+    private final TeacherBalanceService teacherBalanceService;
 
     @org.springframework.beans.factory.annotation.Value("${app.frontend-url:http://localhost:4200}")
     private String frontendUrl;
@@ -66,7 +74,11 @@ public class AdminController {
             UserRepository userRepository,
             LessonRepository lessonRepository,
             AvailabilityRepository availabilityRepository,
-            EmailService emailService
+            EmailService emailService,
+            LibraryService libraryService,
+            SchedulerStatusService schedulerStatusService,
+            StripeAccountSnapshotService stripeAccountSnapshotService,
+            TeacherBalanceService teacherBalanceService
     ) {
         this.adminService = adminService;
         this.stripeService = stripeService;
@@ -78,6 +90,10 @@ public class AdminController {
         this.lessonRepository = lessonRepository;
         this.availabilityRepository = availabilityRepository;
         this.emailService = emailService;
+        this.libraryService = libraryService;
+        this.schedulerStatusService = schedulerStatusService;
+        this.stripeAccountSnapshotService = stripeAccountSnapshotService;
+        this.teacherBalanceService = teacherBalanceService;
     }
 
     // ============= USER MANAGEMENT =============
@@ -250,6 +266,27 @@ public class AdminController {
         return ResponseEntity.ok(adminService.getTeacherBalances());
     }
 
+    /**
+     * Compare stored teacher balances with their credited lessons, without changing anything.
+     */
+    @GetMapping("/accounting/teachers/balance-check")
+    public ResponseEntity<TeacherBalanceCheckResponse> checkTeacherBalances() {
+        return ResponseEntity.ok(teacherBalanceService.verifyBalances());
+    }
+
+    /**
+     * Recalculate every teacher balance from their credited lessons.
+     */
+    @PostMapping("/accounting/teachers/recalculate")
+    public ResponseEntity<Map<String, Object>> recalculateTeacherBalances() {
+        int corrected = teacherBalanceService.recalculateAllBalances();
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Soldes recalcules",
+                "correctedBalances", corrected
+        ));
+    }
+
     /**
      * Mark a teacher as paid - transfer a custom amount.
      * Performs a real Stripe Connect transfer to the teacher's account.
@@ -369,15 +406,29 @@ public class AdminController {
         return ResponseEntity.ok(analyticsService.getAnalytics(period));
     }
 
+    // ============= SCHEDULER =============
+
+    /**
+     * Scheduled jobs with their trigger, last run (duration, outcome, node) and next fire time.
+     */
+    @GetMapping("/scheduler/jobs")
+    public ResponseEntity<List<ScheduledJobResponse>> getScheduledJobs() {
+        return ResponseEntity.ok(schedulerStatusService.getJobs());
+    }
+
     // ============= STRIPE CONNECT =============
 
     /**
-     * Get all coaches with their Stripe Connect status.
+     * Get all coaches with their Stripe Connect status, as last synced from Stripe.
      */
     @GetMapping("/stripe-connect/accounts")
     public ResponseEntity<?> getStripeConnectAccounts() {
         try {
             List<User> teachers = userRepository.findByRole(UserRole.TEACHER);
+            var detailsByAccount = stripeConnectService.getAccountDetails(teachers.stream()
+                    .map(User::getStripeConnectAccountId)
+                    .filter(id -> id != null && !id.isBlank())
+                    .toList());
             List<Map<String, Object>> accounts = new java.util.ArrayList<>();
 
             for (User teacher : teachers) {
@@ -389,18 +440,18 @@ public class AdminController {
                 accountInfo.put("hasStripeAccount", teacher.getStripeConnectAccountId() != null);
 
                 if (teacher.getStripeConnectAccountId() != null) {
-                    try {
-                        var details = stripeConnectService.getAccountDetails(teacher.getStripeConnectAccountId());
-                        if (details != null) {
-                            accountInfo.put("chargesEnabled", details.chargesEnabled());
-                            accountInfo.put("payoutsEnabled", details.payoutsEnabled());
-                            accountInfo.put("detailsSubmitted", details.detailsSubmitted());
-                            accountInfo.put("isReady", details.payoutsEnabled() && details.detailsSubmitted());
-                            accountInfo.put("pendingRequirements", details.pendingRequirements());
-                            accountInfo.put("stripeEmail", details.email());
-                        }
-                    } catch (StripeException e) {
-                        accountInfo.put("error", "Erreur Stripe: " + e.getMessage());
+                    var details = detailsByAccount.get(teacher.getStripeConnectAccountId());
+                    if (details != null) {
+                        accountInfo.put("chargesEnabled", details.chargesEnabled());
+                        accountInfo.put("payoutsEnabled", details.payoutsEnabled());
+                        accountInfo.put("detailsSubmitted", details.detailsSubmitted());
+                        accountInfo.put("isReady", details.payoutsEnabled() && details.detailsSubmitted());
+                        accountInfo.put("pendingRequirements", details.pendingRequirements());
+                        accountInfo.put("stripeEmail", details.email());
+                        accountInfo.put("syncedAt", details.syncedAt());
+                    } else {
+                        accountInfo.put("isReady", false);
+                        accountInfo.put("syncPending", true);
                     }
                 } else {
                     accountInfo.put("isReady", false);
@@ -454,7 +505,7 @@ public class AdminController {
     }
 
     /**
-     * Get detailed Stripe account info for a specific coach.
+     * Get detailed Stripe account info for a specific coach, as last synced from Stripe.
      */
     @GetMapping("/stripe-connect/accounts/{teacherId}")
     public ResponseEntity<?> getStripeAccountDetails(@PathVariable Long teacherId) {
@@ -470,6 +521,15 @@ public class AdminController {
             }
 
             var details = stripeConnectService.getAccountDetails(teacher.getStripeConnectAccountId());
+            if (details == null) {
+                return ResponseEntity.ok(Map.of(
+                    "hasAccount", true,
+                    "teacherName", teacher.getFullName(),
+                    "accountId", teacher.getStripeConnectAccountId(),
+                    "isReady", false,
+                    "syncPending", true
+                ));
+            }
 
             return ResponseEntity.ok(Map.of(
                 "hasAccount", true,
@@ -480,7 +540,40 @@ public class AdminController {
                 "payoutsEnabled", details.payoutsEnabled(),
                 "detailsSubmitted", details.detailsSubmitted(),
                 "isReady", details.payoutsEnabled() && details.detailsSubmitted(),
-                "pendingRequirements", details.pendingRequirements() != null ? details.pendingRequirements() : ""
+                "pendingRequirements", details.pendingRequirements() != null ? details.pendingRequirements() : "",
+                "syncedAt", details.syncedAt()
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Re-read a coach's Stripe account from Stripe now, e.g. when a webhook seems to have been missed.
+     */
+    @PostMapping("/stripe-connect/accounts/{teacherId}/refresh")
+    public ResponseEntity<?> refreshStripeAccount(@PathVariable Long teacherId) {
+        try {
+            User teacher = userRepository.findById(teacherId)
+                .orElseThrow(() -> new IllegalArgumentException("Coach non trouve"));
+
+            if (teacher.getStripeConnectAccountId() == null) {
+                return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "Ce coach n'a pas de compte Stripe Connect"
+                ));
+            }
+
+            var snapshot = stripeAccountSnapshotService.refresh(
+                teacher.getStripeConnectAccountId(), StripeAccountSnapshotService.SOURCE_API);
+
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "isReady", snapshot.isReady(),
+                "syncedAt", snapshot.syncedAt()
             ));
         } catch (StripeException e) {
             return ResponseEntity.badRequest().body(Map.of(
@@ -643,9 +736,7 @@ public class AdminController {
         }
 
         // Count lessons needing thumbnails
-        long count = lessonRepository.findAll().stream()
-            .filter(l -> l.getRecordingUrl() != null && l.getThumbnailUrl() == null)
-            .count();
+        long count = lessonRepository.countLessonsMissingThumbnail();
 
         if (count == 0) {
             return ResponseEntity.ok(Map.of(
@@ -753,23 +844,27 @@ public class AdminController {
                 ));
             }
 
-            // Send emails to all students for each teacher with availabilities
+            // Queue one batch per teacher; the outbox dispatcher paces the actual delivery
             int emailsSent = 0;
-            for (User student : students) {
-                for (Map<String, Object> teacherData : teachersWithAvailabilities) {
-                    User teacher = (User) teacherData.get("teacher");
-                    String availabilityInfo = (String) teacherData.get("availabilityInfo");
-                    String bookingLink = (String) teacherData.get("bookingLink");
-
-                    emailService.sendNewAvailabilityNotification(
-                        student.getEmail(),
-                        student.getFirstName(),
-                        teacher.getFirstName() + " " + teacher.getLastName(),
-                        availabilityInfo,
-                        bookingLink
-                    );
-                    emailsSent++;
-                }
+            for (Map<String, Object> teacherData : teachersWithAvailabilities) {
+                User teacher = (User) teacherData.get("teacher");
+                String teacherName = teacher.getFirstName() + " " + teacher.getLastName();
+                String availabilityInfo = (String) teacherData.get("availabilityInfo");
+                String bookingLink = (String) teacherData.get("bookingLink");
+
+                List<EmailService.BatchRecipient> recipients = students.stream()
+                    .map(student -> new EmailService.BatchRecipient(student.getEmail(), Map.of(
+                        "firstName", student.getFirstName(),
+                        "teacherName", teacherName,
+                        "availabilityInfo", availabilityInfo,
+                        "bookingLink", bookingLink
+                    )))
+                    .toList();
+                emailsSent += emailService.enqueueBatch(
+                    teacherName + " a publie de nouveaux creneaux - Mychess",
+                    "new-availability-notification",
+                    recipients
+                );
             }
 
             return ResponseEntity.ok(Map.of(
@@ -797,49 +892,20 @@ public class AdminController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
             @RequestParam(required = false) String period
     ) {
-        LocalDateTime dateFromTime = null;
-        LocalDateTime dateToTime = null;
-
-        if (period != null && !period.isEmpty()) {
-            LocalDate now = LocalDate.now();
-            switch (period) {
-                case "week": dateFromTime = now.minusWeeks(1).atStartOfDay(); break;
-                case "month": dateFromTime = now.minusMonths(1).atStartOfDay(); break;
-                case "3months": dateFromTime = now.minusMonths(3).atStartOfDay(); break;
-                case "year": dateFromTime = now.minusYears(1).atStartOfDay(); break;
-            }
-            dateToTime = LocalDateTime.now();
-        } else {
-            if (dateFrom != null) dateFromTime = dateFrom.atStartOfDay();
-            if (dateTo != null) dateToTime = dateTo.atTime(LocalTime.MAX);
-        }
-
-        List<Lesson> lessons = lessonRepository.findAllLibraryVideos(search, dateFromTime, dateToTime);
-
-        List<VideoDTO> videos = lessons.stream()
-            .map(lesson -> {
-                User teacher = lesson.getTeacher();
-                User student = lesson.getStudent();
-
-                VideoDTO dto = new VideoDTO();
-                dto.setId(lesson.getId());
-                dto.setLessonId(lesson.getId());
-                dto.setTeacherName(teacher.getFirstName() + " " + teacher.getLastName());
-                dto.setTeacherAvatar(teacher.getAvatarUrl());
-                dto.setScheduledAt(lesson.getScheduledAt());
-                dto.setRecordingUrl(lesson.getRecordingUrl());
-                dto.setDurationSeconds(lesson.getDurationMinutes() != null ? lesson.getDurationMinutes() * 60 : 3600);
-                dto.setThumbnailUrl(lesson.getThumbnailUrl() != null ? lesson.getThumbnailUrl() : "/assets/images/video-thumbnail-placeholder.svg");
-                if (student != null) {
-                    dto.setStudentName(student.getFirstName() + " " + student.getLastName());
-                }
-                if (lesson.getCourse() != null) {
-                    dto.setCourseTitle(lesson.getCourse().getTitle());
-                }
-                return dto;
-            })
-            .collect(java.util.stream.Collectors.toList());
+        return ResponseEntity.ok(libraryService.getAllVideosList(
+            search, LibraryService.DateRange.of(period, dateFrom, dateTo)));
+    }
 
-        return ResponseEntity.ok(videos);
+    @GetMapping("/library/videos/page")
+    public ResponseEntity<CursorPage<VideoDTO>> getAllVideosPage(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+            @RequestParam(required = false) String period,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(libraryService.getAllVideos(
+            search, LibraryService.DateRange.of(period, dateFrom, dateTo), cursor, limit));
     }
 }
@@ -1,5 +1,6 @@
 package com.chessconnect.controller;
 
+import com.chessconnect.dto.CursorPage;
 import com.chessconnect.dto.promo.*;
 import com.chessconnect.model.PromoCode;
 import com.chessconnect.service.PromoCodeService;
@@ -70,15 +71,47 @@ public class AdminPromoController {
         return ResponseEntity.ok(promoCodeService.getUsagesByCodeId(id));
     }
 
+    /**
+     * Keyset page of a code's usages, newest first.
+     */
+    @GetMapping("/{id}/usages/page")
+    public ResponseEntity<CursorPage<PromoCodeUsageResponse>> getUsagesPage(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(promoCodeService.getUsagePage(id, cursor, limit));
+    }
+
     @GetMapping("/{id}/earnings")
     public ResponseEntity<List<ReferralEarningResponse>> getEarnings(@PathVariable Long id) {
         return ResponseEntity.ok(promoCodeService.getEarningsByCodeId(id));
     }
 
+    /**
+     * Keyset page of a code's referral earnings, newest first.
+     */
+    @GetMapping("/{id}/earnings/page")
+    public ResponseEntity<CursorPage<ReferralEarningResponse>> getEarningsPage(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(promoCodeService.getEarningPage(id, cursor, limit));
+    }
+
+    /**
+     * Earned and unpaid totals of a code, overall and per month.
+     */
+    @GetMapping("/{id}/earnings/summary")
+    public ResponseEntity<ReferralEarningsSummaryResponse> getEarningsSummary(@PathVariable Long id) {
+        return ResponseEntity.ok(promoCodeService.getEarningsSummary(id));
+    }
+
     @PatchMapping("/{id}/mark-paid")
-    public ResponseEntity<Void> markEarningsAsPaid(@PathVariable Long id, @RequestBody Map<String, String> body) {
+    public ResponseEntity<Map<String, Integer>> markEarningsAsPaid(@PathVariable Long id, @RequestBody Map<String, String> body) {
         String ref = body.getOrDefault("paymentReference", "MANUAL-" + System.currentTimeMillis());
-        promoCodeService.markEarningsAsPaid(id, ref);
-        return ResponseEntity.ok().build();
+        int updated = promoCodeService.markEarningsAsPaid(id, ref);
+        return ResponseEntity.ok(Map.of("updated", updated));
     }
 }
@@ -1,18 +1,26 @@
 package com.chessconnect.controller;
 
+import com.chessconnect.dto.CursorPage;
+import com.chessconnect.dto.payment.InvoiceSummaryResponse;
 import com.chessconnect.model.Invoice;
 import com.chessconnect.repository.InvoiceRepository;
 import com.chessconnect.security.UserDetailsImpl;
+import com.chessconnect.service.InvoiceArchiveService;
+import com.chessconnect.service.InvoiceListingService;
 import com.chessconnect.service.InvoiceService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
@@ -26,10 +34,15 @@ public class InvoiceController {
 
     private final InvoiceService invoiceService;
     private final InvoiceRepository invoiceRepository;
+    private final InvoiceListingService invoiceListingService;
+    private final InvoiceArchiveService invoiceArchiveService;
 
-    public InvoiceController(InvoiceService invoiceService, InvoiceRepository invoiceRepository) {
+    public InvoiceController(InvoiceService invoiceService, InvoiceRepository invoiceRepository,
+                             InvoiceListingService invoiceListingService, InvoiceArchiveService invoiceArchiveService) {
         this.invoiceService = invoiceService;
         this.invoiceRepository = invoiceRepository;
+        this.invoiceListingService = invoiceListingService;
+        this.invoiceArchiveService = invoiceArchiveService;
     }
 
     /**
@@ -37,47 +50,23 @@ public class InvoiceController {
      */
     @GetMapping("/me")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<Map<String, Object>>> getMyInvoices(
+    public ResponseEntity<List<InvoiceSummaryResponse>> getMyInvoices(
             @AuthenticationPrincipal UserDetailsImpl userDetails
     ) {
-        try {
-            List<Invoice> invoices = invoiceService.getInvoicesForUser(userDetails.getId());
-
-            List<Map<String, Object>> response = invoices.stream()
-                    .map(inv -> {
-                        try {
-                            return mapInvoiceToResponse(inv, userDetails.getId());
-                        } catch (Exception e) {
-                            log.error("Error mapping invoice {}: {}", inv.getId(), e.getMessage(), e);
-                            // Return a minimal response for problematic invoices
-                            return Map.<String, Object>ofEntries(
-                                    Map.entry("id", inv.getId()),
-                                    Map.entry("invoiceNumber", inv.getInvoiceNumber() != null ? inv.getInvoiceNumber() : "N/A"),
-                                    Map.entry("invoiceType", inv.getInvoiceType() != null ? inv.getInvoiceType().name() : ""),
-                                    Map.entry("isReceived", false),
-                                    Map.entry("issuerName", ""),
-                                    Map.entry("customerName", ""),
-                                    Map.entry("description", inv.getDescription() != null ? inv.getDescription() : "Erreur de chargement"),
-                                    Map.entry("subtotalCents", inv.getSubtotalCents() != null ? inv.getSubtotalCents() : 0),
-                                    Map.entry("vatCents", inv.getVatCents() != null ? inv.getVatCents() : 0),
-                                    Map.entry("totalCents", inv.getTotalCents() != null ? inv.getTotalCents() : 0),
-                                    Map.entry("vatRate", 0),
-                                    Map.entry("commissionRate", 0),
-                                    Map.entry("promoApplied", false),
-                                    Map.entry("status", inv.getStatus() != null ? inv.getStatus() : "PENDING"),
-                                    Map.entry("hasPdf", false),
-                                    Map.entry("issuedAt", ""),
-                                    Map.entry("createdAt", "")
-                            );
-                        }
-                    })
-                    .collect(Collectors.toList());
-
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            log.error("Error fetching invoices for user {}: {}", userDetails.getId(), e.getMessage(), e);
-            return ResponseEntity.ok(List.of()); // Return empty list instead of 500
-        }
+        return ResponseEntity.ok(invoiceListingService.getInvoicesForUser(userDetails.getId()));
+    }
+
+    /**
+     * Keyset page of the current user's invoices (both received and issued), newest first.
+     */
+    @GetMapping("/me/page")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CursorPage<InvoiceSummaryResponse>> getMyInvoicesPage(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(invoiceListingService.getInvoicePageForUser(userDetails.getId(), cursor, limit));
     }
 
     /**
@@ -119,14 +108,62 @@ public class InvoiceController {
      */
     @GetMapping("/all")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Map<String, Object>>> getAllInvoices() {
-        List<Invoice> invoices = invoiceRepository.findAllByOrderByCreatedAtDesc();
+    public ResponseEntity<List<InvoiceSummaryResponse>> getAllInvoices() {
+        return ResponseEntity.ok(invoiceListingService.getAllInvoices());
+    }
 
-        List<Map<String, Object>> response = invoices.stream()
-                .map(this::mapInvoiceToResponseAdmin)
-                .collect(Collectors.toList());
+    /**
+     * Keyset page of all invoices, newest first (admin only).
+     */
+    @GetMapping("/all/page")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<InvoiceSummaryResponse>> getAllInvoicesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(invoiceListingService.getAllInvoicesPage(cursor, limit));
+    }
 
-        return ResponseEntity.ok(response);
+    /**
+     * Stream the invoices issued over an accounting period as CSV or NDJSON (admin only).
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportInvoices(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "CSV") InvoiceListingService.ExportFormat format
+    ) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("La date de fin doit etre apres la date de debut");
+        }
+        boolean csv = format == InvoiceListingService.ExportFormat.CSV;
+        String filename = "factures-" + from + "-" + to + (csv ? ".csv" : ".ndjson");
+
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(out -> invoiceListingService.export(from, to, format, out));
+    }
+
+    /**
+     * Stream a ZIP of the invoice PDFs issued over an accounting period, with a CSV manifest (admin only).
+     */
+    @GetMapping("/export/archive")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportInvoiceArchive(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("La date de fin doit etre apres la date de debut");
+        }
+        String filename = "factures-" + from + "-" + to + ".zip";
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(out -> invoiceArchiveService.writeArchive(from, to, out));
     }
 
     /**
@@ -240,59 +277,4 @@ public class InvoiceController {
                 Map.entry("lessonId", invoice.getLesson() != null ? invoice.getLesson().getId() : null)
         );
     }
-
-    /**
-     * Map Invoice entity to API response for admin (no currentUserId needed).
-     * Uses denormalized fields as fallback when user accounts have been deleted.
-     */
-    private Map<String, Object> mapInvoiceToResponseAdmin(Invoice invoice) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-
-        String issuerName;
-        if (invoice.getIssuer() != null) {
-            issuerName = invoice.getIssuer().getFirstName() + " " + invoice.getIssuer().getLastName();
-            if (invoice.getIssuer().getCompanyName() != null) {
-                issuerName = invoice.getIssuer().getCompanyName();
-            }
-        } else if (invoice.getIssuerName() != null) {
-            issuerName = invoice.getIssuerName();
-        } else {
-            issuerName = "mychess";
-        }
-
-        String customerName = "Inconnu";
-        if (invoice.getCustomer() != null) {
-            customerName = invoice.getCustomer().getFirstName() + " " + invoice.getCustomer().getLastName();
-            if (invoice.getCustomer().getCompanyName() != null && !invoice.getCustomer().getCompanyName().isBlank()) {
-                customerName = invoice.getCustomer().getCompanyName();
-            }
-        } else if (invoice.getCustomerName() != null) {
-            customerName = invoice.getCustomerName();
-        }
-
-        // Handle potentially null dates
-        String issuedAtStr = invoice.getIssuedAt() != null ? invoice.getIssuedAt().format(formatter) : "";
-        String createdAtStr = invoice.getCreatedAt() != null ? invoice.getCreatedAt().format(formatter) : "";
-
-        return Map.ofEntries(
-                Map.entry("id", invoice.getId()),
-                Map.entry("invoiceNumber", invoice.getInvoiceNumber() != null ? invoice.getInvoiceNumber() : ""),
-                Map.entry("invoiceType", invoice.getInvoiceType() != null ? invoice.getInvoiceType().name() : ""),
-                Map.entry("isReceived", false),
-                Map.entry("issuerName", issuerName),
-                Map.entry("customerName", customerName),
-                Map.entry("description", invoice.getDescription() != null ? invoice.getDescription() : ""),
-                Map.entry("subtotalCents", invoice.getSubtotalCents() != null ? invoice.getSubtotalCents() : 0),
-                Map.entry("vatCents", invoice.getVatCents() != null ? invoice.getVatCents() : 0),
-                Map.entry("totalCents", invoice.getTotalCents() != null ? invoice.getTotalCents() : 0),
-                Map.entry("vatRate", invoice.getVatRate() != null ? invoice.getVatRate() : 0),
-                Map.entry("commissionRate", invoice.getCommissionRate() != null ? invoice.getCommissionRate() : 0),
-                Map.entry("promoApplied", invoice.getPromoApplied() != null && invoice.getPromoApplied()),
-                Map.entry("status", invoice.getStatus() != null ? invoice.getStatus() : ""),
-                Map.entry("hasPdf", true), // PDFs can now be generated on-demand
-                Map.entry("issuedAt", issuedAtStr),
-                Map.entry("createdAt", createdAtStr),
-                Map.entry("lessonId", invoice.getLesson() != null ? invoice.getLesson().getId() : null)
-        );
-    }
 }
@@ -1,5 +1,6 @@
 package com.chessconnect.controller;
 
+import com.chessconnect.dto.CursorPage;
 import com.chessconnect.model.UserNotification;
 import com.chessconnect.repository.UserRepository;
 import com.chessconnect.security.UserDetailsImpl;
@@ -35,6 +36,23 @@ public class NotificationController {
         return ResponseEntity.ok(notifications.stream().map(NotificationResponse::from).toList());
     }
 
+    /**
+     * Keyset-paginated inbox for the current user. Pass {@code nextCursor} back to get the next page.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<NotificationResponse>> getNotificationPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean unreadOnly,
+            @AuthenticationPrincipal UserDetailsImpl userDetails
+    ) {
+        CursorPage<UserNotification> page = notificationService.getInbox(userDetails.getId(), unreadOnly, cursor, limit);
+        return ResponseEntity.ok(new CursorPage<>(
+                page.items().stream().map(NotificationResponse::from).toList(),
+                page.nextCursor()
+        ));
+    }
+
     /**
      * Get unread notifications for the current user.
      */
@@ -49,6 +67,7 @@ public class NotificationController {
 
     /**
      * Get unread count for the current user.
+     * Connected clients also receive it as an {@code unread_count} SSE event on every change.
      */
     @GetMapping("/unread/count")
     public ResponseEntity<Map<String, Long>> getUnreadCount(
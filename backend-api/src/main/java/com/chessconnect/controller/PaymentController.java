@@ -23,6 +23,7 @@ import com.chessconnect.service.GroupLessonService;
 import com.chessconnect.service.InvoiceService;
 import com.chessconnect.service.LessonService;
 import com.chessconnect.service.PromoCodeService;
+import com.chessconnect.service.StripeEventInbox;
 import com.chessconnect.service.StripeService;
 import com.chessconnect.service.SubscriptionService;
 import com.chessconnect.dto.promo.ValidatePromoCodeResponse;
@@ -63,6 +64,7 @@ public class PaymentController {
     private final GroupLessonService groupLessonService;
     private final PromoCodeService promoCodeService;
     private final GroupInvitationRepository invitationRepository;
+    private final StripeEventInbox stripeEventInbox;
 
     public PaymentController(
             StripeService stripeService,
@@ -74,7 +76,8 @@ public class PaymentController {
             InvoiceService invoiceService,
             GroupLessonService groupLessonService,
             PromoCodeService promoCodeService,
-            GroupInvitationRepository invitationRepository
+            GroupInvitationRepository invitationRepository,
+            StripeEventInbox stripeEventInbox
     ) {
         this.stripeService = stripeService;
         this.subscriptionService = subscriptionService;
@@ -86,6 +89,7 @@ public class PaymentController {
         this.groupLessonService = groupLessonService;
         this.promoCodeService = promoCodeService;
         this.invitationRepository = invitationRepository;
+        this.stripeEventInbox = stripeEventInbox;
     }
 
     // Get Stripe publishable key
@@ -128,22 +132,32 @@ public class PaymentController {
                 if (validation.discountType() == DiscountType.STUDENT_DISCOUNT) {
                     amountCents = validation.finalPriceCents();
                 }
+                // Held until the payment is confirmed; released if the session fails or expires
+                promoCodeService.reserve(promoCode, userDetails.getId());
                 promoMetadata = promoCode;
             }
 
-            Session session = stripeService.createLessonPaymentSession(
-                    student,
-                    teacher.getId(),
-                    amountCents,
-                    description,
-                    request.getScheduledAt().toString(),
-                    request.getDurationMinutes(),
-                    request.getNotes(),
-                    request.isEmbedded(),
-                    request.getCourseId(),
-                    promoMetadata,
-                    originalAmountCents
-            );
+            Session session;
+            try {
+                session = stripeService.createLessonPaymentSession(
+                        student,
+                        teacher.getId(),
+                        amountCents,
+                        description,
+                        request.getScheduledAt().toString(),
+                        request.getDurationMinutes(),
+                        request.getNotes(),
+                        request.isEmbedded(),
+                        request.getCourseId(),
+                        promoMetadata,
+                        originalAmountCents
+                );
+            } catch (StripeException | RuntimeException e) {
+                if (promoMetadata != null) {
+                    promoCodeService.release(promoMetadata);
+                }
+                throw e;
+            }
 
             CheckoutSessionResponse.CheckoutSessionResponseBuilder responseBuilder = CheckoutSessionResponse.builder()
                     .sessionId(session.getId())
@@ -601,10 +615,11 @@ public class PaymentController {
             payment.setProcessedAt(LocalDateTime.now());
 
             if (promoApplied) {
-                ValidatePromoCodeResponse validation = promoCodeService.validateCode(promoCodeStr, userId, originalAmountCents);
-                if (validation.valid() && validation.discountType() == DiscountType.COMMISSION_REDUCTION) {
+                // The use was reserved at checkout: read the code's terms, not its availability
+                PromoCodeService.PromoCodeSnapshot promo = promoCodeService.findSnapshot(promoCodeStr);
+                if (promo != null && promo.discountType() == DiscountType.COMMISSION_REDUCTION) {
                     int standardCommission = (amountCents * 10) / 100;
-                    int reducedCommission = (int) (standardCommission * (100.0 - validation.discountPercent()) / 100.0);
+                    int reducedCommission = (int) (standardCommission * (100.0 - promo.discountPercent()) / 100.0);
                     int teacherPayout = amountCents - reducedCommission;
                     payment.setAmountWithPromo(amountCents, reducedCommission, teacherPayout);
                 } else {
@@ -618,17 +633,15 @@ public class PaymentController {
             paymentRepository.save(payment);
             log.info("Payment {} created and linked to lesson {} for refund tracking", payment.getId(), lesson.getId());
 
-            // Record promo code usage and referral earning
+            // Record promo code usage (its use was reserved at checkout) and referral earning
             if (promoApplied) {
                 try {
-                    promoCodeService.applyPromoCode(promoCodeStr, userId, lessonResponse.id(), payment.getId(), originalAmountCents);
-                    promoCodeService.recordReferralEarning(userId, lessonResponse.id(), amountCents, payment.getCommissionCents());
+                    promoCodeService.recordUsage(promoCodeStr, userId, lessonResponse.id(), payment.getId(), originalAmountCents);
                 } catch (Exception e) {
                     log.error("Error recording promo code usage", e);
                 }
-            } else {
-                promoCodeService.recordReferralEarning(userId, lessonResponse.id(), amountCents, payment.getCommissionCents());
             }
+            promoCodeService.recordReferralEarning(userId, lessonResponse.id(), amountCents, payment.getCommissionCents());
 
             // Generate invoices
             if (paymentIntentId != null && amountCents > 0) {
@@ -664,7 +677,7 @@ public class PaymentController {
         }
     }
 
-    // Stripe Webhook handler
+    // Stripe Webhook handler: verify and store the event, it is processed asynchronously by StripeEventDispatcher
     @PostMapping("/webhooks/stripe")
     public ResponseEntity<String> handleStripeWebhook(
             @RequestBody String payload,
@@ -679,102 +692,12 @@ public class PaymentController {
             return ResponseEntity.badRequest().body("Invalid signature");
         }
 
-        log.info("Received Stripe webhook: {}", event.getType());
-
-        switch (event.getType()) {
-            case "checkout.session.completed" -> handleCheckoutCompleted(event);
-            case "payment_intent.succeeded" -> handlePaymentIntentSucceeded(event);
-            case "customer.subscription.updated" -> handleSubscriptionUpdated(event);
-            case "customer.subscription.deleted" -> handleSubscriptionDeleted(event);
-            case "invoice.paid" -> handleInvoicePaid(event);
-            case "invoice.payment_failed" -> handlePaymentFailed(event);
-            default -> log.debug("Unhandled event type: {}", event.getType());
-        }
+        log.info("Received Stripe webhook: {} ({})", event.getType(), event.getId());
+        stripeEventInbox.record(event, payload);
 
         return ResponseEntity.ok("Webhook received");
     }
 
-    private void handleCheckoutCompleted(Event event) {
-        try {
-            // Try deserialization, fall back to API retrieval if it fails
-            Session session;
-            var deserializer = event.getDataObjectDeserializer();
-            if (deserializer.getObject().isPresent()) {
-                session = (Session) deserializer.getObject().get();
-            } else {
-                // Deserialization can fail due to Stripe SDK version mismatch — retrieve via API
-                String sessionId = event.getData().getObject().toJson()
-                        .replaceAll(".*\"id\"\\s*:\\s*\"(cs_[^\"]+)\".*", "$1");
-                if (sessionId.startsWith("cs_")) {
-                    log.warn("Webhook deserialization failed, retrieving session {} via API", sessionId);
-                    session = stripeService.retrieveSession(sessionId);
-                } else {
-                    log.error("Failed to deserialize session and could not extract session ID from webhook");
-                    return;
-                }
-            }
-
-            String mode = session.getMode();
-            Map<String, String> metadata = session.getMetadata();
-
-            if ("subscription".equals(mode)) {
-                Long userId = Long.parseLong(metadata.get("user_id"));
-                String planStr = metadata.get("plan");
-                if (planStr == null) {
-                    log.error("Missing plan in subscription webhook metadata");
-                    return;
-                }
-                SubscriptionPlan plan;
-                try {
-                    plan = SubscriptionPlan.valueOf(planStr);
-                } catch (IllegalArgumentException e) {
-                    log.error("Invalid subscription plan in webhook metadata: {}", planStr);
-                    return;
-                }
-                String stripeSubId = session.getSubscription();
-
-                subscriptionService.activateSubscription(stripeSubId, userId, plan);
-                log.info("Subscription activated for user {} via checkout webhook", userId);
-                // Note: Invoice is generated in confirmSubscriptionPayment endpoint
-            } else if ("payment".equals(mode) && "ONE_TIME_LESSON".equals(metadata.get("type"))) {
-                // Lesson booking is handled by the confirm endpoint (called by frontend after Stripe redirect).
-                // Do NOT book here to avoid double-booking race conditions.
-                log.info("checkout.session.completed for ONE_TIME_LESSON user {} — skipping (handled by confirm endpoint)",
-                        metadata.get("user_id"));
-            }
-        } catch (Exception e) {
-            log.error("Error handling checkout.session.completed", e);
-        }
-    }
-
-    /**
-     * Handle payment_intent.succeeded event.
-     * Note: Invoices are now generated in the confirm endpoints, not via webhooks.
-     */
-    private void handlePaymentIntentSucceeded(Event event) {
-        log.info("PaymentIntent succeeded event received - invoices will be generated via confirm endpoint");
-    }
-
-    private void handleSubscriptionUpdated(Event event) {
-        log.info("Subscription updated event received");
-        // Handle plan changes, status updates, etc.
-    }
-
-    private void handleSubscriptionDeleted(Event event) {
-        log.info("Subscription deleted event received");
-        // Handle subscription cancellation from Stripe side
-    }
-
-    private void handleInvoicePaid(Event event) {
-        log.info("Invoice paid event received");
-        // Handle recurring payment success
-    }
-
-    private void handlePaymentFailed(Event event) {
-        log.warn("Payment failed event received");
-        // Handle failed payment - notify user, retry logic, etc.
-    }
-
     // Admin endpoint to clean up duplicate subscriptions
     @PostMapping("/admin/cleanup-subscriptions")
     public ResponseEntity<Map<String, Object>> cleanupDuplicateSubscriptions() {
@@ -100,7 +100,8 @@ public class StripeConnectController {
     }
 
     /**
-     * Get Stripe Connect account status for a teacher.
+     * Get Stripe Connect account status for a teacher, from the local account snapshot
+     * (refreshed from Stripe while the account is not ready).
      */
     @GetMapping("/status")
     @PreAuthorize("hasRole('TEACHER')")
@@ -140,14 +141,6 @@ public class StripeConnectController {
                     "message", status.isReady() ? "Compte pret a recevoir des paiements" : "Configuration en cours"
             ));
 
-        } catch (StripeException e) {
-            log.error("Stripe error getting account status", e);
-            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(Map.of(
-                    "connected", false,
-                    "accountExists", false,
-                    "isReady", false,
-                    "message", "Erreur de communication avec Stripe"
-            ));
         } catch (Exception e) {
             log.error("Error getting Stripe Connect status", e);
             return ResponseEntity.badRequest().body(Map.of(
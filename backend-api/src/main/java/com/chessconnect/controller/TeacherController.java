@@ -7,6 +7,7 @@ import com.chessconnect.model.enums.UserRole;
 import com.chessconnect.repository.AvailabilityRepository;
 import com.chessconnect.repository.LessonRepository;
 import com.chessconnect.repository.UserRepository;
+import com.chessconnect.service.AvatarImageService;
 import com.chessconnect.service.RatingService;
 import com.chessconnect.service.TeacherBalanceService;
 import org.springframework.http.ResponseEntity;
@@ -70,7 +71,7 @@ public class TeacherController {
         User teacher = userRepository.findById(id)
                 .filter(u -> u.getRole() == UserRole.TEACHER)
                 .orElseThrow(() -> new RuntimeException("Teacher not found"));
-        return ResponseEntity.ok(mapToResponse(teacher));
+        return ResponseEntity.ok(mapToResponse(teacher, AvatarImageService.DEFAULT_SIZE));
     }
 
     @GetMapping("/uuid/{uuid}")
@@ -78,7 +79,7 @@ public class TeacherController {
         User teacher = userRepository.findByUuid(uuid)
                 .filter(u -> u.getRole() == UserRole.TEACHER)
                 .orElseThrow(() -> new RuntimeException("Teacher not found"));
-        return ResponseEntity.ok(mapToResponse(teacher));
+        return ResponseEntity.ok(mapToResponse(teacher, AvatarImageService.DEFAULT_SIZE));
     }
 
     @GetMapping("/search")
@@ -130,6 +131,11 @@ public class TeacherController {
     public record MigrationResponse(int lessonsProcessed, String message) {}
 
     private TeacherResponse mapToResponse(User teacher) {
+        // Listing cards only need the small avatar variant
+        return mapToResponse(teacher, AvatarImageService.CARD_SIZE);
+    }
+
+    private TeacherResponse mapToResponse(User teacher, int avatarSize) {
         // Parse languages from comma-separated string to List
         List<String> languagesList = teacher.getLanguages() != null && !teacher.getLanguages().isEmpty()
                 ? List.of(teacher.getLanguages().split(","))
@@ -151,7 +157,7 @@ public class TeacherController {
                 teacher.getHourlyRateCents(),
                 teacher.getAcceptsSubscription(),
                 teacher.getBio(),
-                teacher.getAvatarUrl(),
+                AvatarImageService.variantUrl(teacher.getAvatarUrl(), avatarSize),
                 languagesList,
                 averageRating,
                 reviewCount,
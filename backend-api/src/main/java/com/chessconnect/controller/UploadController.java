@@ -2,6 +2,7 @@ package com.chessconnect.controller;
 
 import com.chessconnect.model.User;
 import com.chessconnect.repository.UserRepository;
+import com.chessconnect.service.AvatarImageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,11 +17,9 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/upload")
@@ -49,12 +48,14 @@ public class UploadController {
     private static final byte[] WEBP_MAGIC = new byte[] { 0x52, 0x49, 0x46, 0x46 }; // RIFF header
 
     private final UserRepository userRepository;
+    private final AvatarImageService avatarImageService;
 
     @Value("${app.upload.dir:uploads}")
     private String uploadDir;
 
-    public UploadController(UserRepository userRepository) {
+    public UploadController(UserRepository userRepository, AvatarImageService avatarImageService) {
         this.userRepository = userRepository;
+        this.avatarImageService = avatarImageService;
     }
 
     @PostMapping("/avatar")
@@ -97,33 +98,25 @@ public class UploadController {
                 return ResponseEntity.badRequest().body(Map.of("message", "Le fichier ne semble pas etre une image valide"));
             }
 
-            // Create upload directory if not exists
-            Path uploadPath = Paths.get(uploadDir, "avatars");
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
+            // Decode once and write the resized, content-addressed variants
+            String avatarUrl;
+            try {
+                avatarUrl = avatarImageService.storeAvatar(file.getBytes());
+            } catch (AvatarImageService.ImageTooLargeException e) {
+                log.warn("Upload rejected - {} for user {}", e.getMessage(), user.getId());
+                return ResponseEntity.badRequest().body(Map.of("message", "L'image est trop grande (24 megapixels maximum)"));
+            } catch (IOException e) {
+                log.warn("Upload rejected - image could not be decoded for user {}: {}", user.getId(), e.getMessage());
+                return ResponseEntity.badRequest().body(Map.of("message", "Le fichier ne semble pas etre une image valide"));
             }
 
             // Delete old avatar if exists
             String oldAvatarUrl = user.getAvatarUrl();
-            if (oldAvatarUrl != null && oldAvatarUrl.contains("/uploads/avatars/")) {
-                String oldFileName = oldAvatarUrl.substring(oldAvatarUrl.lastIndexOf("/") + 1);
-                // Validate filename to prevent path traversal
-                if (isValidFilename(oldFileName)) {
-                    Path oldFilePath = uploadPath.resolve(oldFileName);
-                    Files.deleteIfExists(oldFilePath);
-                }
+            if (oldAvatarUrl != null && !oldAvatarUrl.equals(avatarUrl)) {
+                deleteAvatarFiles(oldAvatarUrl, user.getId());
             }
 
-            // Generate unique filename with sanitized extension
-            String safeExtension = extension.toLowerCase();
-            String newFilename = UUID.randomUUID().toString() + safeExtension;
-
-            // Save file
-            Path filePath = uploadPath.resolve(newFilename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
             // Update user avatar URL (relative path, served by nginx)
-            String avatarUrl = "/api/uploads/avatars/" + newFilename;
             user.setAvatarUrl(avatarUrl);
             userRepository.save(user);
 
@@ -149,13 +142,8 @@ public class UploadController {
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
             String avatarUrl = user.getAvatarUrl();
-            if (avatarUrl != null && avatarUrl.contains("/uploads/avatars/")) {
-                String fileName = avatarUrl.substring(avatarUrl.lastIndexOf("/") + 1);
-                // Validate filename to prevent path traversal attacks
-                if (isValidFilename(fileName)) {
-                    Path filePath = Paths.get(uploadDir, "avatars", fileName);
-                    Files.deleteIfExists(filePath);
-                }
+            if (avatarUrl != null) {
+                deleteAvatarFiles(avatarUrl, user.getId());
             }
 
             user.setAvatarUrl(null);
@@ -173,6 +161,28 @@ public class UploadController {
         }
     }
 
+    /**
+     * Delete the files behind an avatar URL. Content-addressed variants may be shared
+     * by several users uploading the same image, so they are kept while still referenced.
+     */
+    private void deleteAvatarFiles(String avatarUrl, Long userId) throws IOException {
+        if (!avatarUrl.contains("/uploads/avatars/")) {
+            return;
+        }
+        if (AvatarImageService.isVariantUrl(avatarUrl)) {
+            if (!userRepository.existsByAvatarUrlAndIdNot(avatarUrl, userId)) {
+                avatarImageService.deleteVariants(avatarUrl);
+            }
+            return;
+        }
+        // Legacy single-file avatar
+        String fileName = avatarUrl.substring(avatarUrl.lastIndexOf("/") + 1);
+        // Validate filename to prevent path traversal attacks
+        if (isValidFilename(fileName)) {
+            Files.deleteIfExists(Paths.get(uploadDir, "avatars", fileName));
+        }
+    }
+
     /**
      * Validate file by checking magic number (file signature).
      * This prevents attackers from uploading malicious files with spoofed extensions.
@@ -1,12 +1,8 @@
 package com.chessconnect.controller;
 
-import com.chessconnect.model.Lesson;
-import com.chessconnect.model.User;
-import com.chessconnect.model.VideoWatchProgress;
-import com.chessconnect.repository.LessonRepository;
-import com.chessconnect.repository.UserRepository;
-import com.chessconnect.repository.VideoWatchProgressRepository;
 import com.chessconnect.security.UserDetailsImpl;
+import com.chessconnect.service.LessonAccessService;
+import com.chessconnect.service.VideoProgressService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
@@ -18,17 +14,14 @@ import java.util.Optional;
 @RequestMapping("/video-progress")
 public class VideoProgressController {
 
-    private final VideoWatchProgressRepository progressRepository;
-    private final LessonRepository lessonRepository;
-    private final UserRepository userRepository;
+    private final VideoProgressService progressService;
+    private final LessonAccessService lessonAccessService;
 
     public VideoProgressController(
-            VideoWatchProgressRepository progressRepository,
-            LessonRepository lessonRepository,
-            UserRepository userRepository) {
-        this.progressRepository = progressRepository;
-        this.lessonRepository = lessonRepository;
-        this.userRepository = userRepository;
+            VideoProgressService progressService,
+            LessonAccessService lessonAccessService) {
+        this.progressService = progressService;
+        this.lessonAccessService = lessonAccessService;
     }
 
     @GetMapping("/{lessonId}")
@@ -40,7 +33,7 @@ public class VideoProgressController {
             return ResponseEntity.status(401).body(Map.of("error", "Non authentifie"));
         }
 
-        Optional<VideoWatchProgress> progress = progressRepository.findByUserIdAndLessonId(userDetails.getId(), lessonId);
+        Optional<VideoProgressService.Progress> progress = progressService.get(userDetails.getId(), lessonId);
 
         if (progress.isEmpty()) {
             return ResponseEntity.ok(Map.of(
@@ -51,13 +44,13 @@ public class VideoProgressController {
             ));
         }
 
-        VideoWatchProgress p = progress.get();
+        VideoProgressService.Progress p = progress.get();
         return ResponseEntity.ok(Map.of(
             "lessonId", lessonId,
-            "watchPosition", p.getWatchPosition(),
-            "duration", p.getDuration() != null ? p.getDuration() : 0,
-            "completed", p.getCompleted(),
-            "updatedAt", p.getUpdatedAt().toString()
+            "watchPosition", p.watchPosition(),
+            "duration", p.duration() != null ? p.duration() : 0,
+            "completed", p.completed(),
+            "updatedAt", p.updatedAt().toString()
         ));
     }
 
@@ -71,17 +64,14 @@ public class VideoProgressController {
             return ResponseEntity.status(401).body(Map.of("error", "Non authentifie"));
         }
 
-        // Verify the lesson exists and user has access
-        Optional<Lesson> lessonOpt = lessonRepository.findById(lessonId);
-        if (lessonOpt.isEmpty()) {
-            return ResponseEntity.status(404).body(Map.of("error", "Cours non trouve"));
-        }
-
-        Lesson lesson = lessonOpt.get();
-        // Check if user is the student or teacher of this lesson
-        if (!lesson.getStudent().getId().equals(userDetails.getId()) &&
-            !lesson.getTeacher().getId().equals(userDetails.getId())) {
-            return ResponseEntity.status(403).body(Map.of("error", "Acces non autorise"));
+        // Verify the lesson exists and user has access (cached lookup, called on every player tick)
+        switch (lessonAccessService.getAccess(lessonId, userDetails.getId())) {
+            case NOT_FOUND:
+                return ResponseEntity.status(404).body(Map.of("error", "Cours non trouve"));
+            case DENIED:
+                return ResponseEntity.status(403).body(Map.of("error", "Acces non autorise"));
+            default:
+                break;
         }
 
         Double watchPosition = body.get("watchPosition") != null
@@ -94,26 +84,14 @@ public class VideoProgressController {
             ? (Boolean) body.get("completed")
             : false;
 
-        // Find existing or create new progress
-        VideoWatchProgress progress = progressRepository
-            .findByUserIdAndLessonId(userDetails.getId(), lessonId)
-            .orElseGet(() -> {
-                User user = userRepository.findById(userDetails.getId()).orElseThrow();
-                return new VideoWatchProgress(user, lesson);
-            });
-
-        progress.setWatchPosition(watchPosition);
-        if (duration != null) {
-            progress.setDuration(duration);
-        }
-        progress.setCompleted(completed);
-
-        progressRepository.save(progress);
+        // Buffered in memory, flushed to the database in batches
+        VideoProgressService.Progress progress = progressService.save(
+            userDetails.getId(), lessonId, watchPosition, duration, completed);
 
         return ResponseEntity.ok(Map.of(
             "success", true,
             "lessonId", lessonId,
-            "watchPosition", progress.getWatchPosition()
+            "watchPosition", progress.watchPosition()
         ));
     }
 
@@ -126,7 +104,7 @@ public class VideoProgressController {
             return ResponseEntity.status(401).body(Map.of("error", "Non authentifie"));
         }
 
-        progressRepository.deleteByUserIdAndLessonId(userDetails.getId(), lessonId);
+        progressService.delete(userDetails.getId(), lessonId);
 
         return ResponseEntity.ok(Map.of("success", true));
     }
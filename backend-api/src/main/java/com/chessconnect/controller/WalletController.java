@@ -220,6 +220,8 @@ public class WalletController {
             @AuthenticationPrincipal UserDetailsImpl userDetails,
             @Valid @RequestBody BookWithCreditRequest request
     ) {
+        // Set while a promo code use is held for this booking and not yet recorded
+        String reservedPromoCode = null;
         try {
             Long userId = userDetails.getId();
 
@@ -245,6 +247,9 @@ public class WalletController {
                 if (promoValidation.discountType() == DiscountType.STUDENT_DISCOUNT) {
                     lessonPrice = promoValidation.finalPriceCents();
                 }
+                // Take the use before the wallet is debited: a code with no use left refuses the booking
+                promoCodeService.reserve(promoCode, userId);
+                reservedPromoCode = promoCode;
             }
 
             // Atomically check and deduct credit (pessimistic lock prevents race condition)
@@ -294,17 +299,16 @@ public class WalletController {
             }
             paymentRepository.save(payment);
 
-            // Record promo code usage and referral earning
+            // The lesson is paid at the discounted price: the reserved use is spent
+            reservedPromoCode = null;
             if (promoApplied) {
                 try {
-                    promoCodeService.applyPromoCode(promoCode, userId, lessonResponse.id(), payment.getId(), originalPrice);
-                    promoCodeService.recordReferralEarning(userId, lessonResponse.id(), lessonPrice, payment.getCommissionCents());
+                    promoCodeService.recordUsage(promoCode, userId, lessonResponse.id(), payment.getId(), originalPrice);
                 } catch (Exception e) {
                     log.error("Error recording promo code usage", e);
                 }
-            } else {
-                promoCodeService.recordReferralEarning(userId, lessonResponse.id(), lessonPrice, payment.getCommissionCents());
             }
+            promoCodeService.recordReferralEarning(userId, lessonResponse.id(), lessonPrice, payment.getCommissionCents());
 
             // Generate invoice
             invoiceService.generateInvoicesForCreditPayment(
@@ -325,6 +329,9 @@ public class WalletController {
 
         } catch (RuntimeException e) {
             log.error("Error booking lesson with credit", e);
+            if (reservedPromoCode != null) {
+                promoCodeService.release(reservedPromoCode);
+            }
             return ResponseEntity.badRequest().body(Map.of(
                     "success", false,
                     "error", e.getMessage()
@@ -0,0 +1,56 @@
+package com.chessconnect.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing. No total count is computed:
+ * the client keeps requesting with {@code nextCursor} until it is null.
+ */
+public record CursorPage<T>(
+    List<T> items,
+    String nextCursor
+) {
+
+    /**
+     * Build a page from rows fetched with {@code limit + 1}: the extra row only tells
+     * whether another page exists and is dropped from the result.
+     */
+    public static <R, T> CursorPage<T> of(List<R> rows, int limit, Function<R, Cursor> cursorOf, Function<R, T> mapper) {
+        boolean hasMore = rows.size() > limit;
+        List<R> pageRows = hasMore ? rows.subList(0, limit) : rows;
+        String next = hasMore ? cursorOf.apply(pageRows.get(pageRows.size() - 1)).encode() : null;
+        return new CursorPage<>(pageRows.stream().map(mapper).toList(), next);
+    }
+
+    /**
+     * Position after the last row of a page, ordered by (timestamp DESC, id DESC).
+     */
+    public record Cursor(LocalDateTime at, Long id) {
+
+        public String encode() {
+            String raw = at + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Decode an opaque cursor. A null or blank value means "first page".
+         */
+        public static Cursor decode(String value) {
+            if (value == null || value.isBlank()) {
+                return new Cursor(null, null);
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Curseur de pagination invalide");
+            }
+        }
+    }
+}
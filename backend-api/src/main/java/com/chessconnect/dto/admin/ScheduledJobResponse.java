@@ -0,0 +1,20 @@
+package com.chessconnect.dto.admin;
+
+import java.time.LocalDateTime;
+
+/**
+ * One @Scheduled job as seen by the admin scheduler view.
+ * For cluster-locked jobs the last run is the latest one on any node.
+ */
+public record ScheduledJobResponse(
+        String name,
+        String trigger,
+        boolean clusterLocked,
+        LocalDateTime lastStartedAt,
+        Long lastDurationMs,
+        String lastStatus,
+        String lastError,
+        String lastNode,
+        LocalDateTime lockedUntil,
+        LocalDateTime nextFireAt
+) {}
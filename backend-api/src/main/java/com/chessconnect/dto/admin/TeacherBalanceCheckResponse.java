@@ -0,0 +1,26 @@
+package com.chessconnect.dto.admin;
+
+import java.util.List;
+
+/**
+ * Stored teacher balances compared with what their credited lessons add up to.
+ * Only teachers whose stored balance differs are listed.
+ */
+public record TeacherBalanceCheckResponse(
+        int teachersChecked,
+        List<Discrepancy> discrepancies
+) {
+    /**
+     * A teacher whose stored totals don't match the recomputed ones.
+     * Stored values are null when the teacher has no balance row yet.
+     */
+    public record Discrepancy(
+            Long teacherId,
+            Integer storedTotalEarnedCents,
+            int computedTotalEarnedCents,
+            Integer storedAvailableBalanceCents,
+            int expectedAvailableBalanceCents,
+            Integer storedLessonsCompleted,
+            int computedLessonsCompleted
+    ) {}
+}
@@ -0,0 +1,64 @@
+package com.chessconnect.dto.payment;
+
+import com.chessconnect.repository.projection.InvoiceListView;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Invoice as listed to users and admins. Same fields as the invoice detail response,
+ * built from an {@link InvoiceListView} row.
+ */
+public record InvoiceSummaryResponse(
+        Long id,
+        String invoiceNumber,
+        String invoiceType,
+        @JsonProperty("isReceived") boolean isReceived,
+        String issuerName,
+        String customerName,
+        String description,
+        int subtotalCents,
+        int vatCents,
+        int totalCents,
+        int vatRate,
+        double commissionRate,
+        boolean promoApplied,
+        String status,
+        boolean hasPdf,
+        String issuedAt,
+        String createdAt,
+        Long lessonId
+) {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    /**
+     * @param currentUserId the user viewing the list, or null for the admin view
+     */
+    public static InvoiceSummaryResponse from(InvoiceListView row, Long currentUserId) {
+        return new InvoiceSummaryResponse(
+                row.getId(),
+                row.getInvoiceNumber() != null ? row.getInvoiceNumber() : "",
+                row.getInvoiceType() != null ? row.getInvoiceType() : "",
+                currentUserId != null && currentUserId.equals(row.getCustomerId()),
+                row.getIssuerName(),
+                row.getCustomerName(),
+                row.getDescription() != null ? row.getDescription() : "",
+                row.getSubtotalCents() != null ? row.getSubtotalCents() : 0,
+                row.getVatCents() != null ? row.getVatCents() : 0,
+                row.getTotalCents() != null ? row.getTotalCents() : 0,
+                row.getVatRate() != null ? row.getVatRate() : 0,
+                row.getCommissionRate() != null ? row.getCommissionRate() : 0,
+                Boolean.TRUE.equals(row.getPromoApplied()),
+                row.getStatus() != null ? row.getStatus() : "",
+                true, // PDFs can now be generated on-demand
+                format(row.getIssuedAt()),
+                format(row.getCreatedAt()),
+                row.getLessonId()
+        );
+    }
+
+    private static String format(LocalDateTime date) {
+        return date != null ? date.format(FORMATTER) : "";
+    }
+}
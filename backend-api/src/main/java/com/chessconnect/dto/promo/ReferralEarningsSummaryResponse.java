@@ -0,0 +1,17 @@
+package com.chessconnect.dto.promo;
+
+import java.util.List;
+
+public record ReferralEarningsSummaryResponse(
+        long earningsCount,
+        long totalEarnedCents,
+        long unpaidCents,
+        List<MonthlyEarnings> months
+) {
+    public record MonthlyEarnings(
+            String month,
+            long earningsCount,
+            long earnedCents,
+            long unpaidCents
+    ) {}
+}
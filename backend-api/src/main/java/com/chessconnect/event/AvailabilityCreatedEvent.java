@@ -0,0 +1,13 @@
+package com.chessconnect.event;
+
+/**
+ * Published when a teacher creates an availability. Subscribers are notified
+ * once the creating transaction has committed.
+ */
+public record AvailabilityCreatedEvent(
+    Long teacherId,
+    String teacherName,
+    Long availabilityId,
+    String availabilityInfo,
+    String timeRange
+) {}
@@ -13,7 +13,8 @@ public class NotificationEvent extends ApplicationEvent {
         LESSON_STATUS_CHANGED,    // Lesson PENDING -> CONFIRMED, CANCELLED, etc.
         LESSON_BOOKED,            // New lesson booking (for teachers)
         AVAILABILITY_CREATED,     // Teacher added availability (for subscribed students)
-        TEACHER_JOINED_CALL       // Teacher joined video call (for students)
+        TEACHER_JOINED_CALL,      // Teacher joined video call (for students)
+        UNREAD_COUNT_CHANGED      // Unread notification counter changed (badge)
     }
 
     private final EventType eventType;
@@ -1,6 +1,6 @@
 package com.chessconnect.event;
 
-import com.chessconnect.service.SseConnectionManager;
+import com.chessconnect.event.cluster.ClusterSseRouter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.event.EventListener;
@@ -8,17 +8,18 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 /**
- * Listens for NotificationEvents and dispatches them to connected SSE clients.
+ * Listens for NotificationEvents and dispatches them to connected SSE clients,
+ * on this node or on whichever node holds the user's connection.
  */
 @Component
 public class NotificationEventListener {
 
     private static final Logger log = LoggerFactory.getLogger(NotificationEventListener.class);
 
-    private final SseConnectionManager sseConnectionManager;
+    private final ClusterSseRouter sseRouter;
 
-    public NotificationEventListener(SseConnectionManager sseConnectionManager) {
-        this.sseConnectionManager = sseConnectionManager;
+    public NotificationEventListener(ClusterSseRouter sseRouter) {
+        this.sseRouter = sseRouter;
     }
 
     @EventListener
@@ -29,7 +30,7 @@ public class NotificationEventListener {
 
         if (userId != null) {
             // Send to specific user
-            sseConnectionManager.sendToUser(userId, eventName, event.getPayload());
+            sseRouter.sendToUser(userId, eventName, event.getPayload());
             log.debug("Dispatched {} event to user {}", eventName, userId);
         }
     }
@@ -41,6 +42,7 @@ public class NotificationEventListener {
             case LESSON_BOOKED -> "lesson_booked";
             case AVAILABILITY_CREATED -> "availability";
             case TEACHER_JOINED_CALL -> "teacher_joined";
+            case UNREAD_COUNT_CHANGED -> "unread_count";
         };
     }
 }
@@ -0,0 +1,37 @@
+package com.chessconnect.event.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Transport between API nodes. Messages are small JSON strings; a node can address
+ * a single other node or every node at once.
+ *
+ * Implementations: {@link PostgresClusterMessageBus} (LISTEN/NOTIFY, production)
+ * and {@link LocalClusterMessageBus} (in-JVM, single node and tests).
+ */
+public interface ClusterMessageBus {
+
+    /**
+     * Maximum message size accepted by {@link #sendToNode} and {@link #broadcast}.
+     * Postgres rejects NOTIFY payloads of 8000 bytes or more.
+     */
+    int MAX_MESSAGE_BYTES = 7500;
+
+    /**
+     * Identifier of this node, unique for the lifetime of the process.
+     */
+    String nodeId();
+
+    void sendToNode(String nodeId, String message);
+
+    /**
+     * Send to every node, including this one.
+     */
+    void broadcast(String message);
+
+    /**
+     * Register a handler for messages addressed to this node or broadcast. Every handler
+     * sees every message and ignores the types it doesn't own.
+     */
+    void addListener(Consumer<String> listener);
+}
@@ -0,0 +1,293 @@
+package com.chessconnect.event.cluster;
+
+import com.chessconnect.service.SseConnectionManager;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes SSE events to whichever API node holds the target user's connection.
+ *
+ * Each node keeps a presence table of the users connected to the other nodes,
+ * fed by connect/disconnect deltas and periodic snapshots over the {@link ClusterMessageBus}.
+ * Events for local users are sent directly; events for remote users are queued,
+ * compacted per user (identical events collapse) and sent in batches to the owning node only.
+ */
+@Component
+public class ClusterSseRouter implements SseConnectionManager.PresenceListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterSseRouter.class);
+
+    static final long FLUSH_INTERVAL_MS = 100;
+    static final long SNAPSHOT_INTERVAL_SECONDS = 30;
+    // A remote node's entries expire if it stops sending snapshots (crash, network split)
+    static final long PRESENCE_TTL_SECONDS = 90;
+    private static final int SNAPSHOT_CHUNK_SIZE = 500;
+
+    private record Outgoing(String nodeId, Long userId, String eventName, JsonNode data) {}
+
+    private final SseConnectionManager connectionManager;
+    private final ClusterMessageBus bus;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+
+    // nodeId -> (userId -> last time the node reported that user)
+    private final Map<String, Map<Long, Instant>> remotePresence = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Outgoing> outgoing = new ConcurrentLinkedQueue<>();
+
+    private volatile ScheduledExecutorService scheduler;
+
+    public ClusterSseRouter(SseConnectionManager connectionManager, ClusterMessageBus bus, ObjectMapper objectMapper, Clock clock) {
+        this.connectionManager = connectionManager;
+        this.bus = bus;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        bus.addListener(this::onMessage);
+        connectionManager.addPresenceListener(this);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cluster-sse");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::publishSnapshot, 0, SNAPSHOT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        // Ask the other nodes for their presence right away instead of waiting for the next snapshot
+        bus.broadcast(message("hello").toString());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        flush();
+        // Let the other nodes drop our users immediately
+        ObjectNode goodbye = message("goodbye");
+        bus.broadcast(goodbye.toString());
+    }
+
+    /**
+     * Deliver an event to a user wherever they are connected.
+     */
+    public void sendToUser(Long userId, String eventName, Object payload) {
+        if (connectionManager.hasConnection(userId)) {
+            connectionManager.sendToUser(userId, eventName, payload);
+        }
+        List<String> nodes = remoteNodesFor(userId);
+        if (nodes.isEmpty()) {
+            return;
+        }
+        JsonNode data = objectMapper.valueToTree(payload);
+        for (String nodeId : nodes) {
+            outgoing.add(new Outgoing(nodeId, userId, eventName, data));
+        }
+    }
+
+    /**
+     * Whether the user has an SSE connection on this node or any other node.
+     */
+    public boolean isConnected(Long userId) {
+        return connectionManager.hasConnection(userId) || !remoteNodesFor(userId).isEmpty();
+    }
+
+    private List<String> remoteNodesFor(Long userId) {
+        Instant cutoff = clock.instant().minusSeconds(PRESENCE_TTL_SECONDS);
+        List<String> nodes = new ArrayList<>(1);
+        for (Map.Entry<String, Map<Long, Instant>> node : remotePresence.entrySet()) {
+            Instant seen = node.getValue().get(userId);
+            if (seen != null && seen.isAfter(cutoff)) {
+                nodes.add(node.getKey());
+            }
+        }
+        return nodes;
+    }
+
+    // ===== Presence =====
+
+    @Override
+    public void onUserConnected(Long userId) {
+        ObjectNode msg = message("online");
+        msg.putArray("users").add(userId);
+        broadcastPresence(msg.toString());
+    }
+
+    @Override
+    public void onUserDisconnected(Long userId) {
+        ObjectNode msg = message("offline");
+        msg.putArray("users").add(userId);
+        broadcastPresence(msg.toString());
+    }
+
+    // Connects and disconnects happen on request threads; the broadcast is a database round trip
+    // on Postgres, so it goes through the router's single thread, which also keeps deltas in order
+    private void broadcastPresence(String message) {
+        ScheduledExecutorService executor = scheduler;
+        if (executor != null) {
+            try {
+                executor.execute(() -> bus.broadcast(message));
+                return;
+            } catch (RejectedExecutionException e) {
+                // Shutting down: send it from the caller
+            }
+        }
+        bus.broadcast(message);
+    }
+
+    void publishSnapshot() {
+        try {
+            List<Long> users = new ArrayList<>(connectionManager.getConnectedUserIds());
+            for (int i = 0; i < users.size(); i += SNAPSHOT_CHUNK_SIZE) {
+                ObjectNode msg = message("online");
+                ArrayNode array = msg.putArray("users");
+                users.subList(i, Math.min(i + SNAPSHOT_CHUNK_SIZE, users.size())).forEach(array::add);
+                bus.broadcast(msg.toString());
+            }
+            expireStalePresence();
+        } catch (Exception e) {
+            log.warn("Failed to publish presence snapshot: {}", e.getMessage());
+        }
+    }
+
+    private void expireStalePresence() {
+        Instant cutoff = clock.instant().minusSeconds(PRESENCE_TTL_SECONDS);
+        remotePresence.values().forEach(users -> users.values().removeIf(seen -> seen.isBefore(cutoff)));
+        remotePresence.values().removeIf(Map::isEmpty);
+    }
+
+    // ===== Outgoing events =====
+
+    /**
+     * Drain the queue, collapse duplicate events per user and send one batch per target node.
+     */
+    void flush() {
+        if (outgoing.isEmpty()) {
+            return;
+        }
+        // nodeId -> userId -> distinct (eventName, data) in arrival order
+        Map<String, Map<Long, Set<Map.Entry<String, JsonNode>>>> byNode = new LinkedHashMap<>();
+        int drained = 0;
+        Outgoing event;
+        while ((event = outgoing.poll()) != null) {
+            drained++;
+            byNode.computeIfAbsent(event.nodeId(), k -> new LinkedHashMap<>())
+                  .computeIfAbsent(event.userId(), k -> new LinkedHashSet<>())
+                  .add(Map.entry(event.eventName(), event.data()));
+        }
+
+        int sent = 0;
+        for (Map.Entry<String, Map<Long, Set<Map.Entry<String, JsonNode>>>> node : byNode.entrySet()) {
+            sent += sendBatches(node.getKey(), node.getValue());
+        }
+        log.debug("Forwarded {} SSE events ({} after compaction) to {} node(s)", drained, sent, byNode.size());
+    }
+
+    private int sendBatches(String nodeId, Map<Long, Set<Map.Entry<String, JsonNode>>> eventsByUser) {
+        int count = 0;
+        ObjectNode batch = message("events");
+        ArrayNode events = batch.putArray("events");
+        int baseSize = batch.toString().getBytes(StandardCharsets.UTF_8).length;
+        int size = baseSize;
+
+        for (Map.Entry<Long, Set<Map.Entry<String, JsonNode>>> user : eventsByUser.entrySet()) {
+            for (Map.Entry<String, JsonNode> e : user.getValue()) {
+                ObjectNode item = objectMapper.createObjectNode();
+                item.put("u", user.getKey());
+                item.put("e", e.getKey());
+                item.set("d", e.getValue());
+                int itemSize = item.toString().getBytes(StandardCharsets.UTF_8).length + 1;
+                if (baseSize + itemSize > ClusterMessageBus.MAX_MESSAGE_BYTES) {
+                    log.warn("Dropping oversized SSE event '{}' for user {} ({} bytes)", e.getKey(), user.getKey(), itemSize);
+                    continue;
+                }
+                if (size + itemSize > ClusterMessageBus.MAX_MESSAGE_BYTES) {
+                    bus.sendToNode(nodeId, batch.toString());
+                    events.removeAll();
+                    size = baseSize;
+                }
+                events.add(item);
+                size += itemSize;
+                count++;
+            }
+        }
+        if (!events.isEmpty()) {
+            bus.sendToNode(nodeId, batch.toString());
+        }
+        return count;
+    }
+
+    // ===== Incoming messages =====
+
+    void onMessage(String raw) {
+        JsonNode msg;
+        try {
+            msg = objectMapper.readTree(raw);
+        } catch (Exception e) {
+            log.warn("Ignoring malformed cluster message: {}", e.getMessage());
+            return;
+        }
+        String from = msg.path("node").asText();
+        if (from.equals(bus.nodeId())) {
+            return;
+        }
+        switch (msg.path("type").asText()) {
+            case "online" -> {
+                Map<Long, Instant> users = remotePresence.computeIfAbsent(from, k -> new ConcurrentHashMap<>());
+                Instant now = clock.instant();
+                msg.path("users").forEach(u -> users.put(u.asLong(), now));
+            }
+            case "offline" -> {
+                Map<Long, Instant> users = remotePresence.get(from);
+                if (users != null) {
+                    msg.path("users").forEach(u -> users.remove(u.asLong()));
+                }
+            }
+            case "hello" -> publishSnapshot();
+            case "goodbye" -> remotePresence.remove(from);
+            case "events" -> msg.path("events").forEach(e ->
+                connectionManager.sendToUser(e.path("u").asLong(), e.path("e").asText(), e.path("d")));
+            default -> log.debug("Ignoring cluster message of type {}", msg.path("type").asText());
+        }
+    }
+
+    private ObjectNode message(String type) {
+        ObjectNode msg = objectMapper.createObjectNode();
+        msg.put("type", type);
+        msg.put("node", bus.nodeId());
+        return msg;
+    }
+
+    /**
+     * Number of users this node currently believes are connected elsewhere.
+     */
+    public int getRemoteUserCount() {
+        Collection<Map<Long, Instant>> nodes = remotePresence.values();
+        return nodes.stream().mapToInt(Map::size).sum();
+    }
+}
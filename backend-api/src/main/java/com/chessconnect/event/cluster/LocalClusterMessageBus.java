@@ -0,0 +1,83 @@
+package com.chessconnect.event.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-JVM bus. All instances created against the same {@link Network} see each other,
+ * which lets tests run several "nodes" in one process. Delivery is synchronous.
+ */
+public class LocalClusterMessageBus implements ClusterMessageBus {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalClusterMessageBus.class);
+
+    /**
+     * Shared set of nodes that can reach each other.
+     */
+    public static class Network {
+        private final Map<String, LocalClusterMessageBus> nodes = new ConcurrentHashMap<>();
+    }
+
+    private final Network network;
+    private final String nodeId;
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    public LocalClusterMessageBus() {
+        this(new Network());
+    }
+
+    public LocalClusterMessageBus(Network network) {
+        this.network = network;
+        this.nodeId = UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        network.nodes.put(nodeId, this);
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void sendToNode(String targetNodeId, String message) {
+        LocalClusterMessageBus target = network.nodes.get(targetNodeId);
+        if (target == null) {
+            log.debug("Dropping message for unknown node {}", targetNodeId);
+            return;
+        }
+        target.deliver(message);
+    }
+
+    @Override
+    public void broadcast(String message) {
+        network.nodes.values().forEach(node -> node.deliver(message));
+    }
+
+    @Override
+    public void addListener(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove this node from the network, as if the process had stopped.
+     */
+    public void leave() {
+        network.nodes.remove(nodeId);
+    }
+
+    private void deliver(String message) {
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(message);
+            } catch (Exception e) {
+                log.warn("Cluster message handler failed: {}", e.getMessage());
+            }
+        }
+    }
+}
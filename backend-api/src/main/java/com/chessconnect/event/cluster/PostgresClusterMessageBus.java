@@ -0,0 +1,140 @@
+package com.chessconnect.event.cluster;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Cluster bus over Postgres LISTEN/NOTIFY.
+ *
+ * Each node listens on its own channel ({@code cc_node_<nodeId>}) plus a shared
+ * broadcast channel, so directed messages only wake up the node that needs them.
+ * LISTEN runs on a connection opened outside the application pool, so it neither takes
+ * a pooled connection for good nor gets retired under the listener by the pool's max lifetime;
+ * it is re-opened with a backoff if it drops. NOTIFY goes through the pool.
+ */
+public class PostgresClusterMessageBus implements ClusterMessageBus {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresClusterMessageBus.class);
+
+    private static final String BROADCAST_CHANNEL = "cc_broadcast";
+    private static final String NODE_CHANNEL_PREFIX = "cc_node_";
+    private static final int POLL_TIMEOUT_MS = 1000;
+    private static final long MAX_RECONNECT_DELAY_MS = 30_000;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final JdbcTemplate jdbcTemplate;
+    private final String nodeId;
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public PostgresClusterMessageBus(String url, String username, String password, JdbcTemplate jdbcTemplate) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.jdbcTemplate = jdbcTemplate;
+        this.nodeId = UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listenLoop, "cluster-listen");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+        log.info("Cluster bus started on Postgres (node {})", nodeId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void sendToNode(String targetNodeId, String message) {
+        notify(NODE_CHANNEL_PREFIX + targetNodeId, message);
+    }
+
+    @Override
+    public void broadcast(String message) {
+        notify(BROADCAST_CHANNEL, message);
+    }
+
+    @Override
+    public void addListener(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    private void notify(String channel, String message) {
+        try {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, channel, message);
+        } catch (Exception e) {
+            log.warn("NOTIFY on {} failed: {}", channel, e.getMessage());
+        }
+    }
+
+    private void listenLoop() {
+        long reconnectDelay = 1000;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + BROADCAST_CHANNEL);
+                    statement.execute("LISTEN " + NODE_CHANNEL_PREFIX + nodeId);
+                }
+                reconnectDelay = 1000;
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        for (Consumer<String> listener : listeners) {
+                            try {
+                                listener.accept(notification.getParameter());
+                            } catch (Exception e) {
+                                log.warn("Cluster message handler failed: {}", e.getMessage());
+                            }
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cluster LISTEN connection lost ({}), reconnecting in {} ms", e.getMessage(), reconnectDelay);
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY_MS);
+            }
+        }
+    }
+}
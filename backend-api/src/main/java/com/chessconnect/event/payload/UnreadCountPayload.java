@@ -0,0 +1,8 @@
+package com.chessconnect.event.payload;
+
+/**
+ * Payload for unread notification counter updates.
+ */
+public record UnreadCountPayload(
+    long count
+) {}
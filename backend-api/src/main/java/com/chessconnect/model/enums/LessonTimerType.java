@@ -0,0 +1,15 @@
+package com.chessconnect.model.enums;
+
+/**
+ * Lifecycle steps driven by the lesson_timers queue.
+ */
+public enum LessonTimerType {
+    /** Cancel the lesson if the teacher still hasn't confirmed it. */
+    CONFIRMATION_TIMEOUT,
+    /** Remind student and teacher one hour before the start. */
+    REMINDER,
+    /** Close an incomplete group 24h before the start. */
+    GROUP_DEADLINE,
+    /** Complete the lesson once its full duration has elapsed. */
+    AUTO_COMPLETE
+}
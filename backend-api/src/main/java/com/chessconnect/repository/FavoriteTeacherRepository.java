@@ -3,6 +3,8 @@ package com.chessconnect.repository;
 import com.chessconnect.model.FavoriteTeacher;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -23,6 +25,11 @@ public interface FavoriteTeacherRepository extends JpaRepository<FavoriteTeacher
     // Find all students subscribed to notifications for a specific teacher
     List<FavoriteTeacher> findByTeacherIdAndNotifyNewSlotsTrue(Long teacherId);
 
+    // Same, with the student loaded in the same query for notification fan-out
+    @Query("SELECT f FROM FavoriteTeacher f JOIN FETCH f.student " +
+           "WHERE f.teacher.id = :teacherId AND f.notifyNewSlots = true")
+    List<FavoriteTeacher> findSlotSubscribersWithStudent(@Param("teacherId") Long teacherId);
+
     // Count favorites for a teacher
     long countByTeacherId(Long teacherId);
 
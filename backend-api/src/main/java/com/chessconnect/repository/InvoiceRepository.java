@@ -2,6 +2,7 @@ package com.chessconnect.repository;
 
 import com.chessconnect.model.Invoice;
 import com.chessconnect.model.enums.InvoiceType;
+import com.chessconnect.repository.projection.InvoiceListView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,6 +11,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -76,6 +78,73 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     @Query("UPDATE Invoice i SET i.lesson = null WHERE i.lesson.teacher.id = :teacherId")
     void nullifyLessonByTeacherId(@Param("teacherId") Long teacherId);
 
-    // Find all invoices (admin)
-    List<Invoice> findAllByOrderByCreatedAtDesc();
+    // Columns of InvoiceListView. Names fall back to the denormalized copies when the account was deleted.
+    String LIST_VIEW_COLUMNS =
+           "i.id AS id, i.invoice_number AS invoiceNumber, i.invoice_type AS invoiceType, " +
+           "i.customer_id AS customerId, " +
+           "CASE WHEN c.id IS NULL THEN COALESCE(i.customer_name, 'Inconnu') " +
+           "     WHEN TRIM(c.company_name) <> '' THEN c.company_name " +
+           "     ELSE c.first_name || ' ' || c.last_name END AS customerName, " +
+           "CASE WHEN s.id IS NULL THEN COALESCE(i.issuer_name, 'mychess') " +
+           "     ELSE COALESCE(s.company_name, s.first_name || ' ' || s.last_name) END AS issuerName, " +
+           "i.description AS description, i.subtotal_cents AS subtotalCents, i.vat_cents AS vatCents, " +
+           "i.total_cents AS totalCents, i.vat_rate AS vatRate, i.commission_rate AS commissionRate, " +
+           "i.promo_applied AS promoApplied, i.status AS status, i.issued_at AS issuedAt, " +
+           "i.created_at AS createdAt, i.lesson_id AS lessonId, i.pdf_path AS pdfPath ";
+
+    // Keyset page of a user's invoices, received or issued, newest first. Each branch of the
+    // UNION ALL walks its own (customer_id|issuer_id, created_at, id) index and stops at the limit;
+    // an invoice a user issued to themselves is only listed once.
+    @Query(value = "SELECT " + LIST_VIEW_COLUMNS + "FROM (" +
+           "  (SELECT * FROM invoices WHERE customer_id = :userId " +
+           "   AND (CAST(:cursorAt AS TIMESTAMP) IS NULL " +
+           "       OR (created_at, id) < (CAST(:cursorAt AS TIMESTAMP), CAST(:cursorId AS BIGINT))) " +
+           "   ORDER BY created_at DESC, id DESC LIMIT :limit) " +
+           "  UNION ALL " +
+           "  (SELECT * FROM invoices WHERE issuer_id = :userId AND customer_id IS DISTINCT FROM :userId " +
+           "   AND (CAST(:cursorAt AS TIMESTAMP) IS NULL " +
+           "       OR (created_at, id) < (CAST(:cursorAt AS TIMESTAMP), CAST(:cursorId AS BIGINT))) " +
+           "   ORDER BY created_at DESC, id DESC LIMIT :limit)" +
+           ") i " +
+           "LEFT JOIN users c ON c.id = i.customer_id " +
+           "LEFT JOIN users s ON s.id = i.issuer_id " +
+           "ORDER BY i.created_at DESC, i.id DESC " +
+           "LIMIT :limit", nativeQuery = true)
+    List<InvoiceListView> findUserInvoicePage(
+            @Param("userId") Long userId,
+            @Param("cursorAt") LocalDateTime cursorAt,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit
+    );
+
+    // Admin: keyset page of every invoice, newest first
+    @Query(value = "SELECT " + LIST_VIEW_COLUMNS + "FROM invoices i " +
+           "LEFT JOIN users c ON c.id = i.customer_id " +
+           "LEFT JOIN users s ON s.id = i.issuer_id " +
+           "WHERE CAST(:cursorAt AS TIMESTAMP) IS NULL " +
+           "    OR (i.created_at, i.id) < (CAST(:cursorAt AS TIMESTAMP), CAST(:cursorId AS BIGINT)) " +
+           "ORDER BY i.created_at DESC, i.id DESC " +
+           "LIMIT :limit", nativeQuery = true)
+    List<InvoiceListView> findInvoicePage(
+            @Param("cursorAt") LocalDateTime cursorAt,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit
+    );
+
+    // Accounting export: invoices issued in [from, to), oldest first, resuming after (afterAt, afterId)
+    @Query(value = "SELECT " + LIST_VIEW_COLUMNS + "FROM invoices i " +
+           "LEFT JOIN users c ON c.id = i.customer_id " +
+           "LEFT JOIN users s ON s.id = i.issuer_id " +
+           "WHERE i.issued_at >= :from AND i.issued_at < :to " +
+           "AND (CAST(:afterAt AS TIMESTAMP) IS NULL " +
+           "    OR (i.issued_at, i.id) > (CAST(:afterAt AS TIMESTAMP), CAST(:afterId AS BIGINT))) " +
+           "ORDER BY i.issued_at, i.id " +
+           "LIMIT :limit", nativeQuery = true)
+    List<InvoiceListView> findIssuedBetween(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("afterAt") LocalDateTime afterAt,
+            @Param("afterId") Long afterId,
+            @Param("limit") int limit
+    );
 }
@@ -3,6 +3,7 @@ package com.chessconnect.repository;
 import com.chessconnect.model.Lesson;
 import com.chessconnect.model.User;
 import com.chessconnect.model.enums.LessonStatus;
+import com.chessconnect.repository.projection.LibraryVideoView;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -67,24 +68,9 @@ public interface LessonRepository extends JpaRepository<Lesson, Long> {
 
     List<Lesson> findByTeacherIdAndScheduledAtBetween(Long teacherId, LocalDateTime start, LocalDateTime end);
 
-    // For auto-cancellation of unconfirmed lessons
-    List<Lesson> findByStatusAndCreatedAtBefore(LessonStatus status, LocalDateTime dateTime);
-
     // For auto-completion of lessons after 45 minutes
     List<Lesson> findByStatusAndScheduledAtBefore(LessonStatus status, LocalDateTime dateTime);
 
-    // For migration: find completed lessons that haven't been credited yet
-    @Query("SELECT l FROM Lesson l WHERE l.status = 'COMPLETED' AND (l.earningsCredited IS NULL OR l.earningsCredited = false)")
-    List<Lesson> findCompletedLessonsNotCredited();
-
-    // For lesson reminders
-    @Query("SELECT l FROM Lesson l WHERE l.status = :status AND l.scheduledAt BETWEEN :start AND :end AND (l.reminderSent IS NULL OR l.reminderSent = false)")
-    List<Lesson> findLessonsForReminder(
-            @Param("status") LessonStatus status,
-            @Param("start") LocalDateTime start,
-            @Param("end") LocalDateTime end
-    );
-
     // Admin queries
     @Query("SELECT COUNT(l) FROM Lesson l WHERE l.student.id = :userId OR l.teacher.id = :userId")
     Long countByStudentIdOrTeacherId(@Param("userId") Long userId);
@@ -139,16 +125,10 @@ public interface LessonRepository extends JpaRepository<Lesson, Long> {
     @Query("SELECT COUNT(l) FROM Lesson l WHERE (l.student.id = :userId OR l.teacher.id = :userId) AND l.status IN ('PENDING', 'CONFIRMED')")
     Long countActiveLessonsByUserId(@Param("userId") Long userId);
 
-    // Teacher current month earnings
-    @Query("SELECT COALESCE(SUM(l.teacherEarningsCents), 0) FROM Lesson l WHERE l.teacher.id = :teacherId AND l.status = 'COMPLETED' AND l.scheduledAt BETWEEN :start AND :end")
-    Integer sumTeacherEarningsBetween(@Param("teacherId") Long teacherId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
-
-    @Query("SELECT COUNT(l) FROM Lesson l WHERE l.teacher.id = :teacherId AND l.status = 'COMPLETED' AND l.scheduledAt BETWEEN :start AND :end")
-    Integer countTeacherCompletedBetween(@Param("teacherId") Long teacherId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
-
-    // For balance recalculation: find all credited lessons for a teacher
-    @Query("SELECT l FROM Lesson l WHERE l.teacher.id = :teacherId AND l.earningsCredited = true")
-    List<Lesson> findByTeacherIdAndEarningsCreditedTrue(@Param("teacherId") Long teacherId);
+    // Teachers' earnings and completed lesson count over a period, one row per teacher: [teacherId, earningsCents, lessons]
+    @Query("SELECT l.teacher.id, COALESCE(SUM(l.teacherEarningsCents), 0), COUNT(l) FROM Lesson l " +
+           "WHERE l.status = 'COMPLETED' AND l.scheduledAt BETWEEN :start AND :end GROUP BY l.teacher.id")
+    List<Object[]> sumEarningsAndCountCompletedByTeacherBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
     // Admin: Get all past lessons (COMPLETED + CANCELLED) ordered by date desc
     @Query("SELECT l FROM Lesson l WHERE l.status IN ('COMPLETED', 'CANCELLED') ORDER BY l.scheduledAt DESC")
@@ -170,47 +150,72 @@ public interface LessonRepository extends JpaRepository<Lesson, Long> {
     // Library: completed lessons with recordings for a student
     List<Lesson> findByStudentAndStatusAndRecordingUrlIsNotNullOrderByScheduledAtDesc(User student, LessonStatus status);
 
-    // Library: search and filter completed lessons with recordings (includes group lesson participants)
-    @Query(value = "SELECT l.* FROM lessons l " +
+    // Library: keyset page of completed lessons with recordings for a student (includes group lesson participants).
+    // Candidate ids come from two index-friendly branches instead of an OR over an EXISTS subquery.
+    @Query(value = "SELECT l.id AS id, l.scheduled_at AS scheduledAt, l.recording_url AS recordingUrl, " +
+           "l.duration_minutes AS durationMinutes, l.thumbnail_url AS thumbnailUrl, " +
+           "t.first_name AS teacherFirstName, t.last_name AS teacherLastName, t.avatar_url AS teacherAvatar, " +
+           "s.first_name AS studentFirstName, s.last_name AS studentLastName, c.title AS courseTitle " +
+           "FROM lessons l " +
            "JOIN users t ON t.id = l.teacher_id " +
-           "WHERE (l.student_id = :studentId " +
-           "    OR (l.is_group_lesson = true AND EXISTS (" +
-           "        SELECT 1 FROM lesson_participants lp WHERE lp.lesson_id = l.id AND lp.student_id = :studentId AND lp.status = 'ACTIVE'" +
-           "    ))) " +
+           "LEFT JOIN users s ON s.id = l.student_id " +
+           "LEFT JOIN courses c ON c.id = l.course_id " +
+           "WHERE l.id IN (" +
+           "    SELECT ls.id FROM lessons ls WHERE ls.student_id = :studentId " +
+           "    UNION ALL " +
+           "    SELECT lp.lesson_id FROM lesson_participants lp WHERE lp.student_id = :studentId AND lp.status = 'ACTIVE'" +
+           ") " +
+           "AND (l.student_id = :studentId OR l.is_group_lesson = true) " +
            "AND l.status = 'COMPLETED' " +
            "AND l.recording_url IS NOT NULL " +
            "AND (l.deleted_by_student IS NULL OR l.deleted_by_student = false) " +
+           "AND (:includeGroupLessons = true OR l.is_group_lesson IS NOT TRUE) " +
            "AND (CAST(:search AS VARCHAR) IS NULL OR CAST(:search AS VARCHAR) = '' " +
-           "    OR LOWER(t.first_name) LIKE LOWER(CONCAT('%', CAST(:search AS VARCHAR), '%')) " +
-           "    OR LOWER(t.last_name) LIKE LOWER(CONCAT('%', CAST(:search AS VARCHAR), '%'))) " +
+           "    OR LOWER(t.first_name || ' ' || t.last_name) LIKE CONCAT('%', LOWER(CAST(:search AS VARCHAR)), '%')) " +
            "AND (CAST(:dateFrom AS TIMESTAMP) IS NULL OR l.scheduled_at >= CAST(:dateFrom AS TIMESTAMP)) " +
            "AND (CAST(:dateTo AS TIMESTAMP) IS NULL OR l.scheduled_at <= CAST(:dateTo AS TIMESTAMP)) " +
-           "ORDER BY l.scheduled_at DESC", nativeQuery = true)
-    List<Lesson> findLibraryVideos(
+           "AND (CAST(:cursorAt AS TIMESTAMP) IS NULL " +
+           "    OR (l.scheduled_at, l.id) < (CAST(:cursorAt AS TIMESTAMP), CAST(:cursorId AS BIGINT))) " +
+           "ORDER BY l.scheduled_at DESC, l.id DESC " +
+           "LIMIT :limit", nativeQuery = true)
+    List<LibraryVideoView> findLibraryVideoPage(
             @Param("studentId") Long studentId,
+            @Param("includeGroupLessons") boolean includeGroupLessons,
             @Param("search") String search,
             @Param("dateFrom") LocalDateTime dateFrom,
-            @Param("dateTo") LocalDateTime dateTo
+            @Param("dateTo") LocalDateTime dateTo,
+            @Param("cursorAt") LocalDateTime cursorAt,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit
     );
 
-    // Admin Library: ALL completed lessons with recordings (no student filter)
-    @Query(value = "SELECT l.* FROM lessons l " +
+    // Admin Library: keyset page of ALL completed lessons with recordings (no student filter)
+    @Query(value = "SELECT l.id AS id, l.scheduled_at AS scheduledAt, l.recording_url AS recordingUrl, " +
+           "l.duration_minutes AS durationMinutes, l.thumbnail_url AS thumbnailUrl, " +
+           "t.first_name AS teacherFirstName, t.last_name AS teacherLastName, t.avatar_url AS teacherAvatar, " +
+           "s.first_name AS studentFirstName, s.last_name AS studentLastName, c.title AS courseTitle " +
+           "FROM lessons l " +
            "JOIN users t ON t.id = l.teacher_id " +
            "LEFT JOIN users s ON s.id = l.student_id " +
+           "LEFT JOIN courses c ON c.id = l.course_id " +
            "WHERE l.status = 'COMPLETED' " +
            "AND l.recording_url IS NOT NULL " +
            "AND (CAST(:search AS VARCHAR) IS NULL OR CAST(:search AS VARCHAR) = '' " +
-           "    OR LOWER(t.first_name) LIKE LOWER(CONCAT('%', CAST(:search AS VARCHAR), '%')) " +
-           "    OR LOWER(t.last_name) LIKE LOWER(CONCAT('%', CAST(:search AS VARCHAR), '%')) " +
-           "    OR LOWER(s.first_name) LIKE LOWER(CONCAT('%', CAST(:search AS VARCHAR), '%')) " +
-           "    OR LOWER(s.last_name) LIKE LOWER(CONCAT('%', CAST(:search AS VARCHAR), '%'))) " +
+           "    OR LOWER(t.first_name || ' ' || t.last_name) LIKE CONCAT('%', LOWER(CAST(:search AS VARCHAR)), '%') " +
+           "    OR LOWER(s.first_name || ' ' || s.last_name) LIKE CONCAT('%', LOWER(CAST(:search AS VARCHAR)), '%')) " +
            "AND (CAST(:dateFrom AS TIMESTAMP) IS NULL OR l.scheduled_at >= CAST(:dateFrom AS TIMESTAMP)) " +
            "AND (CAST(:dateTo AS TIMESTAMP) IS NULL OR l.scheduled_at <= CAST(:dateTo AS TIMESTAMP)) " +
-           "ORDER BY l.scheduled_at DESC", nativeQuery = true)
-    List<Lesson> findAllLibraryVideos(
+           "AND (CAST(:cursorAt AS TIMESTAMP) IS NULL " +
+           "    OR (l.scheduled_at, l.id) < (CAST(:cursorAt AS TIMESTAMP), CAST(:cursorId AS BIGINT))) " +
+           "ORDER BY l.scheduled_at DESC, l.id DESC " +
+           "LIMIT :limit", nativeQuery = true)
+    List<LibraryVideoView> findAllLibraryVideoPage(
             @Param("search") String search,
             @Param("dateFrom") LocalDateTime dateFrom,
-            @Param("dateTo") LocalDateTime dateTo
+            @Param("dateTo") LocalDateTime dateTo,
+            @Param("cursorAt") LocalDateTime cursorAt,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit
     );
 
     // Group lessons: find existing OPEN group for a teacher that overlaps with a given time window (for auto-join)
@@ -222,10 +227,6 @@ public interface LessonRepository extends JpaRepository<Lesson, Long> {
     java.util.Optional<Lesson> findOpenGroupLesson(@Param("teacherId") Long teacherId,
             @Param("requestedAt") LocalDateTime requestedAt, @Param("requestedEnd") LocalDateTime requestedEnd);
 
-    // Group lessons: find open groups approaching deadline
-    @Query("SELECT l FROM Lesson l WHERE l.isGroupLesson = true AND l.groupStatus = 'OPEN' AND l.scheduledAt BETWEEN :now AND :deadline AND l.status IN ('PENDING', 'CONFIRMED')")
-    List<Lesson> findGroupLessonsApproachingDeadline(@Param("now") LocalDateTime now, @Param("deadline") LocalDateTime deadline);
-
     // Pessimistic lock on lesson for concurrent join prevention
     @org.springframework.data.jpa.repository.Lock(jakarta.persistence.LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT l FROM Lesson l WHERE l.id = :id")
@@ -239,6 +240,17 @@ public interface LessonRepository extends JpaRepository<Lesson, Long> {
            "ORDER BY l.scheduled_at ASC", nativeQuery = true)
     List<Lesson> findLessonsNeedingConcatenation(@Param("cutoffTime") LocalDateTime cutoffTime);
 
+    // Access checks: participant ids without loading the student/teacher entities
+    @Query("SELECT l.student.id, l.teacher.id, l.isGroupLesson FROM Lesson l WHERE l.id = :lessonId")
+    List<Object[]> findParticipantIdsById(@Param("lessonId") Long lessonId);
+
+    // Thumbnails: lessons with a recording but no thumbnail yet
+    @Query("SELECT l.id FROM Lesson l WHERE l.recordingUrl IS NOT NULL AND l.thumbnailUrl IS NULL ORDER BY l.scheduledAt DESC")
+    List<Long> findLessonIdsMissingThumbnail();
+
+    @Query("SELECT COUNT(l) FROM Lesson l WHERE l.recordingUrl IS NOT NULL AND l.thumbnailUrl IS NULL")
+    long countLessonsMissingThumbnail();
+
     // Admin: Find lessons with messages/notes for review
     @Query("SELECT l FROM Lesson l " +
            "LEFT JOIN FETCH l.student " +
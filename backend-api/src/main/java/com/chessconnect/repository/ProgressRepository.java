@@ -5,6 +5,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,6 +14,8 @@ public interface ProgressRepository extends JpaRepository<Progress, Long> {
 
     Optional<Progress> findByStudentId(Long studentId);
 
+    List<Progress> findByStudentIdIn(Collection<Long> studentIds);
+
     @Modifying
     void deleteByStudentId(Long studentId);
 }
@@ -2,11 +2,13 @@ package com.chessconnect.repository;
 
 import com.chessconnect.model.PromoCode;
 import com.chessconnect.model.enums.PromoCodeType;
+import com.chessconnect.repository.projection.PromoCodeTotalsView;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,7 +23,19 @@ public interface PromoCodeRepository extends JpaRepository<PromoCode, Long> {
 
     List<PromoCode> findAllByOrderByCreatedAtDesc();
 
-    @Modifying
-    @Query("UPDATE PromoCode p SET p.currentUses = p.currentUses + 1, p.updatedAt = CURRENT_TIMESTAMP WHERE p.id = :id")
-    void incrementUses(Long id);
+    // Admin list: discount and earning totals of several codes, each table aggregated once
+    @Query(value = "SELECT p.id AS promoCodeId, " +
+           "COALESCE(pu.total_discount, 0) AS totalDiscountCents, " +
+           "COALESCE(e.total_earned, 0) AS totalEarningsCents, " +
+           "COALESCE(e.unpaid, 0) AS unpaidEarningsCents " +
+           "FROM promo_codes p " +
+           "LEFT JOIN (SELECT promo_code_id, SUM(discount_amount_cents) AS total_discount " +
+           "    FROM promo_code_usages WHERE promo_code_id IN (:ids) GROUP BY promo_code_id) pu " +
+           "    ON pu.promo_code_id = p.id " +
+           "LEFT JOIN (SELECT promo_code_id, SUM(referrer_earning_cents) AS total_earned, " +
+           "    SUM(referrer_earning_cents) FILTER (WHERE is_paid = false) AS unpaid " +
+           "    FROM referral_earnings WHERE promo_code_id IN (:ids) GROUP BY promo_code_id) e " +
+           "    ON e.promo_code_id = p.id " +
+           "WHERE p.id IN (:ids)", nativeQuery = true)
+    List<PromoCodeTotalsView> findTotalsByIds(@Param("ids") Collection<Long> ids);
 }
@@ -1,19 +1,36 @@
 package com.chessconnect.repository;
 
 import com.chessconnect.model.PromoCodeUsage;
+import com.chessconnect.repository.projection.PromoCodeUsageView;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface PromoCodeUsageRepository extends JpaRepository<PromoCodeUsage, Long> {
 
-    List<PromoCodeUsage> findByPromoCodeIdOrderByUsedAtDesc(Long promoCodeId);
-
     boolean existsByPromoCodeIdAndUserId(Long promoCodeId, Long userId);
 
-    @Query("SELECT COALESCE(SUM(u.discountAmountCents), 0) FROM PromoCodeUsage u WHERE u.promoCode.id = :promoCodeId")
-    long getTotalDiscountByCodeId(Long promoCodeId);
+    // Admin detail: keyset page of a code's usages, newest first
+    @Query(value = "SELECT pu.id AS id, pu.user_id AS userId, u.first_name || ' ' || u.last_name AS userName, " +
+           "pu.lesson_id AS lessonId, pu.original_amount_cents AS originalAmountCents, " +
+           "pu.discount_amount_cents AS discountAmountCents, pu.commission_saved_cents AS commissionSavedCents, " +
+           "pu.used_at AS usedAt " +
+           "FROM promo_code_usages pu " +
+           "JOIN users u ON u.id = pu.user_id " +
+           "WHERE pu.promo_code_id = :promoCodeId " +
+           "AND (CAST(:cursorAt AS TIMESTAMP) IS NULL " +
+           "    OR (pu.used_at, pu.id) < (CAST(:cursorAt AS TIMESTAMP), CAST(:cursorId AS BIGINT))) " +
+           "ORDER BY pu.used_at DESC, pu.id DESC " +
+           "LIMIT :limit", nativeQuery = true)
+    List<PromoCodeUsageView> findUsagePage(
+            @Param("promoCodeId") Long promoCodeId,
+            @Param("cursorAt") LocalDateTime cursorAt,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit
+    );
 }
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +18,13 @@ public interface PushSubscriptionRepository extends JpaRepository<PushSubscripti
      */
     List<PushSubscription> findByUserId(Long userId);
 
+    /**
+     * Find the subscriptions of a set of users, skipping users who turned push notifications off.
+     */
+    @Query("SELECT p FROM PushSubscription p JOIN p.user u " +
+           "WHERE u.id IN :userIds AND (u.pushNotificationsEnabled IS NULL OR u.pushNotificationsEnabled = true)")
+    List<PushSubscription> findDeliverableByUserIdIn(Collection<Long> userIds);
+
     /**
      * Find a subscription by its endpoint.
      */
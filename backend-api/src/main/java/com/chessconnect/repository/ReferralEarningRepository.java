@@ -1,22 +1,55 @@
 package com.chessconnect.repository;
 
 import com.chessconnect.model.ReferralEarning;
+import com.chessconnect.repository.projection.ReferralEarningMonthView;
+import com.chessconnect.repository.projection.ReferralEarningView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface ReferralEarningRepository extends JpaRepository<ReferralEarning, Long> {
 
-    List<ReferralEarning> findByPromoCodeIdOrderByCreatedAtDesc(Long promoCodeId);
+    // Admin detail: keyset page of a code's earnings, newest first
+    @Query(value = "SELECT e.id AS id, e.referred_user_id AS referredUserId, " +
+           "u.first_name || ' ' || u.last_name AS referredUserName, e.lesson_id AS lessonId, " +
+           "e.lesson_amount_cents AS lessonAmountCents, e.platform_commission_cents AS platformCommissionCents, " +
+           "e.referrer_earning_cents AS referrerEarningCents, e.is_paid AS isPaid, e.paid_at AS paidAt, " +
+           "e.payment_reference AS paymentReference, e.created_at AS createdAt " +
+           "FROM referral_earnings e " +
+           "JOIN users u ON u.id = e.referred_user_id " +
+           "WHERE e.promo_code_id = :promoCodeId " +
+           "AND (CAST(:cursorAt AS TIMESTAMP) IS NULL " +
+           "    OR (e.created_at, e.id) < (CAST(:cursorAt AS TIMESTAMP), CAST(:cursorId AS BIGINT))) " +
+           "ORDER BY e.created_at DESC, e.id DESC " +
+           "LIMIT :limit", nativeQuery = true)
+    List<ReferralEarningView> findEarningPage(
+            @Param("promoCodeId") Long promoCodeId,
+            @Param("cursorAt") LocalDateTime cursorAt,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit
+    );
 
-    @Query("SELECT COALESCE(SUM(e.referrerEarningCents), 0) FROM ReferralEarning e WHERE e.promoCode.id = :promoCodeId")
-    long getTotalEarningsByCodeId(Long promoCodeId);
+    // Admin summary: a code's earnings per month, newest month first
+    @Query(value = "SELECT TO_CHAR(DATE_TRUNC('month', e.created_at), 'YYYY-MM') AS month, " +
+           "COUNT(*) AS earningsCount, " +
+           "SUM(e.referrer_earning_cents) AS earnedCents, " +
+           "COALESCE(SUM(e.referrer_earning_cents) FILTER (WHERE e.is_paid = false), 0) AS unpaidCents " +
+           "FROM referral_earnings e " +
+           "WHERE e.promo_code_id = :promoCodeId " +
+           "GROUP BY 1 " +
+           "ORDER BY 1 DESC", nativeQuery = true)
+    List<ReferralEarningMonthView> summarizeByMonth(@Param("promoCodeId") Long promoCodeId);
 
-    @Query("SELECT COALESCE(SUM(e.referrerEarningCents), 0) FROM ReferralEarning e WHERE e.promoCode.id = :promoCodeId AND e.isPaid = false")
-    long getUnpaidEarningsByCodeId(Long promoCodeId);
-
-    List<ReferralEarning> findByPromoCodeIdAndIsPaidFalse(Long promoCodeId);
+    @Modifying
+    @Query("UPDATE ReferralEarning e SET e.isPaid = true, e.paidAt = :paidAt, e.paymentReference = :paymentReference " +
+           "WHERE e.promoCode.id = :promoCodeId AND e.isPaid = false")
+    int markUnpaidAsPaid(@Param("promoCodeId") Long promoCodeId,
+                         @Param("paidAt") LocalDateTime paidAt,
+                         @Param("paymentReference") String paymentReference);
 }
@@ -3,14 +3,21 @@ package com.chessconnect.repository;
 import com.chessconnect.model.TeacherBalance;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TeacherBalanceRepository extends JpaRepository<TeacherBalance, Long> {
     Optional<TeacherBalance> findByTeacherId(Long teacherId);
 
+    // User.progress is an inverse one-to-one, which Hibernate loads eagerly with one query per
+    // user unless it is fetched here
+    @Query("SELECT b FROM TeacherBalance b JOIN FETCH b.teacher t LEFT JOIN FETCH t.progress")
+    List<TeacherBalance> findAllWithTeacher();
+
     @Modifying
     void deleteByTeacherId(Long teacherId);
 }
@@ -3,6 +3,8 @@ package com.chessconnect.repository;
 import com.chessconnect.model.TeacherPayout;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -17,6 +19,9 @@ public interface TeacherPayoutRepository extends JpaRepository<TeacherPayout, Lo
 
     List<TeacherPayout> findByYearMonth(String yearMonth);
 
+    @Query("SELECT p.teacher.id FROM TeacherPayout p WHERE p.yearMonth = :yearMonth AND p.isPaid = true")
+    List<Long> findPaidTeacherIdsByYearMonth(@Param("yearMonth") String yearMonth);
+
     List<TeacherPayout> findByIsPaidFalse();
 
     @Modifying
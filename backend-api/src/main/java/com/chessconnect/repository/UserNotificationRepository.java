@@ -7,17 +7,33 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 @Repository
 public interface UserNotificationRepository extends JpaRepository<UserNotification, Long> {
 
-    List<UserNotification> findByUserIdOrderByCreatedAtDesc(Long userId);
+    long countByUserIdAndIsReadFalse(Long userId);
 
-    List<UserNotification> findByUserIdAndIsReadFalseOrderByCreatedAtDesc(Long userId);
+    // Inbox page ordered by (created_at, id) DESC, starting after the cursor
+    @Query(value = "SELECT n.* FROM user_notifications n " +
+           "WHERE n.user_id = :userId " +
+           "AND (:unreadOnly = false OR n.is_read = false) " +
+           "AND (CAST(:cursorAt AS TIMESTAMP) IS NULL " +
+           "    OR (n.created_at, n.id) < (CAST(:cursorAt AS TIMESTAMP), CAST(:cursorId AS BIGINT))) " +
+           "ORDER BY n.created_at DESC, n.id DESC " +
+           "LIMIT :limit", nativeQuery = true)
+    List<UserNotification> findInboxPage(
+            @Param("userId") Long userId,
+            @Param("unreadOnly") boolean unreadOnly,
+            @Param("cursorAt") java.time.LocalDateTime cursorAt,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit);
 
-    long countByUserIdAndIsReadFalse(Long userId);
+    @Modifying
+    @Query("DELETE FROM UserNotification n WHERE n.user.id = :userId AND n.isRead = false")
+    int deleteUnreadForUser(@Param("userId") Long userId);
 
     long countByUserId(Long userId);
 
@@ -33,15 +49,31 @@ public interface UserNotificationRepository extends JpaRepository<UserNotificati
     @Query("DELETE FROM UserNotification n WHERE n.isRead = true")
     int deleteAllReadNotifications();
 
+    /**
+     * Delete up to {@code chunkSize} unread notifications created before the cutoff, in its own transaction.
+     */
     @Modifying
-    @Query("DELETE FROM UserNotification n WHERE n.isRead = false AND n.createdAt < :cutoffDate")
-    int deleteUnreadOlderThan(@Param("cutoffDate") java.time.LocalDateTime cutoffDate);
+    @Transactional
+    @Query(value = "DELETE FROM user_notifications WHERE id IN (" +
+           "SELECT id FROM user_notifications WHERE is_read = false AND created_at < :cutoffDate LIMIT :chunkSize)",
+           nativeQuery = true)
+    int deleteUnreadOlderThan(@Param("cutoffDate") java.time.LocalDateTime cutoffDate,
+                              @Param("chunkSize") int chunkSize);
 
-    @Query("SELECT DISTINCT n.user.id FROM UserNotification n GROUP BY n.user.id HAVING COUNT(n) > :maxCount")
-    List<Long> findUserIdsExceedingNotificationLimit(@Param("maxCount") long maxCount);
-
-    @Query("SELECT n FROM UserNotification n WHERE n.user.id = :userId ORDER BY n.createdAt DESC")
-    List<UserNotification> findByUserIdOrderByCreatedAtDescAll(@Param("userId") Long userId);
+    /**
+     * Delete up to {@code chunkSize} notifications ranked beyond the {@code maxCount} most recent of their user,
+     * in its own transaction. Only users over the limit are ranked.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM user_notifications WHERE id IN (" +
+           "SELECT id FROM (" +
+           "SELECT n.id, row_number() OVER (PARTITION BY n.user_id ORDER BY n.created_at DESC, n.id DESC) AS rn " +
+           "FROM user_notifications n WHERE n.user_id IN (" +
+           "SELECT user_id FROM user_notifications GROUP BY user_id HAVING COUNT(*) > :maxCount)" +
+           ") ranked WHERE ranked.rn > :maxCount LIMIT :chunkSize)",
+           nativeQuery = true)
+    int deleteExcessPerUser(@Param("maxCount") int maxCount, @Param("chunkSize") int chunkSize);
 
     // Check if a notification of this type and link already exists for the user
     boolean existsByUserIdAndTypeAndLinkAndIsReadFalse(Long userId, NotificationType type, String link);
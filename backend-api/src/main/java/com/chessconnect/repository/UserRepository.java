@@ -22,6 +22,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByEmail(String email);
 
+    boolean existsByAvatarUrlAndIdNot(String avatarUrl, Long id);
+
     List<User> findByRole(UserRole role);
 
     Page<User> findByRole(UserRole role, Pageable pageable);
@@ -0,0 +1,28 @@
+package com.chessconnect.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat invoice row for listings and exports: invoice columns plus the display names of
+ * its customer and issuer, resolved in SQL without loading the customer, issuer or lesson.
+ */
+public interface InvoiceListView {
+    Long getId();
+    String getInvoiceNumber();
+    String getInvoiceType();
+    Long getCustomerId();
+    String getCustomerName();
+    String getIssuerName();
+    String getDescription();
+    Integer getSubtotalCents();
+    Integer getVatCents();
+    Integer getTotalCents();
+    Integer getVatRate();
+    Double getCommissionRate();
+    Boolean getPromoApplied();
+    String getStatus();
+    LocalDateTime getIssuedAt();
+    LocalDateTime getCreatedAt();
+    Long getLessonId();
+    String getPdfPath();
+}
@@ -0,0 +1,21 @@
+package com.chessconnect.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat library row: lesson recording columns plus teacher, student and course names,
+ * fetched in one query without loading the associated entities.
+ */
+public interface LibraryVideoView {
+    Long getId();
+    LocalDateTime getScheduledAt();
+    String getRecordingUrl();
+    Integer getDurationMinutes();
+    String getThumbnailUrl();
+    String getTeacherFirstName();
+    String getTeacherLastName();
+    String getTeacherAvatar();
+    String getStudentFirstName();
+    String getStudentLastName();
+    String getCourseTitle();
+}
@@ -0,0 +1,11 @@
+package com.chessconnect.repository.projection;
+
+/**
+ * Discount and referral earning totals of one promo code, for the admin promo code list.
+ */
+public interface PromoCodeTotalsView {
+    Long getPromoCodeId();
+    Long getTotalDiscountCents();
+    Long getTotalEarningsCents();
+    Long getUnpaidEarningsCents();
+}
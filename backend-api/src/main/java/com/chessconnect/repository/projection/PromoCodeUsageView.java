@@ -0,0 +1,17 @@
+package com.chessconnect.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat promo code usage row for the admin detail list, with the user's name resolved in SQL.
+ */
+public interface PromoCodeUsageView {
+    Long getId();
+    Long getUserId();
+    String getUserName();
+    Long getLessonId();
+    Integer getOriginalAmountCents();
+    Integer getDiscountAmountCents();
+    Integer getCommissionSavedCents();
+    LocalDateTime getUsedAt();
+}
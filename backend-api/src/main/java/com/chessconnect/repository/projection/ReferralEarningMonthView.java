@@ -0,0 +1,11 @@
+package com.chessconnect.repository.projection;
+
+/**
+ * Referral earnings of one code grouped by calendar month ({@code YYYY-MM}).
+ */
+public interface ReferralEarningMonthView {
+    String getMonth();
+    Long getEarningsCount();
+    Long getEarnedCents();
+    Long getUnpaidCents();
+}
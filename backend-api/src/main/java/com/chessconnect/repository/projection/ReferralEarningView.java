@@ -0,0 +1,20 @@
+package com.chessconnect.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat referral earning row for the admin detail list, with the referred user's name resolved in SQL.
+ */
+public interface ReferralEarningView {
+    Long getId();
+    Long getReferredUserId();
+    String getReferredUserName();
+    Long getLessonId();
+    Integer getLessonAmountCents();
+    Integer getPlatformCommissionCents();
+    Integer getReferrerEarningCents();
+    Boolean getIsPaid();
+    LocalDateTime getPaidAt();
+    String getPaymentReference();
+    LocalDateTime getCreatedAt();
+}
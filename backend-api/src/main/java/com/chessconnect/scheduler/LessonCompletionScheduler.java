@@ -1,102 +1,163 @@
 package com.chessconnect.scheduler;
 
-import com.chessconnect.model.Lesson;
-import com.chessconnect.model.enums.LessonStatus;
-import com.chessconnect.repository.LessonRepository;
-import com.chessconnect.service.TeacherBalanceService;
-import com.chessconnect.repository.ProgressRepository;
 import com.chessconnect.model.Progress;
+import com.chessconnect.repository.ProgressRepository;
+import com.chessconnect.service.TeacherBalanceService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Scheduler that automatically completes lessons after their full duration has elapsed.
- * Uses each lesson's durationMinutes field (default 60) to determine when to auto-complete.
+ * Automatically completes lessons after their full duration has elapsed.
+ * Driven by the lessons' AUTO_COMPLETE timers (see {@link LessonTimerDispatcher}),
+ * which are due at scheduledAt + durationMinutes.
+ *
+ * Lessons are completed a chunk at a time in one transaction: one UPDATE ... RETURNING
+ * flips the status, teacher balances get one aggregated increment per teacher and
+ * student progress is loaded and saved in batch.
  */
 @Component
 public class LessonCompletionScheduler {
 
     private static final Logger log = LoggerFactory.getLogger(LessonCompletionScheduler.class);
 
-    private final LessonRepository lessonRepository;
-    private final TeacherBalanceService teacherBalanceService;
+    // Only lessons still CONFIRMED whose full duration has elapsed; earnings are credited once
+    private static final String COMPLETE_SQL =
+        "WITH due AS (" +
+        "  SELECT id, COALESCE(earnings_credited, false) AS was_credited FROM lessons " +
+        "  WHERE id IN (%s) AND status = 'CONFIRMED' " +
+        "  AND scheduled_at + duration_minutes * INTERVAL '1 minute' < ? " +
+        "  FOR UPDATE" +
+        ") " +
+        "UPDATE lessons l SET status = 'COMPLETED', earnings_credited = true, updated_at = ? " +
+        "FROM due, users t WHERE l.id = due.id AND t.id = l.teacher_id " +
+        "RETURNING l.id, l.teacher_id, l.student_id, due.was_credited, l.is_from_subscription, " +
+        "l.teacher_earnings_cents, l.price_cents, t.hourly_rate_cents";
+
+    /**
+     * A lesson flipped to COMPLETED by {@link #COMPLETE_SQL}.
+     */
+    record CompletedLesson(long id, long teacherId, long studentId, boolean wasCredited, int earningsCents) {}
+
+    private final JdbcTemplate jdbcTemplate;
     private final ProgressRepository progressRepository;
+    private final Counter completedCounter;
+    private final Timer chunkTimer;
 
     public LessonCompletionScheduler(
-            LessonRepository lessonRepository,
-            TeacherBalanceService teacherBalanceService,
-            ProgressRepository progressRepository
+            JdbcTemplate jdbcTemplate,
+            ProgressRepository progressRepository,
+            MeterRegistry meterRegistry
     ) {
-        this.lessonRepository = lessonRepository;
-        this.teacherBalanceService = teacherBalanceService;
+        this.jdbcTemplate = jdbcTemplate;
         this.progressRepository = progressRepository;
+        this.completedCounter = Counter.builder("lessons_auto_completed")
+                .description("Lessons completed automatically at the end of their duration")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("lesson_completion_chunk_duration")
+                .description("Time to complete one chunk of lessons")
+                .register(meterRegistry);
+    }
+
+    @Transactional
+    public void autoCompleteLesson(Long lessonId) {
+        autoCompleteLessons(List.of(lessonId));
     }
 
     /**
-     * Runs every 5 minutes to check for lessons that should be auto-completed.
-     * A lesson is auto-completed if:
-     * - Status is CONFIRMED
-     * - scheduledAt + durationMinutes has passed (full lesson duration elapsed)
+     * Auto-complete the given lessons that are still CONFIRMED and whose
+     * scheduledAt + durationMinutes has passed. Others are left untouched.
+     *
+     * @return the number of lessons completed
      */
-    @Scheduled(fixedRate = 300000) // Every 5 minutes (300000 ms)
     @Transactional
-    public void autoCompleteLessons() {
-        LocalDateTime now = LocalDateTime.now();
-
-        List<Lesson> confirmedLessons = lessonRepository.findByStatusOrderByScheduledAtDesc(LessonStatus.CONFIRMED);
-
-        List<Lesson> lessonsToComplete = confirmedLessons.stream()
-                .filter(lesson -> {
-                    LocalDateTime lessonEnd = lesson.getScheduledAt()
-                            .plusMinutes(lesson.getDurationMinutes());
-                    return now.isAfter(lessonEnd);
-                })
-                .toList();
-
-        if (lessonsToComplete.isEmpty()) {
-            return;
+    public int autoCompleteLessons(Collection<Long> lessonIds) {
+        if (lessonIds.isEmpty()) {
+            return 0;
         }
+        return chunkTimer.record(() -> {
+            List<CompletedLesson> completed = completeDue(lessonIds);
+            if (completed.isEmpty()) {
+                return 0;
+            }
 
-        log.info("Auto-completing {} lessons whose full duration has elapsed", lessonsToComplete.size());
+            creditTeachers(completed);
+            recordStudentProgress(completed);
 
-        for (Lesson lesson : lessonsToComplete) {
-            try {
-                completeLesson(lesson);
-            } catch (Exception e) {
-                log.error("Failed to auto-complete lesson {}: {}", lesson.getId(), e.getMessage());
-            }
-        }
+            completedCounter.increment(completed.size());
+            log.info("Auto-completed {} lessons whose full duration has elapsed: {}",
+                    completed.size(), completed.stream().map(CompletedLesson::id).toList());
+            return completed.size();
+        });
     }
 
-    private void completeLesson(Lesson lesson) {
-        lesson.setStatus(LessonStatus.COMPLETED);
+    private List<CompletedLesson> completeDue(Collection<Long> lessonIds) {
+        LocalDateTime now = LocalDateTime.now();
+        String sql = String.format(COMPLETE_SQL, String.join(",", Collections.nCopies(lessonIds.size(), "?")));
+        List<Object> args = new ArrayList<>(lessonIds);
+        args.add(Timestamp.valueOf(now));
+        args.add(Timestamp.valueOf(now));
+
+        return jdbcTemplate.query(sql, (rs, i) -> new CompletedLesson(
+                rs.getLong("id"),
+                rs.getLong("teacher_id"),
+                rs.getLong("student_id"),
+                rs.getBoolean("was_credited"),
+                TeacherBalanceService.lessonEarningsCents(
+                        rs.getBoolean("is_from_subscription"),
+                        rs.getInt("teacher_earnings_cents"),
+                        rs.getInt("price_cents"),
+                        (Integer) rs.getObject("hourly_rate_cents"))
+            ), args.toArray());
+    }
 
-        // Credit teacher earnings
-        if (!Boolean.TRUE.equals(lesson.getEarningsCredited())) {
-            teacherBalanceService.creditEarningsForCompletedLesson(lesson);
-            lesson.setEarningsCredited(true);
+    private void creditTeachers(List<CompletedLesson> completed) {
+        // teacherId -> {earnings, lessons}
+        Map<Long, int[]> totals = new HashMap<>();
+        for (CompletedLesson lesson : completed) {
+            if (lesson.wasCredited()) {
+                continue;
+            }
+            int[] total = totals.computeIfAbsent(lesson.teacherId(), id -> new int[2]);
+            total[0] += lesson.earningsCents();
+            total[1]++;
         }
-
-        // Update student progress
-        Progress progress = progressRepository.findByStudentId(lesson.getStudent().getId())
-                .orElse(null);
-        if (progress != null) {
-            progress.recordCompletedLesson();
-            progressRepository.save(progress);
+        if (totals.isEmpty()) {
+            return;
         }
 
-        lessonRepository.save(lesson);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        totals.forEach((teacherId, total) ->
+                rows.add(new Object[] { teacherId, total[0], total[0], total[1], now, now }));
+        jdbcTemplate.batchUpdate(TeacherBalanceService.CREDIT_SQL, rows);
+    }
 
-        log.info("Auto-completed lesson {} (teacher: {}, student: {}, scheduled: {})",
-                lesson.getId(),
-                lesson.getTeacher().getEmail(),
-                lesson.getStudent().getEmail(),
-                lesson.getScheduledAt());
+    private void recordStudentProgress(List<CompletedLesson> completed) {
+        Map<Long, Integer> lessonsPerStudent = new HashMap<>();
+        completed.forEach(lesson -> lessonsPerStudent.merge(lesson.studentId(), 1, Integer::sum));
+
+        List<Progress> progresses = progressRepository.findByStudentIdIn(lessonsPerStudent.keySet());
+        for (Progress progress : progresses) {
+            int lessons = lessonsPerStudent.get(progress.getStudent().getId());
+            for (int i = 0; i < lessons; i++) {
+                progress.recordCompletedLesson();
+            }
+        }
+        progressRepository.saveAll(progresses);
     }
 }
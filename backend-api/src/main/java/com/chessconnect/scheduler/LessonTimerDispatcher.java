@@ -0,0 +1,171 @@
+package com.chessconnect.scheduler;
+
+import com.chessconnect.model.enums.LessonTimerType;
+import com.chessconnect.service.GroupLessonService;
+import com.chessconnect.service.LessonReminderService;
+import com.chessconnect.service.LessonService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fires due lesson_timers rows.
+ *
+ * Due timers are claimed in batches with FOR UPDATE SKIP LOCKED, and the claim pushes
+ * fire_at forward by a lease, so several API nodes can share the queue and a timer whose
+ * node died is picked up again once the lease runs out. Each timer is handled in its own
+ * transaction by the service that owns the step, then deleted. Auto-completions due
+ * together are applied as one bulk chunk.
+ */
+@Component
+public class LessonTimerDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(LessonTimerDispatcher.class);
+
+    static final int BATCH_SIZE = 100;
+    static final int MAX_ATTEMPTS = 5;
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(5);
+
+    private static final String CLAIM_SQL =
+        "UPDATE lesson_timers SET attempts = attempts + 1, fire_at = ? " +
+        "WHERE id IN (" +
+        "  SELECT id FROM lesson_timers WHERE fire_at <= ? " +
+        "  ORDER BY fire_at, id LIMIT ? FOR UPDATE SKIP LOCKED" +
+        ") RETURNING id, lesson_id, timer_type, attempts";
+
+    /**
+     * A claimed timer.
+     */
+    record LessonTimer(long id, long lessonId, LessonTimerType type, int attempts) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LessonService lessonService;
+    private final LessonReminderService lessonReminderService;
+    private final GroupLessonService groupLessonService;
+    private final LessonCompletionScheduler lessonCompletionScheduler;
+    private final Counter firedCounter;
+    private final Counter failedCounter;
+    private final ScheduledJobRunner jobRunner;
+
+    public LessonTimerDispatcher(
+            JdbcTemplate jdbcTemplate,
+            LessonService lessonService,
+            LessonReminderService lessonReminderService,
+            GroupLessonService groupLessonService,
+            LessonCompletionScheduler lessonCompletionScheduler,
+            MeterRegistry meterRegistry,
+            ScheduledJobRunner jobRunner
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lessonService = lessonService;
+        this.lessonReminderService = lessonReminderService;
+        this.groupLessonService = groupLessonService;
+        this.lessonCompletionScheduler = lessonCompletionScheduler;
+        this.jobRunner = jobRunner;
+        this.firedCounter = Counter.builder("lesson_timers_fired")
+                .description("Lesson timers handled")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("lesson_timers_failed")
+                .description("Lesson timers dropped after the last attempt")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelay = 30000) // Every 30 seconds
+    public void dispatch() {
+        jobRunner.runLocal("LessonTimerDispatcher.dispatch", () -> {
+            try {
+                List<LessonTimer> batch;
+                do {
+                    batch = claim();
+                    List<Long> done = new ArrayList<>();
+                    List<LessonTimer> remaining = completeInBulk(batch, done);
+                    for (LessonTimer timer : remaining) {
+                        if (fire(timer)) {
+                            done.add(timer.id());
+                        }
+                    }
+                    if (!done.isEmpty()) {
+                        jdbcTemplate.batchUpdate("DELETE FROM lesson_timers WHERE id = ?",
+                                done.stream().map(id -> new Object[] { id }).toList());
+                    }
+                } while (batch.size() == BATCH_SIZE);
+            } catch (Exception e) {
+                log.error("Lesson timer dispatch failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    private List<LessonTimer> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.query(CLAIM_SQL, (rs, i) -> new LessonTimer(
+                rs.getLong("id"),
+                rs.getLong("lesson_id"),
+                LessonTimerType.valueOf(rs.getString("timer_type")),
+                rs.getInt("attempts")
+            ), Timestamp.valueOf(now.plus(CLAIM_LEASE)), Timestamp.valueOf(now), BATCH_SIZE);
+    }
+
+    /**
+     * Complete every AUTO_COMPLETE lesson of the batch in one chunk transaction.
+     * Returns the timers still to run one by one: the other types, and the
+     * completions themselves if the chunk failed, so one bad lesson can't block the rest.
+     */
+    private List<LessonTimer> completeInBulk(List<LessonTimer> batch, List<Long> done) {
+        List<LessonTimer> completions = batch.stream()
+                .filter(timer -> timer.type() == LessonTimerType.AUTO_COMPLETE)
+                .toList();
+        List<LessonTimer> others = batch.stream()
+                .filter(timer -> timer.type() != LessonTimerType.AUTO_COMPLETE)
+                .toList();
+        if (completions.size() < 2) {
+            return batch;
+        }
+        try {
+            lessonCompletionScheduler.autoCompleteLessons(completions.stream().map(LessonTimer::lessonId).toList());
+            completions.forEach(timer -> done.add(timer.id()));
+            firedCounter.increment(completions.size());
+            return others;
+        } catch (Exception e) {
+            log.warn("Bulk completion of {} lessons failed, completing them one by one: {}",
+                    completions.size(), e.getMessage());
+            return batch;
+        }
+    }
+
+    /**
+     * Run one timer. Returns true when the row can be deleted: the step ran, or it kept
+     * failing. Otherwise the lease runs out and the timer is claimed again.
+     */
+    boolean fire(LessonTimer timer) {
+        try {
+            switch (timer.type()) {
+                case CONFIRMATION_TIMEOUT -> lessonService.autoCancelIfUnconfirmed(timer.lessonId());
+                case REMINDER -> lessonReminderService.sendLessonReminder(timer.lessonId());
+                case GROUP_DEADLINE -> groupLessonService.handleGroupDeadline(timer.lessonId());
+                case AUTO_COMPLETE -> lessonCompletionScheduler.autoCompleteLesson(timer.lessonId());
+            }
+            firedCounter.increment();
+            return true;
+        } catch (Exception e) {
+            if (timer.attempts() >= MAX_ATTEMPTS) {
+                failedCounter.increment();
+                log.error("Giving up on {} timer for lesson {} after {} attempts: {}",
+                        timer.type(), timer.lessonId(), timer.attempts(), e.getMessage());
+                return true;
+            }
+            log.warn("{} timer for lesson {} failed (attempt {}), will retry: {}",
+                    timer.type(), timer.lessonId(), timer.attempts(), e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.chessconnect.scheduler;
+
+import com.chessconnect.event.cluster.ClusterMessageBus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Wraps the body of every @Scheduled job.
+ *
+ * {@link #runLocked} runs the job on a single node of the cluster: the node must first take
+ * the job's lease in scheduler_locks, which expires after {@code lockAtMostFor} if the node
+ * dies mid-run. Lease times come from the database's clock, so nodes whose clocks drift
+ * apart still agree on when a lease expires. {@link #runLocal} is for jobs that work on per-node state (in-memory buffers)
+ * and must run everywhere. Both record a duration timer per job and the latest run, which
+ * the admin scheduler view shows.
+ */
+@Component
+public class ScheduledJobRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduledJobRunner.class);
+
+    // Held after a short run too, so a node whose scheduler fires a little later doesn't run the same tick again
+    static final Duration LOCK_AT_LEAST_FOR = Duration.ofSeconds(30);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    // Only taken over once the previous lease has expired, both judged by the database's now()
+    static final String ACQUIRE_SQL =
+        "INSERT INTO scheduler_locks (name, locked_until, locked_at, locked_by) " +
+        "VALUES (?, now() + make_interval(secs => ?), now(), ?) " +
+        "ON CONFLICT (name) DO UPDATE SET locked_until = EXCLUDED.locked_until, " +
+        "locked_at = EXCLUDED.locked_at, locked_by = EXCLUDED.locked_by " +
+        "WHERE scheduler_locks.locked_until <= now()";
+
+    static final String RELEASE_SQL =
+        "UPDATE scheduler_locks SET locked_until = GREATEST(now(), locked_at + make_interval(secs => ?)), " +
+        "last_started_at = ?, last_finished_at = ?, last_duration_ms = ?, last_status = ?, last_error = ? " +
+        "WHERE name = ? AND locked_by = ?";
+
+    /**
+     * Latest run of a job on this node.
+     */
+    public record JobRun(LocalDateTime startedAt, LocalDateTime finishedAt, long durationMs,
+                         String status, String error, boolean clusterLocked) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId;
+    private final Map<String, JobRun> lastRuns = new ConcurrentHashMap<>();
+
+    public ScheduledJobRunner(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              ClusterMessageBus messageBus,
+                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Lease writes must commit on their own, even when the job body runs in a transaction
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+        this.nodeId = messageBus.nodeId();
+    }
+
+    /**
+     * Run {@code job} unless another node holds its lease. {@code lockAtMostFor} should be
+     * well above the job's normal duration: past it, another node may start the job again.
+     */
+    public void runLocked(String name, Duration lockAtMostFor, Runnable job) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        if (!acquire(name, lockAtMostFor)) {
+            Counter.builder("scheduler_job_skipped")
+                    .description("Job runs skipped because another node holds the lease")
+                    .tag("job", name)
+                    .register(meterRegistry)
+                    .increment();
+            log.debug("Skipping {}: lease held by another node", name);
+            return;
+        }
+
+        execute(name, startedAt, true, job, run -> {
+            if (Duration.ofMillis(run.durationMs()).compareTo(lockAtMostFor) > 0) {
+                Counter.builder("scheduler_job_overrun")
+                        .description("Job runs that outlived their lease")
+                        .tag("job", name)
+                        .register(meterRegistry)
+                        .increment();
+                log.warn("{} ran for {} ms, longer than its {} lease", name, run.durationMs(), lockAtMostFor);
+            }
+            release(name, run);
+        });
+    }
+
+    /**
+     * Run {@code job} on this node, with the same metrics as a locked job.
+     */
+    public void runLocal(String name, Runnable job) {
+        execute(name, LocalDateTime.now(), false, job, run -> {});
+    }
+
+    public Map<String, JobRun> getLastRuns() {
+        return Map.copyOf(lastRuns);
+    }
+
+    /**
+     * Run the job and record it. A failure is rethrown so that a transactional job still
+     * rolls back and the scheduler's error handler logs it.
+     */
+    private void execute(String name, LocalDateTime startedAt, boolean clusterLocked, Runnable job,
+                         Consumer<JobRun> afterRun) {
+        long start = System.nanoTime();
+        String status = "FAILED";
+        String error = null;
+        try {
+            job.run();
+            status = "SUCCESS";
+        } catch (RuntimeException e) {
+            error = truncate(e.getMessage());
+            throw e;
+        } finally {
+            long durationNanos = System.nanoTime() - start;
+            Timer.builder("scheduler_job_duration")
+                    .description("Scheduled job execution time")
+                    .tag("job", name)
+                    .tag("status", status)
+                    .register(meterRegistry)
+                    .record(Duration.ofNanos(durationNanos));
+
+            JobRun run = new JobRun(startedAt, LocalDateTime.now(), durationNanos / 1_000_000, status, error, clusterLocked);
+            lastRuns.put(name, run);
+            afterRun.accept(run);
+        }
+    }
+
+    private boolean acquire(String name, Duration lockAtMostFor) {
+        try {
+            Integer updated = newTransaction.execute(tx -> jdbcTemplate.update(ACQUIRE_SQL,
+                    name, seconds(lockAtMostFor), nodeId));
+            return updated != null && updated > 0;
+        } catch (Exception e) {
+            log.error("Could not take the lease for {}: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    private void release(String name, JobRun run) {
+        try {
+            newTransaction.executeWithoutResult(tx -> jdbcTemplate.update(RELEASE_SQL,
+                    seconds(LOCK_AT_LEAST_FOR),
+                    Timestamp.valueOf(run.startedAt()),
+                    Timestamp.valueOf(run.finishedAt()),
+                    run.durationMs(),
+                    run.status(),
+                    run.error(),
+                    name,
+                    nodeId));
+        } catch (Exception e) {
+            // The lease still expires on its own
+            log.error("Could not release the lease for {}: {}", name, e.getMessage());
+        }
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toMillis() / 1000.0;
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
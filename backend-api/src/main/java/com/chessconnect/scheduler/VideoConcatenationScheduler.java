@@ -8,6 +8,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -29,11 +30,14 @@ public class VideoConcatenationScheduler {
     private final LessonRepository lessonRepository;
     private final VideoConcatenationService concatenationService;
     private final Map<Long, Integer> failureCounts = new ConcurrentHashMap<>();
+    private final ScheduledJobRunner jobRunner;
 
     public VideoConcatenationScheduler(LessonRepository lessonRepository,
-                                        VideoConcatenationService concatenationService) {
+                                        VideoConcatenationService concatenationService,
+                                        ScheduledJobRunner jobRunner) {
         this.lessonRepository = lessonRepository;
         this.concatenationService = concatenationService;
+        this.jobRunner = jobRunner;
     }
 
     /**
@@ -45,72 +49,74 @@ public class VideoConcatenationScheduler {
      */
     @Scheduled(fixedRate = 600000) // Every 10 minutes
     public void processPendingConcatenations() {
-        if (!concatenationService.isFFmpegAvailable()) {
-            log.warn("FFmpeg not available, skipping video concatenation");
-            return;
-        }
-
-        try {
-            LocalDateTime cutoffTime = LocalDateTime.now().minusMinutes(60);
-
-            List<Lesson> lessonsWithSegments = lessonRepository.findLessonsNeedingConcatenation(cutoffTime);
-
-            if (lessonsWithSegments.isEmpty()) {
-                log.debug("No lessons with segments to concatenate");
+        jobRunner.runLocked("VideoConcatenationScheduler.processPendingConcatenations", Duration.ofMinutes(30), () -> {
+            if (!concatenationService.isFFmpegAvailable()) {
+                log.warn("FFmpeg not available, skipping video concatenation");
                 return;
             }
 
-            log.info("Found {} lessons with segments to concatenate", lessonsWithSegments.size());
+            try {
+                LocalDateTime cutoffTime = LocalDateTime.now().minusMinutes(60);
 
-            int successCount = 0;
-            int failureCount = 0;
-            int skippedCount = 0;
+                List<Lesson> lessonsWithSegments = lessonRepository.findLessonsNeedingConcatenation(cutoffTime);
 
-            for (Lesson lesson : lessonsWithSegments) {
-                int previousFailures = failureCounts.getOrDefault(lesson.getId(), 0);
-                if (previousFailures >= MAX_RETRIES) {
-                    skippedCount++;
-                    continue;
+                if (lessonsWithSegments.isEmpty()) {
+                    log.debug("No lessons with segments to concatenate");
+                    return;
                 }
 
-                try {
-                    log.info("Processing concatenation for lesson {} (segments: {}, attempt: {})",
-                            lesson.getId(), lesson.getRecordingSegmentsList().size(), previousFailures + 1);
+                log.info("Found {} lessons with segments to concatenate", lessonsWithSegments.size());
 
-                    boolean success = concatenationService.concatenateRecordingSegments(lesson.getId());
+                int successCount = 0;
+                int failureCount = 0;
+                int skippedCount = 0;
+
+                for (Lesson lesson : lessonsWithSegments) {
+                    int previousFailures = failureCounts.getOrDefault(lesson.getId(), 0);
+                    if (previousFailures >= MAX_RETRIES) {
+                        skippedCount++;
+                        continue;
+                    }
+
+                    try {
+                        log.info("Processing concatenation for lesson {} (segments: {}, attempt: {})",
+                                lesson.getId(), lesson.getRecordingSegmentsList().size(), previousFailures + 1);
+
+                        boolean success = concatenationService.concatenateRecordingSegments(lesson.getId());
+
+                        if (success) {
+                            successCount++;
+                            failureCounts.remove(lesson.getId());
+                        } else {
+                            failureCount++;
+                            failureCounts.put(lesson.getId(), previousFailures + 1);
+                            if (previousFailures + 1 >= MAX_RETRIES) {
+                                log.error("Concatenation permanently failed for lesson {} after {} attempts",
+                                        lesson.getId(), MAX_RETRIES);
+                            }
+                        }
 
-                    if (success) {
-                        successCount++;
-                        failureCounts.remove(lesson.getId());
-                    } else {
+                        // Sleep briefly between concatenations to avoid overloading the system
+                        Thread.sleep(2000);
+
+                    } catch (Exception e) {
                         failureCount++;
                         failureCounts.put(lesson.getId(), previousFailures + 1);
-                        if (previousFailures + 1 >= MAX_RETRIES) {
-                            log.error("Concatenation permanently failed for lesson {} after {} attempts",
-                                    lesson.getId(), MAX_RETRIES);
-                        }
+                        log.error("Error processing concatenation for lesson {}", lesson.getId(), e);
                     }
+                }
 
-                    // Sleep briefly between concatenations to avoid overloading the system
-                    Thread.sleep(2000);
-
-                } catch (Exception e) {
-                    failureCount++;
-                    failureCounts.put(lesson.getId(), previousFailures + 1);
-                    log.error("Error processing concatenation for lesson {}", lesson.getId(), e);
+                if (skippedCount > 0) {
+                    log.warn("Concatenation batch complete: {} successful, {} failed, {} skipped (max retries)",
+                            successCount, failureCount, skippedCount);
+                } else {
+                    log.info("Concatenation batch complete: {} successful, {} failed", successCount, failureCount);
                 }
-            }
 
-            if (skippedCount > 0) {
-                log.warn("Concatenation batch complete: {} successful, {} failed, {} skipped (max retries)",
-                        successCount, failureCount, skippedCount);
-            } else {
-                log.info("Concatenation batch complete: {} successful, {} failed", successCount, failureCount);
+            } catch (Exception e) {
+                log.error("Error in video concatenation scheduler", e);
             }
-
-        } catch (Exception e) {
-            log.error("Error in video concatenation scheduler", e);
-        }
+        });
     }
 
     /**
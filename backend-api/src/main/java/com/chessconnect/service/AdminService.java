@@ -30,6 +30,8 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
 
 @Service
 public class AdminService {
@@ -64,6 +66,8 @@ public class AdminService {
     private final PushSubscriptionRepository pushSubscriptionRepository;
     private final VideoWatchProgressRepository videoWatchProgressRepository;
     private final PendingCourseValidationRepository pendingCourseValidationRepository;
+    private final EntitlementService entitlementService;
+    private final LessonTimerService lessonTimerService;
 
     public AdminService(
             UserRepository userRepository,
@@ -93,7 +97,9 @@ public class AdminService {
             GroupInvitationRepository groupInvitationRepository,
             PushSubscriptionRepository pushSubscriptionRepository,
             VideoWatchProgressRepository videoWatchProgressRepository,
-            PendingCourseValidationRepository pendingCourseValidationRepository
+            PendingCourseValidationRepository pendingCourseValidationRepository,
+            EntitlementService entitlementService,
+            LessonTimerService lessonTimerService
     ) {
         this.userRepository = userRepository;
         this.lessonRepository = lessonRepository;
@@ -123,6 +129,8 @@ public class AdminService {
         this.pushSubscriptionRepository = pushSubscriptionRepository;
         this.videoWatchProgressRepository = videoWatchProgressRepository;
         this.pendingCourseValidationRepository = pendingCourseValidationRepository;
+        this.entitlementService = entitlementService;
+        this.lessonTimerService = lessonTimerService;
     }
 
     /**
@@ -404,6 +412,7 @@ public class AdminService {
                 lesson.setCancelledAt(LocalDateTime.now());
                 lesson.setStatus(LessonStatus.CANCELLED);
                 lesson.setRefundPercentage(100); // Full refund for admin deletion
+                lessonTimerService.cancelAll(lesson.getId());
 
                 // Process refund to student's wallet
                 if (lesson.getPriceCents() != null && lesson.getPriceCents() > 0) {
@@ -478,6 +487,7 @@ public class AdminService {
                 lesson.setCancelledAt(LocalDateTime.now());
                 lesson.setStatus(LessonStatus.CANCELLED);
                 lesson.setRefundPercentage(100); // Full refund when admin deletes
+                lessonTimerService.cancelAll(lesson.getId());
 
                 // Process refund - but since student is being deleted, just mark as refunded
                 // No need to credit wallet since account is being deleted
@@ -572,12 +582,13 @@ public class AdminService {
     }
 
     /**
-     * Get all teacher balances with banking info and current month payout status
-     * Optimized: Uses specific queries per teacher instead of loading all lessons
+     * Get all teacher balances with banking info and current month payout status.
+     * Three queries whatever the number of teachers: balances with their teacher,
+     * the month's earnings and lesson counts grouped by teacher, and the month's payouts.
      */
     @Transactional(readOnly = true)
     public List<TeacherBalanceListResponse> getTeacherBalances() {
-        List<TeacherBalance> balances = teacherBalanceRepository.findAll();
+        List<TeacherBalance> balances = teacherBalanceRepository.findAllWithTeacher();
         String currentYearMonth = YearMonth.now().format(DateTimeFormatter.ofPattern("yyyy-MM"));
 
         // Get current month date range
@@ -585,17 +596,16 @@ public class AdminService {
         LocalDateTime monthStart = currentMonth.atDay(1).atStartOfDay();
         LocalDateTime monthEnd = currentMonth.atEndOfMonth().atTime(23, 59, 59);
 
-        return balances.stream().map(balance -> {
-            User teacher = balance.getTeacher();
+        // teacherId -> {earnings, lessons} for the current month
+        Map<Long, int[]> monthTotals = new HashMap<>();
+        lessonRepository.sumEarningsAndCountCompletedByTeacherBetween(monthStart, monthEnd).forEach(row ->
+                monthTotals.put((Long) row[0], new int[] { ((Number) row[1]).intValue(), ((Number) row[2]).intValue() }));
 
-            // Use optimized queries instead of loading all lessons
-            Integer currentMonthEarnings = lessonRepository.sumTeacherEarningsBetween(teacher.getId(), monthStart, monthEnd);
-            Integer currentMonthLessonsCount = lessonRepository.countTeacherCompletedBetween(teacher.getId(), monthStart, monthEnd);
+        Set<Long> paidTeacherIds = new HashSet<>(teacherPayoutRepository.findPaidTeacherIdsByYearMonth(currentYearMonth));
 
-            // Check if paid for current month
-            TeacherPayout payout = teacherPayoutRepository
-                    .findByTeacherIdAndYearMonth(teacher.getId(), currentYearMonth)
-                    .orElse(null);
+        return balances.stream().map(balance -> {
+            User teacher = balance.getTeacher();
+            int[] monthTotal = monthTotals.getOrDefault(teacher.getId(), new int[2]);
 
             // Check Stripe Connect status
             boolean stripeConnectEnabled = teacher.getStripeConnectAccountId() != null &&
@@ -620,9 +630,9 @@ public class AdminService {
                     maskSiret(teacher.getSiret()),
                     teacher.getCompanyName(),
                     // Current month payout status
-                    payout != null && payout.getIsPaid(),
-                    currentMonthEarnings != null ? currentMonthEarnings : 0,
-                    currentMonthLessonsCount != null ? currentMonthLessonsCount : 0,
+                    paidTeacherIds.contains(teacher.getId()),
+                    monthTotal[0],
+                    monthTotal[1],
                     // Stripe Connect status
                     stripeConnectEnabled,
                     stripeConnectReady
@@ -731,6 +741,7 @@ public class AdminService {
         subscription.setIsActive(false);
         subscription.setCancelledAt(LocalDateTime.now());
         subscriptionRepository.save(subscription);
+        entitlementService.invalidate(subscription.getStudent().getId());
         log.info("Subscription {} cancelled. Reason: {}", subscriptionId, reason);
     }
 
@@ -9,6 +9,7 @@ import com.chessconnect.model.enums.UserRole;
 import com.chessconnect.repository.PageViewRepository;
 import com.chessconnect.repository.SubscriptionRepository;
 import com.chessconnect.repository.UserRepository;
+import com.chessconnect.scheduler.ScheduledJobRunner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -16,6 +17,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Date;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -34,15 +36,18 @@ public class AnalyticsService {
     private final UserRepository userRepository;
     private final SubscriptionRepository subscriptionRepository;
     private final PageViewRepository pageViewRepository;
+    private final ScheduledJobRunner jobRunner;
 
     public AnalyticsService(
             UserRepository userRepository,
             SubscriptionRepository subscriptionRepository,
-            PageViewRepository pageViewRepository
+            PageViewRepository pageViewRepository,
+            ScheduledJobRunner jobRunner
     ) {
         this.userRepository = userRepository;
         this.subscriptionRepository = subscriptionRepository;
         this.pageViewRepository = pageViewRepository;
+        this.jobRunner = jobRunner;
     }
 
     /**
@@ -137,9 +142,11 @@ public class AnalyticsService {
     @Scheduled(cron = "0 0 3 * * ?")
     @Transactional
     public void cleanOldPageViews() {
-        LocalDateTime cutoff = LocalDateTime.now().minusDays(90);
-        pageViewRepository.deleteByVisitedAtBefore(cutoff);
-        log.info("Cleaned up page views older than {}", cutoff);
+        jobRunner.runLocked("AnalyticsService.cleanOldPageViews", Duration.ofMinutes(10), () -> {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(90);
+            pageViewRepository.deleteByVisitedAtBefore(cutoff);
+            log.info("Cleaned up page views older than {}", cutoff);
+        });
     }
 
     /**
@@ -0,0 +1,223 @@
+package com.chessconnect.service;
+
+import com.chessconnect.event.AvailabilityCreatedEvent;
+import com.chessconnect.event.cluster.ClusterSseRouter;
+import com.chessconnect.event.payload.AvailabilityPayload;
+import com.chessconnect.model.FavoriteTeacher;
+import com.chessconnect.model.User;
+import com.chessconnect.repository.FavoriteTeacherRepository;
+import com.chessconnect.scheduler.ScheduledJobRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Notifies the students following a teacher when new slots are published.
+ *
+ * Once the availability transaction commits, connected subscribers get the SSE event
+ * straight away so their calendars stay live. Email and push are coalesced: slots from
+ * the same teacher within {@link #COALESCE_WINDOW} are merged so each student receives a
+ * single digest. Waiting slots are stored in availability_digest_slots rather than in
+ * memory, so a restart doesn't lose them, and digests are sent under the scheduler lease
+ * by a single node. Subscribers are loaded in one query; emails are queued in the outbox
+ * in one insert and pushes go out as a single {@link PushDispatcher} multicast.
+ */
+@Service
+public class AvailabilityFanoutService {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityFanoutService.class);
+
+    static final Duration COALESCE_WINDOW = Duration.ofSeconds(60);
+    static final int MAX_DIGESTS_PER_RUN = 100;
+    private static final String EMAIL_TEMPLATE = "new-availability-notification";
+
+    static final String INSERT_SQL =
+        "INSERT INTO availability_digest_slots (teacher_id, teacher_name, availability_id, availability_info, created_at) " +
+        "VALUES (?, ?, ?, ?, ?)";
+
+    // Teachers whose oldest waiting slot has been held for the whole window
+    static final String DUE_TEACHERS_SQL =
+        "SELECT teacher_id FROM availability_digest_slots GROUP BY teacher_id " +
+        "HAVING MIN(created_at) <= ? ORDER BY MIN(created_at) LIMIT ?";
+
+    static final String CLAIM_SQL =
+        "DELETE FROM availability_digest_slots WHERE teacher_id = ? RETURNING id, teacher_name, availability_info";
+
+    /**
+     * One stored slot of a digest.
+     */
+    record DigestSlot(long id, String teacherName, String availabilityInfo) {}
+
+    /**
+     * Slots announced together for one teacher, oldest first.
+     */
+    record PendingDigest(String teacherName, List<String> slots) {
+
+        static PendingDigest of(List<DigestSlot> rows) {
+            List<DigestSlot> ordered = rows.stream().sorted(Comparator.comparingLong(DigestSlot::id)).toList();
+            return new PendingDigest(ordered.get(ordered.size() - 1).teacherName(),
+                    ordered.stream().map(DigestSlot::availabilityInfo).toList());
+        }
+    }
+
+    private final FavoriteTeacherRepository favoriteRepository;
+    private final EmailService emailService;
+    private final PushDispatcher pushDispatcher;
+    private final ClusterSseRouter sseRouter;
+    private final ScheduledJobRunner jobRunner;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final Clock clock;
+
+    @Value("${app.frontend-url:http://localhost:4200}")
+    private String frontendUrl;
+
+    public AvailabilityFanoutService(
+            FavoriteTeacherRepository favoriteRepository,
+            EmailService emailService,
+            PushDispatcher pushDispatcher,
+            ClusterSseRouter sseRouter,
+            ScheduledJobRunner jobRunner,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            Clock clock
+    ) {
+        this.favoriteRepository = favoriteRepository;
+        this.emailService = emailService;
+        this.pushDispatcher = pushDispatcher;
+        this.sseRouter = sseRouter;
+        this.jobRunner = jobRunner;
+        this.jdbcTemplate = jdbcTemplate;
+        // The slot is stored after the availability committed, so it needs a transaction of its own
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.clock = clock;
+    }
+
+    /**
+     * Push the slot to connected subscribers and store it for the teacher's next digest.
+     * Only runs once the availability is committed, so a rolled-back creation never
+     * notifies anyone.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAvailabilityCreated(AvailabilityCreatedEvent event) {
+        publishSse(event);
+        try {
+            newTransaction.executeWithoutResult(tx -> jdbcTemplate.update(INSERT_SQL,
+                    event.teacherId(), event.teacherName(), event.availabilityId(), event.availabilityInfo(),
+                    Timestamp.from(clock.instant())));
+        } catch (Exception e) {
+            log.error("Failed to queue availability {} of teacher {} for the digest: {}",
+                    event.availabilityId(), event.teacherId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Send every digest whose coalescing window has elapsed. Each teacher's slots are
+     * deleted in the transaction that queues the emails, so they go out once.
+     */
+    @Scheduled(fixedDelay = 5000)
+    public void sendDueDigests() {
+        jobRunner.runLocked("AvailabilityFanoutService.sendDueDigests", Duration.ofMinutes(1), () -> {
+            Timestamp cutoff = Timestamp.from(clock.instant().minus(COALESCE_WINDOW));
+            List<Long> teacherIds = jdbcTemplate.queryForList(DUE_TEACHERS_SQL, Long.class, cutoff, MAX_DIGESTS_PER_RUN);
+            for (Long teacherId : teacherIds) {
+                newTransaction.executeWithoutResult(tx -> {
+                    List<DigestSlot> slots = jdbcTemplate.query(CLAIM_SQL, (rs, i) -> new DigestSlot(
+                            rs.getLong("id"), rs.getString("teacher_name"), rs.getString("availability_info")), teacherId);
+                    if (!slots.isEmpty()) {
+                        fanOut(teacherId, PendingDigest.of(slots));
+                    }
+                });
+            }
+        });
+    }
+
+    void fanOut(Long teacherId, PendingDigest digest) {
+        try {
+            List<User> students = favoriteRepository.findSlotSubscribersWithStudent(teacherId).stream()
+                    .map(FavoriteTeacher::getStudent)
+                    .toList();
+            if (students.isEmpty()) {
+                return;
+            }
+
+            String bookingLink = frontendUrl + "/book/" + teacherId;
+            sendEmails(digest, students, bookingLink);
+            sendPushes(digest, students, bookingLink);
+
+            log.info("Announced {} new slot(s) of teacher {} to {} subscribers",
+                    digest.slots().size(), teacherId, students.size());
+        } catch (Exception e) {
+            log.error("Failed to notify subscribers of teacher {}: {}", teacherId, e.getMessage());
+        }
+    }
+
+    /**
+     * Live clients get one event per slot, without waiting for the digest.
+     */
+    private void publishSse(AvailabilityCreatedEvent slot) {
+        List<FavoriteTeacher> subscribers;
+        try {
+            subscribers = favoriteRepository.findSlotSubscribersWithStudent(slot.teacherId());
+        } catch (Exception e) {
+            log.error("Failed to load subscribers of teacher {}: {}", slot.teacherId(), e.getMessage());
+            return;
+        }
+        AvailabilityPayload payload = new AvailabilityPayload(
+                slot.availabilityId(), slot.teacherId(), slot.teacherName(), slot.availabilityInfo(), slot.timeRange());
+        for (FavoriteTeacher subscriber : subscribers) {
+            Long studentId = subscriber.getStudent().getId();
+            try {
+                sseRouter.sendToUser(studentId, "availability", payload);
+            } catch (Exception e) {
+                log.warn("Failed to send availability event to user {}: {}", studentId, e.getMessage());
+            }
+        }
+    }
+
+    private void sendEmails(PendingDigest digest, List<User> students, String bookingLink) {
+        // The template renders availabilityInfo as HTML, one line per slot
+        String availabilityInfo = String.join("<br>", digest.slots());
+        String subject = digest.teacherName() + " a publie de nouveaux creneaux - Mychess";
+
+        List<EmailService.BatchRecipient> recipients = students.stream()
+                .filter(student -> student.getEmail() != null)
+                .map(student -> new EmailService.BatchRecipient(student.getEmail(), Map.of(
+                        "firstName", student.getFirstName(),
+                        "teacherName", digest.teacherName(),
+                        "availabilityInfo", availabilityInfo,
+                        "bookingLink", bookingLink)))
+                .toList();
+
+        // Queued in one batch; the outbox dispatcher paces the actual SMTP delivery
+        emailService.enqueueBatch(subject, EMAIL_TEMPLATE, recipients);
+    }
+
+    private void sendPushes(PendingDigest digest, List<User> students, String bookingLink) {
+        int count = digest.slots().size();
+        String title = (count == 1 ? "Nouveau créneau - " : "Nouveaux créneaux - ") + digest.teacherName();
+        String body = count == 1
+                ? digest.slots().get(0)
+                : count + " nouveaux creneaux, dont : " + digest.slots().get(0);
+
+        // Connected users already got the SSE event
+        pushDispatcher.multicast(students.stream().map(User::getId).toList(),
+                new PushDispatcher.PushMessage(title, body, bookingLink), false);
+    }
+}
@@ -3,10 +3,8 @@ package com.chessconnect.service;
 import com.chessconnect.dto.availability.AvailabilityRequest;
 import com.chessconnect.dto.availability.AvailabilityResponse;
 import com.chessconnect.dto.availability.TimeSlotResponse;
-import com.chessconnect.event.NotificationEvent;
-import com.chessconnect.event.payload.AvailabilityPayload;
+import com.chessconnect.event.AvailabilityCreatedEvent;
 import com.chessconnect.model.Availability;
-import com.chessconnect.model.FavoriteTeacher;
 import com.chessconnect.model.Lesson;
 import com.chessconnect.model.User;
 import com.chessconnect.model.enums.LessonStatus;
@@ -14,14 +12,12 @@ import com.chessconnect.model.enums.LessonType;
 import com.chessconnect.model.GroupInvitation;
 import com.chessconnect.model.LessonParticipant;
 import com.chessconnect.repository.AvailabilityRepository;
-import com.chessconnect.repository.FavoriteTeacherRepository;
 import com.chessconnect.repository.GroupInvitationRepository;
 import com.chessconnect.repository.LessonParticipantRepository;
 import com.chessconnect.repository.LessonRepository;
 import com.chessconnect.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -47,37 +43,25 @@ public class AvailabilityService {
     private final AvailabilityRepository availabilityRepository;
     private final LessonRepository lessonRepository;
     private final UserRepository userRepository;
-    private final FavoriteTeacherRepository favoriteRepository;
     private final GroupInvitationRepository groupInvitationRepository;
     private final LessonParticipantRepository participantRepository;
-    private final EmailService emailService;
-    private final WebPushService webPushService;
     private final SubscriptionService subscriptionService;
     private final ApplicationEventPublisher eventPublisher;
 
-    @Value("${app.frontend-url:http://localhost:4200}")
-    private String frontendUrl;
-
     public AvailabilityService(
             AvailabilityRepository availabilityRepository,
             LessonRepository lessonRepository,
             UserRepository userRepository,
-            FavoriteTeacherRepository favoriteRepository,
             GroupInvitationRepository groupInvitationRepository,
             LessonParticipantRepository participantRepository,
-            EmailService emailService,
-            WebPushService webPushService,
             SubscriptionService subscriptionService,
             ApplicationEventPublisher eventPublisher
     ) {
         this.availabilityRepository = availabilityRepository;
         this.lessonRepository = lessonRepository;
         this.userRepository = userRepository;
-        this.favoriteRepository = favoriteRepository;
         this.groupInvitationRepository = groupInvitationRepository;
         this.participantRepository = participantRepository;
-        this.emailService = emailService;
-        this.webPushService = webPushService;
         this.subscriptionService = subscriptionService;
         this.eventPublisher = eventPublisher;
     }
@@ -113,82 +97,18 @@ public class AvailabilityService {
         availability = availabilityRepository.save(availability);
         log.info("Created availability {} for teacher {}", availability.getId(), teacherId);
 
-        // Notify subscribed students
-        notifySubscribers(teacher, availability);
+        // Subscribed students are notified after commit, grouped with the teacher's other new slots
+        eventPublisher.publishEvent(new AvailabilityCreatedEvent(
+                teacherId,
+                teacher.getFirstName() + " " + teacher.getLastName(),
+                availability.getId(),
+                formatAvailabilityInfo(availability),
+                availability.getStartTime() + " - " + availability.getEndTime()
+        ));
 
         return AvailabilityResponse.fromEntity(availability);
     }
 
-    private void notifySubscribers(User teacher, Availability availability) {
-        List<FavoriteTeacher> subscribers = favoriteRepository.findByTeacherIdAndNotifyNewSlotsTrue(teacher.getId());
-
-        if (subscribers.isEmpty()) {
-            return;
-        }
-
-        String teacherName = teacher.getFirstName() + " " + teacher.getLastName();
-        String availabilityInfo = formatAvailabilityInfo(availability);
-        String bookingLink = frontendUrl + "/book/" + teacher.getId();
-
-        int notifiedCount = 0;
-        int sseNotifiedCount = 0;
-        for (FavoriteTeacher subscriber : subscribers) {
-            User student = subscriber.getStudent();
-
-            // Send email notification to all subscribers (Premium restriction removed for launch)
-            emailService.sendNewAvailabilityNotification(
-                    student.getEmail(),
-                    student.getFirstName(),
-                    teacherName,
-                    availabilityInfo,
-                    bookingLink
-            );
-            notifiedCount++;
-
-            // Send Web Push notification
-            webPushService.sendToUser(
-                    student.getId(),
-                    "Nouveau créneau - " + teacherName,
-                    availabilityInfo,
-                    bookingLink
-            );
-
-            // Send SSE notification to all subscribed students
-            publishAvailabilityEvent(student.getId(), teacher, availability, availabilityInfo);
-            sseNotifiedCount++;
-        }
-
-        log.info("Notified {} subscribers (email) and {} subscribers (SSE) about new availability for teacher {}",
-                notifiedCount, sseNotifiedCount, teacher.getId());
-    }
-
-    /**
-     * Publish SSE event when a new availability is created.
-     */
-    private void publishAvailabilityEvent(Long studentId, User teacher, Availability availability, String dayInfo) {
-        try {
-            String teacherName = teacher.getFirstName() + " " + teacher.getLastName();
-            String timeRange = availability.getStartTime() + " - " + availability.getEndTime();
-
-            AvailabilityPayload payload = new AvailabilityPayload(
-                    availability.getId(),
-                    teacher.getId(),
-                    teacherName,
-                    dayInfo,
-                    timeRange
-            );
-
-            eventPublisher.publishEvent(new NotificationEvent(
-                    this,
-                    NotificationEvent.EventType.AVAILABILITY_CREATED,
-                    studentId,
-                    payload
-            ));
-        } catch (Exception e) {
-            log.warn("Failed to publish SSE availability event: {}", e.getMessage());
-        }
-    }
-
     private String formatAvailabilityInfo(Availability availability) {
         StringBuilder sb = new StringBuilder();
 
@@ -0,0 +1,232 @@
+package com.chessconnect.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Avatar image pipeline: decodes an upload once, center-crops it to a square and
+ * writes fixed-size JPEG variants under a content-hash filename.
+ *
+ * Because the filename is derived from the image bytes, a given URL never changes
+ * content and can be cached as immutable by browsers and the CDN.
+ */
+@Service
+public class AvatarImageService {
+
+    private static final Logger log = LoggerFactory.getLogger(AvatarImageService.class);
+
+    // Largest first: each variant is downscaled from the previous one
+    public static final int[] VARIANT_SIZES = {256, 128, 64};
+    public static final int DEFAULT_SIZE = 256;
+    public static final int CARD_SIZE = 128;
+
+    private static final String URL_PREFIX = "/api/uploads/avatars/";
+    private static final float JPEG_QUALITY = 0.85f;
+    // Checked from the header before decoding: a tiny file can declare dimensions that need
+    // gigabytes once decoded. 24 MP covers phone photos at their default resolution.
+    static final int MAX_DIMENSION = 8192;
+    static final long MAX_PIXELS = 24_000_000L;
+    private static final Pattern VARIANT_URL = Pattern.compile("^(.*/uploads/avatars/[a-f0-9]+)_(\\d+)\\.jpg$");
+
+    /**
+     * The upload declares more pixels than an avatar is allowed to have.
+     */
+    public static class ImageTooLargeException extends IOException {
+        public ImageTooLargeException(int width, int height) {
+            super("Image dimensions " + width + "x" + height + " exceed the avatar limit");
+        }
+    }
+
+    @Value("${app.upload.dir:uploads}")
+    private String uploadDir;
+
+    /**
+     * Decode the image, generate all variants and return the URL of the default variant.
+     *
+     * @throws ImageTooLargeException if the image declares dimensions over the limit
+     */
+    public String storeAvatar(byte[] imageBytes) throws IOException {
+        String hash = contentHash(imageBytes);
+        Path avatarDir = Paths.get(uploadDir, "avatars");
+        Files.createDirectories(avatarDir);
+
+        // Same content already processed (re-upload or shared image)
+        if (Files.exists(avatarDir.resolve(variantFilename(hash, DEFAULT_SIZE)))) {
+            return URL_PREFIX + variantFilename(hash, DEFAULT_SIZE);
+        }
+
+        BufferedImage source = decode(imageBytes);
+
+        BufferedImage current = cropToSquare(source);
+        for (int size : VARIANT_SIZES) {
+            current = downscale(current, size);
+            Path target = avatarDir.resolve(variantFilename(hash, size));
+            // Write to a temp file first so a half-written variant is never served
+            Path temp = Files.createTempFile(avatarDir, hash, ".tmp");
+            try {
+                writeJpeg(current, temp);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        log.info("Stored avatar variants for hash {} ({}x{} source)", hash, source.getWidth(), source.getHeight());
+        return URL_PREFIX + variantFilename(hash, DEFAULT_SIZE);
+    }
+
+    /**
+     * Delete all variants belonging to an avatar URL produced by {@link #storeAvatar}.
+     * Legacy single-file avatars are handled by the caller.
+     */
+    public void deleteVariants(String avatarUrl) throws IOException {
+        Matcher matcher = avatarUrl != null ? VARIANT_URL.matcher(avatarUrl) : null;
+        if (matcher == null || !matcher.matches()) {
+            return;
+        }
+        String hash = matcher.group(1).substring(matcher.group(1).lastIndexOf('/') + 1);
+        Path avatarDir = Paths.get(uploadDir, "avatars");
+        for (int size : VARIANT_SIZES) {
+            Files.deleteIfExists(avatarDir.resolve(variantFilename(hash, size)));
+        }
+    }
+
+    /**
+     * Rewrite a stored avatar URL to point at another variant size.
+     * URLs that don't follow the variant naming (legacy uploads, external URLs) are returned as-is.
+     */
+    public static String variantUrl(String avatarUrl, int size) {
+        if (avatarUrl == null) {
+            return null;
+        }
+        Matcher matcher = VARIANT_URL.matcher(avatarUrl);
+        if (!matcher.matches()) {
+            return avatarUrl;
+        }
+        return matcher.group(1) + "_" + size + ".jpg";
+    }
+
+    public static boolean isVariantUrl(String avatarUrl) {
+        return avatarUrl != null && VARIANT_URL.matcher(avatarUrl).matches();
+    }
+
+    /**
+     * Read the dimensions from the image header and decode the pixels only if they are within bounds.
+     */
+    private static BufferedImage decode(byte[] imageBytes) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(imageBytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width > MAX_DIMENSION || height > MAX_DIMENSION || (long) width * height > MAX_PIXELS) {
+                    throw new ImageTooLargeException(width, height);
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static String variantFilename(String hash, int size) {
+        return hash + "_" + size + ".jpg";
+    }
+
+    private static String contentHash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            // 128 bits is plenty to avoid collisions between avatars
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static BufferedImage cropToSquare(BufferedImage source) {
+        int side = Math.min(source.getWidth(), source.getHeight());
+        int x = (source.getWidth() - side) / 2;
+        int y = (source.getHeight() - side) / 2;
+        // Flatten onto white: JPEG has no alpha channel
+        BufferedImage square = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = square.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, side, side);
+            g.drawImage(source, 0, 0, side, side, x, y, x + side, y + side, null);
+        } finally {
+            g.dispose();
+        }
+        return square;
+    }
+
+    /**
+     * Downscale by successive halving so large photos don't alias when shrunk to a thumbnail.
+     */
+    private static BufferedImage downscale(BufferedImage image, int size) {
+        BufferedImage current = image;
+        int currentSize = image.getWidth();
+        if (currentSize <= size) {
+            return image;
+        }
+        do {
+            int next = Math.max(size, currentSize / 2);
+            BufferedImage scaled = new BufferedImage(next, next, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = scaled.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, next, next, null);
+            } finally {
+                g.dispose();
+            }
+            current = scaled;
+            currentSize = next;
+        } while (currentSize > size);
+        return current;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.chessconnect.service;
+
+import com.chessconnect.scheduler.ScheduledJobRunner;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers emails queued in {@code email_outbox}.
+ *
+ * Each run claims a batch of due emails, renders them and hands the whole batch to
+ * the mail sender, which sends it over a single SMTP connection. The batch size caps
+ * the send rate. Failed emails are retried with exponential backoff and marked FAILED
+ * after {@link #MAX_ATTEMPTS}. Claimed rows get a lease, so emails held by a node that
+ * crashed mid-batch are picked up again once the lease expires.
+ */
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private static final long DISPATCH_INTERVAL_MS = 1000;
+    static final int MAX_ATTEMPTS = 6;
+    private static final Duration FIRST_RETRY_DELAY = Duration.ofSeconds(30);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofHours(1);
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(5);
+    private static final int SENT_RETENTION_DAYS = 30;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final String CLAIM_SQL =
+        "UPDATE email_outbox SET attempts = attempts + 1, next_attempt_at = ? " +
+        "WHERE id IN (" +
+        "  SELECT id FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= ? " +
+        "  ORDER BY next_attempt_at, id LIMIT ? FOR UPDATE SKIP LOCKED" +
+        ") RETURNING id, recipient, subject, template_name, variables, attempts";
+
+    /**
+     * A claimed outbox row.
+     */
+    record OutboxEmail(long id, String recipient, String subject, String templateName, String variables, int attempts) {}
+
+    /**
+     * Outcome of one batch: delivered ids, transient failures to retry and permanent failures.
+     */
+    record Delivery(List<Long> sent, Map<OutboxEmail, String> retry, Map<OutboxEmail, String> rejected) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JavaMailSender mailSender;
+    private final TemplateEngine templateEngine;
+    private final ObjectMapper objectMapper;
+
+    private final Counter sentCounter;
+    private final Counter retryCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final AtomicLong oldestPendingSeconds = new AtomicLong();
+    private final ScheduledJobRunner jobRunner;
+
+    @Value("${spring.mail.username:support@mychess.fr}")
+    private String fromEmail;
+
+    @Value("${app.name:Mychess}")
+    private String appName;
+
+    @Value("${app.logo-url:https://mychess.fr/assets/logo.png}")
+    private String logoUrl;
+
+    // Emails per dispatch run, i.e. roughly per second: keeps us under the SMTP provider's rate limit
+    @Value("${app.mail.outbox.batch-size:20}")
+    private int batchSize;
+
+    public EmailOutboxDispatcher(JdbcTemplate jdbcTemplate, JavaMailSender mailSender,
+                                 TemplateEngine templateEngine, ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry, ScheduledJobRunner jobRunner) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mailSender = mailSender;
+        this.templateEngine = templateEngine;
+        this.objectMapper = objectMapper;
+        this.jobRunner = jobRunner;
+
+        this.sentCounter = Counter.builder("email_outbox_sent")
+                .description("Emails delivered to the SMTP server")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("email_outbox_retried")
+                .description("Email delivery attempts that failed and were rescheduled")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("email_outbox_failed")
+                .description("Emails abandoned after the last attempt or rejected as invalid")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("email_outbox_batch_duration")
+                .description("Time to deliver one outbox batch over SMTP")
+                .register(meterRegistry);
+        Gauge.builder("email_outbox_pending", pendingCount, AtomicLong::get)
+                .description("Emails waiting in the outbox")
+                .register(meterRegistry);
+        Gauge.builder("email_outbox_lag_seconds", oldestPendingSeconds, AtomicLong::get)
+                .description("Age of the oldest email waiting in the outbox")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelay = DISPATCH_INTERVAL_MS)
+    public void dispatch() {
+        jobRunner.runLocal("EmailOutboxDispatcher.dispatch", () -> {
+            try {
+                LocalDateTime now = LocalDateTime.now();
+                List<OutboxEmail> batch = jdbcTemplate.query(CLAIM_SQL, (rs, i) -> new OutboxEmail(
+                        rs.getLong("id"),
+                        rs.getString("recipient"),
+                        rs.getString("subject"),
+                        rs.getString("template_name"),
+                        rs.getString("variables"),
+                        rs.getInt("attempts")
+                    ), Timestamp.valueOf(now.plus(CLAIM_LEASE)), Timestamp.valueOf(now), batchSize);
+
+                if (!batch.isEmpty()) {
+                    Delivery delivery = batchTimer.record(() -> deliver(batch));
+                    markDelivery(delivery);
+                }
+                refreshQueueStats();
+            } catch (Exception e) {
+                log.error("Email outbox dispatch failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Render and send a batch in one SMTP session.
+     */
+    Delivery deliver(List<OutboxEmail> batch) {
+        Map<OutboxEmail, String> retry = new LinkedHashMap<>();
+        Map<OutboxEmail, String> rejected = new LinkedHashMap<>();
+        // MimeMessage keeps identity equality; insertion order keeps the batch order on the wire
+        Map<MimeMessage, OutboxEmail> messages = new LinkedHashMap<>();
+
+        for (OutboxEmail email : batch) {
+            try {
+                messages.put(render(email), email);
+            } catch (Exception e) {
+                // A broken template or address won't get better on retry
+                rejected.put(email, "Render failed: " + e.getMessage());
+            }
+        }
+
+        if (!messages.isEmpty()) {
+            try {
+                mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                e.getFailedMessages().forEach((message, error) -> {
+                    OutboxEmail email = messages.get(message);
+                    if (email != null) {
+                        retry.put(email, error.getMessage());
+                    }
+                });
+                // No detail (e.g. connection refused before any message): the whole batch failed
+                if (e.getFailedMessages().isEmpty()) {
+                    messages.values().forEach(email -> retry.put(email, e.getMessage()));
+                }
+            } catch (MailException e) {
+                messages.values().forEach(email -> retry.put(email, e.getMessage()));
+            }
+        }
+
+        List<Long> sent = new ArrayList<>();
+        for (OutboxEmail email : batch) {
+            if (!retry.containsKey(email) && !rejected.containsKey(email)) {
+                sent.add(email.id());
+            }
+        }
+        return new Delivery(sent, retry, rejected);
+    }
+
+    private MimeMessage render(OutboxEmail email) throws Exception {
+        Map<String, Object> variables = objectMapper.readValue(email.variables(), new TypeReference<>() {});
+        Context context = new Context();
+        context.setVariables(variables);
+        context.setVariable("appName", appName);
+        context.setVariable("logoUrl", logoUrl);
+
+        // The template engine caches parsed templates, so rendering is cheap after the first email
+        String htmlContent = templateEngine.process("email/" + email.templateName(), context);
+
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom(fromEmail, appName);
+        helper.setTo(email.recipient());
+        helper.setSubject(email.subject());
+        helper.setText(htmlContent, true);
+        return message;
+    }
+
+    private void markDelivery(Delivery delivery) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!delivery.sent().isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                "UPDATE email_outbox SET status = 'SENT', sent_at = ?, last_error = NULL WHERE id = ?",
+                delivery.sent().stream().map(id -> new Object[] { Timestamp.valueOf(now), id }).toList());
+            sentCounter.increment(delivery.sent().size());
+        }
+
+        List<Object[]> retries = new ArrayList<>();
+        List<Object[]> failures = new ArrayList<>();
+        delivery.rejected().forEach((email, error) -> failures.add(new Object[] { truncate(error), email.id() }));
+        delivery.retry().forEach((email, error) -> {
+            if (email.attempts() >= MAX_ATTEMPTS) {
+                failures.add(new Object[] { truncate(error), email.id() });
+            } else {
+                retries.add(new Object[] { Timestamp.valueOf(now.plus(retryDelay(email.attempts()))), truncate(error), email.id() });
+            }
+        });
+
+        if (!retries.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE email_outbox SET next_attempt_at = ?, last_error = ? WHERE id = ?", retries);
+            retryCounter.increment(retries.size());
+        }
+        if (!failures.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE email_outbox SET status = 'FAILED', last_error = ? WHERE id = ?", failures);
+            failedCounter.increment(failures.size());
+            log.error("Gave up on {} email(s), see email_outbox.last_error", failures.size());
+        }
+        log.info("Email outbox: {} sent, {} to retry, {} failed", delivery.sent().size(), retries.size(), failures.size());
+    }
+
+    /**
+     * 30s, 1min, 2min, ... capped at one hour.
+     */
+    static Duration retryDelay(int attempts) {
+        Duration delay = FIRST_RETRY_DELAY.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : delay;
+    }
+
+    private void refreshQueueStats() {
+        jdbcTemplate.query("SELECT COUNT(*), MIN(created_at) FROM email_outbox WHERE status = 'PENDING'", rs -> {
+            pendingCount.set(rs.getLong(1));
+            Timestamp oldest = rs.getTimestamp(2);
+            oldestPendingSeconds.set(oldest == null ? 0
+                : Math.max(0, Duration.between(oldest.toLocalDateTime(), LocalDateTime.now()).getSeconds()));
+        });
+    }
+
+    /**
+     * Delivered emails are only kept for troubleshooting.
+     */
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeSent() {
+        jobRunner.runLocked("EmailOutboxDispatcher.purgeSent", Duration.ofMinutes(10), () -> {
+            int deleted = jdbcTemplate.update(
+                "DELETE FROM email_outbox WHERE status = 'SENT' AND sent_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(SENT_RETENTION_DAYS)));
+            if (deleted > 0) {
+                log.info("Purged {} delivered emails from the outbox", deleted);
+            }
+        });
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -1,77 +1,58 @@
 package com.chessconnect.service;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Queues transactional emails in the {@code email_outbox} table.
+ *
+ * Nothing is sent on the caller's thread: {@link EmailOutboxDispatcher} renders and
+ * delivers queued emails in batches, with retries. When called inside a transaction,
+ * the email is only queued once that transaction commits, in a transaction of its own,
+ * so read-only callers work too. A failure to queue is logged and never reaches the
+ * caller: an email must not fail a booking or a registration.
+ */
 @Service
 public class EmailService {
 
     private static final Logger log = LoggerFactory.getLogger(EmailService.class);
 
-    private final JavaMailSender mailSender;
-    private final TemplateEngine templateEngine;
-
-    @Value("${spring.mail.username:support@mychess.fr}")
-    private String fromEmail;
+    private static final String INSERT_SQL =
+        "INSERT INTO email_outbox (recipient, subject, template_name, variables) VALUES (?, ?, ?, ?)";
 
-    @Value("${app.name:Mychess}")
-    private String appName;
-
-    @Value("${app.logo-url:https://mychess.fr/assets/logo.png}")
-    private String logoUrl;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate newTransaction;
 
     @Value("${spring.mail.enabled:false}")
     private boolean emailEnabled;
 
-    public EmailService(JavaMailSender mailSender, TemplateEngine templateEngine) {
-        this.mailSender = mailSender;
-        this.templateEngine = templateEngine;
+    public EmailService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                        PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
-    @Async
     public void sendEmail(String to, String subject, String templateName, Map<String, Object> variables) {
-        if (!emailEnabled) {
-            log.info("Email sending disabled. Would have sent '{}' to {} using template '{}'",
-                    subject, to, templateName);
-            return;
-        }
-
-        try {
-            Context context = new Context();
-            context.setVariables(variables);
-            context.setVariable("appName", appName);
-            context.setVariable("logoUrl", logoUrl);
-
-            String htmlContent = templateEngine.process("email/" + templateName, context);
-
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromEmail, appName);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-            log.info("Email sent successfully to {} with subject '{}'", to, subject);
-
-        } catch (MessagingException | java.io.UnsupportedEncodingException e) {
-            log.error("Failed to send email to {}: {}", to, e.getMessage());
-        }
+        enqueueBatch(subject, templateName, List.of(new BatchRecipient(to, variables)));
     }
 
-    @Async
     public void sendPasswordResetEmail(String to, String firstName, String resetLink) {
         Map<String, Object> variables = Map.of(
                 "firstName", firstName,
@@ -81,7 +62,6 @@ public class EmailService {
                 "password-reset", variables);
     }
 
-    @Async
     public void sendLessonReminderEmail(String to, String firstName, String teacherName,
                                          String lessonDate, String lessonTime, String meetingLink) {
         Map<String, Object> variables = Map.of(
@@ -95,7 +75,6 @@ public class EmailService {
                 "lesson-reminder", variables);
     }
 
-    @Async
     public void sendNewAvailabilityNotification(String to, String firstName, String teacherName,
                                                   String availabilityInfo, String bookingLink) {
         Map<String, Object> variables = Map.of(
@@ -108,7 +87,63 @@ public class EmailService {
                 "new-availability-notification", variables);
     }
 
-    @Async
+    /**
+     * One recipient of a batch, with the template variables specific to them.
+     */
+    public record BatchRecipient(String to, Map<String, Object> variables) {}
+
+    /**
+     * Queue the same template for several recipients in one batched insert.
+     *
+     * @return number of emails queued, or to be queued when the caller's transaction commits
+     */
+    public int enqueueBatch(String subject, String templateName, List<BatchRecipient> recipients) {
+        if (!emailEnabled) {
+            log.info("Email sending disabled. Would have sent '{}' to {} recipient(s) using template '{}'",
+                    subject, recipients.size(), templateName);
+            return 0;
+        }
+        if (recipients.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> rows = new ArrayList<>(recipients.size());
+        for (BatchRecipient recipient : recipients) {
+            try {
+                rows.add(new Object[] {
+                    recipient.to(), subject, templateName, objectMapper.writeValueAsString(recipient.variables())
+                });
+            } catch (JsonProcessingException e) {
+                log.error("Failed to queue email '{}' for {}: {}", subject, recipient.to(), e.getMessage());
+            }
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    insert(subject, rows);
+                }
+            });
+            return rows.size();
+        }
+        return insert(subject, rows) ? rows.size() : 0;
+    }
+
+    private boolean insert(String subject, List<Object[]> rows) {
+        try {
+            newTransaction.executeWithoutResult(tx -> jdbcTemplate.batchUpdate(INSERT_SQL, rows));
+            log.debug("Queued {} email(s) with subject '{}'", rows.size(), subject);
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to queue {} email(s) with subject '{}': {}", rows.size(), subject, e.getMessage());
+            return false;
+        }
+    }
+
     public void sendContactAdminEmail(String adminEmail, String senderName, String senderEmail,
                                        String subject, String messageContent) {
         Map<String, Object> variables = Map.of(
@@ -120,7 +155,6 @@ public class EmailService {
         sendEmail(adminEmail, "[Mychess] " + subject, "contact-admin", variables);
     }
 
-    @Async
     public void sendEmailVerificationEmail(String to, String firstName, String verificationLink) {
         Map<String, Object> variables = Map.of(
                 "firstName", firstName,
@@ -0,0 +1,135 @@
+package com.chessconnect.service;
+
+import com.chessconnect.model.Subscription;
+import com.chessconnect.model.User;
+import com.chessconnect.model.enums.SubscriptionPlan;
+import com.chessconnect.repository.SubscriptionRepository;
+import com.chessconnect.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Premium entitlements, cached per user.
+ *
+ * An entry is kept until the user's status would change on its own (the subscription's
+ * end date, when the expiry job deactivates it, or the day after the trial ends), and is
+ * dropped after commit by every write that grants or revokes Premium. Entries also expire
+ * after a short TTL, shorter for non-Premium users, which bounds staleness after a change
+ * made on another node.
+ */
+@Service
+public class EntitlementService {
+
+    static final Duration PREMIUM_TTL = Duration.ofMinutes(10);
+    static final Duration NON_PREMIUM_TTL = Duration.ofMinutes(1);
+    // Floor for entries whose expiry is already due, e.g. before the nightly expiry job has run
+    static final Duration MIN_TTL = Duration.ofSeconds(30);
+    private static final long MAX_CACHED_USERS = 50_000;
+
+    /**
+     * What a user is entitled to. {@code expiresAt} is when {@code premium} is expected to
+     * change without any write, or null if it won't.
+     */
+    public record Entitlement(boolean premium, SubscriptionPlan plan, LocalDate trialEnd, LocalDateTime expiresAt) {}
+
+    private final SubscriptionRepository subscriptionRepository;
+    private final UserRepository userRepository;
+    private final Cache<Long, Entitlement> entitlements;
+
+    public EntitlementService(SubscriptionRepository subscriptionRepository,
+                              UserRepository userRepository,
+                              MeterRegistry meterRegistry) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.userRepository = userRepository;
+        this.entitlements = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_USERS)
+                .expireAfter(new Expiry<Long, Entitlement>() {
+                    @Override
+                    public long expireAfterCreate(Long userId, Entitlement entitlement, long currentTime) {
+                        return ttl(entitlement, LocalDateTime.now()).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long userId, Entitlement entitlement, long currentTime, long currentDuration) {
+                        return ttl(entitlement, LocalDateTime.now()).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long userId, Entitlement entitlement, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entitlements, "entitlements");
+    }
+
+    /**
+     * Check if a user has an active Premium subscription OR an active free trial.
+     */
+    public boolean isPremium(Long userId) {
+        return getEntitlement(userId).premium();
+    }
+
+    public Entitlement getEntitlement(Long userId) {
+        return entitlements.get(userId, this::load);
+    }
+
+    /**
+     * Drop the user's cached entitlement once the current transaction commits.
+     */
+    public void invalidate(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entitlements.invalidate(userId);
+                }
+            });
+        } else {
+            entitlements.invalidate(userId);
+        }
+    }
+
+    private Entitlement load(Long userId) {
+        // Check for active paid subscription
+        List<Subscription> active = subscriptionRepository.findActiveSubscriptionsByStudentId(userId);
+        if (!active.isEmpty()) {
+            Subscription subscription = active.get(0);
+            // Deactivated by the expiry job on its end date
+            LocalDateTime expiresAt = subscription.getEndDate() != null ? subscription.getEndDate().atStartOfDay() : null;
+            return new Entitlement(true, subscription.getPlanType(), null, expiresAt);
+        }
+
+        // Check for active free trial (without card)
+        User user = userRepository.findById(userId).orElse(null);
+        if (user != null && user.hasActivePremiumTrial()) {
+            return new Entitlement(true, null, user.getPremiumTrialEnd(), user.getPremiumTrialEnd().plusDays(1).atStartOfDay());
+        }
+
+        return new Entitlement(false, null, user != null ? user.getPremiumTrialEnd() : null, null);
+    }
+
+    static Duration ttl(Entitlement entitlement, LocalDateTime now) {
+        Duration max = entitlement.premium() ? PREMIUM_TTL : NON_PREMIUM_TTL;
+        if (entitlement.expiresAt() == null) {
+            return max;
+        }
+        Duration untilExpiry = Duration.between(now, entitlement.expiresAt());
+        if (untilExpiry.compareTo(MIN_TTL) < 0) {
+            return MIN_TTL;
+        }
+        return untilExpiry.compareTo(max) < 0 ? untilExpiry : max;
+    }
+}
@@ -12,7 +12,6 @@ import com.chessconnect.repository.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -43,6 +42,7 @@ public class GroupLessonService {
     private final TeacherBalanceService teacherBalanceService;
     private final ProgressRepository progressRepository;
     private final ApplicationEventPublisher eventPublisher;
+    private final LessonTimerService lessonTimerService;
 
     public GroupLessonService(
             LessonRepository lessonRepository,
@@ -56,7 +56,8 @@ public class GroupLessonService {
             InvoiceService invoiceService,
             TeacherBalanceService teacherBalanceService,
             ProgressRepository progressRepository,
-            ApplicationEventPublisher eventPublisher
+            ApplicationEventPublisher eventPublisher,
+            LessonTimerService lessonTimerService
     ) {
         this.lessonRepository = lessonRepository;
         this.participantRepository = participantRepository;
@@ -70,6 +71,7 @@ public class GroupLessonService {
         this.teacherBalanceService = teacherBalanceService;
         this.progressRepository = progressRepository;
         this.eventPublisher = eventPublisher;
+        this.lessonTimerService = lessonTimerService;
     }
 
     // ─── CREATE ──────────────────────────────────────────────
@@ -144,6 +146,7 @@ public class GroupLessonService {
         }
 
         Lesson savedLesson = lessonRepository.save(lesson);
+        lessonTimerService.onBooked(savedLesson);
 
         // Create participant entry for creator
         LessonParticipant creatorParticipant = new LessonParticipant();
@@ -382,6 +385,7 @@ public class GroupLessonService {
             lesson.setCancelledBy("SYSTEM");
             lesson.setCancelledAt(LocalDateTime.now());
             lesson.setCancellationReason("Groupe annulé automatiquement - aucun participant restant");
+            lessonTimerService.cancelAll(lessonId);
         }
 
         lessonRepository.save(lesson);
@@ -424,34 +428,38 @@ public class GroupLessonService {
 
     // ─── DEADLINE HANDLING ──────────────────────────────────
 
-    @Scheduled(cron = "0 */15 * * * *") // every 15 minutes
+    /**
+     * Called when the lesson's GROUP_DEADLINE timer fires (24h before the start).
+     * An incomplete group is marked DEADLINE_PASSED and its creator chooses what happens next.
+     */
     @Transactional
-    public void checkGroupDeadlines() {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime deadline = now.plusHours(24);
-
-        List<Lesson> approachingDeadline = lessonRepository.findGroupLessonsApproachingDeadline(now, deadline);
-
-        for (Lesson lesson : approachingDeadline) {
-            if (lesson.isGroupFull()) continue; // already full, no action needed
-
-            lesson.setGroupStatus("DEADLINE_PASSED");
-            lessonRepository.save(lesson);
-
-            // Notify the creator
-            LessonParticipant creator = participantRepository.findByLessonIdAndStatus(lesson.getId(), "ACTIVE")
-                    .stream()
-                    .filter(p -> "CREATOR".equals(p.getRole()))
-                    .findFirst()
-                    .orElse(null);
+    public void handleGroupDeadline(Long lessonId) {
+        Lesson lesson = lessonRepository.findById(lessonId).orElse(null);
+        if (lesson == null
+                || !Boolean.TRUE.equals(lesson.getIsGroupLesson())
+                || !"OPEN".equals(lesson.getGroupStatus())
+                || (lesson.getStatus() != LessonStatus.PENDING && lesson.getStatus() != LessonStatus.CONFIRMED)
+                || lesson.getScheduledAt().isBefore(LocalDateTime.now())) {
+            return;
+        }
+        if (lesson.isGroupFull()) return; // already full, no action needed
+
+        lesson.setGroupStatus("DEADLINE_PASSED");
+        lessonRepository.save(lesson);
 
-            if (creator != null) {
-                notifyDeadlinePassed(lesson, creator.getStudent());
-            }
+        // Notify the creator
+        LessonParticipant creator = participantRepository.findByLessonIdAndStatus(lesson.getId(), "ACTIVE")
+                .stream()
+                .filter(p -> "CREATOR".equals(p.getRole()))
+                .findFirst()
+                .orElse(null);
 
-            log.info("Group lesson {} deadline passed. Group has {}/{} participants.",
-                    lesson.getId(), lesson.getActiveParticipantCount(), lesson.getMaxParticipants());
+        if (creator != null) {
+            notifyDeadlinePassed(lesson, creator.getStudent());
         }
+
+        log.info("Group lesson {} deadline passed. Group has {}/{} participants.",
+                lesson.getId(), lesson.getActiveParticipantCount(), lesson.getMaxParticipants());
     }
 
     @Transactional
@@ -482,6 +490,7 @@ public class GroupLessonService {
             lesson.setCancelledAt(LocalDateTime.now());
             lesson.setCancellationReason("Groupe incomplet - annulé par le créateur");
             lessonRepository.save(lesson);
+            lessonTimerService.cancelAll(lessonId);
 
             log.info("Group lesson {} cancelled by creator at deadline.", lessonId);
 
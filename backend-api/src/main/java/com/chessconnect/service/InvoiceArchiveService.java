@@ -0,0 +1,198 @@
+package com.chessconnect.service;
+
+import com.chessconnect.repository.InvoiceRepository;
+import com.chessconnect.repository.projection.InvoiceListView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * ZIP archive of the invoice PDFs issued over a period, for the accountant.
+ * Invoices are read in keyset batches and each PDF is read whole, one at a time, before its entry
+ * is opened, so memory stays flat whatever the number of invoices and a PDF that can't be read
+ * never leaves a truncated entry behind. PDFs that were never generated
+ * are rendered on the bounded {@code invoicePdfTaskExecutor} pool while the batch is written.
+ */
+@Service
+public class InvoiceArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceArchiveService.class);
+
+    static final int ARCHIVE_BATCH_SIZE = 100;
+    static final String MANIFEST_NAME = "manifest.csv";
+    // Far above any invoice we render; a bigger file is not an invoice PDF
+    static final long MAX_PDF_BYTES = 20L * 1024 * 1024;
+
+    private static final String MANIFEST_HEADER =
+            "file,invoiceNumber,invoiceType,issuedAt,customerName,issuerName,totalCents,status,pdf";
+
+    private final InvoiceRepository invoiceRepository;
+    private final InvoiceService invoiceService;
+    private final Executor pdfExecutor;
+
+    public InvoiceArchiveService(InvoiceRepository invoiceRepository, InvoiceService invoiceService,
+                                 @Qualifier("invoicePdfTaskExecutor") Executor pdfExecutor) {
+        this.invoiceRepository = invoiceRepository;
+        this.invoiceService = invoiceService;
+        this.pdfExecutor = pdfExecutor;
+    }
+
+    /**
+     * Write a ZIP of the invoices issued from {@code from} to {@code to} inclusive, oldest first,
+     * followed by a {@value #MANIFEST_NAME} listing every invoice and whether its PDF made it in.
+     * The manifest is spooled to a temporary file until the PDFs are written.
+     *
+     * @return the number of invoices in the manifest
+     */
+    public int writeArchive(LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        Path manifest = Files.createTempFile("invoice-manifest-", ".csv");
+
+        int count = 0;
+        int missing = 0;
+        try (BufferedWriter manifestWriter = Files.newBufferedWriter(manifest, StandardCharsets.UTF_8)) {
+            ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out));
+            // PDFs are already compressed: deflating them again costs CPU for almost no gain
+            zip.setLevel(Deflater.BEST_SPEED);
+            WritableByteChannel zipChannel = Channels.newChannel(zip);
+            manifestWriter.write(MANIFEST_HEADER);
+            manifestWriter.write('\n');
+
+            LocalDateTime afterAt = null;
+            Long afterId = null;
+            List<InvoiceListView> batch;
+            do {
+                batch = invoiceRepository.findIssuedBetween(start, end, afterAt, afterId, ARCHIVE_BATCH_SIZE);
+                List<CompletableFuture<Path>> pdfs = batch.stream().map(this::pdfFor).toList();
+
+                for (int i = 0; i < batch.size(); i++) {
+                    InvoiceListView row = batch.get(i);
+                    String entryName = entryName(row);
+                    byte[] content;
+                    try {
+                        content = readPdf(pdfs.get(i).join());
+                    } catch (CompletionException | IOException e) {
+                        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                        log.warn("Invoice {} left out of the archive: {}", row.getInvoiceNumber(), cause.getMessage());
+                        manifestWriter.write(manifestLine(row, "", "MANQUANT"));
+                        manifestWriter.write('\n');
+                        missing++;
+                        continue;
+                    }
+                    // Only the response stream can fail from here on, which aborts the archive
+                    zip.putNextEntry(new ZipEntry(entryName));
+                    zip.write(content);
+                    zip.closeEntry();
+                    manifestWriter.write(manifestLine(row, entryName, "OK"));
+                    manifestWriter.write('\n');
+                }
+                zip.flush();
+                count += batch.size();
+                if (!batch.isEmpty()) {
+                    InvoiceListView last = batch.get(batch.size() - 1);
+                    afterAt = last.getIssuedAt();
+                    afterId = last.getId();
+                }
+            } while (batch.size() == ARCHIVE_BATCH_SIZE);
+
+            manifestWriter.flush();
+            zip.putNextEntry(new ZipEntry(MANIFEST_NAME));
+            copy(manifest, zipChannel);
+            zip.closeEntry();
+            // finish() rather than close(): the response stream belongs to the container
+            zip.finish();
+            zip.flush();
+        } finally {
+            Files.deleteIfExists(manifest);
+        }
+
+        log.info("Archived {} invoices issued from {} to {} ({} without PDF)", count, from, to, missing);
+        return count;
+    }
+
+    /**
+     * The PDF already on disk, or a render of it queued on the PDF pool.
+     */
+    private CompletableFuture<Path> pdfFor(InvoiceListView row) {
+        if (row.getPdfPath() != null) {
+            Path existing = Paths.get(row.getPdfPath());
+            if (Files.isReadable(existing)) {
+                return CompletableFuture.completedFuture(existing);
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return invoiceService.ensurePdf(row.getId());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, pdfExecutor);
+    }
+
+    private static byte[] readPdf(Path pdf) throws IOException {
+        long size = Files.size(pdf);
+        if (size == 0 || size > MAX_PDF_BYTES) {
+            throw new IOException("Unexpected PDF size: " + size + " bytes");
+        }
+        return Files.readAllBytes(pdf);
+    }
+
+    private static void copy(Path file, WritableByteChannel target) throws IOException {
+        try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+            transfer(source, target);
+        }
+    }
+
+    private static void transfer(FileChannel source, WritableByteChannel target) throws IOException {
+        long size = source.size();
+        long position = 0;
+        while (position < size) {
+            position += source.transferTo(position, size - position, target);
+        }
+    }
+
+    private static String entryName(InvoiceListView row) {
+        return row.getInvoiceNumber().replace("/", "-") + ".pdf";
+    }
+
+    private static String manifestLine(InvoiceListView row, String file, String pdfStatus) {
+        return Stream.of(
+                file,
+                row.getInvoiceNumber(),
+                row.getInvoiceType(),
+                row.getIssuedAt(),
+                row.getCustomerName(),
+                row.getIssuerName(),
+                row.getTotalCents(),
+                row.getStatus(),
+                pdfStatus
+            ).map(InvoiceListingService::csvField).collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,179 @@
+package com.chessconnect.service;
+
+import com.chessconnect.dto.CursorPage;
+import com.chessconnect.dto.payment.InvoiceSummaryResponse;
+import com.chessconnect.repository.InvoiceRepository;
+import com.chessconnect.repository.projection.InvoiceListView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Invoice listings and accounting exports, read as flat {@link InvoiceListView} rows:
+ * one query per page, without loading the customer, issuer or lesson entities.
+ */
+@Service
+public class InvoiceListingService {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceListingService.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    static final int EXPORT_BATCH_SIZE = 500;
+
+    // Leading characters that make spreadsheets evaluate a cell as a formula
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+    private static final String CSV_HEADER = "invoiceNumber,invoiceType,issuedAt,customerName,issuerName,description," +
+            "subtotalCents,vatCents,totalCents,vatRate,commissionRate,promoApplied,status,lessonId";
+
+    public enum ExportFormat { CSV, NDJSON }
+
+    private final InvoiceRepository invoiceRepository;
+    private final ObjectMapper objectMapper;
+
+    public InvoiceListingService(InvoiceRepository invoiceRepository, ObjectMapper objectMapper) {
+        this.invoiceRepository = invoiceRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Invoices the user received or issued, newest first.
+     */
+    public CursorPage<InvoiceSummaryResponse> getInvoicePageForUser(Long userId, String cursor, Integer limit) {
+        CursorPage.Cursor position = CursorPage.Cursor.decode(cursor);
+        int pageSize = clampPageSize(limit);
+
+        List<InvoiceListView> rows = invoiceRepository.findUserInvoicePage(userId, position.at(), position.id(), pageSize + 1);
+        return CursorPage.of(rows, pageSize, InvoiceListingService::cursorOf, row -> InvoiceSummaryResponse.from(row, userId));
+    }
+
+    /**
+     * Every invoice of the user, for clients that still expect a plain list.
+     */
+    public List<InvoiceSummaryResponse> getInvoicesForUser(Long userId) {
+        return invoiceRepository.findUserInvoicePage(userId, null, null, Integer.MAX_VALUE).stream()
+                .map(row -> InvoiceSummaryResponse.from(row, userId))
+                .toList();
+    }
+
+    /**
+     * Admin page across every invoice, newest first.
+     */
+    public CursorPage<InvoiceSummaryResponse> getAllInvoicesPage(String cursor, Integer limit) {
+        CursorPage.Cursor position = CursorPage.Cursor.decode(cursor);
+        int pageSize = clampPageSize(limit);
+
+        List<InvoiceListView> rows = invoiceRepository.findInvoicePage(position.at(), position.id(), pageSize + 1);
+        return CursorPage.of(rows, pageSize, InvoiceListingService::cursorOf, row -> InvoiceSummaryResponse.from(row, null));
+    }
+
+    /**
+     * Every invoice, for clients that still expect a plain list.
+     */
+    public List<InvoiceSummaryResponse> getAllInvoices() {
+        return invoiceRepository.findInvoicePage(null, null, Integer.MAX_VALUE).stream()
+                .map(row -> InvoiceSummaryResponse.from(row, null))
+                .toList();
+    }
+
+    /**
+     * Write the invoices issued from {@code from} to {@code to} inclusive, oldest first.
+     * Rows are read {@link #EXPORT_BATCH_SIZE} at a time and flushed after each batch, so
+     * memory stays flat whatever the length of the period.
+     *
+     * @return the number of invoices written
+     */
+    public int export(LocalDate from, LocalDate to, ExportFormat format, OutputStream out) throws IOException {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        int count = 0;
+        LocalDateTime afterAt = null;
+        Long afterId = null;
+        List<InvoiceListView> batch;
+        do {
+            batch = invoiceRepository.findIssuedBetween(start, end, afterAt, afterId, EXPORT_BATCH_SIZE);
+            for (InvoiceListView row : batch) {
+                writer.write(format == ExportFormat.CSV ? csvLine(row) : objectMapper.writeValueAsString(InvoiceSummaryResponse.from(row, null)));
+                writer.write('\n');
+            }
+            writer.flush();
+            count += batch.size();
+            if (!batch.isEmpty()) {
+                InvoiceListView last = batch.get(batch.size() - 1);
+                afterAt = last.getIssuedAt();
+                afterId = last.getId();
+            }
+        } while (batch.size() == EXPORT_BATCH_SIZE);
+
+        log.info("Exported {} invoices issued from {} to {} as {}", count, from, to, format);
+        return count;
+    }
+
+    private static String csvLine(InvoiceListView row) {
+        return Stream.of(
+                row.getInvoiceNumber(),
+                row.getInvoiceType(),
+                row.getIssuedAt(),
+                row.getCustomerName(),
+                row.getIssuerName(),
+                row.getDescription(),
+                row.getSubtotalCents(),
+                row.getVatCents(),
+                row.getTotalCents(),
+                row.getVatRate(),
+                row.getCommissionRate(),
+                row.getPromoApplied(),
+                row.getStatus(),
+                row.getLessonId()
+            ).map(InvoiceListingService::csvField).collect(Collectors.joining(","));
+    }
+
+    /**
+     * One CSV field. Text that a spreadsheet would read as a formula (customer names,
+     * descriptions) is prefixed with a quote so it is shown as text; numbers such as
+     * negative credit-note amounts are left as they are.
+     */
+    static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (!(value instanceof Number) && !text.isEmpty() && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    private static int clampPageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private static CursorPage.Cursor cursorOf(InvoiceListView row) {
+        return new CursorPage.Cursor(row.getCreatedAt(), row.getId());
+    }
+}
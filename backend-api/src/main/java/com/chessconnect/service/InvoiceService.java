@@ -29,6 +29,7 @@ import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.zip.DeflaterOutputStream;
 
 @Service
 public class InvoiceService {
@@ -56,6 +57,35 @@ public class InvoiceService {
     private static final Color GRAY_LIGHT = new Color(149, 165, 166);   // #95a5a6 - Secondary text
     private static final Color GRAY_BORDER = new Color(220, 220, 220);  // #dcdcdc - Table borders
     private static final Color WHITE = Color.WHITE;
+    private static final Color AMBER_LIGHT = new Color(254, 243, 199);  // #fef3c7 - Refund total background
+    private static final Color AMBER_DARK = new Color(180, 83, 9);      // #b45309 - Refund total text
+
+    // Shared by every PDF: fonts are only read while a document is laid out, never modified
+    private static final Font FONT_TITLE = new Font(Font.HELVETICA, 24, Font.BOLD, WHITE);
+    private static final Font FONT_HEADER_LABEL = new Font(Font.HELVETICA, 9, Font.NORMAL, new Color(180, 200, 220));
+    private static final Font FONT_SECTION_HEADER = new Font(Font.HELVETICA, 11, Font.BOLD, BLUE_DARK);
+    private static final Font FONT_BODY = new Font(Font.HELVETICA, 10, Font.NORMAL, GRAY_TEXT);
+    private static final Font FONT_BODY_SMALL = new Font(Font.HELVETICA, 9, Font.NORMAL, GRAY_TEXT);
+    private static final Font FONT_SMALL = new Font(Font.HELVETICA, 9, Font.NORMAL, GRAY_LIGHT);
+    private static final Font FONT_NOTE = new Font(Font.HELVETICA, 9, Font.ITALIC, GRAY_LIGHT);
+    private static final Font FONT_LEGAL = new Font(Font.HELVETICA, 8, Font.NORMAL, GRAY_TEXT);
+    private static final Font FONT_PLATFORM_NAME = new Font(Font.HELVETICA, 12, Font.BOLD, GRAY_TEXT);
+    private static final Font FONT_BLUE_BOLD = new Font(Font.HELVETICA, 10, Font.BOLD, BLUE_DARK);
+    private static final Font FONT_WHITE_BOLD = new Font(Font.HELVETICA, 10, Font.BOLD, WHITE);
+    private static final Font FONT_WHITE_EMPHASIS = new Font(Font.HELVETICA, 12, Font.BOLD, WHITE);
+    private static final Font FONT_WHITE_AMOUNT = new Font(Font.HELVETICA, 14, Font.BOLD, WHITE);
+    private static final Font FONT_PAID_STATUS = new Font(Font.HELVETICA, 9, Font.BOLD, new Color(39, 174, 96));
+    private static final Font FONT_FOOTER_INFO = new Font(Font.HELVETICA, 9, Font.NORMAL, new Color(200, 220, 240));
+    private static final Font FONT_REFUND_EMPHASIS = new Font(Font.HELVETICA, 12, Font.BOLD, AMBER_DARK);
+    private static final Font FONT_REFUND_AMOUNT = new Font(Font.HELVETICA, 14, Font.BOLD, AMBER_DARK);
+
+    private static final DateTimeFormatter HEADER_DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    // Logo decoded once; each document gets a copy that shares the decoded pixels
+    private static final Image LOGO = loadLogo();
+
+    // Every invoice embeds the ~130 KB logo: size the buffer for it instead of growing it from 32 bytes
+    private static final int PDF_BUFFER_SIZE = 160 * 1024;
 
     // Border radius for rounded corners
     private static final float BORDER_RADIUS = 10f;
@@ -274,7 +304,7 @@ public class InvoiceService {
      * Generate PDF for lesson invoice.
      */
     private void generateLessonInvoicePdf(Invoice invoice, User student, User teacher, Lesson lesson) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(PDF_BUFFER_SIZE);
         Document document = new Document(PageSize.A4, 40, 40, 40, 40);
 
         try {
@@ -293,7 +323,7 @@ public class InvoiceService {
             document.close();
 
             // Save PDF
-            String pdfPath = savePdf(baos.toByteArray(), invoice.getInvoiceNumber());
+            String pdfPath = savePdf(baos, invoice.getInvoiceNumber());
             invoice.setPdfPath(pdfPath);
             invoiceRepository.save(invoice);
 
@@ -307,7 +337,7 @@ public class InvoiceService {
      * Generate PDF for commission invoice.
      */
     private void generateCommissionInvoicePdf(Invoice invoice, User teacher, Lesson lesson) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(PDF_BUFFER_SIZE);
         Document document = new Document(PageSize.A4, 40, 40, 40, 40);
 
         try {
@@ -324,7 +354,7 @@ public class InvoiceService {
             document.close();
 
             // Save PDF
-            String pdfPath = savePdf(baos.toByteArray(), invoice.getInvoiceNumber());
+            String pdfPath = savePdf(baos, invoice.getInvoiceNumber());
             invoice.setPdfPath(pdfPath);
             invoiceRepository.save(invoice);
 
@@ -338,8 +368,6 @@ public class InvoiceService {
      * Add professional invoice header with blue gradient band, logo and title.
      */
     private void addInvoiceHeader(Document document, String title, String invoiceNumber, LocalDateTime date) throws DocumentException {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-
         // Blue header band with logo on left and title/info on right (with rounded corners)
         PdfPTable headerBand = new PdfPTable(2);
         headerBand.setWidthPercentage(100);
@@ -354,19 +382,8 @@ public class InvoiceService {
         logoCell.setVerticalAlignment(Element.ALIGN_MIDDLE);
         logoCell.setHorizontalAlignment(Element.ALIGN_LEFT);
 
-        try {
-            ClassPathResource logoResource = new ClassPathResource("static/logo.png");
-            if (logoResource.exists()) {
-                try (InputStream is = logoResource.getInputStream()) {
-                    byte[] logoBytes = is.readAllBytes();
-                    Image logo = Image.getInstance(logoBytes);
-                    logo.scaleToFit(160, 160);
-                    logoCell.addElement(logo);
-                }
-            }
-        } catch (Exception e) {
-            // If logo fails to load, leave cell empty
-            log.warn("Failed to load logo for invoice: {}", e.getMessage());
+        if (LOGO != null) {
+            logoCell.addElement(Image.getInstance(LOGO));
         }
 
         headerBand.addCell(logoCell);
@@ -380,26 +397,22 @@ public class InvoiceService {
         titleCell.setVerticalAlignment(Element.ALIGN_MIDDLE);
 
         // Title
-        Font titleFont = new Font(Font.HELVETICA, 24, Font.BOLD, WHITE);
-        Paragraph titlePara = new Paragraph(title, titleFont);
+        Paragraph titlePara = new Paragraph(title, FONT_TITLE);
         titlePara.setAlignment(Element.ALIGN_RIGHT);
         titleCell.addElement(titlePara);
 
         // Invoice number
-        Font labelFont = new Font(Font.HELVETICA, 9, Font.NORMAL, new Color(180, 200, 220));
-        Font valueFont = new Font(Font.HELVETICA, 10, Font.BOLD, WHITE);
-
         Paragraph invoiceNumPara = new Paragraph();
         invoiceNumPara.setAlignment(Element.ALIGN_RIGHT);
-        invoiceNumPara.add(new Chunk("N° ", labelFont));
-        invoiceNumPara.add(new Chunk(invoiceNumber, valueFont));
+        invoiceNumPara.add(new Chunk("N° ", FONT_HEADER_LABEL));
+        invoiceNumPara.add(new Chunk(invoiceNumber, FONT_WHITE_BOLD));
         titleCell.addElement(invoiceNumPara);
 
         // Date
         Paragraph datePara = new Paragraph();
         datePara.setAlignment(Element.ALIGN_RIGHT);
-        datePara.add(new Chunk("Date : ", labelFont));
-        datePara.add(new Chunk(date.format(formatter), valueFont));
+        datePara.add(new Chunk("Date : ", FONT_HEADER_LABEL));
+        datePara.add(new Chunk(date.format(HEADER_DATE_FORMAT), FONT_WHITE_BOLD));
         titleCell.addElement(datePara);
 
         headerBand.addCell(titleCell);
@@ -461,11 +474,7 @@ public class InvoiceService {
         issuerCell.setPaddingRight(15);
 
         // Header with blue underline
-        Font headerFont = new Font(Font.HELVETICA, 11, Font.BOLD, BLUE_DARK);
-        Font normalFont = new Font(Font.HELVETICA, 10, Font.NORMAL, GRAY_TEXT);
-        Font smallFont = new Font(Font.HELVETICA, 9, Font.NORMAL, GRAY_LIGHT);
-
-        Paragraph issuerHeader = new Paragraph("EMETTEUR", headerFont);
+        Paragraph issuerHeader = new Paragraph("EMETTEUR", FONT_SECTION_HEADER);
         issuerCell.addElement(issuerHeader);
 
         // Blue underline
@@ -481,26 +490,24 @@ public class InvoiceService {
 
         // Issuer details
         if (issuerIsPlatform) {
-            Font platformNameFont = new Font(Font.HELVETICA, 12, Font.BOLD, GRAY_TEXT);
-            Font platformOwnerFont = new Font(Font.HELVETICA, 9, Font.NORMAL, GRAY_TEXT);
-            issuerCell.addElement(new Paragraph(PLATFORM_NAME, platformNameFont));
-            issuerCell.addElement(new Paragraph(PLATFORM_OWNER, platformOwnerFont));
-            issuerCell.addElement(new Paragraph(PLATFORM_EMAIL, smallFont));
-            issuerCell.addElement(new Paragraph("SIRET : " + PLATFORM_SIRET, smallFont));
+            issuerCell.addElement(new Paragraph(PLATFORM_NAME, FONT_PLATFORM_NAME));
+            issuerCell.addElement(new Paragraph(PLATFORM_OWNER, FONT_BODY_SMALL));
+            issuerCell.addElement(new Paragraph(PLATFORM_EMAIL, FONT_SMALL));
+            issuerCell.addElement(new Paragraph("SIRET : " + PLATFORM_SIRET, FONT_SMALL));
         } else if (issuer != null) {
             String name = issuer.getFirstName() + " " + issuer.getLastName();
             if (issuer.getCompanyName() != null && !issuer.getCompanyName().isBlank()) {
-                issuerCell.addElement(new Paragraph(issuer.getCompanyName(), normalFont));
+                issuerCell.addElement(new Paragraph(issuer.getCompanyName(), FONT_BODY));
             }
-            issuerCell.addElement(new Paragraph(name, normalFont));
-            issuerCell.addElement(new Paragraph(issuer.getEmail(), smallFont));
+            issuerCell.addElement(new Paragraph(name, FONT_BODY));
+            issuerCell.addElement(new Paragraph(issuer.getEmail(), FONT_SMALL));
             if (issuer.getSiret() != null && !issuer.getSiret().isBlank()) {
-                issuerCell.addElement(new Paragraph("SIRET : " + issuer.getSiret(), smallFont));
+                issuerCell.addElement(new Paragraph("SIRET : " + issuer.getSiret(), FONT_SMALL));
             }
         } else if (issuerFallbackName != null) {
-            issuerCell.addElement(new Paragraph(issuerFallbackName, normalFont));
+            issuerCell.addElement(new Paragraph(issuerFallbackName, FONT_BODY));
             if (issuerFallbackEmail != null) {
-                issuerCell.addElement(new Paragraph(issuerFallbackEmail, smallFont));
+                issuerCell.addElement(new Paragraph(issuerFallbackEmail, FONT_SMALL));
             }
         }
 
@@ -511,7 +518,7 @@ public class InvoiceService {
         customerCell.setBorder(Rectangle.NO_BORDER);
         customerCell.setPaddingLeft(15);
 
-        Paragraph customerHeader = new Paragraph("CLIENT", headerFont);
+        Paragraph customerHeader = new Paragraph("CLIENT", FONT_SECTION_HEADER);
         customerCell.addElement(customerHeader);
 
         // Blue underline
@@ -529,17 +536,17 @@ public class InvoiceService {
         if (customer != null) {
             String customerName = customer.getFirstName() + " " + customer.getLastName();
             if (customer.getCompanyName() != null && !customer.getCompanyName().isBlank()) {
-                customerCell.addElement(new Paragraph(customer.getCompanyName(), normalFont));
+                customerCell.addElement(new Paragraph(customer.getCompanyName(), FONT_BODY));
             }
-            customerCell.addElement(new Paragraph(customerName, normalFont));
-            customerCell.addElement(new Paragraph(customer.getEmail(), smallFont));
+            customerCell.addElement(new Paragraph(customerName, FONT_BODY));
+            customerCell.addElement(new Paragraph(customer.getEmail(), FONT_SMALL));
             if (customer.getSiret() != null && !customer.getSiret().isBlank()) {
-                customerCell.addElement(new Paragraph("SIRET : " + customer.getSiret(), smallFont));
+                customerCell.addElement(new Paragraph("SIRET : " + customer.getSiret(), FONT_SMALL));
             }
         } else if (customerFallbackName != null) {
-            customerCell.addElement(new Paragraph(customerFallbackName, normalFont));
+            customerCell.addElement(new Paragraph(customerFallbackName, FONT_BODY));
             if (customerFallbackEmail != null) {
-                customerCell.addElement(new Paragraph(customerFallbackEmail, smallFont));
+                customerCell.addElement(new Paragraph(customerFallbackEmail, FONT_SMALL));
             }
         }
 
@@ -551,11 +558,7 @@ public class InvoiceService {
      * Add single party info (for backwards compatibility).
      */
     private void addSinglePartyInfo(Document document, User user, String label, boolean isIssuer) throws DocumentException {
-        Font headerFont = new Font(Font.HELVETICA, 11, Font.BOLD, BLUE_DARK);
-        Font normalFont = new Font(Font.HELVETICA, 10, Font.NORMAL, GRAY_TEXT);
-        Font smallFont = new Font(Font.HELVETICA, 9, Font.NORMAL, GRAY_LIGHT);
-
-        document.add(new Paragraph(label, headerFont));
+        document.add(new Paragraph(label, FONT_SECTION_HEADER));
 
         // Blue underline
         PdfPTable underline = new PdfPTable(1);
@@ -572,12 +575,12 @@ public class InvoiceService {
         if (user != null) {
             String name = user.getFirstName() + " " + user.getLastName();
             if (user.getCompanyName() != null && !user.getCompanyName().isBlank()) {
-                document.add(new Paragraph(user.getCompanyName(), normalFont));
+                document.add(new Paragraph(user.getCompanyName(), FONT_BODY));
             }
-            document.add(new Paragraph(name, normalFont));
-            document.add(new Paragraph(user.getEmail(), smallFont));
+            document.add(new Paragraph(name, FONT_BODY));
+            document.add(new Paragraph(user.getEmail(), FONT_SMALL));
             if (user.getSiret() != null && !user.getSiret().isBlank()) {
-                document.add(new Paragraph("SIRET : " + user.getSiret(), smallFont));
+                document.add(new Paragraph("SIRET : " + user.getSiret(), FONT_SMALL));
             }
         }
 
@@ -588,11 +591,7 @@ public class InvoiceService {
      * Add single platform info (for backwards compatibility).
      */
     private void addSinglePlatformInfo(Document document, String label) throws DocumentException {
-        Font headerFont = new Font(Font.HELVETICA, 11, Font.BOLD, BLUE_DARK);
-        Font normalFont = new Font(Font.HELVETICA, 10, Font.NORMAL, GRAY_TEXT);
-        Font smallFont = new Font(Font.HELVETICA, 9, Font.NORMAL, GRAY_LIGHT);
-
-        document.add(new Paragraph(label, headerFont));
+        document.add(new Paragraph(label, FONT_SECTION_HEADER));
 
         // Blue underline
         PdfPTable underline = new PdfPTable(1);
@@ -606,12 +605,10 @@ public class InvoiceService {
         underline.addCell(lineCell);
         document.add(underline);
 
-        Font platformNameFont = new Font(Font.HELVETICA, 12, Font.BOLD, GRAY_TEXT);
-        Font platformOwnerFont = new Font(Font.HELVETICA, 9, Font.NORMAL, GRAY_TEXT);
-        document.add(new Paragraph(PLATFORM_NAME, platformNameFont));
-        document.add(new Paragraph(PLATFORM_OWNER, platformOwnerFont));
-        document.add(new Paragraph(PLATFORM_EMAIL, smallFont));
-        document.add(new Paragraph("SIRET : " + PLATFORM_SIRET, smallFont));
+        document.add(new Paragraph(PLATFORM_NAME, FONT_PLATFORM_NAME));
+        document.add(new Paragraph(PLATFORM_OWNER, FONT_BODY_SMALL));
+        document.add(new Paragraph(PLATFORM_EMAIL, FONT_SMALL));
+        document.add(new Paragraph("SIRET : " + PLATFORM_SIRET, FONT_SMALL));
 
         document.add(new Paragraph(" "));
     }
@@ -620,9 +617,6 @@ public class InvoiceService {
      * Add lesson invoice table with details.
      */
     private void addLessonInvoiceTable(Document document, Invoice invoice, Lesson lesson) throws DocumentException {
-        Font headerFont = new Font(Font.HELVETICA, 10, Font.BOLD, WHITE);
-        Font normalFont = new Font(Font.HELVETICA, 10, Font.NORMAL, GRAY_TEXT);
-
         PdfPTable table = new PdfPTable(4);
         table.setWidthPercentage(100);
         table.setWidths(new float[]{3, 1, 1.5f, 1.5f});
@@ -631,7 +625,7 @@ public class InvoiceService {
         // Header row with blue background
         String[] headers = {"Description", "Qte", "Prix unitaire", "Total"};
         for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
+            PdfPCell cell = new PdfPCell(new Phrase(header, FONT_WHITE_BOLD));
             cell.setBackgroundColor(BLUE_DARK);
             cell.setPadding(10);
             cell.setHorizontalAlignment(Element.ALIGN_CENTER);
@@ -645,10 +639,10 @@ public class InvoiceService {
             description += "\nDate : " + lesson.getScheduledAt().format(DateTimeFormatter.ofPattern("dd/MM/yyyy a HH:mm"));
         }
 
-        table.addCell(createStyledCell(description, normalFont, Element.ALIGN_LEFT, WHITE, true));
-        table.addCell(createStyledCell("1", normalFont, Element.ALIGN_CENTER, WHITE, true));
-        table.addCell(createStyledCell(formatCents(invoice.getTotalCents()), normalFont, Element.ALIGN_RIGHT, WHITE, true));
-        table.addCell(createStyledCell(formatCents(invoice.getTotalCents()), normalFont, Element.ALIGN_RIGHT, WHITE, true));
+        table.addCell(createStyledCell(description, FONT_BODY, Element.ALIGN_LEFT, WHITE, true));
+        table.addCell(createStyledCell("1", FONT_BODY, Element.ALIGN_CENTER, WHITE, true));
+        table.addCell(createStyledCell(formatCents(invoice.getTotalCents()), FONT_BODY, Element.ALIGN_RIGHT, WHITE, true));
+        table.addCell(createStyledCell(formatCents(invoice.getTotalCents()), FONT_BODY, Element.ALIGN_RIGHT, WHITE, true));
 
         document.add(table);
 
@@ -660,10 +654,6 @@ public class InvoiceService {
      * Add commission invoice table.
      */
     private void addCommissionInvoiceTable(Document document, Invoice invoice, Lesson lesson) throws DocumentException {
-        Font headerFont = new Font(Font.HELVETICA, 10, Font.BOLD, WHITE);
-        Font normalFont = new Font(Font.HELVETICA, 10, Font.NORMAL, GRAY_TEXT);
-        Font boldFont = new Font(Font.HELVETICA, 12, Font.BOLD, BLUE_DARK);
-
         PdfPTable table = new PdfPTable(4);
         table.setWidthPercentage(100);
         table.setWidths(new float[]{3, 1, 1.5f, 1.5f});
@@ -672,7 +662,7 @@ public class InvoiceService {
         // Header row with blue background
         String[] headers = {"Description", "Taux", "Base", "Total"};
         for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
+            PdfPCell cell = new PdfPCell(new Phrase(header, FONT_WHITE_BOLD));
             cell.setBackgroundColor(BLUE_DARK);
             cell.setPadding(10);
             cell.setHorizontalAlignment(Element.ALIGN_CENTER);
@@ -693,10 +683,10 @@ public class InvoiceService {
             totalCommissionCents = invoice.getTotalCents();
 
             Color rowBg = WHITE;
-            table.addCell(createStyledCell("Frais techniques de paiement", normalFont, Element.ALIGN_LEFT, rowBg, true));
-            table.addCell(createStyledCell("2.5%", normalFont, Element.ALIGN_CENTER, rowBg, true));
-            table.addCell(createStyledCell(formatCents(baseAmount), normalFont, Element.ALIGN_RIGHT, rowBg, true));
-            table.addCell(createStyledCell(formatCents(totalCommissionCents), normalFont, Element.ALIGN_RIGHT, rowBg, true));
+            table.addCell(createStyledCell("Frais techniques de paiement", FONT_BODY, Element.ALIGN_LEFT, rowBg, true));
+            table.addCell(createStyledCell("2.5%", FONT_BODY, Element.ALIGN_CENTER, rowBg, true));
+            table.addCell(createStyledCell(formatCents(baseAmount), FONT_BODY, Element.ALIGN_RIGHT, rowBg, true));
+            table.addCell(createStyledCell(formatCents(totalCommissionCents), FONT_BODY, Element.ALIGN_RIGHT, rowBg, true));
         } else {
             // Standard: 10% platform + 2.5% Stripe = 12.5%
             baseAmount = (int) Math.round(invoice.getTotalCents() / (totalRate / 100));
@@ -706,16 +696,16 @@ public class InvoiceService {
             totalCommissionCents = platformFeeCents + stripeFeeCents;
 
             // Line 1: Platform fee (10%) - white background
-            table.addCell(createStyledCell("Frais de mise en relation", normalFont, Element.ALIGN_LEFT, WHITE, true));
-            table.addCell(createStyledCell("10%", normalFont, Element.ALIGN_CENTER, WHITE, true));
-            table.addCell(createStyledCell(formatCents(baseAmount), normalFont, Element.ALIGN_RIGHT, WHITE, true));
-            table.addCell(createStyledCell(formatCents(platformFeeCents), normalFont, Element.ALIGN_RIGHT, WHITE, true));
+            table.addCell(createStyledCell("Frais de mise en relation", FONT_BODY, Element.ALIGN_LEFT, WHITE, true));
+            table.addCell(createStyledCell("10%", FONT_BODY, Element.ALIGN_CENTER, WHITE, true));
+            table.addCell(createStyledCell(formatCents(baseAmount), FONT_BODY, Element.ALIGN_RIGHT, WHITE, true));
+            table.addCell(createStyledCell(formatCents(platformFeeCents), FONT_BODY, Element.ALIGN_RIGHT, WHITE, true));
 
             // Line 2: Stripe fee (2.5%) - light blue background (alternating)
-            table.addCell(createStyledCell("Frais de paiement Stripe", normalFont, Element.ALIGN_LEFT, BLUE_VERY_LIGHT, true));
-            table.addCell(createStyledCell("2.5%", normalFont, Element.ALIGN_CENTER, BLUE_VERY_LIGHT, true));
-            table.addCell(createStyledCell(formatCents(baseAmount), normalFont, Element.ALIGN_RIGHT, BLUE_VERY_LIGHT, true));
-            table.addCell(createStyledCell(formatCents(stripeFeeCents), normalFont, Element.ALIGN_RIGHT, BLUE_VERY_LIGHT, true));
+            table.addCell(createStyledCell("Frais de paiement Stripe", FONT_BODY, Element.ALIGN_LEFT, BLUE_VERY_LIGHT, true));
+            table.addCell(createStyledCell("2.5%", FONT_BODY, Element.ALIGN_CENTER, BLUE_VERY_LIGHT, true));
+            table.addCell(createStyledCell(formatCents(baseAmount), FONT_BODY, Element.ALIGN_RIGHT, BLUE_VERY_LIGHT, true));
+            table.addCell(createStyledCell(formatCents(stripeFeeCents), FONT_BODY, Element.ALIGN_RIGHT, BLUE_VERY_LIGHT, true));
         }
 
         document.add(table);
@@ -728,21 +718,18 @@ public class InvoiceService {
      * Add commission total section with blue styling.
      */
     private void addCommissionTotalSection(Document document, int totalCommissionCents) throws DocumentException {
-        Font normalFont = new Font(Font.HELVETICA, 10, Font.NORMAL, GRAY_TEXT);
-        Font boldFont = new Font(Font.HELVETICA, 12, Font.BOLD, WHITE);
-
         PdfPTable totalTable = new PdfPTable(2);
         totalTable.setWidthPercentage(50);
         totalTable.setHorizontalAlignment(Element.ALIGN_RIGHT);
         totalTable.setSpacingBefore(15);
 
         // Subtotal
-        PdfPCell subtotalLabel = new PdfPCell(new Phrase("Sous-total HT", normalFont));
+        PdfPCell subtotalLabel = new PdfPCell(new Phrase("Sous-total HT", FONT_BODY));
         subtotalLabel.setBorder(Rectangle.NO_BORDER);
         subtotalLabel.setPadding(8);
         totalTable.addCell(subtotalLabel);
 
-        PdfPCell subtotalValue = new PdfPCell(new Phrase(formatCents(totalCommissionCents), normalFont));
+        PdfPCell subtotalValue = new PdfPCell(new Phrase(formatCents(totalCommissionCents), FONT_BODY));
         subtotalValue.setBorder(Rectangle.NO_BORDER);
         subtotalValue.setPadding(8);
         subtotalValue.setHorizontalAlignment(Element.ALIGN_RIGHT);
@@ -757,13 +744,13 @@ public class InvoiceService {
         totalRow.setSpacingBefore(5);
         totalRow.setTableEvent(new RoundedTableEvent(BLUE_DARK, BORDER_RADIUS));
 
-        PdfPCell totalLabelCell = new PdfPCell(new Phrase("TOTAL TTC", boldFont));
+        PdfPCell totalLabelCell = new PdfPCell(new Phrase("TOTAL TTC", FONT_WHITE_EMPHASIS));
         totalLabelCell.setBackgroundColor(null);
         totalLabelCell.setBorder(Rectangle.NO_BORDER);
         totalLabelCell.setPadding(10);
         totalRow.addCell(totalLabelCell);
 
-        PdfPCell totalValueCell = new PdfPCell(new Phrase(formatCents(totalCommissionCents), boldFont));
+        PdfPCell totalValueCell = new PdfPCell(new Phrase(formatCents(totalCommissionCents), FONT_WHITE_EMPHASIS));
         totalValueCell.setBackgroundColor(null);
         totalValueCell.setBorder(Rectangle.NO_BORDER);
         totalValueCell.setPadding(10);
@@ -777,22 +764,18 @@ public class InvoiceService {
      * Add total section with blue gradient styling.
      */
     private void addTotalSection(Document document, Invoice invoice) throws DocumentException {
-        Font normalFont = new Font(Font.HELVETICA, 10, Font.NORMAL, GRAY_TEXT);
-        Font boldFont = new Font(Font.HELVETICA, 12, Font.BOLD, WHITE);
-        Font totalAmountFont = new Font(Font.HELVETICA, 14, Font.BOLD, WHITE);
-
         PdfPTable totalTable = new PdfPTable(2);
         totalTable.setWidthPercentage(50);
         totalTable.setHorizontalAlignment(Element.ALIGN_RIGHT);
         totalTable.setSpacingBefore(15);
 
         // Subtotal
-        PdfPCell subtotalLabel = new PdfPCell(new Phrase("Sous-total HT", normalFont));
+        PdfPCell subtotalLabel = new PdfPCell(new Phrase("Sous-total HT", FONT_BODY));
         subtotalLabel.setBorder(Rectangle.NO_BORDER);
         subtotalLabel.setPadding(8);
         totalTable.addCell(subtotalLabel);
 
-        PdfPCell subtotalValue = new PdfPCell(new Phrase(formatCents(invoice.getSubtotalCents()), normalFont));
+        PdfPCell subtotalValue = new PdfPCell(new Phrase(formatCents(invoice.getSubtotalCents()), FONT_BODY));
         subtotalValue.setBorder(Rectangle.NO_BORDER);
         subtotalValue.setPadding(8);
         subtotalValue.setHorizontalAlignment(Element.ALIGN_RIGHT);
@@ -800,12 +783,12 @@ public class InvoiceService {
 
         // VAT
         if (invoice.getVatRate() != null && invoice.getVatRate() > 0) {
-            PdfPCell vatLabel = new PdfPCell(new Phrase("TVA (" + invoice.getVatRate() + "%)", normalFont));
+            PdfPCell vatLabel = new PdfPCell(new Phrase("TVA (" + invoice.getVatRate() + "%)", FONT_BODY));
             vatLabel.setBorder(Rectangle.NO_BORDER);
             vatLabel.setPadding(8);
             totalTable.addCell(vatLabel);
 
-            PdfPCell vatValue = new PdfPCell(new Phrase(formatCents(invoice.getVatCents()), normalFont));
+            PdfPCell vatValue = new PdfPCell(new Phrase(formatCents(invoice.getVatCents()), FONT_BODY));
             vatValue.setBorder(Rectangle.NO_BORDER);
             vatValue.setPadding(8);
             vatValue.setHorizontalAlignment(Element.ALIGN_RIGHT);
@@ -821,13 +804,13 @@ public class InvoiceService {
         totalRow.setSpacingBefore(5);
         totalRow.setTableEvent(new RoundedTableEvent(BLUE_DARK, BORDER_RADIUS));
 
-        PdfPCell totalLabelCell = new PdfPCell(new Phrase("TOTAL TTC", boldFont));
+        PdfPCell totalLabelCell = new PdfPCell(new Phrase("TOTAL TTC", FONT_WHITE_EMPHASIS));
         totalLabelCell.setBackgroundColor(null);
         totalLabelCell.setBorder(Rectangle.NO_BORDER);
         totalLabelCell.setPadding(12);
         totalRow.addCell(totalLabelCell);
 
-        PdfPCell totalValueCell = new PdfPCell(new Phrase(formatCents(invoice.getTotalCents()), totalAmountFont));
+        PdfPCell totalValueCell = new PdfPCell(new Phrase(formatCents(invoice.getTotalCents()), FONT_WHITE_AMOUNT));
         totalValueCell.setBackgroundColor(null);
         totalValueCell.setBorder(Rectangle.NO_BORDER);
         totalValueCell.setPadding(12);
@@ -841,14 +824,10 @@ public class InvoiceService {
      * Add payment information with blue styling.
      */
     private void addPaymentInfo(Document document, String paymentMethod) throws DocumentException {
-        Font headerFont = new Font(Font.HELVETICA, 11, Font.BOLD, BLUE_DARK);
-        Font normalFont = new Font(Font.HELVETICA, 9, Font.NORMAL, GRAY_TEXT);
-        Font statusFont = new Font(Font.HELVETICA, 9, Font.BOLD, new Color(39, 174, 96)); // Green for paid
-
         document.add(new Paragraph(" "));
 
         // Header with blue underline
-        Paragraph paymentHeader = new Paragraph("INFORMATIONS DE PAIEMENT", headerFont);
+        Paragraph paymentHeader = new Paragraph("INFORMATIONS DE PAIEMENT", FONT_SECTION_HEADER);
         document.add(paymentHeader);
 
         // Blue underline
@@ -863,11 +842,11 @@ public class InvoiceService {
         underline.addCell(lineCell);
         document.add(underline);
 
-        document.add(new Paragraph(paymentMethod, normalFont));
+        document.add(new Paragraph(paymentMethod, FONT_BODY_SMALL));
 
         Paragraph statusPara = new Paragraph();
-        statusPara.add(new Chunk("Statut : ", normalFont));
-        statusPara.add(new Chunk("PAYE", statusFont));
+        statusPara.add(new Chunk("Statut : ", FONT_BODY_SMALL));
+        statusPara.add(new Chunk("PAYE", FONT_PAID_STATUS));
         document.add(statusPara);
     }
 
@@ -875,14 +854,10 @@ public class InvoiceService {
      * Add footer with legal mentions and thank you message.
      */
     private void addFooter(Document document) throws DocumentException {
-        Font legalHeaderFont = new Font(Font.HELVETICA, 11, Font.BOLD, BLUE_DARK);
-        Font legalFont = new Font(Font.HELVETICA, 8, Font.NORMAL, GRAY_TEXT);
-        Font thankYouFont = new Font(Font.HELVETICA, 12, Font.BOLD, WHITE);
-
         document.add(new Paragraph(" "));
 
         // Legal mentions section
-        Paragraph legalHeader = new Paragraph("MENTIONS LEGALES", legalHeaderFont);
+        Paragraph legalHeader = new Paragraph("MENTIONS LEGALES", FONT_SECTION_HEADER);
         document.add(legalHeader);
 
         // Blue underline
@@ -900,14 +875,14 @@ public class InvoiceService {
         // VAT mention
         Paragraph vatMention = new Paragraph(
                 "TVA non applicable, article 293 B du Code general des impots.",
-                legalFont
+                FONT_LEGAL
         );
         document.add(vatMention);
 
         // Company info
         Paragraph companyInfo = new Paragraph(
                 PLATFORM_NAME + " - " + PLATFORM_OWNER + " - SIRET : " + PLATFORM_SIRET,
-                legalFont
+                FONT_LEGAL
         );
         companyInfo.setSpacingBefore(3);
         document.add(companyInfo);
@@ -926,14 +901,13 @@ public class InvoiceService {
         footerCell.setPadding(15);
         footerCell.setHorizontalAlignment(Element.ALIGN_CENTER);
 
-        Paragraph thankYou = new Paragraph("MERCI POUR VOTRE CONFIANCE", thankYouFont);
+        Paragraph thankYou = new Paragraph("MERCI POUR VOTRE CONFIANCE", FONT_WHITE_EMPHASIS);
         thankYou.setAlignment(Element.ALIGN_CENTER);
         footerCell.addElement(thankYou);
 
-        Font footerInfoFont = new Font(Font.HELVETICA, 9, Font.NORMAL, new Color(200, 220, 240));
         Paragraph footerInfo = new Paragraph(
                 PLATFORM_WEBSITE + " - " + PLATFORM_EMAIL,
-                footerInfoFont
+                FONT_FOOTER_INFO
         );
         footerInfo.setAlignment(Element.ALIGN_CENTER);
         footerCell.addElement(footerInfo);
@@ -977,10 +951,52 @@ public class InvoiceService {
         return String.format("%.2f EUR", cents / 100.0);
     }
 
+    /**
+     * Decode the logo once for every invoice. Invoices are rendered without it if it cannot be read.
+     */
+    private static Image loadLogo() {
+        try {
+            ClassPathResource logoResource = new ClassPathResource("static/logo.png");
+            if (!logoResource.exists()) {
+                return null;
+            }
+            try (InputStream is = logoResource.getInputStream()) {
+                Image logo = Image.getInstance(is.readAllBytes());
+                if (logo instanceof ImgRaw && !logo.isDeflated()) {
+                    // A PNG with transparency is decoded to raw pixels plus an alpha mask, which every
+                    // PdfWriter would deflate again (about 1.3 MB per invoice). Compress them once here.
+                    Image mask = logo.getImageMask();
+                    logo = deflatedCopy(logo);
+                    if (mask != null) {
+                        Image deflatedMask = deflatedCopy(mask);
+                        deflatedMask.makeMask();
+                        logo.setImageMask(deflatedMask);
+                    }
+                }
+                logo.scaleToFit(160, 160);
+                return logo;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to load logo for invoices: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static Image deflatedCopy(Image raw) throws IOException, DocumentException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(compressed)) {
+            out.write(raw.getRawData());
+        }
+        Image copy = Image.getInstance((int) raw.getWidth(), (int) raw.getHeight(),
+                raw.getColorspace(), raw.getBpc(), compressed.toByteArray());
+        copy.setDeflated(true);
+        return copy;
+    }
+
     /**
      * Save PDF to storage and return path.
      */
-    private String savePdf(byte[] pdfBytes, String invoiceNumber) throws IOException {
+    private String savePdf(ByteArrayOutputStream pdf, String invoiceNumber) throws IOException {
         // Ensure storage directory exists
         Path storagePath = Paths.get(invoiceStoragePath);
         if (!Files.exists(storagePath)) {
@@ -991,9 +1007,9 @@ public class InvoiceService {
         String filename = invoiceNumber.replace("/", "-") + ".pdf";
         Path filePath = storagePath.resolve(filename);
 
-        // Write file
+        // Write file straight from the buffer, without copying it to a new array first
         try (FileOutputStream fos = new FileOutputStream(filePath.toFile())) {
-            fos.write(pdfBytes);
+            pdf.writeTo(fos);
         }
 
         log.info("Saved invoice PDF: {}", filePath);
@@ -1024,6 +1040,22 @@ public class InvoiceService {
         return Files.readAllBytes(Paths.get(invoice.getPdfPath()));
     }
 
+    /**
+     * Path of the invoice PDF on disk, rendering it first if it was never generated or the file is gone.
+     * No access check: callers are admin-only exports.
+     */
+    @Transactional
+    public Path ensurePdf(Long invoiceId) throws IOException {
+        Invoice invoice = invoiceRepository.findById(invoiceId)
+                .orElseThrow(() -> new RuntimeException("Invoice not found"));
+
+        if (invoice.getPdfPath() == null || !Files.exists(Paths.get(invoice.getPdfPath()))) {
+            log.info("Generating PDF on-demand for invoice {}", invoiceId);
+            generatePdfOnDemand(invoice);
+        }
+        return Paths.get(invoice.getPdfPath());
+    }
+
     /**
      * Generate PDF on-demand for existing invoices that don't have a PDF.
      * Handles cases where user accounts may have been deleted (uses denormalized fields).
@@ -1062,30 +1094,6 @@ public class InvoiceService {
         return LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM"));
     }
 
-    /**
-     * Get invoices for a user.
-     */
-    public List<Invoice> getInvoicesForUser(Long userId) {
-        // Get invoices where user is customer (received) or issuer (sent)
-        List<Invoice> received = new java.util.ArrayList<>(
-                invoiceRepository.findByCustomerIdOrderByCreatedAtDesc(userId)
-        );
-        List<Invoice> issued = invoiceRepository.findByIssuerIdOrderByCreatedAtDesc(userId);
-
-        // Merge and sort by date (null-safe)
-        received.addAll(issued);
-        received.sort((a, b) -> {
-            LocalDateTime dateA = a.getCreatedAt();
-            LocalDateTime dateB = b.getCreatedAt();
-            if (dateA == null && dateB == null) return 0;
-            if (dateA == null) return 1; // nulls last
-            if (dateB == null) return -1;
-            return dateB.compareTo(dateA);
-        });
-
-        return received;
-    }
-
     /**
      * Generate invoice for subscription payment.
      */
@@ -1134,7 +1142,7 @@ public class InvoiceService {
      * Generate PDF for subscription invoice.
      */
     private void generateSubscriptionInvoicePdf(Invoice invoice, User student) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(PDF_BUFFER_SIZE);
         Document document = new Document(PageSize.A4, 40, 40, 40, 40);
 
         try {
@@ -1151,7 +1159,7 @@ public class InvoiceService {
             document.close();
 
             // Save PDF
-            String pdfPath = savePdf(baos.toByteArray(), invoice.getInvoiceNumber());
+            String pdfPath = savePdf(baos, invoice.getInvoiceNumber());
             invoice.setPdfPath(pdfPath);
             invoiceRepository.save(invoice);
 
@@ -1248,7 +1256,7 @@ public class InvoiceService {
             int platformFeeCents,
             int stripeFeeCents
     ) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(PDF_BUFFER_SIZE);
         Document document = new Document(PageSize.A4, 40, 40, 40, 40);
 
         try {
@@ -1260,9 +1268,6 @@ public class InvoiceService {
             addTwoColumnParties(document, null, teacher, true); // Platform as issuer
 
             // Commission table with breakdown
-            Font headerFont = new Font(Font.HELVETICA, 10, Font.BOLD, WHITE);
-            Font normalFont = new Font(Font.HELVETICA, 10, Font.NORMAL, GRAY_TEXT);
-
             PdfPTable table = new PdfPTable(4);
             table.setWidthPercentage(100);
             table.setWidths(new float[]{3, 1, 1.5f, 1.5f});
@@ -1271,7 +1276,7 @@ public class InvoiceService {
             // Header row with blue background
             String[] headers = {"Description", "Taux", "Base", "Total"};
             for (String header : headers) {
-                PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
+                PdfPCell cell = new PdfPCell(new Phrase(header, FONT_WHITE_BOLD));
                 cell.setBackgroundColor(BLUE_DARK);
                 cell.setPadding(10);
                 cell.setHorizontalAlignment(Element.ALIGN_CENTER);
@@ -1280,16 +1285,16 @@ public class InvoiceService {
             }
 
             // Line 1: Platform fee (10%) - white background
-            table.addCell(createStyledCell("Frais de mise en relation", normalFont, Element.ALIGN_LEFT, WHITE, true));
-            table.addCell(createStyledCell("10%", normalFont, Element.ALIGN_CENTER, WHITE, true));
-            table.addCell(createStyledCell(formatCents(grossAmountCents), normalFont, Element.ALIGN_RIGHT, WHITE, true));
-            table.addCell(createStyledCell(formatCents(platformFeeCents), normalFont, Element.ALIGN_RIGHT, WHITE, true));
+            table.addCell(createStyledCell("Frais de mise en relation", FONT_BODY, Element.ALIGN_LEFT, WHITE, true));
+            table.addCell(createStyledCell("10%", FONT_BODY, Element.ALIGN_CENTER, WHITE, true));
+            table.addCell(createStyledCell(formatCents(grossAmountCents), FONT_BODY, Element.ALIGN_RIGHT, WHITE, true));
+            table.addCell(createStyledCell(formatCents(platformFeeCents), FONT_BODY, Element.ALIGN_RIGHT, WHITE, true));
 
             // Line 2: Stripe fee (2.5%) - alternating light blue background
-            table.addCell(createStyledCell("Frais de paiement Stripe", normalFont, Element.ALIGN_LEFT, BLUE_VERY_LIGHT, true));
-            table.addCell(createStyledCell("2.5%", normalFont, Element.ALIGN_CENTER, BLUE_VERY_LIGHT, true));
-            table.addCell(createStyledCell(formatCents(grossAmountCents), normalFont, Element.ALIGN_RIGHT, BLUE_VERY_LIGHT, true));
-            table.addCell(createStyledCell(formatCents(stripeFeeCents), normalFont, Element.ALIGN_RIGHT, BLUE_VERY_LIGHT, true));
+            table.addCell(createStyledCell("Frais de paiement Stripe", FONT_BODY, Element.ALIGN_LEFT, BLUE_VERY_LIGHT, true));
+            table.addCell(createStyledCell("2.5%", FONT_BODY, Element.ALIGN_CENTER, BLUE_VERY_LIGHT, true));
+            table.addCell(createStyledCell(formatCents(grossAmountCents), FONT_BODY, Element.ALIGN_RIGHT, BLUE_VERY_LIGHT, true));
+            table.addCell(createStyledCell(formatCents(stripeFeeCents), FONT_BODY, Element.ALIGN_RIGHT, BLUE_VERY_LIGHT, true));
 
             document.add(table);
 
@@ -1298,10 +1303,9 @@ public class InvoiceService {
             addCommissionTotalSection(document, totalCommission);
 
             // Period info
-            Font infoFont = new Font(Font.HELVETICA, 9, Font.ITALIC, GRAY_LIGHT);
             Paragraph periodInfo = new Paragraph(
                     "Periode : " + yearMonth + " - Montant brut des cours : " + formatCents(grossAmountCents),
-                    infoFont
+                    FONT_NOTE
             );
             periodInfo.setSpacingBefore(15);
             document.add(periodInfo);
@@ -1312,7 +1316,7 @@ public class InvoiceService {
             document.close();
 
             // Save PDF
-            String pdfPath = savePdf(baos.toByteArray(), invoice.getInvoiceNumber());
+            String pdfPath = savePdf(baos, invoice.getInvoiceNumber());
             invoice.setPdfPath(pdfPath);
             invoiceRepository.save(invoice);
 
@@ -1326,7 +1330,7 @@ public class InvoiceService {
      * Generate PDF for payout invoice.
      */
     private void generatePayoutInvoicePdf(Invoice invoice, User teacher, String yearMonth) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(PDF_BUFFER_SIZE);
         Document document = new Document(PageSize.A4, 40, 40, 40, 40);
 
         try {
@@ -1343,7 +1347,7 @@ public class InvoiceService {
             document.close();
 
             // Save PDF
-            String pdfPath = savePdf(baos.toByteArray(), invoice.getInvoiceNumber());
+            String pdfPath = savePdf(baos, invoice.getInvoiceNumber());
             invoice.setPdfPath(pdfPath);
             invoiceRepository.save(invoice);
 
@@ -1357,9 +1361,6 @@ public class InvoiceService {
      * Add payout invoice table.
      */
     private void addPayoutInvoiceTable(Document document, Invoice invoice, String yearMonth) throws DocumentException {
-        Font headerFont = new Font(Font.HELVETICA, 10, Font.BOLD, WHITE);
-        Font normalFont = new Font(Font.HELVETICA, 10, Font.NORMAL, GRAY_TEXT);
-
         PdfPTable table = new PdfPTable(3);
         table.setWidthPercentage(100);
         table.setWidths(new float[]{3, 2, 2});
@@ -1368,7 +1369,7 @@ public class InvoiceService {
         // Header row with blue background
         String[] headers = {"Description", "Periode", "Montant"};
         for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
+            PdfPCell cell = new PdfPCell(new Phrase(header, FONT_WHITE_BOLD));
             cell.setBackgroundColor(BLUE_DARK);
             cell.setPadding(10);
             cell.setHorizontalAlignment(Element.ALIGN_CENTER);
@@ -1377,9 +1378,9 @@ public class InvoiceService {
         }
 
         // Data row with white background
-        table.addCell(createStyledCell("Virement des gains de cours", normalFont, Element.ALIGN_LEFT, WHITE, true));
-        table.addCell(createStyledCell(yearMonth, normalFont, Element.ALIGN_CENTER, WHITE, true));
-        table.addCell(createStyledCell(formatCents(invoice.getTotalCents()), normalFont, Element.ALIGN_RIGHT, WHITE, true));
+        table.addCell(createStyledCell("Virement des gains de cours", FONT_BODY, Element.ALIGN_LEFT, WHITE, true));
+        table.addCell(createStyledCell(yearMonth, FONT_BODY, Element.ALIGN_CENTER, WHITE, true));
+        table.addCell(createStyledCell(formatCents(invoice.getTotalCents()), FONT_BODY, Element.ALIGN_RIGHT, WHITE, true));
 
         document.add(table);
 
@@ -1391,9 +1392,6 @@ public class InvoiceService {
      * Add subscription invoice table.
      */
     private void addSubscriptionInvoiceTable(Document document, Invoice invoice) throws DocumentException {
-        Font headerFont = new Font(Font.HELVETICA, 10, Font.BOLD, WHITE);
-        Font normalFont = new Font(Font.HELVETICA, 10, Font.NORMAL, GRAY_TEXT);
-
         PdfPTable table = new PdfPTable(4);
         table.setWidthPercentage(100);
         table.setWidths(new float[]{3, 1, 1.5f, 1.5f});
@@ -1402,7 +1400,7 @@ public class InvoiceService {
         // Header row with blue background
         String[] headers = {"Description", "Qte", "Prix unitaire", "Total"};
         for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
+            PdfPCell cell = new PdfPCell(new Phrase(header, FONT_WHITE_BOLD));
             cell.setBackgroundColor(BLUE_DARK);
             cell.setPadding(10);
             cell.setHorizontalAlignment(Element.ALIGN_CENTER);
@@ -1411,10 +1409,10 @@ public class InvoiceService {
         }
 
         // Data row with white background
-        table.addCell(createStyledCell(invoice.getDescription(), normalFont, Element.ALIGN_LEFT, WHITE, true));
-        table.addCell(createStyledCell("1", normalFont, Element.ALIGN_CENTER, WHITE, true));
-        table.addCell(createStyledCell(formatCents(invoice.getTotalCents()), normalFont, Element.ALIGN_RIGHT, WHITE, true));
-        table.addCell(createStyledCell(formatCents(invoice.getTotalCents()), normalFont, Element.ALIGN_RIGHT, WHITE, true));
+        table.addCell(createStyledCell(invoice.getDescription(), FONT_BODY, Element.ALIGN_LEFT, WHITE, true));
+        table.addCell(createStyledCell("1", FONT_BODY, Element.ALIGN_CENTER, WHITE, true));
+        table.addCell(createStyledCell(formatCents(invoice.getTotalCents()), FONT_BODY, Element.ALIGN_RIGHT, WHITE, true));
+        table.addCell(createStyledCell(formatCents(invoice.getTotalCents()), FONT_BODY, Element.ALIGN_RIGHT, WHITE, true));
 
         document.add(table);
 
@@ -1470,7 +1468,7 @@ public class InvoiceService {
      * Generate PDF for top-up invoice.
      */
     private void generateTopUpInvoicePdf(Invoice invoice, User student) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(PDF_BUFFER_SIZE);
         Document document = new Document(PageSize.A4, 40, 40, 40, 40);
 
         try {
@@ -1487,7 +1485,7 @@ public class InvoiceService {
             document.close();
 
             // Save PDF
-            String pdfPath = savePdf(baos.toByteArray(), invoice.getInvoiceNumber());
+            String pdfPath = savePdf(baos, invoice.getInvoiceNumber());
             invoice.setPdfPath(pdfPath);
             invoiceRepository.save(invoice);
 
@@ -1712,7 +1710,7 @@ public class InvoiceService {
      */
     private void generateCreditNotePdf(Invoice creditNote, User student, User teacher,
                                         Lesson lesson, Invoice originalInvoice, boolean isWalletRefund) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(PDF_BUFFER_SIZE);
         Document document = new Document(PageSize.A4, 40, 40, 40, 40);
 
         try {
@@ -1726,11 +1724,9 @@ public class InvoiceService {
                     creditNote.getCustomerName(), creditNote.getCustomerEmail());
 
             // Reference to original invoice with blue styling
-            Font refLabelFont = new Font(Font.HELVETICA, 10, Font.NORMAL, GRAY_TEXT);
-            Font refValueFont = new Font(Font.HELVETICA, 10, Font.BOLD, BLUE_DARK);
             Paragraph refParagraph = new Paragraph();
-            refParagraph.add(new Chunk("Reference facture originale : ", refLabelFont));
-            refParagraph.add(new Chunk(originalInvoice.getInvoiceNumber(), refValueFont));
+            refParagraph.add(new Chunk("Reference facture originale : ", FONT_BODY));
+            refParagraph.add(new Chunk(originalInvoice.getInvoiceNumber(), FONT_BLUE_BOLD));
             refParagraph.setSpacingBefore(10);
             refParagraph.setSpacingAfter(5);
             document.add(refParagraph);
@@ -1746,7 +1742,7 @@ public class InvoiceService {
             document.close();
 
             // Save PDF
-            String pdfPath = savePdf(baos.toByteArray(), creditNote.getInvoiceNumber());
+            String pdfPath = savePdf(baos, creditNote.getInvoiceNumber());
             creditNote.setPdfPath(pdfPath);
             invoiceRepository.save(creditNote);
 
@@ -1760,9 +1756,6 @@ public class InvoiceService {
      * Add credit note table.
      */
     private void addCreditNoteTable(Document document, Invoice creditNote, Lesson lesson) throws DocumentException {
-        Font headerFont = new Font(Font.HELVETICA, 10, Font.BOLD, WHITE);
-        Font normalFont = new Font(Font.HELVETICA, 10, Font.NORMAL, GRAY_TEXT);
-
         PdfPTable table = new PdfPTable(4);
         table.setWidthPercentage(100);
         table.setWidths(new float[]{3, 1.5f, 1.5f, 1.5f});
@@ -1771,7 +1764,7 @@ public class InvoiceService {
         // Header row with blue background
         String[] headers = {"Description", "Qte", "Prix unitaire", "Total"};
         for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
+            PdfPCell cell = new PdfPCell(new Phrase(header, FONT_WHITE_BOLD));
             cell.setBackgroundColor(BLUE_DARK);
             cell.setPadding(10);
             cell.setHorizontalAlignment(Element.ALIGN_CENTER);
@@ -1783,10 +1776,10 @@ public class InvoiceService {
         String description = creditNote.getDescription();
         int refundAmount = Math.abs(creditNote.getTotalCents());
 
-        table.addCell(createStyledCell(description, normalFont, Element.ALIGN_LEFT, WHITE, true));
-        table.addCell(createStyledCell("1", normalFont, Element.ALIGN_CENTER, WHITE, true));
-        table.addCell(createStyledCell("-" + formatCents(refundAmount), normalFont, Element.ALIGN_RIGHT, WHITE, true));
-        table.addCell(createStyledCell("-" + formatCents(refundAmount), normalFont, Element.ALIGN_RIGHT, WHITE, true));
+        table.addCell(createStyledCell(description, FONT_BODY, Element.ALIGN_LEFT, WHITE, true));
+        table.addCell(createStyledCell("1", FONT_BODY, Element.ALIGN_CENTER, WHITE, true));
+        table.addCell(createStyledCell("-" + formatCents(refundAmount), FONT_BODY, Element.ALIGN_RIGHT, WHITE, true));
+        table.addCell(createStyledCell("-" + formatCents(refundAmount), FONT_BODY, Element.ALIGN_RIGHT, WHITE, true));
 
         document.add(table);
     }
@@ -1795,9 +1788,6 @@ public class InvoiceService {
      * Add credit note total section (negative amounts).
      */
     private void addCreditNoteTotalSection(Document document, Invoice creditNote) throws DocumentException {
-        Font normalFont = new Font(Font.HELVETICA, 10, Font.NORMAL, GRAY_TEXT);
-        Font boldFont = new Font(Font.HELVETICA, 12, Font.BOLD);
-
         PdfPTable totalTable = new PdfPTable(2);
         totalTable.setWidthPercentage(50);
         totalTable.setHorizontalAlignment(Element.ALIGN_RIGHT);
@@ -1806,24 +1796,24 @@ public class InvoiceService {
         int refundAmount = Math.abs(creditNote.getTotalCents());
 
         // Subtotal
-        PdfPCell subtotalLabel = new PdfPCell(new Phrase("Sous-total HT", normalFont));
+        PdfPCell subtotalLabel = new PdfPCell(new Phrase("Sous-total HT", FONT_BODY));
         subtotalLabel.setBorder(Rectangle.NO_BORDER);
         subtotalLabel.setPadding(8);
         totalTable.addCell(subtotalLabel);
 
-        PdfPCell subtotalValue = new PdfPCell(new Phrase("-" + formatCents(refundAmount), normalFont));
+        PdfPCell subtotalValue = new PdfPCell(new Phrase("-" + formatCents(refundAmount), FONT_BODY));
         subtotalValue.setBorder(Rectangle.NO_BORDER);
         subtotalValue.setPadding(8);
         subtotalValue.setHorizontalAlignment(Element.ALIGN_RIGHT);
         totalTable.addCell(subtotalValue);
 
         // TVA
-        PdfPCell vatLabel = new PdfPCell(new Phrase("TVA (0%)", normalFont));
+        PdfPCell vatLabel = new PdfPCell(new Phrase("TVA (0%)", FONT_BODY));
         vatLabel.setBorder(Rectangle.NO_BORDER);
         vatLabel.setPadding(8);
         totalTable.addCell(vatLabel);
 
-        PdfPCell vatValue = new PdfPCell(new Phrase("0,00 EUR", normalFont));
+        PdfPCell vatValue = new PdfPCell(new Phrase("0,00 EUR", FONT_BODY));
         vatValue.setBorder(Rectangle.NO_BORDER);
         vatValue.setPadding(8);
         vatValue.setHorizontalAlignment(Element.ALIGN_RIGHT);
@@ -1832,23 +1822,19 @@ public class InvoiceService {
         document.add(totalTable);
 
         // Total - highlighted with amber/orange color for refund (rounded corners)
-        Color refundBgColor = new Color(254, 243, 199);  // Light amber
-        Color refundTextColor = new Color(180, 83, 9);   // Amber-700
-        Font refundBoldFont = new Font(Font.HELVETICA, 14, Font.BOLD, refundTextColor);
-
         PdfPTable totalRow = new PdfPTable(2);
         totalRow.setWidthPercentage(50);
         totalRow.setHorizontalAlignment(Element.ALIGN_RIGHT);
         totalRow.setSpacingBefore(5);
-        totalRow.setTableEvent(new RoundedTableEvent(refundBgColor, BORDER_RADIUS));
+        totalRow.setTableEvent(new RoundedTableEvent(AMBER_LIGHT, BORDER_RADIUS));
 
-        PdfPCell totalLabelCell = new PdfPCell(new Phrase("TOTAL REMBOURSE", new Font(Font.HELVETICA, 12, Font.BOLD, refundTextColor)));
+        PdfPCell totalLabelCell = new PdfPCell(new Phrase("TOTAL REMBOURSE", FONT_REFUND_EMPHASIS));
         totalLabelCell.setBorder(Rectangle.NO_BORDER);
         totalLabelCell.setPadding(12);
         totalLabelCell.setBackgroundColor(null);
         totalRow.addCell(totalLabelCell);
 
-        PdfPCell totalValueCell = new PdfPCell(new Phrase("-" + formatCents(refundAmount), refundBoldFont));
+        PdfPCell totalValueCell = new PdfPCell(new Phrase("-" + formatCents(refundAmount), FONT_REFUND_AMOUNT));
         totalValueCell.setBorder(Rectangle.NO_BORDER);
         totalValueCell.setPadding(12);
         totalValueCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
@@ -0,0 +1,49 @@
+package com.chessconnect.service;
+
+import com.chessconnect.repository.LessonParticipantRepository;
+import com.chessconnect.repository.LessonRepository;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Cached "may this user access this lesson" lookups for hot endpoints
+ * that are called repeatedly for the same lesson (e.g. the video player).
+ *
+ * Only granted access is cached: a student refused a moment ago may have joined
+ * or paid for the lesson since, and must not wait for the entry to expire.
+ */
+@Service
+public class LessonAccessService {
+
+    public enum Access { ALLOWED, DENIED, NOT_FOUND }
+
+    private final LessonRepository lessonRepository;
+    private final LessonParticipantRepository participantRepository;
+
+    public LessonAccessService(LessonRepository lessonRepository, LessonParticipantRepository participantRepository) {
+        this.lessonRepository = lessonRepository;
+        this.participantRepository = participantRepository;
+    }
+
+    /**
+     * A user can access a lesson as its student, its teacher, or an active group participant.
+     */
+    @Cacheable(value = "lessonAccess", key = "#lessonId + '-' + #userId",
+            unless = "#result != T(com.chessconnect.service.LessonAccessService.Access).ALLOWED")
+    public Access getAccess(Long lessonId, Long userId) {
+        List<Object[]> rows = lessonRepository.findParticipantIdsById(lessonId);
+        if (rows.isEmpty()) {
+            return Access.NOT_FOUND;
+        }
+        Object[] row = rows.get(0);
+        if (userId.equals(row[0]) || userId.equals(row[1])) {
+            return Access.ALLOWED;
+        }
+        if (Boolean.TRUE.equals(row[2]) && participantRepository.existsActiveByLessonIdAndStudentId(lessonId, userId)) {
+            return Access.ALLOWED;
+        }
+        return Access.DENIED;
+    }
+}
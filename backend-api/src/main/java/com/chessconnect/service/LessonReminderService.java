@@ -6,13 +6,11 @@ import com.chessconnect.model.enums.LessonStatus;
 import com.chessconnect.repository.LessonRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 import java.util.Locale;
 
 @Service
@@ -37,57 +35,53 @@ public class LessonReminderService {
     }
 
     /**
-     * Send email reminders for lessons starting in approximately 1 hour.
-     * Runs every 15 minutes to catch lessons.
+     * Send the reminders for a lesson starting in approximately 1 hour.
+     * Called when the lesson's REMINDER timer fires; skipped if the lesson is no longer
+     * confirmed or if it starts too soon or too late for a "1 hour" reminder.
      */
-    @Scheduled(cron = "0 */15 * * * *")
     @Transactional
-    public void sendLessonReminders() {
-        // Find lessons starting in 45-75 minutes that haven't received a reminder
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime reminderWindowStart = now.plusMinutes(45);
-        LocalDateTime reminderWindowEnd = now.plusMinutes(75);
+    public void sendLessonReminder(Long lessonId) {
+        Lesson lesson = lessonRepository.findById(lessonId).orElse(null);
+        if (lesson == null || lesson.getStatus() != LessonStatus.CONFIRMED
+                || Boolean.TRUE.equals(lesson.getReminderSent())) {
+            return;
+        }
 
-        List<Lesson> upcomingLessons = lessonRepository.findLessonsForReminder(
-                LessonStatus.CONFIRMED, reminderWindowStart, reminderWindowEnd
-        );
+        LocalDateTime now = LocalDateTime.now();
+        if (lesson.getScheduledAt().isBefore(now.plusMinutes(45))
+                || lesson.getScheduledAt().isAfter(now.plusMinutes(75))) {
+            return;
+        }
 
         int remindersSent = 0;
-        for (Lesson lesson : upcomingLessons) {
-            if (Boolean.TRUE.equals(lesson.getReminderSent())) {
-                continue;
-            }
-
-            // Send reminder to student
-            User student = lesson.getStudent();
-            User teacher = lesson.getTeacher();
-
-            // Email reminder if enabled
-            if (Boolean.TRUE.equals(student.getEmailRemindersEnabled())) {
-                sendReminderToStudent(lesson);
-                remindersSent++;
-            }
-
-            // Push notification reminder (always send if push enabled, as it's less intrusive)
-            sendPushReminderToStudent(lesson, student, teacher);
-
-            // Send reminder to teacher if they have reminders enabled
-            if (Boolean.TRUE.equals(teacher.getEmailRemindersEnabled())) {
-                sendReminderToTeacher(lesson);
-                remindersSent++;
-            }
-
-            // Push notification reminder for teacher
-            sendPushReminderToTeacher(lesson, student, teacher);
-
-            // Mark as sent
-            lesson.setReminderSent(true);
-            lessonRepository.save(lesson);
+
+        // Send reminder to student
+        User student = lesson.getStudent();
+        User teacher = lesson.getTeacher();
+
+        // Email reminder if enabled
+        if (Boolean.TRUE.equals(student.getEmailRemindersEnabled())) {
+            sendReminderToStudent(lesson);
+            remindersSent++;
         }
 
-        if (remindersSent > 0) {
-            log.info("Sent {} lesson reminders", remindersSent);
+        // Push notification reminder (always send if push enabled, as it's less intrusive)
+        sendPushReminderToStudent(lesson, student, teacher);
+
+        // Send reminder to teacher if they have reminders enabled
+        if (Boolean.TRUE.equals(teacher.getEmailRemindersEnabled())) {
+            sendReminderToTeacher(lesson);
+            remindersSent++;
         }
+
+        // Push notification reminder for teacher
+        sendPushReminderToTeacher(lesson, student, teacher);
+
+        // Mark as sent
+        lesson.setReminderSent(true);
+        lessonRepository.save(lesson);
+
+        log.debug("Sent {} email reminders for lesson {}", remindersSent, lessonId);
     }
 
     private void sendReminderToStudent(Lesson lesson) {
@@ -28,7 +28,6 @@ import com.chessconnect.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -54,7 +53,6 @@ public class LessonService {
     // Cancellation policy constants
     private static final int FULL_REFUND_HOURS = 24;       // > 24h before = 100% refund
     private static final int PARTIAL_REFUND_HOURS = 2;     // 2-24h before = 50% refund
-    private static final int TEACHER_CONFIRMATION_HOURS = 24; // Teacher must confirm within 24h
 
     private final LessonRepository lessonRepository;
     private final LessonParticipantRepository participantRepository;
@@ -73,6 +71,7 @@ public class LessonService {
     private final BunnyStorageService bunnyStorageService;
     private final GroupInvitationRepository groupInvitationRepository;
     private final ApplicationEventPublisher eventPublisher;
+    private final LessonTimerService lessonTimerService;
     private GroupLessonService groupLessonService;
 
     public LessonService(
@@ -92,7 +91,8 @@ public class LessonService {
             PendingValidationService pendingValidationService,
             BunnyStorageService bunnyStorageService,
             GroupInvitationRepository groupInvitationRepository,
-            ApplicationEventPublisher eventPublisher
+            ApplicationEventPublisher eventPublisher,
+            LessonTimerService lessonTimerService
     ) {
         this.lessonRepository = lessonRepository;
         this.participantRepository = participantRepository;
@@ -111,6 +111,7 @@ public class LessonService {
         this.bunnyStorageService = bunnyStorageService;
         this.groupInvitationRepository = groupInvitationRepository;
         this.eventPublisher = eventPublisher;
+        this.lessonTimerService = lessonTimerService;
     }
 
     // Setter injection to break circular dependency with GroupLessonService
@@ -166,6 +167,7 @@ public class LessonService {
         lesson.setPriceCents(teacher.getHourlyRateCents());
 
         Lesson savedLesson = lessonRepository.save(lesson);
+        lessonTimerService.onBooked(savedLesson);
 
         // Publish SSE event to notify teacher of new booking
         publishLessonBookedEvent(savedLesson);
@@ -307,6 +309,12 @@ public class LessonService {
         lesson.setStatus(newStatus);
         Lesson updatedLesson = lessonRepository.save(lesson);
 
+        if (newStatus == LessonStatus.CONFIRMED) {
+            lessonTimerService.onConfirmed(updatedLesson);
+        } else if (newStatus == LessonStatus.CANCELLED || newStatus == LessonStatus.COMPLETED) {
+            lessonTimerService.cancelAll(updatedLesson.getId());
+        }
+
         // Publish SSE event for status change
         if (newStatus == LessonStatus.CONFIRMED || newStatus == LessonStatus.CANCELLED) {
             publishLessonStatusChangedEvent(updatedLesson, oldStatus, newStatus);
@@ -880,30 +888,23 @@ public class LessonService {
     }
 
     /**
-     * Auto-cancel lessons where teacher didn't confirm within 24h.
-     * Runs every hour.
+     * Auto-cancel a lesson the teacher didn't confirm within 24h.
+     * Called when the lesson's CONFIRMATION_TIMEOUT timer fires.
      */
-    @Scheduled(cron = "0 0 * * * *") // Every hour at minute 0
     @Transactional
-    public void autoCancelUnconfirmedLessons() {
-        LocalDateTime cutoffTime = LocalDateTime.now().minusHours(TEACHER_CONFIRMATION_HOURS);
-
-        List<Lesson> unconfirmedLessons = lessonRepository.findByStatusAndCreatedAtBefore(
-                LessonStatus.PENDING, cutoffTime
-        );
-
-        for (Lesson lesson : unconfirmedLessons) {
-            log.info("Auto-cancelling unconfirmed lesson {} (created at {})",
-                    lesson.getId(), lesson.getCreatedAt());
-
-            handleLessonCancellation(lesson, "SYSTEM",
-                    "Annulation automatique - le coach n'a pas confirmé dans les 24h");
-            lesson.setStatus(LessonStatus.CANCELLED);
-            lessonRepository.save(lesson);
+    public void autoCancelIfUnconfirmed(Long lessonId) {
+        Lesson lesson = lessonRepository.findById(lessonId).orElse(null);
+        if (lesson == null || lesson.getStatus() != LessonStatus.PENDING) {
+            return;
         }
 
-        if (!unconfirmedLessons.isEmpty()) {
-            log.info("Auto-cancelled {} unconfirmed lessons", unconfirmedLessons.size());
-        }
+        log.info("Auto-cancelling unconfirmed lesson {} (created at {})",
+                lesson.getId(), lesson.getCreatedAt());
+
+        handleLessonCancellation(lesson, "SYSTEM",
+                "Annulation automatique - le coach n'a pas confirmé dans les 24h");
+        lesson.setStatus(LessonStatus.CANCELLED);
+        lessonRepository.save(lesson);
+        lessonTimerService.cancelAll(lesson.getId());
     }
 }
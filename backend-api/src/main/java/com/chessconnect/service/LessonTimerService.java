@@ -0,0 +1,69 @@
+package com.chessconnect.service;
+
+import com.chessconnect.model.Lesson;
+import com.chessconnect.model.enums.LessonTimerType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Writes the lesson_timers rows that drive the lesson lifecycle.
+ *
+ * Timers are written in the caller's transaction, so they only exist if the booking or
+ * confirmation commits. Every path that cancels a lesson drops its timers; handlers still
+ * re-check the lesson state when a timer fires, in case a status change missed one.
+ */
+@Service
+public class LessonTimerService {
+
+    static final long CONFIRMATION_TIMEOUT_HOURS = 24;
+    static final long REMINDER_MINUTES_BEFORE = 60;
+    static final long GROUP_DEADLINE_HOURS_BEFORE = 24;
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO lesson_timers (lesson_id, timer_type, fire_at) VALUES (?, ?, ?) " +
+        "ON CONFLICT (lesson_id, timer_type) DO UPDATE SET fire_at = EXCLUDED.fire_at, attempts = 0";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LessonTimerService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * A new lesson waits for the teacher's confirmation; group lessons also get their fill deadline.
+     */
+    public void onBooked(Lesson lesson) {
+        schedule(lesson.getId(), LessonTimerType.CONFIRMATION_TIMEOUT,
+                LocalDateTime.now().plusHours(CONFIRMATION_TIMEOUT_HOURS));
+        if (Boolean.TRUE.equals(lesson.getIsGroupLesson())) {
+            schedule(lesson.getId(), LessonTimerType.GROUP_DEADLINE,
+                    lesson.getScheduledAt().minusHours(GROUP_DEADLINE_HOURS_BEFORE));
+        }
+    }
+
+    /**
+     * A confirmed lesson gets its reminder and its auto-completion.
+     */
+    public void onConfirmed(Lesson lesson) {
+        jdbcTemplate.update("DELETE FROM lesson_timers WHERE lesson_id = ? AND timer_type = ?",
+                lesson.getId(), LessonTimerType.CONFIRMATION_TIMEOUT.name());
+        schedule(lesson.getId(), LessonTimerType.REMINDER,
+                lesson.getScheduledAt().minusMinutes(REMINDER_MINUTES_BEFORE));
+        schedule(lesson.getId(), LessonTimerType.AUTO_COMPLETE,
+                lesson.getScheduledAt().plusMinutes(lesson.getDurationMinutes()));
+    }
+
+    /**
+     * Drop every pending timer of a lesson that was cancelled or completed.
+     */
+    public void cancelAll(Long lessonId) {
+        jdbcTemplate.update("DELETE FROM lesson_timers WHERE lesson_id = ?", lessonId);
+    }
+
+    public void schedule(Long lessonId, LessonTimerType type, LocalDateTime fireAt) {
+        jdbcTemplate.update(UPSERT_SQL, lessonId, type.name(), Timestamp.valueOf(fireAt));
+    }
+}
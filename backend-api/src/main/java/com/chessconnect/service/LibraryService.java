@@ -0,0 +1,139 @@
+package com.chessconnect.service;
+
+import com.chessconnect.dto.CursorPage;
+import com.chessconnect.dto.VideoDTO;
+import com.chessconnect.repository.LessonRepository;
+import com.chessconnect.repository.projection.LibraryVideoView;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Read model for the video library. Rows are flat projections paged by
+ * (scheduled_at, id) so latency does not grow with the number of recordings.
+ */
+@Service
+@Transactional(readOnly = true)
+public class LibraryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 24;
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final String DEFAULT_THUMBNAIL = "/assets/images/video-thumbnail-placeholder.svg";
+
+    private final LessonRepository lessonRepository;
+    private final SubscriptionService subscriptionService;
+
+    public LibraryService(LessonRepository lessonRepository, SubscriptionService subscriptionService) {
+        this.lessonRepository = lessonRepository;
+        this.subscriptionService = subscriptionService;
+    }
+
+    /**
+     * Date range filter, either from a named period or from explicit dates.
+     */
+    public record DateRange(LocalDateTime from, LocalDateTime to) {
+
+        public static DateRange of(String period, LocalDate dateFrom, LocalDate dateTo) {
+            if (period != null && !period.isEmpty()) {
+                LocalDate now = LocalDate.now();
+                LocalDateTime from = switch (period) {
+                    case "week" -> now.minusWeeks(1).atStartOfDay();
+                    case "month" -> now.minusMonths(1).atStartOfDay();
+                    case "3months" -> now.minusMonths(3).atStartOfDay();
+                    case "year" -> now.minusYears(1).atStartOfDay();
+                    default -> null;
+                };
+                return new DateRange(from, LocalDateTime.now());
+            }
+            return new DateRange(
+                dateFrom != null ? dateFrom.atStartOfDay() : null,
+                dateTo != null ? dateTo.atTime(LocalTime.MAX) : null
+            );
+        }
+    }
+
+    /**
+     * Student library page. Group lesson recordings are only visible to premium students,
+     * which is applied in the query rather than by filtering rows afterwards.
+     */
+    public CursorPage<VideoDTO> getStudentVideos(Long studentId, String search, DateRange range, String cursor, Integer limit) {
+        CursorPage.Cursor position = CursorPage.Cursor.decode(cursor);
+        int pageSize = clampPageSize(limit);
+        boolean isPremium = subscriptionService.isPremium(studentId);
+
+        List<LibraryVideoView> rows = lessonRepository.findLibraryVideoPage(
+            studentId, isPremium, search, range.from(), range.to(), position.at(), position.id(), pageSize + 1);
+        return CursorPage.of(rows, pageSize, LibraryService::cursorOf, row -> toVideoDTO(row, false));
+    }
+
+    /**
+     * Admin library page across every recording.
+     */
+    public CursorPage<VideoDTO> getAllVideos(String search, DateRange range, String cursor, Integer limit) {
+        CursorPage.Cursor position = CursorPage.Cursor.decode(cursor);
+        int pageSize = clampPageSize(limit);
+
+        List<LibraryVideoView> rows = lessonRepository.findAllLibraryVideoPage(
+            search, range.from(), range.to(), position.at(), position.id(), pageSize + 1);
+        return CursorPage.of(rows, pageSize, LibraryService::cursorOf, row -> toVideoDTO(row, true));
+    }
+
+    /**
+     * Every video of the student library, for clients that still expect a plain list.
+     */
+    public List<VideoDTO> getAllStudentVideos(Long studentId, String search, DateRange range) {
+        boolean isPremium = subscriptionService.isPremium(studentId);
+        return lessonRepository.findLibraryVideoPage(
+                studentId, isPremium, search, range.from(), range.to(), null, null, Integer.MAX_VALUE)
+            .stream()
+            .map(row -> toVideoDTO(row, false))
+            .toList();
+    }
+
+    /**
+     * Every recording, for clients that still expect a plain list.
+     */
+    public List<VideoDTO> getAllVideosList(String search, DateRange range) {
+        return lessonRepository.findAllLibraryVideoPage(
+                search, range.from(), range.to(), null, null, Integer.MAX_VALUE)
+            .stream()
+            .map(row -> toVideoDTO(row, true))
+            .toList();
+    }
+
+    private static int clampPageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private static CursorPage.Cursor cursorOf(LibraryVideoView row) {
+        return new CursorPage.Cursor(row.getScheduledAt(), row.getId());
+    }
+
+    private static VideoDTO toVideoDTO(LibraryVideoView row, boolean adminView) {
+        VideoDTO dto = new VideoDTO();
+        dto.setId(row.getId());
+        dto.setLessonId(row.getId());
+        // Students only see the teacher's initial; admins see full names
+        dto.setTeacherName(adminView
+            ? row.getTeacherFirstName() + " " + row.getTeacherLastName()
+            : row.getTeacherFirstName() + " " + row.getTeacherLastName().charAt(0) + ".");
+        dto.setTeacherAvatar(AvatarImageService.variantUrl(row.getTeacherAvatar(), AvatarImageService.CARD_SIZE));
+        dto.setScheduledAt(row.getScheduledAt());
+        dto.setRecordingUrl(row.getRecordingUrl());
+        dto.setDurationSeconds(row.getDurationMinutes() != null ? row.getDurationMinutes() * 60 : 3600);
+        // Use generated thumbnail if available, otherwise use default placeholder
+        dto.setThumbnailUrl(row.getThumbnailUrl() != null ? row.getThumbnailUrl() : DEFAULT_THUMBNAIL);
+        dto.setCourseTitle(row.getCourseTitle());
+        if (adminView && row.getStudentFirstName() != null) {
+            dto.setStudentName(row.getStudentFirstName() + " " + row.getStudentLastName());
+        }
+        return dto;
+    }
+}
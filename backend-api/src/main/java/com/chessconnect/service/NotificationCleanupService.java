@@ -1,16 +1,26 @@
 package com.chessconnect.service;
 
-import com.chessconnect.model.UserNotification;
 import com.chessconnect.repository.UserNotificationRepository;
+import com.chessconnect.scheduler.ScheduledJobRunner;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.List;
-
+import java.util.function.IntSupplier;
+
+/**
+ * Notification retention.
+ *
+ * Both rules run as set-based DELETE statements in chunks of {@link #CHUNK_SIZE} rows,
+ * each chunk in its own short transaction, so a large backlog never holds locks
+ * on the whole table or builds one huge transaction.
+ */
 @Service
 public class NotificationCleanupService {
 
@@ -18,11 +28,33 @@ public class NotificationCleanupService {
 
     private static final int MAX_NOTIFICATIONS_PER_USER = 20;
     private static final int UNREAD_RETENTION_DAYS = 15;
+    static final int CHUNK_SIZE = 5_000;
 
     private final UserNotificationRepository notificationRepository;
-
-    public NotificationCleanupService(UserNotificationRepository notificationRepository) {
+    private final NotificationCounterService counterService;
+    private final Counter expiredCounter;
+    private final Counter excessCounter;
+    private final Timer chunkTimer;
+    private final ScheduledJobRunner jobRunner;
+
+    public NotificationCleanupService(UserNotificationRepository notificationRepository,
+                                      NotificationCounterService counterService,
+                                      MeterRegistry meterRegistry,
+                                      ScheduledJobRunner jobRunner) {
         this.notificationRepository = notificationRepository;
+        this.counterService = counterService;
+        this.jobRunner = jobRunner;
+        this.expiredCounter = Counter.builder("notification_cleanup_deleted")
+                .tag("reason", "expired")
+                .description("Unread notifications deleted after the retention period")
+                .register(meterRegistry);
+        this.excessCounter = Counter.builder("notification_cleanup_deleted")
+                .tag("reason", "excess")
+                .description("Notifications deleted beyond the per-user limit")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("notification_cleanup_chunk_duration")
+                .description("Time to delete one chunk of notifications")
+                .register(meterRegistry);
     }
 
     /**
@@ -31,71 +63,67 @@ public class NotificationCleanupService {
      * - Enforces max 20 notifications per user
      */
     @Scheduled(cron = "0 0 3 * * *") // Every day at 3:00 AM
-    @Transactional
     public void cleanupNotifications() {
-        log.info("Starting notification cleanup...");
-
-        int totalDeleted = 0;
+        jobRunner.runLocked("NotificationCleanupService.cleanupNotifications", Duration.ofMinutes(30), () -> {
+            log.info("Starting notification cleanup...");
 
-        // 1. Delete unread notifications older than 15 days
-        LocalDateTime cutoffDate = LocalDateTime.now().minusDays(UNREAD_RETENTION_DAYS);
-        int expiredDeleted = notificationRepository.deleteUnreadOlderThan(cutoffDate);
-        totalDeleted += expiredDeleted;
-        log.info("Deleted {} unread notifications older than {} days", expiredDeleted, UNREAD_RETENTION_DAYS);
+            CleanupResult result = runManualCleanup();
 
-        // 2. Enforce max notifications per user
-        int excessDeleted = enforceMaxNotificationsPerUser();
-        totalDeleted += excessDeleted;
+            log.info("Notification cleanup completed. Total deleted: {}", result.total());
+        });
+    }
 
-        log.info("Notification cleanup completed. Total deleted: {}", totalDeleted);
+    /**
+     * Delete unread notifications older than the retention period.
+     */
+    public int deleteExpiredUnread() {
+        LocalDateTime cutoffDate = LocalDateTime.now().minusDays(UNREAD_RETENTION_DAYS);
+        int deleted = deleteInChunks("expired", expiredCounter,
+                () -> notificationRepository.deleteUnreadOlderThan(cutoffDate, CHUNK_SIZE));
+        log.info("Deleted {} unread notifications older than {} days", deleted, UNREAD_RETENTION_DAYS);
+        return deleted;
     }
 
     /**
      * Enforce the maximum number of notifications per user.
      * Deletes oldest notifications when user exceeds the limit.
      */
-    @Transactional
     public int enforceMaxNotificationsPerUser() {
-        int totalDeleted = 0;
-
-        // Find users who have more than MAX_NOTIFICATIONS_PER_USER
-        List<Long> userIds = notificationRepository.findUserIdsExceedingNotificationLimit(MAX_NOTIFICATIONS_PER_USER);
-
-        for (Long userId : userIds) {
-            List<UserNotification> userNotifications = notificationRepository.findByUserIdOrderByCreatedAtDescAll(userId);
-
-            if (userNotifications.size() > MAX_NOTIFICATIONS_PER_USER) {
-                // Keep only the first MAX_NOTIFICATIONS_PER_USER (most recent)
-                List<UserNotification> toDelete = userNotifications.subList(
-                        MAX_NOTIFICATIONS_PER_USER,
-                        userNotifications.size()
-                );
-
-                notificationRepository.deleteAll(toDelete);
-                totalDeleted += toDelete.size();
-                log.debug("Deleted {} excess notifications for user {}", toDelete.size(), userId);
-            }
-        }
-
-        if (totalDeleted > 0) {
-            log.info("Deleted {} excess notifications across {} users", totalDeleted, userIds.size());
+        int deleted = deleteInChunks("excess", excessCounter,
+                () -> notificationRepository.deleteExcessPerUser(MAX_NOTIFICATIONS_PER_USER, CHUNK_SIZE));
+        if (deleted > 0) {
+            log.info("Deleted {} excess notifications", deleted);
         }
-
-        return totalDeleted;
+        return deleted;
     }
 
     /**
      * Manual cleanup method that can be called from admin endpoints if needed.
      */
-    @Transactional
     public CleanupResult runManualCleanup() {
-        log.info("Running manual notification cleanup...");
-
-        LocalDateTime cutoffDate = LocalDateTime.now().minusDays(UNREAD_RETENTION_DAYS);
-        int expiredDeleted = notificationRepository.deleteUnreadOlderThan(cutoffDate);
+        int expiredDeleted = deleteExpiredUnread();
         int excessDeleted = enforceMaxNotificationsPerUser();
 
-        return new CleanupResult(expiredDeleted, excessDeleted);
+        CleanupResult result = new CleanupResult(expiredDeleted, excessDeleted);
+        if (result.total() > 0) {
+            // Bulk deletes bypass the per-user counters
+            counterService.invalidateAll();
+        }
+        return result;
+    }
+
+    private int deleteInChunks(String rule, Counter counter, IntSupplier chunk) {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = chunkTimer.record(chunk::getAsInt);
+            counter.increment(deleted);
+            total += deleted;
+            if (deleted > 0) {
+                log.debug("Notification cleanup ({}): {} rows in this chunk, {} so far", rule, deleted, total);
+            }
+        } while (deleted == CHUNK_SIZE);
+        return total;
     }
 
     public record CleanupResult(int expiredDeleted, int excessDeleted) {
@@ -0,0 +1,162 @@
+package com.chessconnect.service;
+
+import com.chessconnect.event.NotificationEvent;
+import com.chessconnect.event.cluster.ClusterMessageBus;
+import com.chessconnect.event.cluster.ClusterSseRouter;
+import com.chessconnect.event.payload.UnreadCountPayload;
+import com.chessconnect.repository.UserNotificationRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Per-user unread notification counters kept in memory.
+ *
+ * A counter is loaded from the database on first read and dropped once a change to
+ * the user's notifications commits, so the next read counts the committed rows.
+ * Adding a delta instead would count a notification twice whenever a cold load ran
+ * between the commit and the adjustment. Connected clients receive the new value
+ * over SSE instead of polling. Every invalidation is broadcast over the
+ * {@link ClusterMessageBus}, so the other nodes drop their copy of the counter too.
+ * Entries are still reloaded every few minutes, which bounds drift should a message be lost.
+ */
+@Service
+public class NotificationCounterService implements SseConnectionManager.PresenceListener {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationCounterService.class);
+
+    private static final Duration RELOAD_AFTER = Duration.ofMinutes(5);
+    private static final long MAX_CACHED_USERS = 50_000;
+    static final String STALE_MESSAGE = "unread-stale";
+
+    private final Cache<Long, Long> counters = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_USERS)
+            .expireAfterWrite(RELOAD_AFTER)
+            .build();
+
+    private final UserNotificationRepository notificationRepository;
+    private final ClusterSseRouter sseRouter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ClusterMessageBus bus;
+    private final ObjectMapper objectMapper;
+
+    public NotificationCounterService(UserNotificationRepository notificationRepository,
+                                      ClusterSseRouter sseRouter,
+                                      ApplicationEventPublisher eventPublisher,
+                                      SseConnectionManager connectionManager,
+                                      ClusterMessageBus bus,
+                                      ObjectMapper objectMapper) {
+        this.notificationRepository = notificationRepository;
+        this.sseRouter = sseRouter;
+        this.eventPublisher = eventPublisher;
+        this.bus = bus;
+        this.objectMapper = objectMapper;
+        connectionManager.addPresenceListener(this);
+        bus.addListener(this::onMessage);
+    }
+
+    public long getUnreadCount(Long userId) {
+        return counters.get(userId, notificationRepository::countByUserIdAndIsReadFalse);
+    }
+
+    /**
+     * Drop the user's counter on every node after the current transaction commits, and
+     * send connected clients the reloaded value.
+     */
+    public void invalidate(Long userId) {
+        afterCommit(() -> {
+            counters.invalidate(userId);
+            broadcastStale(userId);
+            publish(userId);
+        });
+    }
+
+    /**
+     * Drop every counter on every node, e.g. after a bulk deletion that touched many users.
+     */
+    public void invalidateAll() {
+        counters.invalidateAll();
+        broadcastStale(null);
+    }
+
+    /**
+     * Tell the other nodes to drop one user's counter, or all of them when {@code userId} is null.
+     */
+    private void broadcastStale(Long userId) {
+        ObjectNode msg = objectMapper.createObjectNode();
+        msg.put("type", STALE_MESSAGE);
+        msg.put("node", bus.nodeId());
+        if (userId != null) {
+            msg.put("user", userId);
+        }
+        bus.broadcast(msg.toString());
+    }
+
+    void onMessage(String raw) {
+        JsonNode msg;
+        try {
+            msg = objectMapper.readTree(raw);
+        } catch (Exception e) {
+            return;
+        }
+        if (!STALE_MESSAGE.equals(msg.path("type").asText()) || bus.nodeId().equals(msg.path("node").asText())) {
+            return;
+        }
+        if (msg.hasNonNull("user")) {
+            counters.invalidate(msg.path("user").asLong());
+        } else {
+            counters.invalidateAll();
+        }
+    }
+
+    /**
+     * Give a freshly connected client its badge value right away.
+     */
+    @Override
+    public void onUserConnected(Long userId) {
+        publish(userId);
+    }
+
+    @Override
+    public void onUserDisconnected(Long userId) {
+    }
+
+    private void publish(Long userId) {
+        if (!sseRouter.isConnected(userId)) {
+            return;
+        }
+        try {
+            eventPublisher.publishEvent(new NotificationEvent(
+                    this,
+                    NotificationEvent.EventType.UNREAD_COUNT_CHANGED,
+                    userId,
+                    new UnreadCountPayload(getUnreadCount(userId))
+            ));
+        } catch (Exception e) {
+            log.warn("Failed to publish unread count for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
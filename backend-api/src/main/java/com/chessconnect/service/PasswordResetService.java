@@ -6,6 +6,7 @@ import com.chessconnect.model.PasswordResetToken;
 import com.chessconnect.model.User;
 import com.chessconnect.repository.PasswordResetTokenRepository;
 import com.chessconnect.repository.UserRepository;
+import com.chessconnect.scheduler.ScheduledJobRunner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -14,6 +15,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 @Service
@@ -25,6 +27,7 @@ public class PasswordResetService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
+    private final ScheduledJobRunner jobRunner;
 
     @Value("${app.frontend-url:http://localhost:4200}")
     private String frontendUrl;
@@ -33,12 +36,14 @@ public class PasswordResetService {
             PasswordResetTokenRepository tokenRepository,
             UserRepository userRepository,
             PasswordEncoder passwordEncoder,
-            EmailService emailService
+            EmailService emailService,
+            ScheduledJobRunner jobRunner
     ) {
         this.tokenRepository = tokenRepository;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.emailService = emailService;
+        this.jobRunner = jobRunner;
     }
 
     @Transactional
@@ -92,7 +97,9 @@ public class PasswordResetService {
     @Scheduled(cron = "0 0 0 * * *")
     @Transactional
     public void cleanupExpiredTokens() {
-        tokenRepository.deleteByExpiresAtBefore(LocalDateTime.now());
-        log.info("Cleaned up expired password reset tokens");
+        jobRunner.runLocked("PasswordResetService.cleanupExpiredTokens", Duration.ofMinutes(10), () -> {
+            tokenRepository.deleteByExpiresAtBefore(LocalDateTime.now());
+            log.info("Cleaned up expired password reset tokens");
+        });
     }
 }
@@ -1,20 +1,48 @@
 package com.chessconnect.service;
 
+import com.chessconnect.dto.CursorPage;
 import com.chessconnect.dto.promo.*;
 import com.chessconnect.model.*;
 import com.chessconnect.model.enums.DiscountType;
 import com.chessconnect.model.enums.PromoCodeType;
 import com.chessconnect.repository.*;
+import com.chessconnect.repository.projection.PromoCodeTotalsView;
+import com.chessconnect.repository.projection.PromoCodeUsageView;
+import com.chessconnect.repository.projection.ReferralEarningView;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
-
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Promo and referral codes.
+ *
+ * Checkout reads codes through a short-lived {@link PromoCodeSnapshot} cache, dropped after commit
+ * by every admin change. A checkout reserves one use with a single conditional UPDATE before the
+ * customer is charged, so concurrent checkouts can never push a code past its maximum number of
+ * uses; the use is released if the purchase fails and recorded once it succeeds.
+ *
+ * Admin totals are aggregated in SQL and usage and earning details are read as keyset pages,
+ * so an affiliate with thousands of referrals costs a few bounded queries.
+ */
 @Service
 public class PromoCodeService {
 
@@ -22,12 +50,82 @@ public class PromoCodeService {
     private static final String CODE_CHARS = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
     private static final SecureRandom RANDOM = new SecureRandom();
 
+    // Bounds how long another node may serve a code after it was changed or used up
+    static final Duration SNAPSHOT_TTL = Duration.ofSeconds(30);
+    private static final long MAX_CACHED_CODES = 10_000;
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    // Row-locks the code until the reservation commits; a rollback gives the use back
+    static final String RESERVE_USE_SQL =
+        "UPDATE promo_codes SET current_uses = COALESCE(current_uses, 0) + 1, updated_at = ? " +
+        "WHERE id = ? AND is_active = true AND (expires_at IS NULL OR expires_at > ?) " +
+        "AND (max_uses IS NULL OR COALESCE(current_uses, 0) < max_uses) " +
+        "RETURNING current_uses";
+
+    static final String RELEASE_USE_SQL =
+        "UPDATE promo_codes SET current_uses = current_uses - 1, updated_at = ? " +
+        "WHERE UPPER(code) = UPPER(?) AND current_uses > 0";
+
+    /**
+     * Immutable copy of a promo code, as checked at checkout. {@code currentUses} is only as
+     * fresh as the snapshot: the reservation is what enforces {@code maxUses}.
+     */
+    public record PromoCodeSnapshot(
+            Long id,
+            String code,
+            PromoCodeType codeType,
+            DiscountType discountType,
+            Double discountPercent,
+            Integer premiumDays,
+            Integer maxUses,
+            int currentUses,
+            boolean firstLessonOnly,
+            Integer minAmountCents,
+            boolean active,
+            LocalDateTime expiresAt
+    ) {
+        static PromoCodeSnapshot of(PromoCode promo) {
+            return new PromoCodeSnapshot(
+                    promo.getId(),
+                    promo.getCode(),
+                    promo.getCodeType(),
+                    promo.getDiscountType(),
+                    promo.getDiscountPercent(),
+                    promo.getPremiumDays(),
+                    promo.getMaxUses(),
+                    promo.getCurrentUses() != null ? promo.getCurrentUses() : 0,
+                    Boolean.TRUE.equals(promo.getFirstLessonOnly()),
+                    promo.getMinAmountCents(),
+                    Boolean.TRUE.equals(promo.getIsActive()),
+                    promo.getExpiresAt()
+            );
+        }
+
+        public boolean isExpired() {
+            return expiresAt != null && LocalDateTime.now().isAfter(expiresAt);
+        }
+
+        public boolean hasReachedMaxUses() {
+            return maxUses != null && currentUses >= maxUses;
+        }
+
+        PromoCodeSnapshot withCurrentUses(int uses) {
+            return new PromoCodeSnapshot(id, code, codeType, discountType, discountPercent, premiumDays,
+                    maxUses, uses, firstLessonOnly, minAmountCents, active, expiresAt);
+        }
+    }
+
     private final PromoCodeRepository promoCodeRepository;
     private final PromoCodeUsageRepository promoCodeUsageRepository;
     private final ReferralEarningRepository referralEarningRepository;
     private final UserRepository userRepository;
     private final LessonRepository lessonRepository;
     private final PaymentRepository paymentRepository;
+    private final EntitlementService entitlementService;
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<String, PromoCodeSnapshot> snapshots;
 
     public PromoCodeService(
             PromoCodeRepository promoCodeRepository,
@@ -35,7 +133,10 @@ public class PromoCodeService {
             ReferralEarningRepository referralEarningRepository,
             UserRepository userRepository,
             LessonRepository lessonRepository,
-            PaymentRepository paymentRepository
+            PaymentRepository paymentRepository,
+            EntitlementService entitlementService,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry
     ) {
         this.promoCodeRepository = promoCodeRepository;
         this.promoCodeUsageRepository = promoCodeUsageRepository;
@@ -43,6 +144,14 @@ public class PromoCodeService {
         this.userRepository = userRepository;
         this.lessonRepository = lessonRepository;
         this.paymentRepository = paymentRepository;
+        this.entitlementService = entitlementService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_CODES)
+                .expireAfterWrite(SNAPSHOT_TTL)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, "promoCodes");
     }
 
     // ==================== CRUD ====================
@@ -89,6 +198,7 @@ public class PromoCodeService {
         if (request.expiresAt() != null) promo.setExpiresAt(request.expiresAt());
 
         promo = promoCodeRepository.save(promo);
+        evictAfterCommit(promo.getCode());
         log.info("Updated promo code: {}", promo.getCode());
         return promo;
     }
@@ -99,6 +209,7 @@ public class PromoCodeService {
                 .orElseThrow(() -> new IllegalArgumentException("Code promo introuvable"));
         promo.setIsActive(active);
         promoCodeRepository.save(promo);
+        evictAfterCommit(promo.getCode());
         log.info("Toggled promo code {} active={}", promo.getCode(), active);
     }
 
@@ -107,21 +218,33 @@ public class PromoCodeService {
         PromoCode promo = promoCodeRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Code promo introuvable"));
         promoCodeRepository.delete(promo);
+        evictAfterCommit(promo.getCode());
         log.info("Deleted promo code: {}", promo.getCode());
     }
 
     // ==================== QUERIES ====================
 
+    /**
+     * Every code with its discount and earning totals, aggregated in one query for the whole list.
+     */
     public List<PromoCodeResponse> getAllPromoCodes() {
-        return promoCodeRepository.findAllByOrderByCreatedAtDesc().stream()
-                .map(this::toResponse)
+        List<PromoCode> codes = promoCodeRepository.findAllByOrderByCreatedAtDesc();
+        if (codes.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, PromoCodeTotalsView> totals = promoCodeRepository.findTotalsByIds(codes.stream().map(PromoCode::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(PromoCodeTotalsView::getPromoCodeId, Function.identity()));
+        return codes.stream()
+                .map(promo -> toResponse(promo, totals.get(promo.getId())))
                 .toList();
     }
 
     public PromoCodeResponse getPromoCodeById(Long id) {
         PromoCode promo = promoCodeRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Code promo introuvable"));
-        return toResponse(promo);
+        List<PromoCodeTotalsView> totals = promoCodeRepository.findTotalsByIds(List.of(id));
+        return toResponse(promo, totals.isEmpty() ? null : totals.get(0));
     }
 
     public String generateUniqueCode() {
@@ -140,12 +263,12 @@ public class PromoCodeService {
 
     @Transactional(readOnly = true)
     public ValidatePromoCodeResponse validateCode(String code, Long userId, int lessonAmountCents) {
-        PromoCode promo = promoCodeRepository.findByCodeIgnoreCase(code).orElse(null);
+        PromoCodeSnapshot promo = findSnapshot(code);
 
         if (promo == null) {
             return new ValidatePromoCodeResponse(false, "Code invalide", null, null, lessonAmountCents, 0);
         }
-        if (!promo.getIsActive()) {
+        if (!promo.active()) {
             return new ValidatePromoCodeResponse(false, "Ce code n'est plus actif", null, null, lessonAmountCents, 0);
         }
         if (promo.isExpired()) {
@@ -154,15 +277,15 @@ public class PromoCodeService {
         if (promo.hasReachedMaxUses()) {
             return new ValidatePromoCodeResponse(false, "Ce code a atteint son nombre maximum d'utilisations", null, null, lessonAmountCents, 0);
         }
-        if (promoCodeUsageRepository.existsByPromoCodeIdAndUserId(promo.getId(), userId)) {
+        if (promoCodeUsageRepository.existsByPromoCodeIdAndUserId(promo.id(), userId)) {
             return new ValidatePromoCodeResponse(false, "Vous avez deja utilise ce code", null, null, lessonAmountCents, 0);
         }
-        if (promo.getMinAmountCents() != null && lessonAmountCents < promo.getMinAmountCents()) {
+        if (promo.minAmountCents() != null && lessonAmountCents < promo.minAmountCents()) {
             return new ValidatePromoCodeResponse(false,
-                    String.format("Montant minimum requis : %.2f EUR", promo.getMinAmountCents() / 100.0),
+                    String.format("Montant minimum requis : %.2f EUR", promo.minAmountCents() / 100.0),
                     null, null, lessonAmountCents, 0);
         }
-        if (Boolean.TRUE.equals(promo.getFirstLessonOnly())) {
+        if (promo.firstLessonOnly()) {
             long lessonCount = paymentRepository.countByPayerIdAndStatus(userId, com.chessconnect.model.enums.PaymentStatus.COMPLETED);
             if (lessonCount > 0) {
                 return new ValidatePromoCodeResponse(false, "Ce code est valable uniquement pour le premier cours", null, null, lessonAmountCents, 0);
@@ -170,19 +293,19 @@ public class PromoCodeService {
         }
 
         // Calculate discount
-        if (promo.getCodeType() == PromoCodeType.PROMO) {
-            if (promo.getDiscountType() == DiscountType.STUDENT_DISCOUNT) {
-                int discountCents = (int) (lessonAmountCents * promo.getDiscountPercent() / 100.0);
+        if (promo.codeType() == PromoCodeType.PROMO) {
+            if (promo.discountType() == DiscountType.STUDENT_DISCOUNT) {
+                int discountCents = (int) (lessonAmountCents * promo.discountPercent() / 100.0);
                 int finalPrice = lessonAmountCents - discountCents;
                 return new ValidatePromoCodeResponse(true,
-                        String.format("Reduction de %.0f%% appliquee", promo.getDiscountPercent()),
-                        DiscountType.STUDENT_DISCOUNT, promo.getDiscountPercent(), finalPrice, discountCents);
-            } else if (promo.getDiscountType() == DiscountType.COMMISSION_REDUCTION) {
+                        String.format("Reduction de %.0f%% appliquee", promo.discountPercent()),
+                        DiscountType.STUDENT_DISCOUNT, promo.discountPercent(), finalPrice, discountCents);
+            } else if (promo.discountType() == DiscountType.COMMISSION_REDUCTION) {
                 return new ValidatePromoCodeResponse(true,
-                        String.format("Commission plateforme reduite de %.0f%%", promo.getDiscountPercent()),
-                        DiscountType.COMMISSION_REDUCTION, promo.getDiscountPercent(), lessonAmountCents, 0);
+                        String.format("Commission plateforme reduite de %.0f%%", promo.discountPercent()),
+                        DiscountType.COMMISSION_REDUCTION, promo.discountPercent(), lessonAmountCents, 0);
             }
-        } else if (promo.getCodeType() == PromoCodeType.REFERRAL) {
+        } else if (promo.codeType() == PromoCodeType.REFERRAL) {
             return new ValidatePromoCodeResponse(true,
                     "Code parrainage valide", null, null, lessonAmountCents, 0);
         }
@@ -192,10 +315,50 @@ public class PromoCodeService {
 
     // ==================== APPLICATION ====================
 
+    /**
+     * Take one use of the code for the user, before they are charged. The reservation commits on
+     * its own: the caller must {@link #release} it if the purchase does not go through, and
+     * {@link #recordUsage} once it does.
+     *
+     * @throws IllegalStateException if the code has no use left or the user already redeemed it
+     */
     @Transactional
-    public PromoCodeUsage applyPromoCode(String code, Long userId, Long lessonId, Long paymentId, int originalAmountCents) {
-        PromoCode promo = promoCodeRepository.findByCodeIgnoreCase(code)
-                .orElseThrow(() -> new IllegalArgumentException("Code promo introuvable"));
+    public void reserve(String code, Long userId) {
+        PromoCodeSnapshot promo = findSnapshot(code);
+        if (promo == null) {
+            throw new IllegalArgumentException("Code promo introuvable");
+        }
+        if (!reserveUse(promo)) {
+            throw new IllegalStateException("Ce code n'est plus disponible");
+        }
+        if (promoCodeUsageRepository.existsByPromoCodeIdAndUserId(promo.id(), userId)) {
+            // Rolls the reservation back with the transaction
+            throw new IllegalStateException("Vous avez deja utilise ce code");
+        }
+        log.info("Reserved a use of promo code {} for user {}", promo.code(), userId);
+    }
+
+    /**
+     * Give back a use taken by {@link #reserve} for a purchase that failed or was abandoned.
+     */
+    @Transactional
+    public void release(String code) {
+        int released = jdbcTemplate.update(RELEASE_USE_SQL, Timestamp.valueOf(LocalDateTime.now()), code);
+        evictAfterCommit(code);
+        if (released > 0) {
+            log.info("Released a reserved use of promo code {}", code);
+        }
+    }
+
+    /**
+     * Record the redemption of a use already taken by {@link #reserve}, once the lesson is paid.
+     */
+    @Transactional
+    public PromoCodeUsage recordUsage(String code, Long userId, Long lessonId, Long paymentId, int originalAmountCents) {
+        PromoCodeSnapshot promo = findSnapshot(code);
+        if (promo == null) {
+            throw new IllegalArgumentException("Code promo introuvable");
+        }
 
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -205,18 +368,18 @@ public class PromoCodeService {
         int discountAmountCents = 0;
         int commissionSavedCents = 0;
 
-        if (promo.getCodeType() == PromoCodeType.PROMO) {
-            if (promo.getDiscountType() == DiscountType.STUDENT_DISCOUNT) {
-                discountAmountCents = (int) (originalAmountCents * promo.getDiscountPercent() / 100.0);
-            } else if (promo.getDiscountType() == DiscountType.COMMISSION_REDUCTION) {
+        if (promo.codeType() == PromoCodeType.PROMO) {
+            if (promo.discountType() == DiscountType.STUDENT_DISCOUNT) {
+                discountAmountCents = (int) (originalAmountCents * promo.discountPercent() / 100.0);
+            } else if (promo.discountType() == DiscountType.COMMISSION_REDUCTION) {
                 int standardCommission = (originalAmountCents * 10) / 100;
-                int reducedCommission = (int) (standardCommission * (100.0 - promo.getDiscountPercent()) / 100.0);
+                int reducedCommission = (int) (standardCommission * (100.0 - promo.discountPercent()) / 100.0);
                 commissionSavedCents = standardCommission - reducedCommission;
             }
         }
 
         PromoCodeUsage usage = new PromoCodeUsage();
-        usage.setPromoCode(promo);
+        usage.setPromoCode(promoCodeRepository.getReferenceById(promo.id()));
         usage.setUser(user);
         usage.setLesson(lesson);
         usage.setPayment(payment);
@@ -225,43 +388,43 @@ public class PromoCodeService {
         usage.setCommissionSavedCents(commissionSavedCents);
 
         usage = promoCodeUsageRepository.save(usage);
-        promoCodeRepository.incrementUses(promo.getId());
 
         log.info("Applied promo code {} for user {} (discount={}c, commissionSaved={}c)",
-                promo.getCode(), userId, discountAmountCents, commissionSavedCents);
+                promo.code(), userId, discountAmountCents, commissionSavedCents);
         return usage;
     }
 
     @Transactional
     public void applyReferralAtSignup(Long userId, String referralCode) {
-        PromoCode promo = promoCodeRepository.findByCodeIgnoreCase(referralCode).orElse(null);
-        if (promo == null || promo.getCodeType() != PromoCodeType.REFERRAL || !promo.getIsActive()) {
+        PromoCodeSnapshot promo = findSnapshot(referralCode);
+        if (promo == null || promo.codeType() != PromoCodeType.REFERRAL || !promo.active()) {
             log.warn("Invalid referral code at signup: {}", referralCode);
             return;
         }
-        if (promo.isExpired() || promo.hasReachedMaxUses()) {
-            log.warn("Expired or maxed-out referral code at signup: {}", referralCode);
-            return;
-        }
 
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found: " + userId));
 
-        user.setReferredByCode(promo);
+        if (!reserveUse(promo)) {
+            log.warn("Expired or maxed-out referral code at signup: {}", referralCode);
+            return;
+        }
+
+        user.setReferredByCode(promoCodeRepository.getReferenceById(promo.id()));
         user.setReferralCodeUsedAt(LocalDateTime.now());
 
         // Grant premium trial days
-        if (promo.getPremiumDays() != null && promo.getPremiumDays() > 0) {
+        if (promo.premiumDays() != null && promo.premiumDays() > 0) {
             LocalDate currentEnd = user.getPremiumTrialEnd();
             LocalDate base = (currentEnd != null && currentEnd.isAfter(LocalDate.now())) ? currentEnd : LocalDate.now();
-            user.setPremiumTrialEnd(base.plusDays(promo.getPremiumDays()));
+            user.setPremiumTrialEnd(base.plusDays(promo.premiumDays()));
             log.info("Extended premium trial for user {} by {} days (referral {})",
-                    userId, promo.getPremiumDays(), promo.getCode());
+                    userId, promo.premiumDays(), promo.code());
         }
 
         userRepository.save(user);
-        promoCodeRepository.incrementUses(promo.getId());
-        log.info("Applied referral code {} at signup for user {}", promo.getCode(), userId);
+        entitlementService.invalidate(userId);
+        log.info("Applied referral code {} at signup for user {}", promo.code(), userId);
     }
 
     @Transactional
@@ -296,59 +459,169 @@ public class PromoCodeService {
 
     // ==================== ADMIN: USAGES & EARNINGS ====================
 
+    /**
+     * Keyset page of a code's usages, newest first.
+     */
+    public CursorPage<PromoCodeUsageResponse> getUsagePage(Long promoCodeId, String cursor, Integer limit) {
+        CursorPage.Cursor position = CursorPage.Cursor.decode(cursor);
+        int pageSize = clampPageSize(limit);
+
+        List<PromoCodeUsageView> rows = promoCodeUsageRepository.findUsagePage(promoCodeId, position.at(), position.id(), pageSize + 1);
+        return CursorPage.of(rows, pageSize, u -> new CursorPage.Cursor(u.getUsedAt(), u.getId()), PromoCodeService::toUsageResponse);
+    }
+
+    /**
+     * Every usage of the code, for clients that still expect a plain list.
+     */
     public List<PromoCodeUsageResponse> getUsagesByCodeId(Long promoCodeId) {
-        return promoCodeUsageRepository.findByPromoCodeIdOrderByUsedAtDesc(promoCodeId).stream()
-                .map(u -> new PromoCodeUsageResponse(
-                        u.getId(),
-                        u.getUser().getId(),
-                        u.getUser().getFullName(),
-                        u.getLesson() != null ? u.getLesson().getId() : null,
-                        u.getOriginalAmountCents(),
-                        u.getDiscountAmountCents(),
-                        u.getCommissionSavedCents(),
-                        u.getUsedAt()
-                ))
+        return promoCodeUsageRepository.findUsagePage(promoCodeId, null, null, Integer.MAX_VALUE).stream()
+                .map(PromoCodeService::toUsageResponse)
                 .toList();
     }
 
+    /**
+     * Keyset page of a code's referral earnings, newest first.
+     */
+    public CursorPage<ReferralEarningResponse> getEarningPage(Long promoCodeId, String cursor, Integer limit) {
+        CursorPage.Cursor position = CursorPage.Cursor.decode(cursor);
+        int pageSize = clampPageSize(limit);
+
+        List<ReferralEarningView> rows = referralEarningRepository.findEarningPage(promoCodeId, position.at(), position.id(), pageSize + 1);
+        return CursorPage.of(rows, pageSize, e -> new CursorPage.Cursor(e.getCreatedAt(), e.getId()), PromoCodeService::toEarningResponse);
+    }
+
+    /**
+     * Every referral earning of the code, for clients that still expect a plain list.
+     */
     public List<ReferralEarningResponse> getEarningsByCodeId(Long promoCodeId) {
-        return referralEarningRepository.findByPromoCodeIdOrderByCreatedAtDesc(promoCodeId).stream()
-                .map(e -> new ReferralEarningResponse(
-                        e.getId(),
-                        e.getReferredUser().getId(),
-                        e.getReferredUser().getFullName(),
-                        e.getLesson() != null ? e.getLesson().getId() : null,
-                        e.getLessonAmountCents(),
-                        e.getPlatformCommissionCents(),
-                        e.getReferrerEarningCents(),
-                        e.getIsPaid(),
-                        e.getPaidAt(),
-                        e.getPaymentReference(),
-                        e.getCreatedAt()
-                ))
+        return referralEarningRepository.findEarningPage(promoCodeId, null, null, Integer.MAX_VALUE).stream()
+                .map(PromoCodeService::toEarningResponse)
                 .toList();
     }
 
-    @Transactional
-    public void markEarningsAsPaid(Long promoCodeId, String paymentReference) {
-        List<ReferralEarning> unpaid = referralEarningRepository.findByPromoCodeIdAndIsPaidFalse(promoCodeId);
-        LocalDateTime now = LocalDateTime.now();
-        for (ReferralEarning earning : unpaid) {
-            earning.setIsPaid(true);
-            earning.setPaidAt(now);
-            earning.setPaymentReference(paymentReference);
+    /**
+     * Earned and unpaid totals of a code, overall and per month, from one grouped query.
+     */
+    public ReferralEarningsSummaryResponse getEarningsSummary(Long promoCodeId) {
+        List<ReferralEarningsSummaryResponse.MonthlyEarnings> months = referralEarningRepository.summarizeByMonth(promoCodeId).stream()
+                .map(m -> new ReferralEarningsSummaryResponse.MonthlyEarnings(
+                        m.getMonth(), m.getEarningsCount(), m.getEarnedCents(), m.getUnpaidCents()))
+                .toList();
+
+        long count = 0;
+        long earned = 0;
+        long unpaid = 0;
+        for (ReferralEarningsSummaryResponse.MonthlyEarnings month : months) {
+            count += month.earningsCount();
+            earned += month.earnedCents();
+            unpaid += month.unpaidCents();
         }
-        referralEarningRepository.saveAll(unpaid);
-        log.info("Marked {} earnings as paid for code ID {} (ref={})", unpaid.size(), promoCodeId, paymentReference);
+        return new ReferralEarningsSummaryResponse(count, earned, unpaid, months);
+    }
+
+    /**
+     * Settle every unpaid earning of the code with a single UPDATE.
+     *
+     * @return the number of earnings marked as paid
+     */
+    @Transactional
+    public int markEarningsAsPaid(Long promoCodeId, String paymentReference) {
+        int updated = referralEarningRepository.markUnpaidAsPaid(promoCodeId, LocalDateTime.now(), paymentReference);
+        log.info("Marked {} earnings as paid for code ID {} (ref={})", updated, promoCodeId, paymentReference);
+        return updated;
     }
 
     // ==================== HELPERS ====================
 
-    private PromoCodeResponse toResponse(PromoCode promo) {
-        long totalDiscount = promoCodeUsageRepository.getTotalDiscountByCodeId(promo.getId());
-        long totalEarnings = referralEarningRepository.getTotalEarningsByCodeId(promo.getId());
-        long unpaidEarnings = referralEarningRepository.getUnpaidEarningsByCodeId(promo.getId());
+    /**
+     * The cached snapshot of a code, loaded on a miss, or null for an unknown code.
+     * Unknown codes are not cached.
+     */
+    public PromoCodeSnapshot findSnapshot(String code) {
+        if (code == null || code.isBlank()) {
+            return null;
+        }
+        return snapshots.get(cacheKey(code), key -> promoCodeRepository.findByCodeIgnoreCase(key)
+                .map(PromoCodeSnapshot::of)
+                .orElse(null));
+    }
+
+    /**
+     * Take one use of the code if it is still active, unexpired and below its maximum.
+     * Once the redemption commits, this node's snapshot gets the new use count.
+     */
+    boolean reserveUse(PromoCodeSnapshot promo) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Integer> uses = jdbcTemplate.queryForList(RESERVE_USE_SQL, Integer.class, now, promo.id(), now);
+        if (uses.isEmpty()) {
+            // Whatever made it fail, the snapshot was wrong to offer the code
+            snapshots.invalidate(cacheKey(promo.code()));
+            return false;
+        }
+        int currentUses = uses.get(0);
+        afterCommit(() -> snapshots.asMap().computeIfPresent(cacheKey(promo.code()),
+                (key, cached) -> cached.withCurrentUses(Math.max(cached.currentUses(), currentUses))));
+        return true;
+    }
+
+    private void evictAfterCommit(String code) {
+        afterCommit(() -> snapshots.invalidate(cacheKey(code)));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static String cacheKey(String code) {
+        return code.toUpperCase(Locale.ROOT);
+    }
+
+    private static int clampPageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private static PromoCodeUsageResponse toUsageResponse(PromoCodeUsageView u) {
+        return new PromoCodeUsageResponse(
+                u.getId(),
+                u.getUserId(),
+                u.getUserName(),
+                u.getLessonId(),
+                u.getOriginalAmountCents(),
+                u.getDiscountAmountCents(),
+                u.getCommissionSavedCents(),
+                u.getUsedAt()
+        );
+    }
+
+    private static ReferralEarningResponse toEarningResponse(ReferralEarningView e) {
+        return new ReferralEarningResponse(
+                e.getId(),
+                e.getReferredUserId(),
+                e.getReferredUserName(),
+                e.getLessonId(),
+                e.getLessonAmountCents(),
+                e.getPlatformCommissionCents(),
+                e.getReferrerEarningCents(),
+                e.getIsPaid(),
+                e.getPaidAt(),
+                e.getPaymentReference(),
+                e.getCreatedAt()
+        );
+    }
 
+    private PromoCodeResponse toResponse(PromoCode promo, PromoCodeTotalsView totals) {
         return new PromoCodeResponse(
                 promo.getId(),
                 promo.getCode(),
@@ -366,9 +639,9 @@ public class PromoCodeService {
                 promo.getIsActive(),
                 promo.getExpiresAt(),
                 promo.getCreatedAt(),
-                totalDiscount,
-                totalEarnings,
-                unpaidEarnings
+                totals != null ? totals.getTotalDiscountCents() : 0,
+                totals != null ? totals.getTotalEarningsCents() : 0,
+                totals != null ? totals.getUnpaidEarningsCents() : 0
         );
     }
 }
@@ -0,0 +1,304 @@
+package com.chessconnect.service;
+
+import com.chessconnect.event.cluster.ClusterSseRouter;
+import com.chessconnect.model.PushSubscription;
+import com.chessconnect.repository.PushSubscriptionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import nl.martijndwars.webpush.Base64Encoder;
+import nl.martijndwars.webpush.Encoding;
+import nl.martijndwars.webpush.Encrypted;
+import nl.martijndwars.webpush.Notification;
+import nl.martijndwars.webpush.PushService;
+import nl.martijndwars.webpush.Utils;
+import org.bouncycastle.jce.interfaces.ECPublicKey;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Sends Web Push notifications to many users at once.
+ *
+ * A multicast loads every target subscription in bulk, then splits them into chunks
+ * handled by the bounded push executor. Each chunk encrypts its payloads and sends
+ * them concurrently through one shared HTTP/2 client, which keeps a multiplexed
+ * connection open per push service host. The VAPID token is signed once per push
+ * service origin and reused until shortly before it expires. Results are written back
+ * in batches: {@code last_used_at} for delivered endpoints, deletion for expired ones.
+ */
+@Service
+public class PushDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(PushDispatcher.class);
+
+    private static final String DEFAULT_ICON = "/assets/icons/icon-192x192.png";
+    static final int CHUNK_SIZE = 100;
+    private static final int USER_QUERY_BATCH = 1000;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    // Push services accept tokens valid for up to 24h; renew well before expiry
+    private static final Duration VAPID_TOKEN_LIFETIME = Duration.ofHours(12);
+    private static final Duration VAPID_TOKEN_RENEW_MARGIN = Duration.ofHours(1);
+
+    /**
+     * Notification content shown by the service worker.
+     */
+    public record PushMessage(String title, String body, String link, String icon) {
+
+        public PushMessage(String title, String body, String link) {
+            this(title, body, link, DEFAULT_ICON);
+        }
+    }
+
+    /**
+     * Outcome of one chunk, by subscription id.
+     */
+    record ChunkResult(List<Long> delivered, List<Long> expired, int failed) {}
+
+    private record VapidToken(String authorization, Instant renewAfter) {}
+
+    private final PushService pushService;
+    private final PushSubscriptionRepository subscriptionRepository;
+    private final ClusterSseRouter sseRouter;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Executor pushExecutor;
+    private final HttpClient httpClient;
+    private final Map<String, VapidToken> vapidTokens = new ConcurrentHashMap<>();
+
+    private final Counter deliveredCounter;
+    private final Counter expiredCounter;
+    private final Counter failedCounter;
+
+    @Autowired
+    public PushDispatcher(PushService pushService,
+                          PushSubscriptionRepository subscriptionRepository,
+                          ClusterSseRouter sseRouter,
+                          JdbcTemplate jdbcTemplate,
+                          ObjectMapper objectMapper,
+                          @Qualifier("pushTaskExecutor") Executor pushExecutor,
+                          MeterRegistry meterRegistry) {
+        this(pushService, subscriptionRepository, sseRouter, jdbcTemplate, objectMapper, pushExecutor, meterRegistry,
+             HttpClient.newBuilder()
+                 .version(HttpClient.Version.HTTP_2)
+                 .connectTimeout(REQUEST_TIMEOUT)
+                 .build());
+    }
+
+    PushDispatcher(PushService pushService,
+                   PushSubscriptionRepository subscriptionRepository,
+                   ClusterSseRouter sseRouter,
+                   JdbcTemplate jdbcTemplate,
+                   ObjectMapper objectMapper,
+                   Executor pushExecutor,
+                   MeterRegistry meterRegistry,
+                   HttpClient httpClient) {
+        this.pushService = pushService;
+        this.subscriptionRepository = subscriptionRepository;
+        this.sseRouter = sseRouter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.pushExecutor = pushExecutor;
+        this.httpClient = httpClient;
+
+        this.deliveredCounter = Counter.builder("push_delivered")
+                .description("Push notifications accepted by the push service")
+                .register(meterRegistry);
+        this.expiredCounter = Counter.builder("push_expired_subscriptions")
+                .description("Push subscriptions removed after a 404/410 from the push service")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("push_failed")
+                .description("Push notifications that could not be delivered")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Send one notification to every device of the given users.
+     * Users with push disabled are skipped, as are users connected via SSE unless {@code forceSend}.
+     * Returns once the work is queued on the push executor.
+     */
+    public void multicast(Collection<Long> userIds, PushMessage message, boolean forceSend) {
+        List<Long> targets = userIds.stream()
+                .distinct()
+                .filter(id -> forceSend || !sseRouter.isConnected(id))
+                .toList();
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        byte[] payload;
+        try {
+            Map<String, Object> body = new HashMap<>();
+            body.put("title", message.title());
+            body.put("body", message.body());
+            body.put("link", message.link());
+            body.put("icon", message.icon() != null ? message.icon() : DEFAULT_ICON);
+            payload = objectMapper.writeValueAsBytes(body);
+        } catch (Exception e) {
+            log.error("Failed to serialize push payload: {}", e.getMessage());
+            return;
+        }
+
+        int subscriptions = 0;
+        for (List<Long> ids : partition(targets, USER_QUERY_BATCH)) {
+            List<PushSubscription> batch = subscriptionRepository.findDeliverableByUserIdIn(ids);
+            subscriptions += batch.size();
+            for (List<PushSubscription> chunk : partition(batch, CHUNK_SIZE)) {
+                pushExecutor.execute(() -> deliverChunk(chunk, payload));
+            }
+        }
+        log.debug("Queued push '{}' for {} users ({} devices)", message.title(), targets.size(), subscriptions);
+    }
+
+    void deliverChunk(List<PushSubscription> chunk, byte[] payload) {
+        try {
+            ChunkResult result = send(chunk, payload);
+            markResult(result);
+        } catch (Exception e) {
+            log.error("Push chunk of {} devices failed: {}", chunk.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Encrypt and send a chunk concurrently, then wait for all responses.
+     */
+    ChunkResult send(List<PushSubscription> chunk, byte[] payload) {
+        Map<Long, CompletableFuture<Integer>> responses = new LinkedHashMap<>();
+        int failed = 0;
+        for (PushSubscription sub : chunk) {
+            try {
+                HttpRequest request = buildRequest(sub, payload);
+                responses.put(sub.getId(), httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .thenApply(HttpResponse::statusCode));
+            } catch (Exception e) {
+                log.warn("Failed to prepare push for subscription {}: {}", sub.getId(), e.getMessage());
+                failed++;
+            }
+        }
+
+        List<Long> delivered = new ArrayList<>();
+        List<Long> expired = new ArrayList<>();
+        for (Map.Entry<Long, CompletableFuture<Integer>> response : responses.entrySet()) {
+            try {
+                int status = response.getValue().join();
+                if (status == 404 || status == 410) {
+                    expired.add(response.getKey());
+                } else if (status >= 200 && status < 300) {
+                    delivered.add(response.getKey());
+                } else {
+                    log.warn("Push service returned status {} for subscription {}", status, response.getKey());
+                    failed++;
+                }
+            } catch (Exception e) {
+                log.warn("Failed to send push to subscription {}: {}", response.getKey(), e.getMessage());
+                failed++;
+            }
+        }
+        return new ChunkResult(delivered, expired, failed);
+    }
+
+    private void markResult(ChunkResult result) {
+        if (!result.delivered().isEmpty()) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate("UPDATE push_subscriptions SET last_used_at = ? WHERE id = ?",
+                    result.delivered().stream().map(id -> new Object[] { now, id }).toList());
+            deliveredCounter.increment(result.delivered().size());
+        }
+        if (!result.expired().isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM push_subscriptions WHERE id = ?",
+                    result.expired().stream().map(id -> new Object[] { id }).toList());
+            expiredCounter.increment(result.expired().size());
+            log.info("Removed {} expired push subscriptions", result.expired().size());
+        }
+        if (result.failed() > 0) {
+            failedCounter.increment(result.failed());
+        }
+    }
+
+    private HttpRequest buildRequest(PushSubscription sub, byte[] payload) throws Exception {
+        Notification notification = new Notification(sub.getEndpoint(), sub.getP256dh(), sub.getAuth(), payload);
+        Encrypted encrypted = PushService.encrypt(notification.getPayload(), notification.getUserPublicKey(),
+                notification.getUserAuth(), Encoding.AES128GCM);
+
+        String endpoint = notification.getEndpoint();
+        // Same rewrite as the web-push library: legacy FCM endpoints have a VAPID equivalent
+        if (endpoint.startsWith("https://fcm.googleapis.com")) {
+            endpoint = endpoint.replace("fcm/send", "wp");
+        }
+
+        return HttpRequest.newBuilder(URI.create(endpoint))
+                .timeout(REQUEST_TIMEOUT)
+                .header("TTL", String.valueOf(notification.getTTL()))
+                .header("Content-Type", "application/octet-stream")
+                .header("Content-Encoding", "aes128gcm")
+                .header("Authorization", vapidAuthorization(notification.getOrigin()))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(encrypted.getCiphertext()))
+                .build();
+    }
+
+    /**
+     * VAPID authorization header for a push service origin, signed once and cached.
+     */
+    String vapidAuthorization(String origin) {
+        Instant now = Instant.now();
+        VapidToken token = vapidTokens.get(origin);
+        if (token == null || now.isAfter(token.renewAfter())) {
+            token = signVapidToken(origin, now);
+            vapidTokens.put(origin, token);
+        }
+        return token.authorization();
+    }
+
+    private VapidToken signVapidToken(String origin, Instant now) {
+        try {
+            JwtClaims claims = new JwtClaims();
+            claims.setAudience(origin);
+            claims.setExpirationTimeMinutesInTheFuture(VAPID_TOKEN_LIFETIME.toMinutes());
+            claims.setSubject(pushService.getSubject());
+
+            JsonWebSignature jws = new JsonWebSignature();
+            jws.setHeader("typ", "JWT");
+            jws.setPayload(claims.toJson());
+            jws.setKey(pushService.getPrivateKey());
+            jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256);
+
+            String publicKey = Base64Encoder.encodeUrlWithoutPadding(Utils.encode((ECPublicKey) pushService.getPublicKey()));
+            String authorization = "vapid t=" + jws.getCompactSerialization() + ", k=" + publicKey;
+            return new VapidToken(authorization, now.plus(VAPID_TOKEN_LIFETIME).minus(VAPID_TOKEN_RENEW_MARGIN));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to sign VAPID token", e);
+        }
+    }
+
+    private static <T> List<List<T>> partition(List<T> items, int size) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += size) {
+            batches.add(List.copyOf(items.subList(i, Math.min(i + size, items.size()))));
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,160 @@
+package com.chessconnect.service;
+
+import com.chessconnect.dto.admin.ScheduledJobResponse;
+import com.chessconnect.scheduler.ScheduledJobRunner;
+import com.chessconnect.scheduler.ScheduledJobRunner.JobRun;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.config.CronTask;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.IntervalTask;
+import org.springframework.scheduling.config.ScheduledTask;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.scheduling.config.Task;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.scheduling.support.ScheduledMethodRunnable;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the admin view of the scheduled jobs: trigger and next fire time from the
+ * scheduler registry, last run from scheduler_locks (cluster-locked jobs) or from
+ * this node (node-local jobs).
+ */
+@Service
+public class SchedulerStatusService {
+
+    private record LockRow(LocalDateTime lockedUntil, String lockedBy, LocalDateTime lastStartedAt,
+                           LocalDateTime lastFinishedAt, Long lastDurationMs, String lastStatus, String lastError) {}
+
+    private final List<ScheduledTaskHolder> taskHolders;
+    private final ScheduledJobRunner jobRunner;
+    private final JdbcTemplate jdbcTemplate;
+
+    public SchedulerStatusService(List<ScheduledTaskHolder> taskHolders,
+                                  ScheduledJobRunner jobRunner,
+                                  JdbcTemplate jdbcTemplate) {
+        this.taskHolders = taskHolders;
+        this.jobRunner = jobRunner;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<ScheduledJobResponse> getJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, JobRun> localRuns = jobRunner.getLastRuns();
+        Map<String, LockRow> locks = loadLocks();
+
+        List<ScheduledJobResponse> jobs = new ArrayList<>();
+        for (ScheduledTaskHolder holder : taskHolders) {
+            for (ScheduledTask scheduledTask : holder.getScheduledTasks()) {
+                Task task = scheduledTask.getTask();
+                String name = jobName(task);
+                LockRow lock = locks.get(name);
+                JobRun run = localRuns.get(name);
+
+                LocalDateTime lastStartedAt;
+                LocalDateTime lastFinishedAt;
+                Long lastDurationMs;
+                String lastStatus;
+                String lastError;
+                if (lock != null) {
+                    lastStartedAt = lock.lastStartedAt();
+                    lastFinishedAt = lock.lastFinishedAt();
+                    lastDurationMs = lock.lastDurationMs();
+                    lastStatus = lock.lastStatus();
+                    lastError = lock.lastError();
+                } else if (run != null) {
+                    lastStartedAt = run.startedAt();
+                    lastFinishedAt = run.finishedAt();
+                    lastDurationMs = run.durationMs();
+                    lastStatus = run.status();
+                    lastError = run.error();
+                } else {
+                    lastStartedAt = null;
+                    lastFinishedAt = null;
+                    lastDurationMs = null;
+                    lastStatus = null;
+                    lastError = null;
+                }
+
+                jobs.add(new ScheduledJobResponse(
+                        name,
+                        describeTrigger(task),
+                        lock != null || (run != null && run.clusterLocked()),
+                        lastStartedAt,
+                        lastDurationMs,
+                        lastStatus,
+                        lastError,
+                        lock != null ? lock.lockedBy() : null,
+                        lock != null ? lock.lockedUntil() : null,
+                        nextFireAt(task, lastStartedAt, lastFinishedAt, now)
+                ));
+            }
+        }
+        jobs.sort(Comparator.comparing(ScheduledJobResponse::name));
+        return jobs;
+    }
+
+    private Map<String, LockRow> loadLocks() {
+        Map<String, LockRow> locks = new HashMap<>();
+        jdbcTemplate.query("SELECT name, locked_until, locked_by, last_started_at, last_finished_at, " +
+                "last_duration_ms, last_status, last_error FROM scheduler_locks", rs -> {
+            locks.put(rs.getString("name"), new LockRow(
+                    toLocalDateTime(rs.getTimestamp("locked_until")),
+                    rs.getString("locked_by"),
+                    toLocalDateTime(rs.getTimestamp("last_started_at")),
+                    toLocalDateTime(rs.getTimestamp("last_finished_at")),
+                    (Long) rs.getObject("last_duration_ms"),
+                    rs.getString("last_status"),
+                    rs.getString("last_error")));
+        });
+        return locks;
+    }
+
+    /**
+     * Same naming as the jobs pass to {@link ScheduledJobRunner}: SimpleClassName.methodName.
+     */
+    static String jobName(Task task) {
+        if (task.getRunnable() instanceof ScheduledMethodRunnable runnable) {
+            Method method = runnable.getMethod();
+            return ClassUtils.getUserClass(method.getDeclaringClass()).getSimpleName() + "." + method.getName();
+        }
+        return task.getRunnable().toString();
+    }
+
+    private static String describeTrigger(Task task) {
+        if (task instanceof CronTask cron) {
+            return "cron " + cron.getExpression();
+        }
+        if (task instanceof IntervalTask interval) {
+            String kind = task instanceof FixedDelayTask ? "fixedDelay " : "fixedRate ";
+            return kind + interval.getIntervalDuration();
+        }
+        return task.toString();
+    }
+
+    private static LocalDateTime nextFireAt(Task task, LocalDateTime lastStartedAt,
+                                            LocalDateTime lastFinishedAt, LocalDateTime now) {
+        if (task instanceof CronTask cron) {
+            return CronExpression.parse(cron.getExpression()).next(now);
+        }
+        if (task instanceof IntervalTask interval) {
+            // Fixed delay counts from the end of the last run, fixed rate from its start
+            LocalDateTime base = task instanceof FixedDelayTask ? lastFinishedAt : lastStartedAt;
+            return base != null ? base.plus(interval.getIntervalDuration()) : null;
+        }
+        return null;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -12,7 +12,9 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -43,6 +45,35 @@ public class SseConnectionManager {
 
     private ScheduledExecutorService heartbeatScheduler;
 
+    /**
+     * Notified when a user gets their first local connection or loses their last one.
+     * Used to share presence with the other API nodes.
+     */
+    public interface PresenceListener {
+        void onUserConnected(Long userId);
+        void onUserDisconnected(Long userId);
+    }
+
+    private final List<PresenceListener> presenceListeners = new CopyOnWriteArrayList<>();
+
+    public void addPresenceListener(PresenceListener listener) {
+        presenceListeners.add(listener);
+    }
+
+    private void firePresence(Long userId, boolean connected) {
+        for (PresenceListener listener : presenceListeners) {
+            try {
+                if (connected) {
+                    listener.onUserConnected(userId);
+                } else {
+                    listener.onUserDisconnected(userId);
+                }
+            } catch (Exception e) {
+                log.warn("Presence listener failed for user {}: {}", userId, e.getMessage());
+            }
+        }
+    }
+
     @PostConstruct
     public void init() {
         heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
@@ -107,8 +138,8 @@ public class SseConnectionManager {
                 }
 
                 // Remove user entry if no connections left
-                if (userEmitters.isEmpty()) {
-                    emitters.remove(userId);
+                if (userEmitters.isEmpty() && emitters.remove(userId, userEmitters)) {
+                    firePresence(userId, false);
                 }
             }
         }
@@ -147,6 +178,7 @@ public class SseConnectionManager {
 
             SseEmitter emitter = new SseEmitter(SSE_TIMEOUT);
             final List<SseEmitter> finalUserEmitters = userEmitters;
+            boolean firstConnection = userEmitters.isEmpty();
 
             emitter.onCompletion(() -> {
                 log.debug("SSE connection completed for user {}", userId);
@@ -165,6 +197,9 @@ public class SseConnectionManager {
 
             userEmitters.add(emitter);
             int total = totalConnections.incrementAndGet();
+            if (firstConnection) {
+                firePresence(userId, true);
+            }
 
             // Send initial connected event
             try {
@@ -186,8 +221,8 @@ public class SseConnectionManager {
         synchronized (userEmitters) {
             if (userEmitters.remove(emitter)) {
                 totalConnections.decrementAndGet();
-                if (userEmitters.isEmpty()) {
-                    emitters.remove(userId);
+                if (userEmitters.isEmpty() && emitters.remove(userId, userEmitters)) {
+                    firePresence(userId, false);
                 }
             }
         }
@@ -223,8 +258,8 @@ public class SseConnectionManager {
                 try { dead.complete(); } catch (Exception ignored) {}
             }
 
-            if (userEmitters.isEmpty()) {
-                emitters.remove(userId);
+            if (userEmitters.isEmpty() && emitters.remove(userId, userEmitters)) {
+                firePresence(userId, false);
             }
         }
 
@@ -266,8 +301,8 @@ public class SseConnectionManager {
                     try { dead.complete(); } catch (Exception ignored) {}
                 }
 
-                if (userEmitters.isEmpty()) {
-                    emitters.remove(userId);
+                if (userEmitters.isEmpty() && emitters.remove(userId, userEmitters)) {
+                    firePresence(userId, false);
                 }
             }
         }
@@ -287,6 +322,7 @@ public class SseConnectionManager {
                     try { emitter.complete(); } catch (Exception ignored) {}
                 }
             }
+            firePresence(userId, false);
             log.debug("Removed all SSE connections for user {}", userId);
         }
     }
@@ -299,6 +335,13 @@ public class SseConnectionManager {
         return userEmitters != null && !userEmitters.isEmpty();
     }
 
+    /**
+     * Ids of users with at least one connection on this node.
+     */
+    public Set<Long> getConnectedUserIds() {
+        return Set.copyOf(emitters.keySet());
+    }
+
     /**
      * Get the count of active connections (total across all users).
      */
@@ -0,0 +1,13 @@
+package com.chessconnect.service;
+
+import com.chessconnect.service.StripeAccountSnapshotService.AccountSnapshot;
+import com.stripe.exception.StripeException;
+
+/**
+ * Reads Stripe Connect accounts from Stripe. The only outbound call behind the
+ * account snapshots, so tests can swap in an in-process stub.
+ */
+public interface StripeAccountClient {
+
+    AccountSnapshot retrieve(String accountId) throws StripeException;
+}
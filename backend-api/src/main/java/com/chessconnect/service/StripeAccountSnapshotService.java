@@ -0,0 +1,269 @@
+package com.chessconnect.service;
+
+import com.chessconnect.scheduler.ScheduledJobRunner;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Account;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Local snapshots of the coaches' Stripe Connect accounts, in stripe_account_snapshots.
+ *
+ * Admin and coach pages read these instead of calling Stripe. Snapshots are written from
+ * account.updated webhooks and whenever we retrieve an account anyway; the reconciler
+ * fetches accounts without a snapshot and refreshes stale ones in case a webhook was missed.
+ * account.updated is a Connect event: the webhook endpoint only receives it when it listens
+ * to connected accounts. A coach checking their status right after onboarding must not wait
+ * for either, so {@link #findOrRefresh} asks Stripe for accounts not ready yet.
+ *
+ * synced_at is when Stripe's state was observed: the event time for a webhook, the
+ * retrieval time otherwise. A snapshot only replaces one observed no later, so a
+ * delayed or retried webhook can't overwrite a fresher retrieval.
+ */
+@Service
+public class StripeAccountSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(StripeAccountSnapshotService.class);
+
+    static final Duration STALE_AFTER = Duration.ofHours(24);
+    static final int RECONCILE_BATCH_SIZE = 100;
+    static final Duration ON_DEMAND_REFRESH_INTERVAL = Duration.ofMinutes(1);
+
+    public static final String SOURCE_WEBHOOK = "WEBHOOK";
+    public static final String SOURCE_RECONCILER = "RECONCILER";
+    public static final String SOURCE_API = "API";
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO stripe_account_snapshots (account_id, email, business_name, charges_enabled, " +
+        "payouts_enabled, details_submitted, currently_due, source, synced_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+        "ON CONFLICT (account_id) DO UPDATE SET email = EXCLUDED.email, business_name = EXCLUDED.business_name, " +
+        "charges_enabled = EXCLUDED.charges_enabled, payouts_enabled = EXCLUDED.payouts_enabled, " +
+        "details_submitted = EXCLUDED.details_submitted, currently_due = EXCLUDED.currently_due, " +
+        "source = EXCLUDED.source, synced_at = EXCLUDED.synced_at " +
+        "WHERE EXCLUDED.synced_at >= stripe_account_snapshots.synced_at";
+
+    private static final String SELECT_SQL =
+        "SELECT account_id, email, business_name, charges_enabled, payouts_enabled, details_submitted, " +
+        "currently_due, synced_at FROM stripe_account_snapshots WHERE account_id IN (%s)";
+
+    // Coaches' accounts never synced first, then the oldest snapshots
+    private static final String STALE_SQL =
+        "SELECT u.stripe_connect_account_id FROM users u " +
+        "LEFT JOIN stripe_account_snapshots s ON s.account_id = u.stripe_connect_account_id " +
+        "WHERE u.stripe_connect_account_id IS NOT NULL AND u.stripe_connect_account_id <> '' " +
+        "AND (s.account_id IS NULL OR s.synced_at < ?) " +
+        "ORDER BY s.synced_at NULLS FIRST LIMIT ?";
+
+    /**
+     * Status of a Stripe Connect account as last seen.
+     */
+    public record AccountSnapshot(
+            String accountId,
+            String email,
+            String businessName,
+            boolean chargesEnabled,
+            boolean payoutsEnabled,
+            boolean detailsSubmitted,
+            List<String> currentlyDue,
+            LocalDateTime syncedAt
+    ) {
+        /**
+         * For transfers to work, we need payouts to be enabled and details submitted.
+         */
+        public boolean isReady() {
+            return payoutsEnabled && detailsSubmitted;
+        }
+
+        /**
+         * The account as retrieved just now.
+         */
+        public static AccountSnapshot from(Account account) {
+            return from(account, LocalDateTime.now());
+        }
+
+        /**
+         * The account as Stripe described it at {@code observedAt}, e.g. the time of the event carrying it.
+         */
+        public static AccountSnapshot from(Account account, LocalDateTime observedAt) {
+            List<String> currentlyDue = account.getRequirements() != null && account.getRequirements().getCurrentlyDue() != null
+                    ? List.copyOf(account.getRequirements().getCurrentlyDue())
+                    : List.of();
+            return new AccountSnapshot(
+                    account.getId(),
+                    account.getEmail(),
+                    account.getBusinessProfile() != null ? account.getBusinessProfile().getName() : null,
+                    Boolean.TRUE.equals(account.getChargesEnabled()),
+                    Boolean.TRUE.equals(account.getPayoutsEnabled()),
+                    Boolean.TRUE.equals(account.getDetailsSubmitted()),
+                    currentlyDue,
+                    observedAt
+            );
+        }
+    }
+
+    private static final RowMapper<AccountSnapshot> ROW_MAPPER = (rs, i) -> {
+        String currentlyDue = rs.getString("currently_due");
+        return new AccountSnapshot(
+                rs.getString("account_id"),
+                rs.getString("email"),
+                rs.getString("business_name"),
+                rs.getBoolean("charges_enabled"),
+                rs.getBoolean("payouts_enabled"),
+                rs.getBoolean("details_submitted"),
+                currentlyDue == null || currentlyDue.isBlank() ? List.of() : Arrays.asList(currentlyDue.split(",")),
+                rs.getTimestamp("synced_at").toLocalDateTime()
+        );
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StripeAccountClient accountClient;
+    private final ScheduledJobRunner jobRunner;
+    private final MeterRegistry meterRegistry;
+    private final Counter refreshFailedCounter;
+    // Accounts refreshed on demand recently, so a status page being reloaded doesn't hammer Stripe
+    private final Cache<String, Boolean> recentOnDemandRefreshes = Caffeine.newBuilder()
+            .expireAfterWrite(ON_DEMAND_REFRESH_INTERVAL)
+            .maximumSize(10_000)
+            .build();
+
+    public StripeAccountSnapshotService(JdbcTemplate jdbcTemplate, StripeAccountClient accountClient,
+                                        MeterRegistry meterRegistry, ScheduledJobRunner jobRunner) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.accountClient = accountClient;
+        this.jobRunner = jobRunner;
+        this.meterRegistry = meterRegistry;
+        this.refreshFailedCounter = Counter.builder("stripe_account_snapshot_refresh_failed")
+                .description("Stripe account retrievals that failed during reconciliation")
+                .register(meterRegistry);
+    }
+
+    public Optional<AccountSnapshot> find(String accountId) {
+        if (accountId == null || accountId.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(findAll(List.of(accountId)).get(accountId));
+    }
+
+    /**
+     * The snapshot of an account, refreshed from Stripe first when it is missing or not
+     * ready yet, at most once per {@link #ON_DEMAND_REFRESH_INTERVAL} per account. If Stripe
+     * can't be reached, the stored snapshot is returned as is.
+     */
+    public Optional<AccountSnapshot> findOrRefresh(String accountId) {
+        Optional<AccountSnapshot> snapshot = find(accountId);
+        if (accountId == null || accountId.isBlank() || snapshot.map(AccountSnapshot::isReady).orElse(false)) {
+            return snapshot;
+        }
+        if (recentOnDemandRefreshes.asMap().putIfAbsent(accountId, Boolean.TRUE) != null) {
+            return snapshot;
+        }
+        try {
+            return Optional.of(refresh(accountId, SOURCE_API));
+        } catch (Exception e) {
+            refreshFailedCounter.increment();
+            log.warn("Could not refresh Stripe account {}: {}", accountId, e.getMessage());
+            return snapshot;
+        }
+    }
+
+    /**
+     * Snapshots of the given accounts in one query, keyed by account id. Accounts never synced are absent.
+     */
+    public Map<String, AccountSnapshot> findAll(Collection<String> accountIds) {
+        if (accountIds.isEmpty()) {
+            return Map.of();
+        }
+        String sql = String.format(SELECT_SQL, String.join(",", Collections.nCopies(accountIds.size(), "?")));
+        Map<String, AccountSnapshot> snapshots = new HashMap<>();
+        jdbcTemplate.query(sql, ROW_MAPPER, accountIds.toArray())
+                .forEach(snapshot -> snapshots.put(snapshot.accountId(), snapshot));
+        return snapshots;
+    }
+
+    /**
+     * Store the snapshot unless a more recent one is already stored.
+     */
+    public void save(AccountSnapshot snapshot, String source) {
+        int updated = jdbcTemplate.update(UPSERT_SQL,
+                snapshot.accountId(),
+                snapshot.email(),
+                snapshot.businessName(),
+                snapshot.chargesEnabled(),
+                snapshot.payoutsEnabled(),
+                snapshot.detailsSubmitted(),
+                snapshot.currentlyDue().isEmpty() ? null : String.join(",", snapshot.currentlyDue()),
+                source,
+                Timestamp.valueOf(snapshot.syncedAt()));
+        if (updated == 0) {
+            log.info("Ignored {} snapshot of Stripe account {} from {}: a more recent one is stored",
+                    source, snapshot.accountId(), snapshot.syncedAt());
+            return;
+        }
+        Counter.builder("stripe_account_snapshot_refreshed")
+                .description("Stripe account snapshots written")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Retrieve the account from Stripe now and store it.
+     */
+    public AccountSnapshot refresh(String accountId, String source) throws StripeException {
+        AccountSnapshot snapshot = accountClient.retrieve(accountId);
+        save(snapshot, source);
+        return snapshot;
+    }
+
+    @Scheduled(cron = "0 */10 * * * *") // Every 10 minutes
+    public void reconcile() {
+        jobRunner.runLocked("StripeAccountSnapshotService.reconcile", Duration.ofMinutes(10), () -> {
+            int refreshed = reconcileStale();
+            if (refreshed > 0) {
+                log.info("Refreshed {} Stripe account snapshots", refreshed);
+            }
+        });
+    }
+
+    /**
+     * Refresh up to {@link #RECONCILE_BATCH_SIZE} accounts that were never synced or not
+     * since {@link #STALE_AFTER}. A failing account is skipped and retried next run.
+     *
+     * @return the number of snapshots refreshed
+     */
+    public int reconcileStale() {
+        List<String> accountIds = jdbcTemplate.queryForList(STALE_SQL, String.class,
+                Timestamp.valueOf(LocalDateTime.now().minus(STALE_AFTER)), RECONCILE_BATCH_SIZE);
+
+        int refreshed = 0;
+        for (String accountId : accountIds) {
+            try {
+                refresh(accountId, SOURCE_RECONCILER);
+                refreshed++;
+            } catch (Exception e) {
+                refreshFailedCounter.increment();
+                log.warn("Could not refresh Stripe account {}: {}", accountId, e.getMessage());
+            }
+        }
+        return refreshed;
+    }
+}
@@ -0,0 +1,18 @@
+package com.chessconnect.service;
+
+import com.chessconnect.service.StripeAccountSnapshotService.AccountSnapshot;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Account;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link StripeAccountClient} calling the Stripe API.
+ */
+@Component
+public class StripeApiAccountClient implements StripeAccountClient {
+
+    @Override
+    public AccountSnapshot retrieve(String accountId) throws StripeException {
+        return AccountSnapshot.from(Account.retrieve(accountId));
+    }
+}
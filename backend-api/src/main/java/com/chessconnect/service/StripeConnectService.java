@@ -1,6 +1,7 @@
 package com.chessconnect.service;
 
 import com.chessconnect.model.User;
+import com.chessconnect.service.StripeAccountSnapshotService.AccountSnapshot;
 import com.stripe.exception.StripeException;
 import com.stripe.model.Account;
 import com.stripe.model.AccountLink;
@@ -15,6 +16,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 @Service
 public class StripeConnectService {
 
@@ -23,6 +29,12 @@ public class StripeConnectService {
     @Value("${app.frontend-url:http://localhost:4200}")
     private String frontendUrl;
 
+    private final StripeAccountSnapshotService snapshotService;
+
+    public StripeConnectService(StripeAccountSnapshotService snapshotService) {
+        this.snapshotService = snapshotService;
+    }
+
     /**
      * Create a Stripe Express Connect account for a teacher.
      * For France, we must use minimal parameters and let Stripe collect all info via hosted onboarding.
@@ -43,6 +55,7 @@ public class StripeConnectService {
                 .build();
 
         Account account = Account.create(params);
+        snapshotService.save(AccountSnapshot.from(account), StripeAccountSnapshotService.SOURCE_API);
         log.info("Created Stripe Connect account {} for teacher {}", account.getId(), teacher.getId());
         return account.getId();
     }
@@ -92,50 +105,45 @@ public class StripeConnectService {
 
     /**
      * Check if a Stripe Connect account is fully onboarded and ready to receive transfers.
+     * Asks Stripe rather than the snapshot, since a transfer is about to be made, and
+     * refreshes the snapshot on the way.
      */
     public boolean isAccountReady(String accountId) throws StripeException {
         if (accountId == null || accountId.isBlank()) {
             return false;
         }
 
-        Account account = Account.retrieve(accountId);
-
-        // Check if the account can receive payouts
-        boolean chargesEnabled = account.getChargesEnabled() != null && account.getChargesEnabled();
-        boolean payoutsEnabled = account.getPayoutsEnabled() != null && account.getPayoutsEnabled();
-        boolean detailsSubmitted = account.getDetailsSubmitted() != null && account.getDetailsSubmitted();
+        AccountSnapshot account = snapshotService.refresh(accountId, StripeAccountSnapshotService.SOURCE_API);
 
         log.debug("Stripe Connect account {} status: chargesEnabled={}, payoutsEnabled={}, detailsSubmitted={}",
-                accountId, chargesEnabled, payoutsEnabled, detailsSubmitted);
+                accountId, account.chargesEnabled(), account.payoutsEnabled(), account.detailsSubmitted());
 
-        // For transfers to work, we need payouts to be enabled and details submitted
-        return payoutsEnabled && detailsSubmitted;
+        return account.isReady();
     }
 
     /**
-     * Get the status details of a Stripe Connect account.
+     * Get the status details of a Stripe Connect account, from its local snapshot,
+     * refreshed from Stripe while the account is not ready.
      */
-    public AccountStatus getAccountStatus(String accountId) throws StripeException {
+    public AccountStatus getAccountStatus(String accountId) {
         if (accountId == null || accountId.isBlank()) {
             return new AccountStatus(false, false, false, false, null);
         }
 
-        Account account = Account.retrieve(accountId);
-
-        boolean chargesEnabled = account.getChargesEnabled() != null && account.getChargesEnabled();
-        boolean payoutsEnabled = account.getPayoutsEnabled() != null && account.getPayoutsEnabled();
-        boolean detailsSubmitted = account.getDetailsSubmitted() != null && account.getDetailsSubmitted();
-        boolean isReady = payoutsEnabled && detailsSubmitted;
+        var snapshot = snapshotService.findOrRefresh(accountId);
+        if (snapshot.isEmpty()) {
+            // Stripe could not be reached: the next status check or the reconciler picks it up
+            return new AccountStatus(true, false, false, false, "Synchronisation avec Stripe en cours");
+        }
+        AccountSnapshot account = snapshot.get();
 
         // Get any pending requirements
         String pendingReason = null;
-        if (account.getRequirements() != null &&
-            account.getRequirements().getCurrentlyDue() != null &&
-            !account.getRequirements().getCurrentlyDue().isEmpty()) {
+        if (!account.currentlyDue().isEmpty()) {
             pendingReason = "Documents ou informations requises";
         }
 
-        return new AccountStatus(true, isReady, chargesEnabled, payoutsEnabled, pendingReason);
+        return new AccountStatus(true, account.isReady(), account.chargesEnabled(), account.payoutsEnabled(), pendingReason);
     }
 
     /**
@@ -202,38 +210,20 @@ public class StripeConnectService {
     }
 
     /**
-     * Get detailed account information for admin view.
+     * Get detailed account information for admin view, from its local snapshot.
+     * Returns null if the account has not been synced yet.
      */
-    public ConnectAccountDetails getAccountDetails(String accountId) throws StripeException {
-        if (accountId == null || accountId.isBlank()) {
-            return null;
-        }
-
-        Account account = Account.retrieve(accountId);
-
-        String email = account.getEmail();
-        String businessName = account.getBusinessProfile() != null ?
-            account.getBusinessProfile().getName() : null;
-        boolean chargesEnabled = account.getChargesEnabled() != null && account.getChargesEnabled();
-        boolean payoutsEnabled = account.getPayoutsEnabled() != null && account.getPayoutsEnabled();
-        boolean detailsSubmitted = account.getDetailsSubmitted() != null && account.getDetailsSubmitted();
-
-        String pendingRequirements = null;
-        if (account.getRequirements() != null &&
-            account.getRequirements().getCurrentlyDue() != null &&
-            !account.getRequirements().getCurrentlyDue().isEmpty()) {
-            pendingRequirements = String.join(", ", account.getRequirements().getCurrentlyDue());
-        }
+    public ConnectAccountDetails getAccountDetails(String accountId) {
+        return snapshotService.find(accountId).map(ConnectAccountDetails::from).orElse(null);
+    }
 
-        return new ConnectAccountDetails(
-            accountId,
-            email,
-            businessName,
-            chargesEnabled,
-            payoutsEnabled,
-            detailsSubmitted,
-            pendingRequirements
-        );
+    /**
+     * Details of several accounts in one query, keyed by account id. Accounts not synced yet are absent.
+     */
+    public Map<String, ConnectAccountDetails> getAccountDetails(Collection<String> accountIds) {
+        Map<String, ConnectAccountDetails> details = new HashMap<>();
+        snapshotService.findAll(accountIds).forEach((id, snapshot) -> details.put(id, ConnectAccountDetails.from(snapshot)));
+        return details;
     }
 
     /**
@@ -246,6 +236,20 @@ public class StripeConnectService {
             boolean chargesEnabled,
             boolean payoutsEnabled,
             boolean detailsSubmitted,
-            String pendingRequirements
-    ) {}
+            String pendingRequirements,
+            LocalDateTime syncedAt
+    ) {
+        static ConnectAccountDetails from(AccountSnapshot snapshot) {
+            return new ConnectAccountDetails(
+                snapshot.accountId(),
+                snapshot.email(),
+                snapshot.businessName(),
+                snapshot.chargesEnabled(),
+                snapshot.payoutsEnabled(),
+                snapshot.detailsSubmitted(),
+                snapshot.currentlyDue().isEmpty() ? null : String.join(", ", snapshot.currentlyDue()),
+                snapshot.syncedAt()
+            );
+        }
+    }
 }
@@ -0,0 +1,263 @@
+package com.chessconnect.service;
+
+import com.chessconnect.scheduler.ScheduledJobRunner;
+import com.stripe.model.Event;
+import com.stripe.net.ApiResource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Processes the Stripe events stored by {@link StripeEventInbox}.
+ *
+ * Each run claims a batch of due events with FOR UPDATE SKIP LOCKED, so several nodes
+ * can share the inbox. Only the oldest pending event of each customer can be claimed,
+ * which keeps a customer's events in Stripe's order while different customers are
+ * handled in parallel on the stripe worker pool. Failed events are retried with
+ * exponential backoff, still blocking the customer's later events, and marked FAILED
+ * after {@link #MAX_ATTEMPTS}. Events the handler rejects as unusable are marked SKIPPED
+ * at once, without retries. Claimed rows get a lease, so events held by a node that
+ * crashed mid-batch are picked up again once the lease expires.
+ */
+@Service
+public class StripeEventDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(StripeEventDispatcher.class);
+
+    private static final long DISPATCH_INTERVAL_MS = 1000;
+    static final int MAX_ATTEMPTS = 8;
+    private static final Duration FIRST_RETRY_DELAY = Duration.ofSeconds(30);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofHours(1);
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(5);
+    private static final int PROCESSED_RETENTION_DAYS = 30;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    // An event is only eligible once every earlier event of its customer is done
+    private static final String CLAIM_SQL =
+        "UPDATE stripe_events SET attempts = attempts + 1, next_attempt_at = ? " +
+        "WHERE event_id IN (" +
+        "  SELECT e.event_id FROM stripe_events e " +
+        "  WHERE e.status = 'PENDING' AND e.next_attempt_at <= ? " +
+        "  AND NOT EXISTS (SELECT 1 FROM stripe_events p WHERE p.status = 'PENDING' " +
+        "    AND p.customer_key = e.customer_key " +
+        "    AND (p.stripe_created_at, p.received_at, p.event_id) < (e.stripe_created_at, e.received_at, e.event_id)) " +
+        "  ORDER BY e.stripe_created_at, e.received_at, e.event_id LIMIT ? FOR UPDATE OF e SKIP LOCKED" +
+        ") RETURNING event_id, event_type, payload, received_at, attempts";
+
+    /**
+     * A claimed inbox row.
+     */
+    record InboxEvent(String eventId, String type, String payload, LocalDateTime receivedAt, int attempts) {}
+
+    /**
+     * Outcome of one batch: processed events, and failed or skipped events with their error.
+     */
+    record Outcome(List<InboxEvent> processed, Map<InboxEvent, String> failed, Map<InboxEvent, String> skipped) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StripeWebhookService webhookService;
+    private final Executor stripeExecutor;
+    private final ScheduledJobRunner jobRunner;
+
+    private final Counter processedCounter;
+    private final Counter retryCounter;
+    private final Counter failedCounter;
+    private final Counter skippedCounter;
+    private final Timer processingLag;
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final AtomicLong oldestPendingSeconds = new AtomicLong();
+
+    @Value("${app.stripe.events.batch-size:50}")
+    private int batchSize;
+
+    public StripeEventDispatcher(JdbcTemplate jdbcTemplate, StripeWebhookService webhookService,
+                                 @Qualifier("stripeEventTaskExecutor") Executor stripeExecutor,
+                                 MeterRegistry meterRegistry, ScheduledJobRunner jobRunner) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.webhookService = webhookService;
+        this.stripeExecutor = stripeExecutor;
+        this.jobRunner = jobRunner;
+
+        this.processedCounter = Counter.builder("stripe_events_processed")
+                .description("Stripe events handled successfully")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("stripe_events_retried")
+                .description("Stripe event attempts that failed and were rescheduled")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("stripe_events_failed")
+                .description("Stripe events abandoned after the last attempt")
+                .register(meterRegistry);
+        this.skippedCounter = Counter.builder("stripe_events_skipped")
+                .description("Stripe events rejected as unusable without retrying")
+                .register(meterRegistry);
+        this.processingLag = Timer.builder("stripe_events_processing_lag")
+                .description("Time from receiving a Stripe event to having processed it")
+                .register(meterRegistry);
+        Gauge.builder("stripe_events_pending", pendingCount, AtomicLong::get)
+                .description("Stripe events waiting in the inbox")
+                .register(meterRegistry);
+        Gauge.builder("stripe_events_lag_seconds", oldestPendingSeconds, AtomicLong::get)
+                .description("Age of the oldest Stripe event waiting in the inbox")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelay = DISPATCH_INTERVAL_MS)
+    public void dispatch() {
+        jobRunner.runLocal("StripeEventDispatcher.dispatch", () -> {
+            try {
+                LocalDateTime now = LocalDateTime.now();
+                List<InboxEvent> batch = jdbcTemplate.query(CLAIM_SQL, (rs, i) -> new InboxEvent(
+                        rs.getString("event_id"),
+                        rs.getString("event_type"),
+                        rs.getString("payload"),
+                        rs.getTimestamp("received_at").toLocalDateTime(),
+                        rs.getInt("attempts")
+                    ), Timestamp.valueOf(now.plus(CLAIM_LEASE)), Timestamp.valueOf(now), batchSize);
+
+                if (!batch.isEmpty()) {
+                    markOutcome(process(batch));
+                }
+                refreshQueueStats();
+            } catch (Exception e) {
+                log.error("Stripe event dispatch failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Handle a batch on the worker pool. The claim returns at most one event per
+     * customer, so the events of a batch are independent.
+     */
+    Outcome process(List<InboxEvent> batch) {
+        Map<InboxEvent, String> failed = new ConcurrentHashMap<>();
+        Map<InboxEvent, String> skipped = new ConcurrentHashMap<>();
+        CompletableFuture<?>[] tasks = batch.stream()
+                .map(event -> CompletableFuture.runAsync(() -> {
+                    try {
+                        handle(event);
+                    } catch (StripeWebhookService.SkippedEventException e) {
+                        skipped.put(event, e.getMessage());
+                    } catch (Exception e) {
+                        failed.put(event, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+                    }
+                }, stripeExecutor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(tasks).join();
+
+        List<InboxEvent> processed = batch.stream()
+                .filter(event -> !failed.containsKey(event) && !skipped.containsKey(event))
+                .toList();
+        return new Outcome(processed, new LinkedHashMap<>(failed), new LinkedHashMap<>(skipped));
+    }
+
+    private void handle(InboxEvent inboxEvent) throws Exception {
+        Event event = ApiResource.GSON.fromJson(inboxEvent.payload(), Event.class);
+        log.info("Processing Stripe event {} ({}), attempt {}", inboxEvent.eventId(), inboxEvent.type(), inboxEvent.attempts());
+        webhookService.handle(event);
+    }
+
+    private void markOutcome(Outcome outcome) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!outcome.processed().isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                "UPDATE stripe_events SET status = 'PROCESSED', processed_at = ?, last_error = NULL WHERE event_id = ?",
+                outcome.processed().stream().map(event -> new Object[] { Timestamp.valueOf(now), event.eventId() }).toList());
+            processedCounter.increment(outcome.processed().size());
+            outcome.processed().forEach(event -> processingLag.record(Duration.between(event.receivedAt(), now)));
+        }
+
+        if (!outcome.skipped().isEmpty()) {
+            List<Object[]> skips = new ArrayList<>();
+            outcome.skipped().forEach((event, error) -> {
+                skips.add(new Object[] { Timestamp.valueOf(now), truncate(error), event.eventId() });
+                log.warn("Skipping Stripe event {} ({}): {}", event.eventId(), event.type(), error);
+            });
+            jdbcTemplate.batchUpdate(
+                "UPDATE stripe_events SET status = 'SKIPPED', processed_at = ?, last_error = ? WHERE event_id = ?", skips);
+            skippedCounter.increment(skips.size());
+        }
+
+        List<Object[]> retries = new ArrayList<>();
+        List<Object[]> failures = new ArrayList<>();
+        outcome.failed().forEach((event, error) -> {
+            if (event.attempts() >= MAX_ATTEMPTS) {
+                failures.add(new Object[] { truncate(error), event.eventId() });
+                log.error("Giving up on Stripe event {} ({}) after {} attempts: {}",
+                        event.eventId(), event.type(), event.attempts(), error);
+            } else {
+                retries.add(new Object[] { Timestamp.valueOf(now.plus(retryDelay(event.attempts()))), truncate(error), event.eventId() });
+                log.warn("Stripe event {} ({}) failed (attempt {}), will retry: {}",
+                        event.eventId(), event.type(), event.attempts(), error);
+            }
+        });
+
+        if (!retries.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE stripe_events SET next_attempt_at = ?, last_error = ? WHERE event_id = ?", retries);
+            retryCounter.increment(retries.size());
+        }
+        if (!failures.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE stripe_events SET status = 'FAILED', last_error = ? WHERE event_id = ?", failures);
+            failedCounter.increment(failures.size());
+        }
+    }
+
+    /**
+     * 30s, 1min, 2min, ... capped at one hour.
+     */
+    static Duration retryDelay(int attempts) {
+        Duration delay = FIRST_RETRY_DELAY.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : delay;
+    }
+
+    private void refreshQueueStats() {
+        jdbcTemplate.query("SELECT COUNT(*), MIN(received_at) FROM stripe_events WHERE status = 'PENDING'", rs -> {
+            pendingCount.set(rs.getLong(1));
+            Timestamp oldest = rs.getTimestamp(2);
+            oldestPendingSeconds.set(oldest == null ? 0
+                : Math.max(0, Duration.between(oldest.toLocalDateTime(), LocalDateTime.now()).getSeconds()));
+        });
+    }
+
+    /**
+     * Processed events are only kept for deduplication and troubleshooting; Stripe stops
+     * redelivering an event after three days.
+     */
+    @Scheduled(cron = "0 45 3 * * *")
+    public void purgeProcessed() {
+        jobRunner.runLocked("StripeEventDispatcher.purgeProcessed", Duration.ofMinutes(10), () -> {
+            int deleted = jdbcTemplate.update(
+                "DELETE FROM stripe_events WHERE status = 'PROCESSED' AND processed_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(PROCESSED_RETENTION_DAYS)));
+            if (deleted > 0) {
+                log.info("Purged {} processed Stripe events from the inbox", deleted);
+            }
+        });
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -0,0 +1,107 @@
+package com.chessconnect.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripe.model.Event;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Stores verified Stripe webhooks in {@code stripe_events}, to be processed later by
+ * {@link StripeEventDispatcher}. Stripe delivers at least once: an event id already in
+ * the inbox is ignored, whatever its status.
+ */
+@Service
+public class StripeEventInbox {
+
+    private static final Logger log = LoggerFactory.getLogger(StripeEventInbox.class);
+
+    private static final String INSERT_SQL =
+        "INSERT INTO stripe_events (event_id, event_type, customer_key, payload, stripe_created_at, received_at, next_attempt_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT (event_id) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Counter receivedCounter;
+    private final Counter duplicateCounter;
+
+    public StripeEventInbox(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.receivedCounter = Counter.builder("stripe_events_received")
+                .description("Stripe webhook events stored in the inbox")
+                .register(meterRegistry);
+        this.duplicateCounter = Counter.builder("stripe_events_duplicate")
+                .description("Stripe webhook redeliveries ignored because the event was already received")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Store a verified event with its raw payload.
+     *
+     * @return false if the event had already been received
+     */
+    public boolean record(Event event, String payload) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime createdAt = event.getCreated() != null
+                ? LocalDateTime.ofInstant(Instant.ofEpochSecond(event.getCreated()), ZoneId.systemDefault())
+                : now;
+
+        int inserted = jdbcTemplate.update(INSERT_SQL,
+                event.getId(),
+                event.getType(),
+                customerKey(payload),
+                payload,
+                Timestamp.valueOf(createdAt),
+                Timestamp.valueOf(now),
+                Timestamp.valueOf(now));
+
+        if (inserted == 0) {
+            duplicateCounter.increment();
+            log.info("Stripe event {} ({}) already received, ignoring redelivery", event.getId(), event.getType());
+            return false;
+        }
+        receivedCounter.increment();
+        return true;
+    }
+
+    /**
+     * The key events are ordered by: the Stripe customer the event's object belongs to,
+     * the Connect account for account events, or our user id from the metadata when the
+     * object has no customer (e.g. a checkout session for a guest). Null when none is known.
+     */
+    String customerKey(String payload) {
+        try {
+            JsonNode object = objectMapper.readTree(payload).path("data").path("object");
+            if ("customer".equals(object.path("object").asText())) {
+                return object.path("id").asText(null);
+            }
+            if ("account".equals(object.path("object").asText())) {
+                return "account:" + object.path("id").asText();
+            }
+            JsonNode customer = object.path("customer");
+            if (customer.isTextual()) {
+                return customer.asText();
+            }
+            if (customer.isObject() && customer.hasNonNull("id")) {
+                return customer.get("id").asText();
+            }
+            JsonNode userId = object.path("metadata").path("user_id");
+            if (userId.isTextual() && !userId.asText().isBlank()) {
+                return "user:" + userId.asText();
+            }
+        } catch (Exception e) {
+            log.warn("Could not read the customer of a Stripe event: {}", e.getMessage());
+        }
+        return null;
+    }
+}
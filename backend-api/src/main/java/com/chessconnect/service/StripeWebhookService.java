@@ -0,0 +1,238 @@
+package com.chessconnect.service;
+
+import com.chessconnect.model.enums.SubscriptionPlan;
+import com.chessconnect.repository.SubscriptionRepository;
+import com.chessconnect.service.StripeAccountSnapshotService.AccountSnapshot;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Account;
+import com.stripe.model.Event;
+import com.stripe.model.Subscription;
+import com.stripe.model.checkout.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+
+/**
+ * Applies Stripe webhook events taken from the inbox by {@link StripeEventDispatcher}.
+ *
+ * An event may be handled more than once (a retry after a crash, a replay), so every
+ * handler must be idempotent. An exception makes the dispatcher retry the event later,
+ * except a {@link SkippedEventException}: events that can never succeed (missing or
+ * malformed metadata) are validated before any work and marked SKIPPED right away.
+ */
+@Service
+public class StripeWebhookService {
+
+    private static final Logger log = LoggerFactory.getLogger(StripeWebhookService.class);
+
+    private final StripeService stripeService;
+    private final SubscriptionService subscriptionService;
+    private final SubscriptionRepository subscriptionRepository;
+    private final StripeAccountSnapshotService accountSnapshotService;
+    private final EntitlementService entitlementService;
+    private final PromoCodeService promoCodeService;
+
+    public StripeWebhookService(
+            StripeService stripeService,
+            SubscriptionService subscriptionService,
+            SubscriptionRepository subscriptionRepository,
+            StripeAccountSnapshotService accountSnapshotService,
+            EntitlementService entitlementService,
+            PromoCodeService promoCodeService
+    ) {
+        this.stripeService = stripeService;
+        this.subscriptionService = subscriptionService;
+        this.subscriptionRepository = subscriptionRepository;
+        this.accountSnapshotService = accountSnapshotService;
+        this.entitlementService = entitlementService;
+        this.promoCodeService = promoCodeService;
+    }
+
+    /**
+     * The event can't be applied however often it is retried.
+     */
+    static class SkippedEventException extends RuntimeException {
+        SkippedEventException(String message) {
+            super(message);
+        }
+    }
+
+    public void handle(Event event) throws StripeException {
+        switch (event.getType()) {
+            case "checkout.session.completed" -> handleCheckoutCompleted(event);
+            case "checkout.session.expired" -> handleCheckoutExpired(event);
+            case "payment_intent.succeeded" -> handlePaymentIntentSucceeded(event);
+            case "customer.subscription.updated" -> handleSubscriptionUpdated(event);
+            case "customer.subscription.deleted" -> handleSubscriptionDeleted(event);
+            case "invoice.paid" -> handleInvoicePaid(event);
+            case "invoice.payment_failed" -> handlePaymentFailed(event);
+            case "account.updated" -> handleAccountUpdated(event);
+            default -> log.debug("Unhandled event type: {}", event.getType());
+        }
+    }
+
+    private void handleCheckoutCompleted(Event event) throws StripeException {
+        Session session = sessionOf(event);
+        String mode = session.getMode();
+        Map<String, String> metadata = metadataOf(session);
+
+        if ("subscription".equals(mode)) {
+            Long userId = userIdOf(metadata);
+            SubscriptionPlan plan = planOf(metadata);
+            String stripeSubId = session.getSubscription();
+            if (stripeSubId != null && subscriptionRepository.findByStripeSubscriptionId(stripeSubId).isPresent()) {
+                log.info("Subscription {} already activated, skipping checkout webhook", stripeSubId);
+                return;
+            }
+
+            subscriptionService.activateSubscription(stripeSubId, userId, plan);
+            log.info("Subscription activated for user {} via checkout webhook", userId);
+            // Note: Invoice is generated in confirmSubscriptionPayment endpoint
+        } else if ("payment".equals(mode) && "ONE_TIME_LESSON".equals(metadata.get("type"))) {
+            // Lesson booking is handled by the confirm endpoint (called by frontend after Stripe redirect).
+            // Do NOT book here to avoid double-booking race conditions.
+            log.info("checkout.session.completed for ONE_TIME_LESSON user {} — skipping (handled by confirm endpoint)",
+                    metadata.get("user_id"));
+        }
+    }
+
+    /**
+     * An abandoned lesson checkout gives back the promo code use reserved when it was created.
+     */
+    private void handleCheckoutExpired(Event event) throws StripeException {
+        Session session = sessionOf(event);
+        Map<String, String> metadata = metadataOf(session);
+        String promoCode = metadata.get("promo_code");
+        if ("ONE_TIME_LESSON".equals(metadata.get("type")) && promoCode != null && !promoCode.isBlank()) {
+            promoCodeService.release(promoCode);
+            log.info("Checkout session {} expired, released promo code {}", session.getId(), promoCode);
+        }
+    }
+
+    /**
+     * The checkout session of the event; it is skipped if it can be neither deserialized nor retrieved.
+     */
+    private Session sessionOf(Event event) throws StripeException {
+        // Try deserialization, fall back to API retrieval if it fails
+        var deserializer = event.getDataObjectDeserializer();
+        if (deserializer.getObject().isPresent()) {
+            return (Session) deserializer.getObject().get();
+        }
+        // Deserialization can fail due to Stripe SDK version mismatch — retrieve via API
+        String sessionId = event.getData().getObject().toJson()
+                .replaceAll("(?s).*\"id\"\\s*:\\s*\"(cs_[^\"]+)\".*", "$1");
+        if (sessionId.startsWith("cs_")) {
+            log.warn("Webhook deserialization failed, retrieving session {} via API", sessionId);
+            return stripeService.retrieveSession(sessionId);
+        }
+        throw new SkippedEventException("Failed to deserialize session and could not extract session ID from webhook");
+    }
+
+    private static Map<String, String> metadataOf(Session session) {
+        return session.getMetadata() != null ? session.getMetadata() : Map.of();
+    }
+
+    private static Long userIdOf(Map<String, String> metadata) {
+        String userId = metadata.get("user_id");
+        if (userId == null || userId.isBlank()) {
+            throw new SkippedEventException("Missing user_id in checkout metadata");
+        }
+        try {
+            return Long.parseLong(userId.trim());
+        } catch (NumberFormatException e) {
+            throw new SkippedEventException("Invalid user_id in checkout metadata: " + userId);
+        }
+    }
+
+    private static SubscriptionPlan planOf(Map<String, String> metadata) {
+        String plan = metadata.get("plan");
+        if (plan == null) {
+            throw new SkippedEventException("Missing plan in subscription checkout metadata");
+        }
+        try {
+            return SubscriptionPlan.valueOf(plan);
+        } catch (IllegalArgumentException e) {
+            throw new SkippedEventException("Invalid subscription plan in checkout metadata: " + plan);
+        }
+    }
+
+    /**
+     * Handle payment_intent.succeeded event.
+     * Note: Invoices are now generated in the confirm endpoints, not via webhooks.
+     */
+    private void handlePaymentIntentSucceeded(Event event) {
+        log.info("PaymentIntent succeeded event received - invoices will be generated via confirm endpoint");
+    }
+
+    private void handleSubscriptionUpdated(Event event) throws StripeException {
+        log.info("Subscription updated event received");
+        // Handle plan changes, status updates, etc.
+        invalidateEntitlement(event);
+    }
+
+    private void handleSubscriptionDeleted(Event event) throws StripeException {
+        log.info("Subscription deleted event received");
+        // Handle subscription cancellation from Stripe side
+        invalidateEntitlement(event);
+    }
+
+    /**
+     * The subscription may have changed on Stripe's side: drop its student's cached entitlement.
+     */
+    private void invalidateEntitlement(Event event) throws StripeException {
+        subscriptionRepository.findByStripeSubscriptionId(subscriptionOf(event).getId())
+                .ifPresent(subscription -> entitlementService.invalidate(subscription.getStudent().getId()));
+    }
+
+    /**
+     * The subscription of the event; it is skipped if it can be neither deserialized nor retrieved.
+     */
+    private Subscription subscriptionOf(Event event) throws StripeException {
+        var deserializer = event.getDataObjectDeserializer();
+        if (deserializer.getObject().isPresent()) {
+            return (Subscription) deserializer.getObject().get();
+        }
+        // Deserialization can fail due to Stripe SDK version mismatch — retrieve via API
+        String subscriptionId = event.getData().getObject().toJson()
+                .replaceAll("(?s).*\"id\"\\s*:\\s*\"(sub_[^\"]+)\".*", "$1");
+        if (subscriptionId.startsWith("sub_")) {
+            log.warn("Webhook deserialization failed, retrieving subscription {} via API", subscriptionId);
+            return stripeService.retrieveSubscription(subscriptionId);
+        }
+        throw new SkippedEventException("Failed to deserialize subscription and could not extract subscription ID from webhook");
+    }
+
+    private void handleInvoicePaid(Event event) {
+        log.info("Invoice paid event received");
+        // Handle recurring payment success
+    }
+
+    private void handlePaymentFailed(Event event) {
+        log.warn("Payment failed event received");
+        // Handle failed payment - notify user, retry logic, etc.
+    }
+
+    /**
+     * A coach's Connect account changed (onboarding progress, requirements, payouts).
+     */
+    private void handleAccountUpdated(Event event) throws StripeException {
+        var deserializer = event.getDataObjectDeserializer();
+        if (deserializer.getObject().isPresent()) {
+            Account account = (Account) deserializer.getObject().get();
+            LocalDateTime eventTime = LocalDateTime.ofInstant(Instant.ofEpochSecond(event.getCreated()), ZoneId.systemDefault());
+            accountSnapshotService.save(AccountSnapshot.from(account, eventTime), StripeAccountSnapshotService.SOURCE_WEBHOOK);
+        } else if (event.getAccount() != null) {
+            // Deserialization can fail due to Stripe SDK version mismatch — retrieve via API
+            accountSnapshotService.refresh(event.getAccount(), StripeAccountSnapshotService.SOURCE_WEBHOOK);
+        } else {
+            log.error("Failed to deserialize account.updated event {}", event.getId());
+            return;
+        }
+        log.info("Stripe Connect account snapshot updated from webhook");
+    }
+}
@@ -5,23 +5,29 @@ import com.chessconnect.dto.subscription.SubscriptionResponse;
 import com.chessconnect.model.Payment;
 import com.chessconnect.model.Subscription;
 import com.chessconnect.model.User;
+import com.chessconnect.model.enums.NotificationType;
 import com.chessconnect.model.enums.PaymentStatus;
 import com.chessconnect.model.enums.PaymentType;
 import com.chessconnect.model.enums.SubscriptionPlan;
 import com.chessconnect.repository.PaymentRepository;
 import com.chessconnect.repository.SubscriptionRepository;
 import com.chessconnect.repository.UserRepository;
+import com.chessconnect.scheduler.ScheduledJobRunner;
 import com.stripe.exception.StripeException;
 import com.stripe.model.checkout.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Date;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.TemporalAdjusters;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -31,21 +37,43 @@ public class SubscriptionService {
 
     private static final Logger log = LoggerFactory.getLogger(SubscriptionService.class);
 
+    static final int EXPIRY_CHUNK_SIZE = 1000;
+
+    // Only touches subscriptions that actually expire, a chunk at a time
+    private static final String DEACTIVATE_EXPIRED_SQL =
+        "UPDATE subscriptions SET is_active = false " +
+        "WHERE id IN (" +
+        "  SELECT id FROM subscriptions WHERE is_active AND end_date <= ? " +
+        "  ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED" +
+        ") RETURNING student_id";
+
     private final SubscriptionRepository subscriptionRepository;
     private final UserRepository userRepository;
     private final PaymentRepository paymentRepository;
     private final StripeService stripeService;
+    private final ScheduledJobRunner jobRunner;
+    private final EntitlementService entitlementService;
+    private final UserNotificationService userNotificationService;
+    private final JdbcTemplate jdbcTemplate;
 
     public SubscriptionService(
             SubscriptionRepository subscriptionRepository,
             UserRepository userRepository,
             PaymentRepository paymentRepository,
-            StripeService stripeService
+            StripeService stripeService,
+            ScheduledJobRunner jobRunner,
+            EntitlementService entitlementService,
+            UserNotificationService userNotificationService,
+            JdbcTemplate jdbcTemplate
     ) {
         this.subscriptionRepository = subscriptionRepository;
         this.userRepository = userRepository;
         this.paymentRepository = paymentRepository;
         this.stripeService = stripeService;
+        this.jobRunner = jobRunner;
+        this.entitlementService = entitlementService;
+        this.userNotificationService = userNotificationService;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     public CheckoutSessionResponse createSubscriptionCheckout(Long userId, SubscriptionPlan plan) throws StripeException {
@@ -112,6 +140,7 @@ public class SubscriptionService {
         payment.setStatus(PaymentStatus.COMPLETED);
         payment.setProcessedAt(LocalDateTime.now());
         paymentRepository.save(payment);
+        entitlementService.invalidate(userId);
 
         log.info("Activated Premium subscription {} for user {}", subscription.getId(), userId);
 
@@ -154,6 +183,7 @@ public class SubscriptionService {
         subscription.setEndDate(endDate);
 
         subscription = subscriptionRepository.save(subscription);
+        entitlementService.invalidate(userId);
 
         log.info("Cancelled subscription {} for user {}. Active until {}",
                 subscription.getId(), userId, endDate);
@@ -163,42 +193,49 @@ public class SubscriptionService {
 
     // Deactivate expired subscriptions daily at midnight
     @Scheduled(cron = "0 0 0 * * *")
-    @Transactional
     public void deactivateExpiredSubscriptions() {
-        List<Subscription> activeSubscriptions = subscriptionRepository.findAllByIsActiveTrue();
-        LocalDate today = LocalDate.now();
-        int deactivatedCount = 0;
-
-        for (Subscription sub : activeSubscriptions) {
-            if (sub.getEndDate() != null && !today.isBefore(sub.getEndDate())) {
-                sub.setIsActive(false);
-                deactivatedCount++;
+        jobRunner.runLocked("SubscriptionService.deactivateExpiredSubscriptions", Duration.ofMinutes(10), () -> {
+            LocalDate today = LocalDate.now();
+            int deactivatedCount = 0;
+            List<Long> studentIds;
+            do {
+                // Each chunk is one statement, committed on its own
+                studentIds = jdbcTemplate.queryForList(DEACTIVATE_EXPIRED_SQL, Long.class,
+                        Date.valueOf(today), EXPIRY_CHUNK_SIZE);
+                studentIds.forEach(entitlementService::invalidate);
+                notifyExpired(studentIds);
+                deactivatedCount += studentIds.size();
+            } while (studentIds.size() == EXPIRY_CHUNK_SIZE);
+
+            if (deactivatedCount > 0) {
+                log.info("Deactivated {} expired subscriptions", deactivatedCount);
             }
-        }
+        });
+    }
 
-        if (deactivatedCount > 0) {
-            subscriptionRepository.saveAll(activeSubscriptions);
-            log.info("Deactivated {} expired subscriptions", deactivatedCount);
+    private void notifyExpired(List<Long> studentIds) {
+        for (Long studentId : new LinkedHashSet<>(studentIds)) {
+            try {
+                userNotificationService.createNotification(
+                        studentId,
+                        NotificationType.INFO,
+                        "Abonnement Premium termine",
+                        "Votre abonnement Premium est arrive a echeance. Vous pouvez le renouveler a tout moment.",
+                        "/subscription"
+                );
+            } catch (Exception e) {
+                log.warn("Failed to notify user {} of subscription expiry: {}", studentId, e.getMessage());
+            }
         }
     }
 
     /**
      * Check if a user has an active Premium subscription OR an active free trial.
      * This is the main method to check for Premium features access.
+     * Served from the entitlement cache, see {@link EntitlementService}.
      */
     public boolean isPremium(Long userId) {
-        // Check for active paid subscription
-        if (!subscriptionRepository.findActiveSubscriptionsByStudentId(userId).isEmpty()) {
-            return true;
-        }
-
-        // Check for active free trial (without card)
-        User user = userRepository.findById(userId).orElse(null);
-        if (user != null && user.hasActivePremiumTrial()) {
-            return true;
-        }
-
-        return false;
+        return entitlementService.isPremium(userId);
     }
 
     public boolean hasActiveSubscription(Long userId) {
@@ -241,6 +278,7 @@ public class SubscriptionService {
         // Set trial end date to 14 days from now
         user.setPremiumTrialEnd(LocalDate.now().plusDays(14));
         userRepository.save(user);
+        entitlementService.invalidate(userId);
 
         log.info("Started 14-day free Premium trial for user {} (ends {})",
                 userId, user.getPremiumTrialEnd());
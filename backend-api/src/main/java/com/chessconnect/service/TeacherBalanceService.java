@@ -1,18 +1,25 @@
 package com.chessconnect.service;
 
+import com.chessconnect.dto.admin.TeacherBalanceCheckResponse;
 import com.chessconnect.dto.teacher.TeacherBalanceResponse;
 import com.chessconnect.model.Lesson;
-import com.chessconnect.model.TeacherBalance;
-import com.chessconnect.model.User;
-import com.chessconnect.repository.LessonRepository;
 import com.chessconnect.repository.TeacherBalanceRepository;
 import com.chessconnect.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Service
 public class TeacherBalanceService {
@@ -22,18 +29,127 @@ public class TeacherBalanceService {
     // Prix fixe pour un cours via abonnement (ce que le coach reçoit)
     public static final int SUBSCRIPTION_LESSON_PRICE_CENTS = 1500; // 15€
 
+    /**
+     * Adds earnings and lessons to teachers' balances, creating the row if needed.
+     * Parameters: teacher_id, earnings (available), earnings (total), lessons, created_at, updated_at.
+     */
+    public static final String CREDIT_SQL =
+        "INSERT INTO teacher_balances (teacher_id, available_balance_cents, pending_balance_cents, " +
+        "total_earned_cents, total_withdrawn_cents, lessons_completed, created_at, updated_at) " +
+        "VALUES (?, ?, 0, ?, 0, ?, ?, ?) " +
+        "ON CONFLICT (teacher_id) DO UPDATE SET " +
+        "available_balance_cents = teacher_balances.available_balance_cents + EXCLUDED.available_balance_cents, " +
+        "total_earned_cents = teacher_balances.total_earned_cents + EXCLUDED.total_earned_cents, " +
+        "lessons_completed = teacher_balances.lessons_completed + EXCLUDED.lessons_completed, " +
+        "updated_at = EXCLUDED.updated_at";
+
+    // Credited lessons grouped by what their earnings are computed from, so that
+    // recalculating applies lessonEarningsCents exactly as crediting did
+    static final String CREDITED_LESSONS_SQL =
+        "SELECT l.teacher_id, l.is_from_subscription, l.teacher_earnings_cents, l.price_cents, " +
+        "t.hourly_rate_cents, COUNT(*) AS lessons FROM lessons l JOIN users t ON t.id = l.teacher_id " +
+        "WHERE l.earnings_credited = true%s " +
+        "GROUP BY l.teacher_id, l.is_from_subscription, l.teacher_earnings_cents, l.price_cents, t.hourly_rate_cents";
+
+    static final String STORED_BALANCES_SQL =
+        "SELECT teacher_id, total_earned_cents, available_balance_cents, total_withdrawn_cents, " +
+        "lessons_completed FROM teacher_balances%s ORDER BY teacher_id";
+
+    // Withdrawals are kept: available is the recomputed total minus what was withdrawn
+    static final String UPDATE_BALANCE_SQL =
+        "UPDATE teacher_balances SET total_earned_cents = ?, available_balance_cents = ? - total_withdrawn_cents, " +
+        "lessons_completed = ?, updated_at = ? WHERE teacher_id = ?";
+
+    // A balance created meanwhile by a credit is left alone rather than overwritten
+    static final String INSERT_BALANCE_SQL =
+        "INSERT INTO teacher_balances (teacher_id, available_balance_cents, pending_balance_cents, " +
+        "total_earned_cents, total_withdrawn_cents, lessons_completed, created_at, updated_at) " +
+        "VALUES (?, ?, 0, ?, 0, ?, ?, ?) ON CONFLICT (teacher_id) DO NOTHING";
+
+    // Marks every completed lesson not yet credited, returning what is needed to credit it
+    private static final String MARK_UNCREDITED_SQL =
+        "UPDATE lessons l SET earnings_credited = true " +
+        "FROM users t WHERE t.id = l.teacher_id AND l.status = 'COMPLETED' " +
+        "AND (l.earnings_credited IS NULL OR l.earnings_credited = false) " +
+        "RETURNING l.teacher_id, l.is_from_subscription, l.teacher_earnings_cents, l.price_cents, t.hourly_rate_cents";
+
+    /**
+     * A teacher's stored balance next to the one recomputed from credited lessons.
+     * Stored values are null when the teacher has no balance row.
+     */
+    record BalanceComparison(
+            long teacherId,
+            Integer storedTotalEarnedCents,
+            Integer storedAvailableBalanceCents,
+            int totalWithdrawnCents,
+            Integer storedLessonsCompleted,
+            int computedTotalEarnedCents,
+            int computedLessonsCompleted
+    ) {
+        int expectedAvailableBalanceCents() {
+            return computedTotalEarnedCents - totalWithdrawnCents;
+        }
+
+        boolean matches() {
+            return storedTotalEarnedCents != null
+                    && storedTotalEarnedCents == computedTotalEarnedCents
+                    && storedAvailableBalanceCents != null
+                    && storedAvailableBalanceCents == expectedAvailableBalanceCents()
+                    && storedLessonsCompleted != null
+                    && storedLessonsCompleted == computedLessonsCompleted;
+        }
+    }
+
+    /** A teacher's balance row as stored. */
+    record StoredBalance(
+            long teacherId,
+            int totalEarnedCents,
+            int availableBalanceCents,
+            int totalWithdrawnCents,
+            int lessonsCompleted
+    ) {}
+
+    /** Credited lessons of a teacher that share the same earnings inputs. */
+    record CreditedLessons(
+            long teacherId,
+            Boolean fromSubscription,
+            Integer teacherEarningsCents,
+            Integer priceCents,
+            Integer hourlyRateCents,
+            int lessons
+    ) {
+        int earningsCents() {
+            return lessonEarningsCents(fromSubscription, teacherEarningsCents, priceCents, hourlyRateCents) * lessons;
+        }
+    }
+
+    private static final RowMapper<StoredBalance> STORED_MAPPER = (rs, i) -> new StoredBalance(
+            rs.getLong("teacher_id"),
+            rs.getInt("total_earned_cents"),
+            rs.getInt("available_balance_cents"),
+            rs.getInt("total_withdrawn_cents"),
+            rs.getInt("lessons_completed"));
+
+    private static final RowMapper<CreditedLessons> CREDITED_MAPPER = (rs, i) -> new CreditedLessons(
+            rs.getLong("teacher_id"),
+            (Boolean) rs.getObject("is_from_subscription"),
+            (Integer) rs.getObject("teacher_earnings_cents"),
+            (Integer) rs.getObject("price_cents"),
+            (Integer) rs.getObject("hourly_rate_cents"),
+            rs.getInt("lessons"));
+
     private final TeacherBalanceRepository teacherBalanceRepository;
     private final UserRepository userRepository;
-    private final LessonRepository lessonRepository;
+    private final JdbcTemplate jdbcTemplate;
 
     public TeacherBalanceService(
             TeacherBalanceRepository teacherBalanceRepository,
             UserRepository userRepository,
-            LessonRepository lessonRepository
+            JdbcTemplate jdbcTemplate
     ) {
         this.teacherBalanceRepository = teacherBalanceRepository;
         this.userRepository = userRepository;
-        this.lessonRepository = lessonRepository;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     public TeacherBalanceResponse getBalance(Long teacherId) {
@@ -42,82 +158,83 @@ public class TeacherBalanceService {
                 .orElse(TeacherBalanceResponse.empty(teacherId));
     }
 
+    /**
+     * Credit one completed lesson with {@link #CREDIT_SQL}, an increment that neither loses
+     * nor overwrites a concurrent credit or recalculation.
+     */
     @Transactional
     public void creditEarningsForCompletedLesson(Lesson lesson) {
         Long teacherId = lesson.getTeacher().getId();
 
-        TeacherBalance balance = teacherBalanceRepository.findByTeacherId(teacherId)
-                .orElseGet(() -> createBalanceForTeacher(teacherId));
+        int earningsCents = lessonEarningsCents(
+                lesson.getIsFromSubscription(),
+                lesson.getTeacherEarningsCents(),
+                lesson.getPriceCents(),
+                lesson.getTeacher().getHourlyRateCents());
+        log.info("Crediting {} lesson earnings: {}€ for teacher {}",
+                Boolean.TRUE.equals(lesson.getIsFromSubscription()) ? "subscription" : "individual",
+                earningsCents / 100.0, teacherId);
 
-        int earningsCents;
-        if (Boolean.TRUE.equals(lesson.getIsFromSubscription())) {
-            // Pour les cours d'abonnement, le coach reçoit un montant fixe
-            earningsCents = SUBSCRIPTION_LESSON_PRICE_CENTS;
-            log.info("Crediting subscription lesson earnings: {}€ for teacher {}",
-                    earningsCents / 100.0, teacherId);
-        } else {
-            // Pour les cours payés individuellement, on utilise les gains calculés
-            Integer teacherEarnings = lesson.getTeacherEarningsCents();
-            if (teacherEarnings != null && teacherEarnings > 0) {
-                earningsCents = teacherEarnings;
-            } else if (lesson.getPriceCents() != null && lesson.getPriceCents() > 0) {
-                // Fallback: calculer les gains à partir du prix (87.5% pour le coach, 12.5% commission)
-                earningsCents = (lesson.getPriceCents() * 875) / 1000;
-                log.warn("TeacherEarningsCents was null for lesson {}, calculated from price: {}€",
-                        lesson.getId(), earningsCents / 100.0);
-            } else {
-                // Dernier recours: utiliser le tarif horaire du coach
-                earningsCents = lesson.getTeacher().getHourlyRateCents() != null
-                        ? (lesson.getTeacher().getHourlyRateCents() * 875) / 1000
-                        : 0;
-                log.warn("Using teacher hourly rate as fallback for lesson {}: {}€",
-                        lesson.getId(), earningsCents / 100.0);
-            }
-            log.info("Crediting individual lesson earnings: {}€ for teacher {}",
-                    earningsCents / 100.0, teacherId);
-        }
-
-        balance.addEarnings(earningsCents);
-        teacherBalanceRepository.save(balance);
-
-        log.info("Teacher {} new balance: {}€ (total earned: {}€, lessons: {})",
-                teacherId,
-                balance.getAvailableBalanceCents() / 100.0,
-                balance.getTotalEarnedCents() / 100.0,
-                balance.getLessonsCompleted());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(CREDIT_SQL, teacherId, earningsCents, earningsCents, 1, now, now);
     }
 
-    private TeacherBalance createBalanceForTeacher(Long teacherId) {
-        User teacher = userRepository.findById(teacherId)
-                .orElseThrow(() -> new RuntimeException("Teacher not found"));
-
-        TeacherBalance balance = new TeacherBalance();
-        balance.setTeacher(teacher);
-        return teacherBalanceRepository.save(balance);
+    /**
+     * What the coach earns for one completed lesson.
+     * Shared by the per-lesson credit above, the bulk auto-completion and the recalculations,
+     * so that a balance that was credited is also one that verifies.
+     */
+    public static int lessonEarningsCents(Boolean fromSubscription, Integer teacherEarningsCents,
+                                          Integer priceCents, Integer hourlyRateCents) {
+        if (Boolean.TRUE.equals(fromSubscription)) {
+            // Pour les cours d'abonnement, le coach reçoit un montant fixe
+            return SUBSCRIPTION_LESSON_PRICE_CENTS;
+        }
+        // Pour les cours payés individuellement, on utilise les gains calculés
+        if (teacherEarningsCents != null && teacherEarningsCents > 0) {
+            return teacherEarningsCents;
+        }
+        if (priceCents != null && priceCents > 0) {
+            // Fallback: calculer les gains à partir du prix (87.5% pour le coach, 12.5% commission)
+            log.warn("TeacherEarningsCents missing, calculated from price: {}€", (priceCents * 875) / 1000 / 100.0);
+            return (priceCents * 875) / 1000;
+        }
+        // Dernier recours: utiliser le tarif horaire du coach
+        log.warn("Using teacher hourly rate as fallback for lesson earnings");
+        return hourlyRateCents != null ? (hourlyRateCents * 875) / 1000 : 0;
     }
 
     /**
      * Migration method: credit earnings for all completed lessons that haven't been credited yet.
      * This is useful for lessons that were completed before the earnings tracking was implemented.
+     *
+     * The lessons are flagged in one UPDATE ... RETURNING and each teacher's balance gets a
+     * single increment.
      */
     @Transactional
     public int migrateUncreditedLessons() {
-        List<Lesson> uncreditedLessons = lessonRepository.findCompletedLessonsNotCredited();
-        int count = 0;
-
-        for (Lesson lesson : uncreditedLessons) {
-            try {
-                creditEarningsForCompletedLesson(lesson);
-                lesson.setEarningsCredited(true);
-                lessonRepository.save(lesson);
-                count++;
-                log.info("Migrated earnings for lesson {}", lesson.getId());
-            } catch (Exception e) {
-                log.error("Failed to migrate earnings for lesson {}: {}", lesson.getId(), e.getMessage());
-            }
+        // teacherId -> {earnings, lessons}
+        Map<Long, int[]> totals = new HashMap<>();
+        jdbcTemplate.query(MARK_UNCREDITED_SQL, rs -> {
+            int[] total = totals.computeIfAbsent(rs.getLong("teacher_id"), id -> new int[2]);
+            total[0] += lessonEarningsCents(
+                    rs.getBoolean("is_from_subscription"),
+                    rs.getInt("teacher_earnings_cents"),
+                    rs.getInt("price_cents"),
+                    (Integer) rs.getObject("hourly_rate_cents"));
+            total[1]++;
+        });
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        totals.forEach((teacherId, total) ->
+                rows.add(new Object[] { teacherId, total[0], total[0], total[1], now, now }));
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(CREDIT_SQL, rows);
         }
 
-        log.info("Migration completed: {} lessons credited", count);
+        int count = totals.values().stream().mapToInt(total -> total[1]).sum();
+        log.info("Migration completed: {} lessons credited for {} teachers", count, totals.size());
         return count;
     }
 
@@ -127,49 +244,131 @@ public class TeacherBalanceService {
      */
     @Transactional
     public TeacherBalanceResponse recalculateBalance(Long teacherId) {
-        User teacher = userRepository.findById(teacherId)
-                .orElseThrow(() -> new RuntimeException("Teacher not found"));
+        if (!userRepository.existsById(teacherId)) {
+            throw new RuntimeException("Teacher not found");
+        }
 
-        TeacherBalance balance = teacherBalanceRepository.findByTeacherId(teacherId)
-                .orElseGet(() -> createBalanceForTeacher(teacherId));
+        // Lock the balance first so that no credit commits between the sum and the write
+        List<StoredBalance> stored = jdbcTemplate.query(
+                STORED_BALANCES_SQL.formatted(" WHERE teacher_id = ? FOR UPDATE"), STORED_MAPPER, teacherId);
+        List<CreditedLessons> credited = jdbcTemplate.query(
+                CREDITED_LESSONS_SQL.formatted(" AND l.teacher_id = ?"), CREDITED_MAPPER, teacherId);
+        BalanceComparison comparison = compare(stored, credited).stream().findFirst()
+                .orElse(new BalanceComparison(teacherId, null, null, 0, null, 0, 0));
+        write(List.of(comparison));
 
-        // Get all completed lessons with earnings credited
-        List<Lesson> creditedLessons = lessonRepository.findByTeacherIdAndEarningsCreditedTrue(teacherId);
+        log.info("Recalculated balance for teacher {}: available={}€, totalEarned={}€, withdrawn={}€, lessons={}",
+                teacherId,
+                comparison.expectedAvailableBalanceCents() / 100.0,
+                comparison.computedTotalEarnedCents() / 100.0,
+                comparison.totalWithdrawnCents() / 100.0,
+                comparison.computedLessonsCompleted());
 
-        // Recalculate total earned
-        int totalEarnedCents = 0;
-        for (Lesson lesson : creditedLessons) {
-            if (Boolean.TRUE.equals(lesson.getIsFromSubscription())) {
-                totalEarnedCents += SUBSCRIPTION_LESSON_PRICE_CENTS;
-            } else {
-                Integer earnings = lesson.getTeacherEarningsCents();
-                if (earnings != null && earnings > 0) {
-                    totalEarnedCents += earnings;
-                } else if (lesson.getPriceCents() != null) {
-                    totalEarnedCents += (lesson.getPriceCents() * 85) / 100;
-                }
-            }
+        return getBalance(teacherId);
+    }
+
+    /**
+     * Recalculate every teacher's balance the way {@link #recalculateBalance} does, with one
+     * grouped query and batched writes of the balances that differ. The balance rows stay
+     * locked from the comparison to the write.
+     *
+     * @return the number of balances corrected
+     */
+    @Transactional
+    public int recalculateAllBalances() {
+        List<StoredBalance> stored = jdbcTemplate.query(STORED_BALANCES_SQL.formatted(" FOR UPDATE"), STORED_MAPPER);
+        List<CreditedLessons> credited = jdbcTemplate.query(CREDITED_LESSONS_SQL.formatted(""), CREDITED_MAPPER);
+        List<BalanceComparison> stale = compare(stored, credited).stream()
+                .filter(comparison -> !comparison.matches())
+                .toList();
+        if (stale.isEmpty()) {
+            return 0;
         }
 
-        // Keep existing withdrawn amount
-        int totalWithdrawnCents = balance.getTotalWithdrawnCents() != null ? balance.getTotalWithdrawnCents() : 0;
+        write(stale);
+
+        log.info("Recalculated {} teacher balances: {}", stale.size(),
+                stale.stream().map(BalanceComparison::teacherId).toList());
+        return stale.size();
+    }
 
-        // Available = earned - withdrawn
-        int availableBalanceCents = totalEarnedCents - totalWithdrawnCents;
+    /**
+     * Compare every stored balance with what the teacher's credited lessons add up to,
+     * without changing anything.
+     */
+    @Transactional(readOnly = true)
+    public TeacherBalanceCheckResponse verifyBalances() {
+        List<BalanceComparison> comparisons = compare(
+                jdbcTemplate.query(STORED_BALANCES_SQL.formatted(""), STORED_MAPPER),
+                jdbcTemplate.query(CREDITED_LESSONS_SQL.formatted(""), CREDITED_MAPPER));
+        List<TeacherBalanceCheckResponse.Discrepancy> discrepancies = comparisons.stream()
+                .filter(comparison -> !comparison.matches())
+                .map(c -> new TeacherBalanceCheckResponse.Discrepancy(
+                        c.teacherId(),
+                        c.storedTotalEarnedCents(),
+                        c.computedTotalEarnedCents(),
+                        c.storedAvailableBalanceCents(),
+                        c.expectedAvailableBalanceCents(),
+                        c.storedLessonsCompleted(),
+                        c.computedLessonsCompleted()))
+                .toList();
+        return new TeacherBalanceCheckResponse(comparisons.size(), discrepancies);
+    }
 
-        // Update balance
-        balance.setTotalEarnedCents(totalEarnedCents);
-        balance.setAvailableBalanceCents(availableBalanceCents);
-        balance.setLessonsCompleted(creditedLessons.size());
-        teacherBalanceRepository.save(balance);
+    /**
+     * Every teacher with a balance row or a credited lesson, ordered by id, stored totals
+     * next to the ones recomputed with {@link #lessonEarningsCents}.
+     */
+    static List<BalanceComparison> compare(List<StoredBalance> stored, List<CreditedLessons> credited) {
+        // teacherId -> {earnings, lessons}
+        Map<Long, int[]> computed = new HashMap<>();
+        for (CreditedLessons lessons : credited) {
+            int[] total = computed.computeIfAbsent(lessons.teacherId(), id -> new int[2]);
+            total[0] += lessons.earningsCents();
+            total[1] += lessons.lessons();
+        }
 
-        log.info("Recalculated balance for teacher {}: available={}€, totalEarned={}€, withdrawn={}€, lessons={}",
-                teacherId,
-                availableBalanceCents / 100.0,
-                totalEarnedCents / 100.0,
-                totalWithdrawnCents / 100.0,
-                creditedLessons.size());
+        Map<Long, StoredBalance> storedById = new HashMap<>();
+        stored.forEach(balance -> storedById.put(balance.teacherId(), balance));
+        Set<Long> teacherIds = new TreeSet<>(storedById.keySet());
+        teacherIds.addAll(computed.keySet());
 
-        return TeacherBalanceResponse.from(balance);
+        List<BalanceComparison> comparisons = new ArrayList<>();
+        for (Long teacherId : teacherIds) {
+            StoredBalance balance = storedById.get(teacherId);
+            int[] total = computed.getOrDefault(teacherId, new int[2]);
+            comparisons.add(new BalanceComparison(
+                    teacherId,
+                    balance != null ? balance.totalEarnedCents() : null,
+                    balance != null ? balance.availableBalanceCents() : null,
+                    balance != null ? balance.totalWithdrawnCents() : 0,
+                    balance != null ? balance.lessonsCompleted() : null,
+                    total[0],
+                    total[1]));
+        }
+        return comparisons;
+    }
+
+    private void write(List<BalanceComparison> comparisons) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        for (BalanceComparison c : comparisons) {
+            if (c.storedTotalEarnedCents() != null) {
+                updates.add(new Object[] {
+                        c.computedTotalEarnedCents(), c.computedTotalEarnedCents(),
+                        c.computedLessonsCompleted(), now, c.teacherId() });
+            } else {
+                inserts.add(new Object[] {
+                        c.teacherId(), c.computedTotalEarnedCents(), c.computedTotalEarnedCents(),
+                        c.computedLessonsCompleted(), now, now });
+            }
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_BALANCE_SQL, updates);
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_BALANCE_SQL, inserts);
+        }
     }
 }
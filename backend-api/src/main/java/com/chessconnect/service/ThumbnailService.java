@@ -4,6 +4,7 @@ import com.chessconnect.model.Lesson;
 import com.chessconnect.repository.LessonRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -14,6 +15,13 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -24,16 +32,28 @@ public class ThumbnailService {
     private static final String THUMBNAIL_DIR = "/app/uploads/thumbnails";
     private static final String THUMBNAIL_TIME = "00:00:30"; // Extract frame at 30 seconds
     private static final int DOWNLOAD_TIMEOUT = 120000; // 2 minutes for download
+    // Upper bound on bytes piped into FFmpeg when streaming from the CDN. Concatenated
+    // recordings are written with +faststart, so the moov atom and the frame at THUMBNAIL_TIME
+    // sit within the first few MB. Raw Jibri uploads keep the moov atom at the end: their head
+    // cannot be decoded and the full file is downloaded instead.
+    private static final long MAX_STREAM_BYTES = 64L * 1024 * 1024;
+    // Backfill tasks held by the thumbnail executor at once; the other lessons wait in memory
+    private static final int BACKFILL_WORKERS = 2;
+    // Thumbnail widths rendered from the extracted frame; the first one is the primary thumbnail
+    private static final int[] THUMBNAIL_WIDTHS = {480, 240};
 
     @Value("${app.base-url:http://localhost:8282}")
     private String baseUrl;
 
     private final LessonRepository lessonRepository;
     private final BunnyStorageService bunnyStorageService;
+    private final Executor thumbnailTaskExecutor;
 
-    public ThumbnailService(LessonRepository lessonRepository, BunnyStorageService bunnyStorageService) {
+    public ThumbnailService(LessonRepository lessonRepository, BunnyStorageService bunnyStorageService,
+                            @Qualifier("thumbnailTaskExecutor") Executor thumbnailTaskExecutor) {
         this.lessonRepository = lessonRepository;
         this.bunnyStorageService = bunnyStorageService;
+        this.thumbnailTaskExecutor = thumbnailTaskExecutor;
         // Ensure thumbnail directory exists
         try {
             Files.createDirectories(Paths.get(THUMBNAIL_DIR));
@@ -41,13 +61,17 @@ public class ThumbnailService {
             log.error("Failed to create thumbnail directory", e);
         }
     }
-
     /**
      * Generate a thumbnail for a lesson's recording asynchronously.
      * Supports both local files and remote URLs (Bunny CDN).
      */
-    @Async
+    @Async("thumbnailTaskExecutor")
     public void generateThumbnailAsync(Long lessonId) {
+        generateThumbnail(lessonId);
+    }
+
+    private void generateThumbnail(Long lessonId) {
+        Path framePath = null;
         try {
             Lesson lesson = lessonRepository.findById(lessonId).orElse(null);
             if (lesson == null || lesson.getRecordingUrl() == null) {
@@ -62,8 +86,7 @@ public class ThumbnailService {
             }
 
             String recordingUrl = lesson.getRecordingUrl();
-            String thumbnailFilename = "thumbnail_" + lessonId + ".jpg";
-            Path thumbnailPath = Paths.get(THUMBNAIL_DIR, thumbnailFilename);
+            framePath = Files.createTempFile("frame_" + lessonId + "_", ".png");
 
             log.info("Generating thumbnail for lesson {} from {}", lessonId, recordingUrl);
 
@@ -71,44 +94,39 @@ public class ThumbnailService {
 
             // Check if it's a remote URL or local file
             if (recordingUrl.startsWith("http://") || recordingUrl.startsWith("https://")) {
-                // Remote URL - FFmpeg can handle it directly for some URLs
-                // For Bunny CDN, we may need to download first
-                if (recordingUrl.contains(".b-cdn.net") || recordingUrl.contains("bunnycdn")) {
-                    // Bunny CDN - try direct FFmpeg access first
-                    success = extractThumbnailFromUrl(recordingUrl, thumbnailPath.toString());
+                // Remote URL - FFmpeg seeks with HTTP range requests on its own
+                success = extractFrameFromUrl(recordingUrl, framePath);
 
+                if (!success && (recordingUrl.contains(".b-cdn.net") || recordingUrl.contains("bunnycdn"))) {
+                    // If FFmpeg can't access the CDN directly, pipe the head of the file into it
+                    log.info("Direct FFmpeg access failed, streaming video head for lesson {}", lessonId);
+                    success = streamAndExtractFrame(recordingUrl, framePath, lessonId);
                     if (!success) {
-                        // If FFmpeg can't access directly, download and process
-                        log.info("Direct FFmpeg access failed, downloading video for lesson {}", lessonId);
-                        success = downloadAndExtractThumbnail(recordingUrl, thumbnailPath.toString(), lessonId);
+                        // Not a faststart file: the index is at the end, so FFmpeg needs all of it
+                        log.info("Video head not decodable, downloading full recording for lesson {}", lessonId);
+                        success = downloadAndExtractFrame(recordingUrl, framePath, lessonId);
                     }
-                } else {
-                    // Other URLs - try direct access
-                    success = extractThumbnailFromUrl(recordingUrl, thumbnailPath.toString());
                 }
             } else {
                 // Local file path
-                success = extractThumbnailFromFile(recordingUrl, thumbnailPath.toString());
+                success = extractFrameFromFile(recordingUrl, framePath);
             }
 
-            if (success && Files.exists(thumbnailPath)) {
-                // Upload thumbnail to Bunny Storage if configured
-                String thumbnailUrl = uploadThumbnailToCdn(thumbnailPath, thumbnailFilename);
-
-                if (thumbnailUrl == null) {
-                    // Fallback to local serving
-                    thumbnailUrl = "/api/uploads/thumbnails/" + thumbnailFilename;
+            if (success) {
+                String thumbnailUrl = publishThumbnails(lessonId, framePath);
+                if (thumbnailUrl != null) {
+                    lesson.setThumbnailUrl(thumbnailUrl);
+                    lessonRepository.save(lesson);
+                    log.info("Thumbnail generated successfully for lesson {}: {}", lessonId, thumbnailUrl);
+                    return;
                 }
-
-                lesson.setThumbnailUrl(thumbnailUrl);
-                lessonRepository.save(lesson);
-                log.info("Thumbnail generated successfully for lesson {}: {}", lessonId, thumbnailUrl);
-            } else {
-                log.warn("Failed to generate thumbnail for lesson {}", lessonId);
             }
+            log.warn("Failed to generate thumbnail for lesson {}", lessonId);
 
         } catch (Exception e) {
             log.error("Error generating thumbnail for lesson " + lessonId, e);
+        } finally {
+            deleteQuietly(framePath);
         }
     }
 
@@ -116,22 +134,20 @@ public class ThumbnailService {
      * Generate thumbnail from a local file.
      */
     public boolean generateThumbnailFromLocalFile(Long lessonId, File videoFile) {
+        Path framePath = null;
         try {
             Lesson lesson = lessonRepository.findById(lessonId).orElse(null);
             if (lesson == null) {
                 return false;
             }
 
-            String thumbnailFilename = "thumbnail_" + lessonId + ".jpg";
-            Path thumbnailPath = Paths.get(THUMBNAIL_DIR, thumbnailFilename);
-
-            boolean success = extractThumbnailFromFile(videoFile.getAbsolutePath(), thumbnailPath.toString());
-
-            if (success && Files.exists(thumbnailPath)) {
-                String thumbnailUrl = uploadThumbnailToCdn(thumbnailPath, thumbnailFilename);
+            framePath = Files.createTempFile("frame_" + lessonId + "_", ".png");
+            boolean success = extractFrameFromFile(videoFile.getAbsolutePath(), framePath);
 
+            if (success) {
+                String thumbnailUrl = publishThumbnails(lessonId, framePath);
                 if (thumbnailUrl == null) {
-                    thumbnailUrl = "/api/uploads/thumbnails/" + thumbnailFilename;
+                    return false;
                 }
 
                 lesson.setThumbnailUrl(thumbnailUrl);
@@ -143,124 +159,264 @@ public class ThumbnailService {
         } catch (Exception e) {
             log.error("Error generating thumbnail from local file for lesson " + lessonId, e);
             return false;
+        } finally {
+            deleteQuietly(framePath);
         }
     }
 
     /**
-     * Extract thumbnail directly from a URL using FFmpeg.
+     * Extract a single full-resolution frame directly from a URL using FFmpeg.
      */
-    private boolean extractThumbnailFromUrl(String videoUrl, String outputPath) {
-        try {
-            ProcessBuilder pb = new ProcessBuilder(
-                "ffmpeg",
-                "-y",
-                "-ss", THUMBNAIL_TIME,
-                "-i", videoUrl,
-                "-frames:v", "1",
-                "-vf", "scale=480:-1",
-                "-q:v", "2",
-                outputPath
-            );
-
-            pb.redirectErrorStream(true);
-            Process process = pb.start();
-
-            boolean completed = process.waitFor(90, TimeUnit.SECONDS);
-
-            if (!completed) {
-                process.destroyForcibly();
-                log.error("FFmpeg timed out for URL: {}", videoUrl);
-                return false;
-            }
-
-            return process.exitValue() == 0;
+    private boolean extractFrameFromUrl(String videoUrl, Path framePath) {
+        return runFfmpeg(90, "FFmpeg timed out for URL: " + videoUrl,
+            "ffmpeg",
+            "-y",
+            "-ss", THUMBNAIL_TIME,
+            "-i", videoUrl,
+            "-frames:v", "1",
+            framePath.toString()
+        ) && hasOutput(framePath);
+    }
 
-        } catch (Exception e) {
-            log.error("FFmpeg failed for URL: {}", videoUrl, e);
-            return false;
-        }
+    /**
+     * Extract a single full-resolution frame from a local file using FFmpeg.
+     */
+    private boolean extractFrameFromFile(String videoPath, Path framePath) {
+        return runFfmpeg(60, "FFmpeg timed out for file: " + videoPath,
+            "ffmpeg",
+            "-y",
+            "-i", videoPath,
+            "-ss", THUMBNAIL_TIME,
+            "-frames:v", "1",
+            framePath.toString()
+        ) && hasOutput(framePath);
     }
 
     /**
-     * Extract thumbnail from a local file using FFmpeg.
+     * Stream the beginning of a remote video into FFmpeg's stdin and stop as soon as
+     * the frame has been decoded. Only a ranged prefix of the file is requested,
+     * so the full recording is never downloaded.
      */
-    private boolean extractThumbnailFromFile(String videoPath, String outputPath) {
+    private boolean streamAndExtractFrame(String videoUrl, Path framePath, Long lessonId) {
+        HttpURLConnection conn = null;
+        Process process = null;
+        long bytesStreamed = 0;
         try {
             ProcessBuilder pb = new ProcessBuilder(
                 "ffmpeg",
                 "-y",
-                "-i", videoPath,
                 "-ss", THUMBNAIL_TIME,
+                "-i", "pipe:0",
                 "-frames:v", "1",
-                "-vf", "scale=480:-1",
-                "-q:v", "2",
-                outputPath
+                framePath.toString()
             );
-
             pb.redirectErrorStream(true);
-            Process process = pb.start();
+            pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+            process = pb.start();
 
-            boolean completed = process.waitFor(60, TimeUnit.SECONDS);
+            URL url = new URL(videoUrl);
+            conn = (HttpURLConnection) url.openConnection();
+            conn.setConnectTimeout(30000);
+            conn.setReadTimeout(DOWNLOAD_TIMEOUT);
+            conn.setRequestProperty("User-Agent", "ChessConnect/1.0");
+            conn.setRequestProperty("Range", "bytes=0-" + (MAX_STREAM_BYTES - 1));
+
+            OutputStream ffmpegIn = process.getOutputStream();
+            try (InputStream in = conn.getInputStream()) {
+                byte[] buffer = new byte[65536];
+                int bytesRead;
+                while (bytesStreamed < MAX_STREAM_BYTES && process.isAlive()
+                        && (bytesRead = in.read(buffer)) != -1) {
+                    ffmpegIn.write(buffer, 0, bytesRead);
+                    bytesStreamed += bytesRead;
+                }
+            } catch (IOException e) {
+                // FFmpeg closes its stdin once the frame is written - this is the expected early stop
+                log.debug("Stopped streaming video for lesson {}: {}", lessonId, e.getMessage());
+            } finally {
+                try {
+                    ffmpegIn.close();
+                } catch (IOException ignored) {
+                    // Pipe already closed by FFmpeg
+                }
+            }
 
+            boolean completed = process.waitFor(60, TimeUnit.SECONDS);
             if (!completed) {
                 process.destroyForcibly();
-                log.error("FFmpeg timed out for file: {}", videoPath);
+                log.error("FFmpeg timed out while streaming URL: {}", videoUrl);
                 return false;
             }
 
-            return process.exitValue() == 0;
+            log.info("Streamed {} KB of video for lesson {} thumbnail", bytesStreamed / 1024, lessonId);
+            // A truncated head can exit 0 without decoding a frame; the full download must then run
+            return process.exitValue() == 0 && hasOutput(framePath);
 
         } catch (Exception e) {
-            log.error("FFmpeg failed for file: {}", videoPath, e);
+            log.error("Error streaming video for thumbnail", e);
             return false;
+        } finally {
+            if (conn != null) {
+                conn.disconnect();
+            }
+            if (process != null && process.isAlive()) {
+                process.destroyForcibly();
+            }
         }
     }
 
     /**
-     * Download video and extract thumbnail.
+     * Download the whole recording to a temporary file and extract the frame from it.
+     * Used for files whose moov atom is at the end, which FFmpeg cannot read from a pipe.
      */
-    private boolean downloadAndExtractThumbnail(String videoUrl, String thumbnailPath, Long lessonId) {
+    private boolean downloadAndExtractFrame(String videoUrl, Path framePath, Long lessonId) {
         Path tempVideoPath = null;
+        HttpURLConnection conn = null;
         try {
-            // Create temp file for video
             tempVideoPath = Files.createTempFile("video_" + lessonId + "_", ".mp4");
 
-            // Download video
-            log.info("Downloading video from {} for thumbnail generation", videoUrl);
             URL url = new URL(videoUrl);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+            conn = (HttpURLConnection) url.openConnection();
             conn.setConnectTimeout(30000);
             conn.setReadTimeout(DOWNLOAD_TIMEOUT);
             conn.setRequestProperty("User-Agent", "ChessConnect/1.0");
 
-            try (InputStream in = conn.getInputStream();
-                 OutputStream out = Files.newOutputStream(tempVideoPath)) {
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                while ((bytesRead = in.read(buffer)) != -1) {
-                    out.write(buffer, 0, bytesRead);
-                }
+            try (InputStream in = conn.getInputStream()) {
+                Files.copy(in, tempVideoPath, StandardCopyOption.REPLACE_EXISTING);
             }
 
-            log.info("Video downloaded, extracting thumbnail for lesson {}", lessonId);
-
-            // Extract thumbnail from downloaded file
-            boolean success = extractThumbnailFromFile(tempVideoPath.toString(), thumbnailPath);
-
-            return success;
+            log.info("Downloaded {} KB of video for lesson {} thumbnail", Files.size(tempVideoPath) / 1024, lessonId);
+            return extractFrameFromFile(tempVideoPath.toString(), framePath);
 
         } catch (Exception e) {
             log.error("Error downloading video for thumbnail", e);
             return false;
         } finally {
-            // Clean up temp file
-            if (tempVideoPath != null) {
-                try {
-                    Files.deleteIfExists(tempVideoPath);
-                } catch (IOException e) {
-                    log.warn("Could not delete temp video file: {}", e.getMessage());
-                }
+            if (conn != null) {
+                conn.disconnect();
             }
+            deleteQuietly(tempVideoPath);
+        }
+    }
+
+    /**
+     * Render every thumbnail size (JPEG and WebP) from the extracted frame in a single
+     * FFmpeg pass, then upload them. Returns the URL of the primary JPEG thumbnail.
+     */
+    private String publishThumbnails(Long lessonId, Path framePath) {
+        List<Path> outputs = renderVariants(lessonId, framePath, true);
+        if (outputs.isEmpty()) {
+            // FFmpeg builds without libwebp reject the whole command, retry with JPEG only
+            log.info("WebP encoding unavailable, rendering JPEG thumbnails only for lesson {}", lessonId);
+            outputs = renderVariants(lessonId, framePath, false);
+        }
+        if (outputs.isEmpty()) {
+            return null;
+        }
+
+        String primaryUrl = null;
+        for (Path output : outputs) {
+            String filename = output.getFileName().toString();
+            // Upload thumbnail to Bunny Storage if configured
+            String url = uploadThumbnailToCdn(output, filename);
+            if (url == null) {
+                // Fallback to local serving
+                url = "/api/uploads/thumbnails/" + filename;
+            }
+            if (primaryUrl == null) {
+                primaryUrl = url;
+            }
+        }
+        return primaryUrl;
+    }
+
+    private List<Path> renderVariants(Long lessonId, Path framePath, boolean includeWebp) {
+        String[] formats = includeWebp ? new String[]{"jpg", "webp"} : new String[]{"jpg"};
+        int outputCount = THUMBNAIL_WIDTHS.length * formats.length;
+
+        StringBuilder filter = new StringBuilder("[0:v]split=" + outputCount);
+        for (int i = 0; i < outputCount; i++) {
+            filter.append("[s").append(i).append("]");
+        }
+        List<String> outputArgs = new ArrayList<>();
+        List<Path> outputs = new ArrayList<>();
+        int index = 0;
+        for (int w = 0; w < THUMBNAIL_WIDTHS.length; w++) {
+            for (String format : formats) {
+                filter.append(";[s").append(index).append("]scale=").append(THUMBNAIL_WIDTHS[w])
+                    .append(":-2[o").append(index).append("]");
+                Path output = Paths.get(THUMBNAIL_DIR, thumbnailFilename(lessonId, w, format));
+                outputArgs.addAll(List.of("-map", "[o" + index + "]", "-frames:v", "1"));
+                outputArgs.addAll(format.equals("jpg") ? List.of("-q:v", "2") : List.of("-quality", "80"));
+                outputArgs.add(output.toString());
+                outputs.add(output);
+                index++;
+            }
+        }
+
+        List<String> command = new ArrayList<>(List.of(
+            "ffmpeg", "-y", "-i", framePath.toString(), "-filter_complex", filter.toString()));
+        command.addAll(outputArgs);
+
+        if (!runFfmpeg(30, "FFmpeg timed out rendering thumbnails for lesson " + lessonId,
+                command.toArray(new String[0])) || !outputs.stream().allMatch(ThumbnailService::hasOutput)) {
+            outputs.forEach(this::deleteQuietly);
+            return List.of();
+        }
+        return outputs;
+    }
+
+    /**
+     * Primary thumbnail keeps its historical name; smaller widths get a size suffix.
+     */
+    private static String thumbnailFilename(Long lessonId, int widthIndex, String format) {
+        String suffix = widthIndex == 0 ? "" : "_" + THUMBNAIL_WIDTHS[widthIndex];
+        return "thumbnail_" + lessonId + suffix + "." + format;
+    }
+
+    private boolean runFfmpeg(int timeoutSeconds, String timeoutMessage, String... command) {
+        try {
+            ProcessBuilder pb = new ProcessBuilder(command);
+            pb.redirectErrorStream(true);
+            pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+            Process process = pb.start();
+
+            boolean completed = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
+
+            if (!completed) {
+                process.destroyForcibly();
+                log.error(timeoutMessage);
+                return false;
+            }
+
+            return process.exitValue() == 0;
+
+        } catch (Exception e) {
+            log.error("FFmpeg failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * FFmpeg can exit 0 without writing anything, e.g. when the seek lands past the decodable
+     * data, and the frame path is created empty beforehand: only a non-empty file is a result.
+     */
+    static boolean hasOutput(Path path) {
+        try {
+            return Files.isRegularFile(path) && Files.size(path) > 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete temp file {}: {}", path, e.getMessage());
         }
     }
 
@@ -306,6 +462,8 @@ public class ThumbnailService {
 
     /**
      * Generate thumbnails for all lessons that have recordings but no thumbnails.
+     * Work runs on the bounded thumbnail executor so that only a couple of FFmpeg
+     * processes and CDN streams run at the same time, and returns immediately.
      */
     public void generateMissingThumbnails() {
         if (!isFfmpegAvailable()) {
@@ -315,11 +473,32 @@ public class ThumbnailService {
 
         log.info("Checking for lessons with missing thumbnails...");
 
-        lessonRepository.findAll().stream()
-            .filter(l -> l.getRecordingUrl() != null && l.getThumbnailUrl() == null)
-            .forEach(lesson -> {
-                log.info("Generating missing thumbnail for lesson {}", lesson.getId());
-                generateThumbnailAsync(lesson.getId());
+        Queue<Long> pending = new ConcurrentLinkedQueue<>(lessonRepository.findLessonIdsMissingThumbnail());
+        log.info("Queueing {} missing thumbnails", pending.size());
+        for (int i = 0; i < BACKFILL_WORKERS; i++) {
+            submitNext(pending);
+        }
+    }
+
+    /**
+     * Hand the next pending lesson to the executor. Each task submits its successor when it
+     * ends, so a backfill of any size holds at most {@link #BACKFILL_WORKERS} queue slots.
+     */
+    private void submitNext(Queue<Long> pending) {
+        Long lessonId = pending.poll();
+        if (lessonId == null) {
+            return;
+        }
+        try {
+            thumbnailTaskExecutor.execute(() -> {
+                try {
+                    generateThumbnail(lessonId);
+                } finally {
+                    submitNext(pending);
+                }
             });
+        } catch (RejectedExecutionException e) {
+            log.warn("Thumbnail queue full, {} lessons left for the next backfill", pending.size() + 1);
+        }
     }
 }
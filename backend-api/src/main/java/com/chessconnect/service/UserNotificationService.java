@@ -1,5 +1,6 @@
 package com.chessconnect.service;
 
+import com.chessconnect.dto.CursorPage;
 import com.chessconnect.event.NotificationEvent;
 import com.chessconnect.event.payload.BackendNotificationPayload;
 import com.chessconnect.model.User;
@@ -21,22 +22,27 @@ public class UserNotificationService {
 
     private static final Logger log = LoggerFactory.getLogger(UserNotificationService.class);
     private static final DateTimeFormatter ISO_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
 
     private final UserNotificationRepository notificationRepository;
     private final UserRepository userRepository;
     private final ApplicationEventPublisher eventPublisher;
     private final WebPushService webPushService;
+    private final NotificationCounterService counterService;
 
     public UserNotificationService(
             UserNotificationRepository notificationRepository,
             UserRepository userRepository,
             ApplicationEventPublisher eventPublisher,
-            WebPushService webPushService
+            WebPushService webPushService,
+            NotificationCounterService counterService
     ) {
         this.notificationRepository = notificationRepository;
         this.userRepository = userRepository;
         this.eventPublisher = eventPublisher;
         this.webPushService = webPushService;
+        this.counterService = counterService;
     }
 
     /**
@@ -51,6 +57,7 @@ public class UserNotificationService {
         notification = notificationRepository.save(notification);
 
         log.info("Created notification for user {}: {} - {}", userId, title, message);
+        counterService.invalidate(userId);
 
         // Publish SSE event for real-time notification
         publishNotificationEvent(notification);
@@ -107,24 +114,36 @@ public class UserNotificationService {
     }
 
     /**
-     * Get all notifications for a user (newest first).
+     * One inbox page (newest first), continuing after {@code cursor}.
+     */
+    public CursorPage<UserNotification> getInbox(Long userId, boolean unreadOnly, String cursor, Integer limit) {
+        CursorPage.Cursor position = CursorPage.Cursor.decode(cursor);
+        int pageSize = limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        List<UserNotification> rows = notificationRepository.findInboxPage(
+                userId, unreadOnly, position.at(), position.id(), pageSize + 1);
+        return CursorPage.of(rows, pageSize,
+                n -> new CursorPage.Cursor(n.getCreatedAt(), n.getId()), n -> n);
+    }
+
+    /**
+     * Every notification of a user (newest first), for clients that still expect a plain list.
      */
     public List<UserNotification> getNotificationsForUser(Long userId) {
-        return notificationRepository.findByUserIdOrderByCreatedAtDesc(userId);
+        return notificationRepository.findInboxPage(userId, false, null, null, Integer.MAX_VALUE);
     }
 
     /**
-     * Get unread notifications for a user.
+     * Every unread notification of a user (newest first), for clients that still expect a plain list.
      */
     public List<UserNotification> getUnreadNotificationsForUser(Long userId) {
-        return notificationRepository.findByUserIdAndIsReadFalseOrderByCreatedAtDesc(userId);
+        return notificationRepository.findInboxPage(userId, true, null, null, Integer.MAX_VALUE);
     }
 
     /**
-     * Get unread count for a user.
+     * Get unread count for a user, from the in-memory counter.
      */
     public long getUnreadCount(Long userId) {
-        return notificationRepository.countByUserIdAndIsReadFalse(userId);
+        return counterService.getUnreadCount(userId);
     }
 
     /**
@@ -141,6 +160,9 @@ public class UserNotificationService {
 
         // Delete immediately when read
         notificationRepository.delete(notification);
+        if (!Boolean.TRUE.equals(notification.getIsRead())) {
+            counterService.invalidate(userId);
+        }
         log.debug("Deleted read notification {} for user {}", notificationId, userId);
     }
 
@@ -149,9 +171,9 @@ public class UserNotificationService {
      */
     @Transactional
     public void markAllAsRead(Long userId) {
-        List<UserNotification> notifications = notificationRepository.findByUserIdAndIsReadFalseOrderByCreatedAtDesc(userId);
-        notificationRepository.deleteAll(notifications);
-        log.info("Deleted {} read notifications for user {}", notifications.size(), userId);
+        int deleted = notificationRepository.deleteUnreadForUser(userId);
+        counterService.invalidate(userId);
+        log.info("Deleted {} read notifications for user {}", deleted, userId);
     }
 
     /**
@@ -167,6 +189,9 @@ public class UserNotificationService {
         }
 
         notificationRepository.delete(notification);
+        if (!Boolean.TRUE.equals(notification.getIsRead())) {
+            counterService.invalidate(userId);
+        }
     }
 
     // ============= Convenience methods for common notifications =============
@@ -0,0 +1,169 @@
+package com.chessconnect.service;
+
+import com.chessconnect.repository.VideoWatchProgressRepository;
+import com.chessconnect.scheduler.ScheduledJobRunner;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind store for video watch progress.
+ *
+ * The player reports its position every few seconds. Updates land in memory
+ * (latest position wins) and are flushed to the database in one batched upsert
+ * on a fixed delay and on shutdown. Memory only holds writes not yet flushed:
+ * once an entry reaches the database it is dropped, so reads of flushed progress
+ * go to the database and see what other nodes wrote.
+ */
+@Service
+public class VideoProgressService {
+
+    private static final Logger log = LoggerFactory.getLogger(VideoProgressService.class);
+
+    private static final long FLUSH_INTERVAL_MS = 5000;
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO video_watch_progress (user_id, lesson_id, watch_position, duration, completed, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?) " +
+        "ON CONFLICT (user_id, lesson_id) DO UPDATE SET " +
+        "watch_position = EXCLUDED.watch_position, " +
+        "duration = COALESCE(EXCLUDED.duration, video_watch_progress.duration), " +
+        "completed = EXCLUDED.completed, " +
+        "updated_at = EXCLUDED.updated_at";
+
+    public record ProgressKey(Long userId, Long lessonId) {}
+
+    /**
+     * Immutable progress snapshot. {@code version} increases on every update so a
+     * flush only drops an entry if it was not overwritten in the meantime.
+     */
+    public record Progress(double watchPosition, Double duration, boolean completed,
+                           LocalDateTime updatedAt, long version) {}
+
+    private final Map<ProgressKey, Progress> entries = new ConcurrentHashMap<>();
+
+    private final VideoWatchProgressRepository progressRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ScheduledJobRunner jobRunner;
+
+    public VideoProgressService(VideoWatchProgressRepository progressRepository, JdbcTemplate jdbcTemplate,
+                                MeterRegistry meterRegistry,
+                                ScheduledJobRunner jobRunner) {
+        this.progressRepository = progressRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobRunner = jobRunner;
+
+        Gauge.builder("video_progress_pending_writes", entries, Map::size)
+                .description("Video progress updates waiting to be flushed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record the latest position. Never touches the database.
+     */
+    public Progress save(Long userId, Long lessonId, double watchPosition, Double duration, boolean completed) {
+        return entries.compute(new ProgressKey(userId, lessonId), (key, previous) -> new Progress(
+            watchPosition,
+            duration != null ? duration : (previous != null ? previous.duration() : null),
+            completed,
+            LocalDateTime.now(),
+            previous != null ? previous.version() + 1 : 1
+        ));
+    }
+
+    /**
+     * Latest known progress: this node's unflushed write if any, otherwise the database.
+     */
+    public Optional<Progress> get(Long userId, Long lessonId) {
+        Progress pending = entries.get(new ProgressKey(userId, lessonId));
+        if (pending != null) {
+            return Optional.of(pending);
+        }
+        return progressRepository.findByUserIdAndLessonId(userId, lessonId)
+            .map(p -> new Progress(p.getWatchPosition(), p.getDuration(), p.getCompleted(), p.getUpdatedAt(), 0));
+    }
+
+    /**
+     * Takes the flush lock, so a flush already holding this entry can't write it back
+     * after the row is deleted.
+     */
+    public synchronized void delete(Long userId, Long lessonId) {
+        entries.remove(new ProgressKey(userId, lessonId));
+        progressRepository.deleteByUserIdAndLessonId(userId, lessonId);
+    }
+
+    @Scheduled(fixedDelay = FLUSH_INTERVAL_MS)
+    public synchronized void flush() {
+        jobRunner.runLocal("VideoProgressService.flush", () -> {
+            List<Map.Entry<ProgressKey, Progress>> dirty = new ArrayList<>();
+            for (Map.Entry<ProgressKey, Progress> entry : entries.entrySet()) {
+                dirty.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+            if (dirty.isEmpty()) {
+                return;
+            }
+
+            try {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, dirty, dirty.size(), VideoProgressService::bindUpsert);
+            } catch (Exception e) {
+                // A bad row (e.g. lesson or user deleted meanwhile) fails the whole batch: retry one by one
+                log.warn("Batched progress flush failed ({}), retrying {} rows individually", e.getMessage(), dirty.size());
+                dirty.removeIf(entry -> !flushSingle(entry));
+            }
+
+            for (Map.Entry<ProgressKey, Progress> entry : dirty) {
+                // Only drop it if nothing newer was written since the snapshot
+                entries.remove(entry.getKey(), entry.getValue());
+            }
+            log.debug("Flushed {} video progress updates", dirty.size());
+        });
+    }
+
+    private boolean flushSingle(Map.Entry<ProgressKey, Progress> entry) {
+        try {
+            jdbcTemplate.update(UPSERT_SQL, ps -> bindUpsert(ps, entry));
+            return true;
+        } catch (Exception e) {
+            log.warn("Dropping video progress for user {} lesson {}: {}",
+                entry.getKey().userId(), entry.getKey().lessonId(), e.getMessage());
+            entries.remove(entry.getKey(), entry.getValue());
+            return false;
+        }
+    }
+
+    private static void bindUpsert(PreparedStatement ps, Map.Entry<ProgressKey, Progress> entry) throws SQLException {
+        Progress progress = entry.getValue();
+        ps.setLong(1, entry.getKey().userId());
+        ps.setLong(2, entry.getKey().lessonId());
+        ps.setDouble(3, progress.watchPosition());
+        if (progress.duration() != null) {
+            ps.setDouble(4, progress.duration());
+        } else {
+            ps.setNull(4, Types.DOUBLE);
+        }
+        ps.setBoolean(5, progress.completed());
+        ps.setTimestamp(6, Timestamp.valueOf(progress.updatedAt()));
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing pending video progress before shutdown");
+        flush();
+    }
+}
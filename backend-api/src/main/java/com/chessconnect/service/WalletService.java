@@ -11,26 +11,85 @@ import com.chessconnect.model.enums.UserRole;
 import com.chessconnect.repository.CreditTransactionRepository;
 import com.chessconnect.repository.StudentWalletRepository;
 import com.chessconnect.repository.UserRepository;
+import com.chessconnect.scheduler.ScheduledJobRunner;
 import com.stripe.exception.StripeException;
 import com.stripe.model.checkout.Session;
 import com.stripe.param.checkout.SessionCreateParams;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
-
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Student credit wallets.
+ *
+ * credit_transactions is the ledger: every movement is appended there, and a wallet's
+ * balance is the signed sum of its user's rows. student_wallets keeps that sum
+ * materialised so reads stay a single row. Balances are only ever changed by relative
+ * UPDATEs in SQL, never by saving a loaded entity, so concurrent bookings and refunds
+ * don't overwrite each other; a deduction is a conditional UPDATE that only matches when
+ * the balance covers it. {@link #reconcileLedger()} checks every night that the two agree.
+ */
 @Service
 public class WalletService {
 
     private static final Logger log = LoggerFactory.getLogger(WalletService.class);
 
+    // Row-level lock only for the duration of the statement's transaction, no SELECT ... FOR UPDATE first
+    private static final String DEDUCT_SQL =
+        "UPDATE student_wallets SET balance_cents = balance_cents - ?, total_used_cents = total_used_cents + ?, " +
+        "updated_at = ? WHERE user_id = ? AND balance_cents >= ? RETURNING balance_cents";
+
+    private static final String TOP_UP_SQL =
+        "UPDATE student_wallets SET balance_cents = balance_cents + ?, total_top_ups_cents = total_top_ups_cents + ?, " +
+        "updated_at = ? WHERE user_id = ? " +
+        "RETURNING id, balance_cents, total_top_ups_cents, total_used_cents, total_refunded_cents";
+
+    private static final String REFUND_SQL =
+        "UPDATE student_wallets SET balance_cents = balance_cents + ?, total_refunded_cents = total_refunded_cents + ?, " +
+        "updated_at = ? WHERE user_id = ? RETURNING balance_cents";
+
+    // Returns the balance as it was before clearing
+    private static final String CLEAR_SQL =
+        "UPDATE student_wallets w SET balance_cents = 0, updated_at = ? " +
+        "FROM (SELECT id, balance_cents FROM student_wallets WHERE user_id = ? FOR UPDATE) previous " +
+        "WHERE w.id = previous.id AND previous.balance_cents > 0 RETURNING previous.balance_cents";
+
+    // Signed amount of a ledger row
+    private static final String LEDGER_AMOUNT =
+        "CASE WHEN t.transaction_type IN ('TOPUP', 'REFUND') THEN t.amount_cents ELSE -t.amount_cents END";
+
+    private static final String LEDGER_MISMATCH_SQL =
+        "SELECT w.user_id, w.balance_cents, COALESCE(SUM(" + LEDGER_AMOUNT + "), 0) AS ledger_cents " +
+        "FROM student_wallets w LEFT JOIN credit_transactions t ON t.user_id = w.user_id " +
+        "GROUP BY w.user_id, w.balance_cents " +
+        "HAVING w.balance_cents <> COALESCE(SUM(" + LEDGER_AMOUNT + "), 0) " +
+        "ORDER BY w.user_id";
+
+    /**
+     * A wallet whose materialised balance differs from its ledger.
+     */
+    public record LedgerMismatch(long userId, int balanceCents, long ledgerCents) {}
+
     private final StudentWalletRepository walletRepository;
     private final CreditTransactionRepository transactionRepository;
     private final UserRepository userRepository;
     private final StripeService stripeService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ScheduledJobRunner jobRunner;
+    private final AtomicLong ledgerMismatches = new AtomicLong();
 
     @Value("${app.frontend-url:http://localhost:4200}")
     private String frontendUrl;
@@ -39,12 +98,20 @@ public class WalletService {
             StudentWalletRepository walletRepository,
             CreditTransactionRepository transactionRepository,
             UserRepository userRepository,
-            StripeService stripeService
+            StripeService stripeService,
+            JdbcTemplate jdbcTemplate,
+            ScheduledJobRunner jobRunner,
+            MeterRegistry meterRegistry
     ) {
         this.walletRepository = walletRepository;
         this.transactionRepository = transactionRepository;
         this.userRepository = userRepository;
         this.stripeService = stripeService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobRunner = jobRunner;
+        Gauge.builder("wallet_ledger_mismatches", ledgerMismatches, AtomicLong::get)
+                .description("Wallets whose balance differed from their ledger at the last reconciliation")
+                .register(meterRegistry);
     }
 
     /**
@@ -162,48 +229,36 @@ public class WalletService {
             return getWallet(userId);
         }
 
-        StudentWallet wallet = getOrCreateWallet(userId);
-
-        wallet.addCredit(amountCents);
-        walletRepository.save(wallet);
+        WalletResponse wallet = topUp(userId, amountCents);
+        if (wallet == null) {
+            getOrCreateWallet(userId);
+            wallet = topUp(userId, amountCents);
+        }
 
         // Record transaction
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        CreditTransaction transaction = new CreditTransaction();
-        transaction.setUser(user);
-        transaction.setTransactionType(CreditTransactionType.TOPUP);
-        transaction.setAmountCents(amountCents);
+        CreditTransaction transaction = ledgerEntry(userId, null, CreditTransactionType.TOPUP, amountCents, "Recharge de crédit");
         transaction.setStripePaymentIntentId(stripePaymentIntentId);
-        transaction.setDescription("Recharge de crédit");
         transactionRepository.save(transaction);
 
         log.info("Top-up confirmed for user {}: {} cents. New balance: {} cents",
-                userId, amountCents, wallet.getBalanceCents());
+                userId, amountCents, wallet.balanceCents());
 
-        return WalletResponse.from(wallet);
+        return wallet;
     }
 
     /**
-     * Atomically check balance and deduct credit under pessimistic lock.
-     * Prevents race conditions (TOCTOU) on concurrent booking requests.
+     * Atomically check balance and deduct credit.
+     * The conditional UPDATE only matches when the balance covers the amount, so concurrent
+     * bookings can't overdraw the wallet (no TOCTOU) and never wait on a SELECT ... FOR UPDATE.
+     * The ledger entry is written by {@link #linkDeductionToLesson} once the lesson exists.
      */
     @Transactional
     public void checkAndDeductCredit(Long userId, int amountCents) {
-        StudentWallet wallet = walletRepository.findByUserIdForUpdate(userId)
-                .orElseGet(() -> getOrCreateWallet(userId));
-
-        if (!wallet.hasEnoughCredit(amountCents)) {
-            throw new IllegalArgumentException("Crédit insuffisant. Solde actuel: " +
-                    String.format("%.2f€", wallet.getBalanceCents() / 100.0));
-        }
-
-        wallet.deductCredit(amountCents);
-        walletRepository.save(wallet);
+        int balance = deduct(userId, amountCents, () -> new IllegalArgumentException("Crédit insuffisant. Solde actuel: " +
+                String.format("%.2f€", getBalance(userId) / 100.0)));
 
         log.info("Credit reserved for user {}: {} cents. New balance: {} cents",
-                userId, amountCents, wallet.getBalanceCents());
+                userId, amountCents, balance);
     }
 
     /**
@@ -211,16 +266,8 @@ public class WalletService {
      */
     @Transactional
     public void linkDeductionToLesson(Long userId, Lesson lesson, int amountCents) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        CreditTransaction transaction = new CreditTransaction();
-        transaction.setUser(user);
-        transaction.setLesson(lesson);
-        transaction.setTransactionType(CreditTransactionType.LESSON_PAYMENT);
-        transaction.setAmountCents(amountCents);
-        transaction.setDescription("Cours avec " + lesson.getTeacher().getFullName());
-        transactionRepository.save(transaction);
+        transactionRepository.save(ledgerEntry(userId, lesson, CreditTransactionType.LESSON_PAYMENT, amountCents,
+                "Cours avec " + lesson.getTeacher().getFullName()));
     }
 
     /**
@@ -228,31 +275,14 @@ public class WalletService {
      */
     @Transactional
     public void deductCreditForLesson(Long userId, Lesson lesson, int amountCents) {
-        // Use pessimistic lock to prevent race conditions (TOCTOU)
-        StudentWallet wallet = walletRepository.findByUserIdForUpdate(userId)
-                .orElseGet(() -> getOrCreateWallet(userId));
-
-        if (!wallet.hasEnoughCredit(amountCents)) {
-            throw new IllegalArgumentException("Insufficient credit balance");
-        }
-
-        wallet.deductCredit(amountCents);
-        walletRepository.save(wallet);
+        int balance = deduct(userId, amountCents, () -> new IllegalArgumentException("Insufficient credit balance"));
 
         // Record transaction
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        CreditTransaction transaction = new CreditTransaction();
-        transaction.setUser(user);
-        transaction.setLesson(lesson);
-        transaction.setTransactionType(CreditTransactionType.LESSON_PAYMENT);
-        transaction.setAmountCents(amountCents);
-        transaction.setDescription("Cours avec " + lesson.getTeacher().getFullName());
-        transactionRepository.save(transaction);
+        transactionRepository.save(ledgerEntry(userId, lesson, CreditTransactionType.LESSON_PAYMENT, amountCents,
+                "Cours avec " + lesson.getTeacher().getFullName()));
 
         log.info("Credit deducted for user {} for lesson {}: {} cents. New balance: {} cents",
-                userId, lesson.getId(), amountCents, wallet.getBalanceCents());
+                userId, lesson.getId(), amountCents, balance);
     }
 
     /**
@@ -267,24 +297,18 @@ public class WalletService {
             return;
         }
 
-        StudentWallet wallet = getOrCreateWallet(userId);
-        wallet.refundCredit(refundAmount);
-        walletRepository.save(wallet);
+        Integer balance = refund(userId, refundAmount);
+        if (balance == null) {
+            getOrCreateWallet(userId);
+            balance = refund(userId, refundAmount);
+        }
 
         // Record transaction
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        CreditTransaction transaction = new CreditTransaction();
-        transaction.setUser(user);
-        transaction.setLesson(lesson);
-        transaction.setTransactionType(CreditTransactionType.REFUND);
-        transaction.setAmountCents(refundAmount);
-        transaction.setDescription(String.format("Remboursement cours annulé (%d%%)", refundPercentage));
-        transactionRepository.save(transaction);
+        transactionRepository.save(ledgerEntry(userId, lesson, CreditTransactionType.REFUND, refundAmount,
+                String.format("Remboursement cours annulé (%d%%)", refundPercentage)));
 
         log.info("Credit refunded for user {} for lesson {}: {} cents ({}%). New balance: {} cents",
-                userId, lesson.getId(), refundAmount, refundPercentage, wallet.getBalanceCents());
+                userId, lesson.getId(), refundAmount, refundPercentage, balance);
     }
 
     /**
@@ -294,31 +318,107 @@ public class WalletService {
      */
     @Transactional
     public int adminRefundWallet(Long userId, String reason) {
-        StudentWallet wallet = walletRepository.findByUserId(userId).orElse(null);
-
-        if (wallet == null || wallet.getBalanceCents() <= 0) {
+        List<Integer> cleared = jdbcTemplate.queryForList(CLEAR_SQL, Integer.class,
+                Timestamp.valueOf(LocalDateTime.now()), userId);
+        if (cleared.isEmpty()) {
             return 0;
         }
 
-        int refundAmount = wallet.getBalanceCents();
+        int refundAmount = cleared.get(0);
+        transactionRepository.save(ledgerEntry(userId, null, CreditTransactionType.ADMIN_REFUND, refundAmount,
+                "Remboursement admin" + (reason != null && !reason.isBlank() ? ": " + reason : "")));
 
-        // Record transaction before clearing
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        log.info("Admin refund for user {}: {} cents cleared. Reason: {}", userId, refundAmount, reason);
 
-        CreditTransaction transaction = new CreditTransaction();
-        transaction.setUser(user);
-        transaction.setTransactionType(CreditTransactionType.ADMIN_REFUND);
-        transaction.setAmountCents(refundAmount);
-        transaction.setDescription("Remboursement admin" + (reason != null && !reason.isBlank() ? ": " + reason : ""));
-        transactionRepository.save(transaction);
+        return refundAmount;
+    }
 
-        // Clear wallet balance
-        wallet.setBalanceCents(0);
-        walletRepository.save(wallet);
+    /**
+     * Nightly check that every wallet's balance equals the sum of its ledger. Mismatches
+     * are logged and exported as a gauge, not corrected: the ledger row of a deduction is
+     * written separately by the booking flow, so a mismatch needs a human look.
+     */
+    @Scheduled(cron = "0 30 4 * * *")
+    public void reconcileLedger() {
+        jobRunner.runLocked("WalletService.reconcileLedger", Duration.ofMinutes(30), () -> {
+            List<LedgerMismatch> mismatches = findLedgerMismatches();
+            ledgerMismatches.set(mismatches.size());
+            if (mismatches.isEmpty()) {
+                log.info("Wallet ledger reconciliation: all balances match their ledger");
+                return;
+            }
+            mismatches.forEach(mismatch -> log.warn("Wallet of user {} holds {} cents but its ledger sums to {} cents",
+                    mismatch.userId(), mismatch.balanceCents(), mismatch.ledgerCents()));
+            log.warn("Wallet ledger reconciliation: {} wallets differ from their ledger", mismatches.size());
+        });
+    }
 
-        log.info("Admin refund for user {}: {} cents cleared. Reason: {}", userId, refundAmount, reason);
+    /**
+     * Wallets whose balance differs from the signed sum of their ledger, in one grouped query.
+     */
+    public List<LedgerMismatch> findLedgerMismatches() {
+        return jdbcTemplate.query(LEDGER_MISMATCH_SQL, (rs, i) -> new LedgerMismatch(
+                rs.getLong("user_id"),
+                rs.getInt("balance_cents"),
+                rs.getLong("ledger_cents")));
+    }
 
-        return refundAmount;
+    /**
+     * Deduct from the wallet if it covers the amount. A wallet that doesn't exist yet is
+     * created first, as an empty wallet only covers a zero amount.
+     *
+     * @return the new balance
+     */
+    private int deduct(Long userId, int amountCents, Supplier<IllegalArgumentException> insufficient) {
+        Integer balance = conditionalDeduct(userId, amountCents);
+        if (balance == null && walletRepository.findByUserId(userId).isEmpty()) {
+            getOrCreateWallet(userId);
+            balance = conditionalDeduct(userId, amountCents);
+        }
+        if (balance == null) {
+            throw insufficient.get();
+        }
+        return balance;
+    }
+
+    private Integer conditionalDeduct(Long userId, int amountCents) {
+        List<Integer> balance = jdbcTemplate.queryForList(DEDUCT_SQL, Integer.class,
+                amountCents, amountCents, Timestamp.valueOf(LocalDateTime.now()), userId, amountCents);
+        return balance.isEmpty() ? null : balance.get(0);
+    }
+
+    /**
+     * @return the wallet after the top-up, or null if the user has no wallet
+     */
+    private WalletResponse topUp(Long userId, int amountCents) {
+        List<WalletResponse> wallet = jdbcTemplate.query(TOP_UP_SQL, (rs, i) -> new WalletResponse(
+                rs.getLong("id"),
+                rs.getInt("balance_cents"),
+                rs.getInt("total_top_ups_cents"),
+                rs.getInt("total_used_cents"),
+                rs.getInt("total_refunded_cents")
+            ), amountCents, amountCents, Timestamp.valueOf(LocalDateTime.now()), userId);
+        return wallet.isEmpty() ? null : wallet.get(0);
+    }
+
+    /**
+     * @return the new balance, or null if the user has no wallet
+     */
+    private Integer refund(Long userId, int amountCents) {
+        List<Integer> balance = jdbcTemplate.queryForList(REFUND_SQL, Integer.class,
+                amountCents, amountCents, Timestamp.valueOf(LocalDateTime.now()), userId);
+        return balance.isEmpty() ? null : balance.get(0);
+    }
+
+    private CreditTransaction ledgerEntry(Long userId, Lesson lesson, CreditTransactionType type,
+                                          int amountCents, String description) {
+        CreditTransaction transaction = new CreditTransaction();
+        // Only called right after the user's wallet was updated, so the user exists
+        transaction.setUser(userRepository.getReferenceById(userId));
+        transaction.setLesson(lesson);
+        transaction.setTransactionType(type);
+        transaction.setAmountCents(amountCents);
+        transaction.setDescription(description);
+        return transaction;
     }
 }
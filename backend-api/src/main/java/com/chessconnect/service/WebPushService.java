@@ -4,11 +4,6 @@ import com.chessconnect.model.PushSubscription;
 import com.chessconnect.model.User;
 import com.chessconnect.repository.PushSubscriptionRepository;
 import com.chessconnect.repository.UserRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import nl.martijndwars.webpush.Notification;
-import nl.martijndwars.webpush.PushService;
-import nl.martijndwars.webpush.Subscription;
-import org.apache.http.HttpResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Async;
@@ -16,9 +11,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -30,24 +23,18 @@ public class WebPushService {
     private static final Logger log = LoggerFactory.getLogger(WebPushService.class);
     private static final String DEFAULT_ICON = "/assets/icons/icon-192x192.png";
 
-    private final PushService pushService;
     private final PushSubscriptionRepository subscriptionRepository;
     private final UserRepository userRepository;
-    private final SseConnectionManager sseConnectionManager;
-    private final ObjectMapper objectMapper;
+    private final PushDispatcher pushDispatcher;
 
     public WebPushService(
-            PushService pushService,
             PushSubscriptionRepository subscriptionRepository,
             UserRepository userRepository,
-            SseConnectionManager sseConnectionManager,
-            ObjectMapper objectMapper
+            PushDispatcher pushDispatcher
     ) {
-        this.pushService = pushService;
         this.subscriptionRepository = subscriptionRepository;
         this.userRepository = userRepository;
-        this.sseConnectionManager = sseConnectionManager;
-        this.objectMapper = objectMapper;
+        this.pushDispatcher = pushDispatcher;
     }
 
     /**
@@ -138,60 +125,14 @@ public class WebPushService {
     @Async
     public void sendToUser(Long userId, String title, String body, String link, String icon, boolean forceSend) {
         try {
-            // Check if user has push notifications enabled
-            User user = userRepository.findById(userId).orElse(null);
-            if (user == null) {
-                log.warn("Cannot send push notification: user {} not found", userId);
-                return;
-            }
-
-            if (Boolean.FALSE.equals(user.getPushNotificationsEnabled())) {
-                log.debug("Push notification skipped for user {}: notifications disabled", userId);
-                return;
-            }
-
-            // Skip if user is connected via SSE (they'll get real-time notification)
-            if (!forceSend && sseConnectionManager.hasConnection(userId)) {
-                log.debug("Push notification skipped for user {}: connected via SSE", userId);
-                return;
-            }
-
-            // Get all subscriptions for the user
-            List<PushSubscription> subscriptions = subscriptionRepository.findByUserId(userId);
-            if (subscriptions.isEmpty()) {
-                log.debug("No push subscriptions for user {}", userId);
-                return;
-            }
-
-            // Prepare payload
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("title", title);
-            payload.put("body", body);
-            payload.put("link", link);
-            payload.put("icon", icon != null ? icon : DEFAULT_ICON);
-
-            String payloadJson = objectMapper.writeValueAsString(payload);
-
-            // Send to all subscriptions
-            for (PushSubscription sub : subscriptions) {
-                try {
-                    sendPushNotification(sub, payloadJson);
-                    // Update last used timestamp
-                    sub.setLastUsedAt(LocalDateTime.now());
-                    subscriptionRepository.save(sub);
-                } catch (Exception e) {
-                    handlePushError(sub, e);
-                }
-            }
-
-            log.info("Sent push notification to user {} ({} devices)", userId, subscriptions.size());
+            pushDispatcher.multicast(List.of(userId), new PushDispatcher.PushMessage(title, body, link, icon), forceSend);
         } catch (Exception e) {
             log.error("Failed to send push notification to user {}: {}", userId, e.getMessage());
         }
     }
 
     /**
-     * Send push notifications to multiple users.
+     * Send push notifications to multiple users as a single multicast.
      *
      * @param userIds User IDs
      * @param title   Notification title
@@ -200,41 +141,10 @@ public class WebPushService {
      */
     @Async
     public void sendToUsers(List<Long> userIds, String title, String body, String link) {
-        for (Long userId : userIds) {
-            sendToUser(userId, title, body, link);
-        }
-    }
-
-    /**
-     * Send a raw push notification to a subscription.
-     */
-    private void sendPushNotification(PushSubscription sub, String payload) throws Exception {
-        Subscription subscription = new Subscription(
-                sub.getEndpoint(),
-                new Subscription.Keys(sub.getP256dh(), sub.getAuth())
-        );
-
-        Notification notification = new Notification(subscription, payload);
-        HttpResponse response = pushService.send(notification);
-
-        int statusCode = response.getStatusLine().getStatusCode();
-        if (statusCode >= 400) {
-            throw new RuntimeException("Push service returned status " + statusCode);
-        }
-    }
-
-    /**
-     * Handle errors when sending push notifications.
-     * Removes expired/invalid subscriptions.
-     */
-    private void handlePushError(PushSubscription sub, Exception e) {
-        String message = e.getMessage();
-        log.warn("Failed to send push to subscription {}: {}", sub.getId(), message);
-
-        // If the subscription is invalid (410 Gone or 404 Not Found), remove it
-        if (message != null && (message.contains("410") || message.contains("404"))) {
-            log.info("Removing expired push subscription {}", sub.getId());
-            subscriptionRepository.delete(sub);
+        try {
+            pushDispatcher.multicast(userIds, new PushDispatcher.PushMessage(title, body, link), false);
+        } catch (Exception e) {
+            log.error("Failed to send push notification to {} users: {}", userIds.size(), e.getMessage());
         }
     }
 
@@ -0,0 +1,40 @@
+-- Video library read path: trigram search on names and keyset pagination over recordings
+
+-- Trigram matching lets LIKE '%term%' use an index instead of scanning every user.
+-- CREATE EXTENSION needs a superuser or the database owner (pg_trgm is a trusted extension
+-- since PostgreSQL 13). A restricted migration role only gets a warning: search still works,
+-- without the index, until an administrator runs CREATE EXTENSION pg_trgm and
+-- creates idx_users_full_name_trgm below by hand.
+DO $$
+BEGIN
+    CREATE EXTENSION IF NOT EXISTS pg_trgm;
+EXCEPTION WHEN insufficient_privilege THEN
+    RAISE WARNING 'pg_trgm could not be installed (%), library name search will not be indexed', SQLERRM;
+END $$;
+
+-- Full name expression index, matched by LOWER(first_name || ' ' || last_name) in library queries
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm') THEN
+        CREATE INDEX IF NOT EXISTS idx_users_full_name_trgm
+            ON users USING gin (LOWER(first_name || ' ' || last_name) gin_trgm_ops);
+    END IF;
+END $$;
+
+-- Covering partial index for the library predicate, in keyset order (scheduled_at DESC, id DESC)
+-- Used in: admin library (all recordings)
+CREATE INDEX IF NOT EXISTS idx_lessons_library_keyset
+    ON lessons(scheduled_at DESC, id DESC)
+    INCLUDE (teacher_id, student_id)
+    WHERE status = 'COMPLETED' AND recording_url IS NOT NULL;
+
+-- Same predicate, scoped to the direct student
+-- Used in: student library
+CREATE INDEX IF NOT EXISTS idx_lessons_library_student_keyset
+    ON lessons(student_id, scheduled_at DESC, id DESC)
+    WHERE status = 'COMPLETED' AND recording_url IS NOT NULL;
+
+-- Group lesson participants looked up by student
+CREATE INDEX IF NOT EXISTS idx_lp_student_active
+    ON lesson_participants(student_id, lesson_id)
+    WHERE status = 'ACTIVE';
@@ -0,0 +1,26 @@
+-- Outbox for transactional emails
+-- Emails are written here by EmailService (in the caller's transaction when there is one)
+-- and delivered by EmailOutboxDispatcher in batches over a single SMTP connection.
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    recipient VARCHAR(255) NOT NULL,
+    subject TEXT NOT NULL,
+    template_name VARCHAR(100) NOT NULL,
+    -- Template variables as a JSON object of strings
+    variables TEXT NOT NULL,
+    -- PENDING, SENT or FAILED (gave up after the last retry)
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP
+);
+
+-- Dispatcher claim: due pending emails, oldest first
+CREATE INDEX IF NOT EXISTS idx_email_outbox_pending_due
+    ON email_outbox(next_attempt_at, id) WHERE status = 'PENDING';
+
+-- Retention cleanup of delivered emails
+CREATE INDEX IF NOT EXISTS idx_email_outbox_sent_at
+    ON email_outbox(sent_at) WHERE status = 'SENT';
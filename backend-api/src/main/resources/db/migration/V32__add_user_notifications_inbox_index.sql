@@ -0,0 +1,4 @@
+-- Keyset pagination of the notification inbox: WHERE user_id = ? AND (created_at, id) < (?, ?)
+-- ORDER BY created_at DESC, id DESC LIMIT ? becomes a single index range scan.
+CREATE INDEX IF NOT EXISTS idx_user_notifications_user_created
+    ON user_notifications(user_id, created_at DESC, id DESC);
@@ -0,0 +1,42 @@
+-- Due-time queue for the lesson lifecycle (confirmation timeout, reminder, group deadline, auto-complete).
+-- Timers are written when a lesson is booked or confirmed and claimed by LessonTimerDispatcher,
+-- so the periodic work depends on how many timers are due, not on the size of the lessons table.
+CREATE TABLE IF NOT EXISTS lesson_timers (
+    id BIGSERIAL PRIMARY KEY,
+    lesson_id BIGINT NOT NULL REFERENCES lessons(id) ON DELETE CASCADE,
+    -- CONFIRMATION_TIMEOUT, REMINDER, GROUP_DEADLINE or AUTO_COMPLETE
+    timer_type VARCHAR(30) NOT NULL,
+    -- When the timer is due; pushed forward while a node holds the claim
+    fire_at TIMESTAMP NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uq_lesson_timers_lesson_type UNIQUE (lesson_id, timer_type)
+);
+
+-- Dispatcher claim: due timers, earliest first
+CREATE INDEX IF NOT EXISTS idx_lesson_timers_fire_at ON lesson_timers(fire_at, id);
+
+-- Backfill timers for lessons that are still in flight.
+-- scheduled_at holds the API's Europe/Paris wall-clock time, so "now" is taken in that zone
+-- rather than in the database session's zone.
+INSERT INTO lesson_timers (lesson_id, timer_type, fire_at)
+SELECT id, 'CONFIRMATION_TIMEOUT', created_at + INTERVAL '24 hours'
+FROM lessons WHERE status = 'PENDING'
+ON CONFLICT DO NOTHING;
+
+INSERT INTO lesson_timers (lesson_id, timer_type, fire_at)
+SELECT id, 'GROUP_DEADLINE', scheduled_at - INTERVAL '24 hours'
+FROM lessons
+WHERE is_group_lesson = true AND group_status = 'OPEN' AND status IN ('PENDING', 'CONFIRMED')
+ON CONFLICT DO NOTHING;
+
+INSERT INTO lesson_timers (lesson_id, timer_type, fire_at)
+SELECT id, 'REMINDER', scheduled_at - INTERVAL '60 minutes'
+FROM lessons
+WHERE status = 'CONFIRMED' AND (reminder_sent IS NULL OR reminder_sent = false) AND scheduled_at > (CURRENT_TIMESTAMP AT TIME ZONE 'Europe/Paris')
+ON CONFLICT DO NOTHING;
+
+INSERT INTO lesson_timers (lesson_id, timer_type, fire_at)
+SELECT id, 'AUTO_COMPLETE', scheduled_at + duration_minutes * INTERVAL '1 minute'
+FROM lessons WHERE status = 'CONFIRMED'
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,15 @@
+-- Cluster-wide leases for scheduled jobs, one row per job.
+-- A node runs a job only if it can move locked_until into the future (see ScheduledJobRunner);
+-- the last_* columns record the latest run for the admin scheduler view.
+CREATE TABLE IF NOT EXISTS scheduler_locks (
+    name VARCHAR(100) PRIMARY KEY,
+    locked_until TIMESTAMP NOT NULL,
+    locked_at TIMESTAMP NOT NULL,
+    locked_by VARCHAR(255) NOT NULL,
+    last_started_at TIMESTAMP,
+    last_finished_at TIMESTAMP,
+    last_duration_ms BIGINT,
+    -- SUCCESS or FAILED
+    last_status VARCHAR(20),
+    last_error TEXT
+);
@@ -0,0 +1,29 @@
+-- Inbox for Stripe webhooks, keyed by Stripe's event id.
+-- The webhook endpoint only verifies the signature and stores the raw event here, so
+-- redeliveries of an event already received are ignored. StripeEventDispatcher then
+-- processes PENDING events, one at a time per customer in Stripe's creation order,
+-- retrying failures with backoff until they are marked FAILED.
+CREATE TABLE IF NOT EXISTS stripe_events (
+    event_id VARCHAR(255) PRIMARY KEY,
+    event_type VARCHAR(100) NOT NULL,
+    -- Stripe customer id, or user:<id> for events without one; NULL events are not ordered
+    customer_key VARCHAR(255),
+    payload TEXT NOT NULL,
+    -- PENDING, PROCESSED, FAILED, or SKIPPED when the event can never be applied (missing or invalid metadata)
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT,
+    stripe_created_at TIMESTAMP NOT NULL,
+    received_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    processed_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_stripe_events_pending
+    ON stripe_events (stripe_created_at, received_at, event_id) WHERE status = 'PENDING';
+
+CREATE INDEX IF NOT EXISTS idx_stripe_events_pending_customer
+    ON stripe_events (customer_key) WHERE status = 'PENDING';
+
+CREATE INDEX IF NOT EXISTS idx_stripe_events_processed
+    ON stripe_events (processed_at) WHERE status = 'PROCESSED';
@@ -0,0 +1,20 @@
+-- Local copy of each coach's Stripe Connect account status, so admin and coach pages
+-- never call the Stripe API. Written from account.updated webhooks, when an account is
+-- created or checked before a transfer, and by the StripeAccountSnapshotService
+-- reconciler for accounts that have no snapshot yet or a stale one.
+CREATE TABLE IF NOT EXISTS stripe_account_snapshots (
+    account_id VARCHAR(255) PRIMARY KEY,
+    email VARCHAR(255),
+    business_name VARCHAR(255),
+    charges_enabled BOOLEAN NOT NULL DEFAULT FALSE,
+    payouts_enabled BOOLEAN NOT NULL DEFAULT FALSE,
+    details_submitted BOOLEAN NOT NULL DEFAULT FALSE,
+    -- Comma-separated requirements.currently_due
+    currently_due TEXT,
+    -- WEBHOOK, RECONCILER or API
+    source VARCHAR(20) NOT NULL,
+    synced_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_stripe_account_snapshots_synced_at
+    ON stripe_account_snapshots (synced_at);
@@ -0,0 +1,14 @@
+-- credit_transactions is the wallet ledger: every movement of a student's credit is one
+-- row, and student_wallets.balance_cents must equal the signed sum of the user's rows
+-- (TOPUP and REFUND add, LESSON_PAYMENT and ADMIN_REFUND subtract). The nightly
+-- WalletService.reconcileLedger job reports users for whom it doesn't.
+--
+-- ADMIN_REFUND was missing from the original type check, so admin refunds could not be
+-- recorded in the ledger.
+ALTER TABLE credit_transactions DROP CONSTRAINT IF EXISTS credit_transactions_transaction_type_check;
+ALTER TABLE credit_transactions ADD CONSTRAINT credit_transactions_transaction_type_check
+    CHECK (transaction_type IN ('TOPUP', 'LESSON_PAYMENT', 'REFUND', 'ADMIN_REFUND'));
+
+-- Ledger sum per user for the reconciliation
+CREATE INDEX IF NOT EXISTS idx_credit_transactions_user_type_amount
+    ON credit_transactions (user_id, transaction_type, amount_cents);
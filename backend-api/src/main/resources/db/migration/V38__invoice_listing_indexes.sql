@@ -0,0 +1,10 @@
+-- Keyset pagination of invoice listings (InvoiceRepository): each branch of a user's
+-- received/issued UNION ALL and the admin listing walk (created_at DESC, id DESC) on
+-- their own index, and the accounting export walks (issued_at, id).
+CREATE INDEX IF NOT EXISTS idx_invoices_customer_created_id ON invoices (customer_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_invoices_issuer_created_id ON invoices (issuer_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_invoices_created_id ON invoices (created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_invoices_issued_id ON invoices (issued_at, id);
+
+-- Superseded by idx_invoices_customer_created_id
+DROP INDEX IF EXISTS idx_invoices_customer_created;
@@ -0,0 +1,5 @@
+-- Checkout lookups of promo codes (PromoCodeService): findByCodeIgnoreCase compares
+-- UPPER(code), which the plain unique index on code cannot serve, and the per-user
+-- redemption check filters usages on both the code and the user.
+CREATE INDEX IF NOT EXISTS idx_promo_codes_code_upper ON promo_codes (UPPER(code));
+CREATE INDEX IF NOT EXISTS idx_promo_code_usages_code_user ON promo_code_usages (promo_code_id, user_id);
@@ -0,0 +1,7 @@
+-- Admin promo code detail pages (PromoCodeService): usages and referral earnings of one
+-- code are read as keyset pages ordered by (timestamp DESC, id DESC), and the monthly
+-- earnings summary scans a code's earnings by creation date.
+CREATE INDEX IF NOT EXISTS idx_promo_code_usages_code_used_at
+    ON promo_code_usages (promo_code_id, used_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_referral_earnings_code_created_at
+    ON referral_earnings (promo_code_id, created_at DESC, id DESC);
@@ -0,0 +1,16 @@
+-- New availability slots waiting to be announced to the teacher's subscribers by email and
+-- push (AvailabilityFanoutService). Slots of one teacher are merged into a single digest once
+-- the oldest has waited for the coalescing window; the node holding the scheduler lease
+-- deletes them as it sends the digest, so a restart no longer loses them and two nodes
+-- never send the same digest.
+CREATE TABLE IF NOT EXISTS availability_digest_slots (
+    id BIGSERIAL PRIMARY KEY,
+    teacher_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    teacher_name VARCHAR(255) NOT NULL,
+    availability_id BIGINT NOT NULL,
+    availability_info TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_availability_digest_slots_teacher
+    ON availability_digest_slots (teacher_id, created_at);
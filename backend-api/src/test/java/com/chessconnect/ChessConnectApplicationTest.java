@@ -0,0 +1,32 @@
+package com.chessconnect;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Boots the whole application on the in-memory test profile, so a bean that
+ * Spring cannot wire fails the build instead of the deployment. The context is closed
+ * afterwards so its scheduled jobs, written for PostgreSQL, stop before the other tests run.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext
+@DisplayName("Application context")
+class ChessConnectApplicationTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    @DisplayName("Should start with every bean wired")
+    void contextLoads() {
+        assertThat(context.getBeanDefinitionCount()).isPositive();
+    }
+}
@@ -0,0 +1,138 @@
+package com.chessconnect.event.cluster;
+
+import com.chessconnect.event.payload.TeacherJoinedPayload;
+import com.chessconnect.service.SseConnectionManager;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("ClusterSseRouter Tests")
+class ClusterSseRouterTest {
+
+    private SseConnectionManager managerA;
+    private SseConnectionManager managerB;
+    private ClusterSseRouter routerA;
+    private ClusterSseRouter routerB;
+
+    @BeforeEach
+    void setUp() {
+        LocalClusterMessageBus.Network network = new LocalClusterMessageBus.Network();
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        managerA = mock(SseConnectionManager.class);
+        managerB = mock(SseConnectionManager.class);
+        routerA = new ClusterSseRouter(managerA, new LocalClusterMessageBus(network), objectMapper, Clock.systemUTC());
+        routerB = new ClusterSseRouter(managerB, new LocalClusterMessageBus(network), objectMapper, Clock.systemUTC());
+    }
+
+    @Nested
+    @DisplayName("Routing")
+    class Routing {
+
+        @Test
+        @DisplayName("Should forward an event to the node holding the user's connection")
+        void shouldForwardToRemoteNode() {
+            when(managerB.hasConnection(42L)).thenReturn(true);
+            routerB.onUserConnected(42L);
+
+            routerA.sendToUser(42L, "lesson_booked", new TeacherJoinedPayload(7L, "Magnus C."));
+            routerA.flush();
+
+            ArgumentCaptor<Object> data = ArgumentCaptor.forClass(Object.class);
+            verify(managerB).sendToUser(eq(42L), eq("lesson_booked"), data.capture());
+            assertThat(((JsonNode) data.getValue()).path("lessonId").asLong()).isEqualTo(7L);
+            verify(managerA, never()).sendToUser(anyLong(), anyString(), any());
+        }
+
+        @Test
+        @DisplayName("Should deliver locally without touching the bus when the user is on this node")
+        void shouldDeliverLocally() {
+            when(managerA.hasConnection(42L)).thenReturn(true);
+
+            routerA.sendToUser(42L, "notification", "payload");
+            routerA.flush();
+
+            verify(managerA).sendToUser(42L, "notification", "payload");
+            verify(managerB, never()).sendToUser(anyLong(), anyString(), any());
+        }
+
+        @Test
+        @DisplayName("Should collapse identical events for the same user into one delivery")
+        void shouldCompactDuplicates() {
+            routerB.onUserConnected(42L);
+
+            routerA.sendToUser(42L, "availability", new TeacherJoinedPayload(1L, "A"));
+            routerA.sendToUser(42L, "availability", new TeacherJoinedPayload(1L, "A"));
+            routerA.sendToUser(42L, "availability", new TeacherJoinedPayload(2L, "A"));
+            routerA.flush();
+
+            verify(managerB, times(2)).sendToUser(eq(42L), eq("availability"), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Presence")
+    class Presence {
+
+        @Test
+        @DisplayName("Should report remote users as connected until they go offline")
+        void shouldTrackRemotePresence() {
+            assertThat(routerA.isConnected(42L)).isFalse();
+
+            routerB.onUserConnected(42L);
+            assertThat(routerA.isConnected(42L)).isTrue();
+
+            routerB.onUserDisconnected(42L);
+            assertThat(routerA.isConnected(42L)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should learn existing connections from a snapshot")
+        void shouldApplySnapshot() {
+            when(managerB.getConnectedUserIds()).thenReturn(Set.of(1L, 2L));
+
+            routerB.publishSnapshot();
+
+            assertThat(routerA.isConnected(1L)).isTrue();
+            assertThat(routerA.isConnected(2L)).isTrue();
+            assertThat(routerA.getRemoteUserCount()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should broadcast a connection from the router thread, not the caller's")
+        void shouldBroadcastOffTheCallerThread() {
+            ClusterMessageBus bus = mock(ClusterMessageBus.class);
+            List<String> threads = new CopyOnWriteArrayList<>();
+            doAnswer(invocation -> {
+                if (invocation.<String>getArgument(0).contains("\"online\"")) {
+                    threads.add(Thread.currentThread().getName());
+                }
+                return null;
+            }).when(bus).broadcast(anyString());
+            ClusterSseRouter router = new ClusterSseRouter(
+                    mock(SseConnectionManager.class), bus, new ObjectMapper(), Clock.systemUTC());
+            router.start();
+            try {
+                router.onUserConnected(42L);
+
+                verify(bus, timeout(1000)).broadcast(contains("\"users\":[42]"));
+                assertThat(threads).containsExactly("cluster-sse");
+            } finally {
+                router.stop();
+            }
+        }
+    }
+}
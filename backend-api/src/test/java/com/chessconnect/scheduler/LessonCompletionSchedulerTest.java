@@ -0,0 +1,184 @@
+package com.chessconnect.scheduler;
+
+import com.chessconnect.model.Progress;
+import com.chessconnect.model.User;
+import com.chessconnect.repository.ProgressRepository;
+import com.chessconnect.service.TeacherBalanceService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LessonCompletionScheduler Tests")
+class LessonCompletionSchedulerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ProgressRepository progressRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LessonCompletionScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new LessonCompletionScheduler(jdbcTemplate, progressRepository, meterRegistry);
+    }
+
+    /**
+     * One row returned by COMPLETE_SQL.
+     */
+    private static ResultSet row(long id, long teacherId, long studentId, boolean wasCredited,
+                                 boolean fromSubscription, int teacherEarningsCents) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(id);
+        when(rs.getLong("teacher_id")).thenReturn(teacherId);
+        when(rs.getLong("student_id")).thenReturn(studentId);
+        when(rs.getBoolean("was_credited")).thenReturn(wasCredited);
+        when(rs.getBoolean("is_from_subscription")).thenReturn(fromSubscription);
+        when(rs.getInt("teacher_earnings_cents")).thenReturn(teacherEarningsCents);
+        when(rs.getInt("price_cents")).thenReturn(0);
+        when(rs.getObject("hourly_rate_cents")).thenReturn(null);
+        return rs;
+    }
+
+    private void completeReturns(ResultSet... rows) {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenAnswer(invocation -> {
+            RowMapper<?> mapper = invocation.getArgument(1);
+            List<Object> mapped = new ArrayList<>();
+            for (int i = 0; i < rows.length; i++) {
+                mapped.add(mapper.mapRow(rows[i], i));
+            }
+            return mapped;
+        });
+    }
+
+    private static Progress progress(long studentId) {
+        User student = new User();
+        student.setId(studentId);
+        Progress progress = new Progress();
+        progress.setStudent(student);
+        return progress;
+    }
+
+    /**
+     * teacherId -> {available increment, total earned increment, lessons}
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Long, List<Object>> credits() {
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(TeacherBalanceService.CREDIT_SQL), rows.capture());
+        return rows.getValue().stream().collect(Collectors.toMap(
+                row -> (Long) row[0], row -> List.of(row[1], row[2], row[3])));
+    }
+
+    @Test
+    @DisplayName("Should credit each teacher once with the sum of their completed lessons")
+    void shouldAggregateEarningsPerTeacher() throws SQLException {
+        completeReturns(
+                row(1, 100, 10, false, false, 2625),
+                row(2, 100, 11, false, true, 0),
+                row(3, 200, 10, false, false, 4375));
+        when(progressRepository.findByStudentIdIn(any())).thenReturn(List.of());
+
+        int completed = scheduler.autoCompleteLessons(List.of(1L, 2L, 3L));
+
+        assertThat(completed).isEqualTo(3);
+        assertThat(credits()).containsOnly(
+                entry(100L, List.of(2625 + TeacherBalanceService.SUBSCRIPTION_LESSON_PRICE_CENTS,
+                        2625 + TeacherBalanceService.SUBSCRIPTION_LESSON_PRICE_CENTS, 2)),
+                entry(200L, List.of(4375, 4375, 1)));
+        assertThat(meterRegistry.counter("lessons_auto_completed").count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should skip lessons whose earnings were already credited")
+    void shouldSkipAlreadyCredited() throws SQLException {
+        completeReturns(
+                row(1, 100, 10, true, false, 2625),
+                row(2, 100, 11, false, false, 3000),
+                row(3, 200, 12, true, false, 4375));
+        when(progressRepository.findByStudentIdIn(any())).thenReturn(List.of());
+
+        scheduler.autoCompleteLessons(List.of(1L, 2L, 3L));
+
+        assertThat(credits()).containsOnly(entry(100L, List.of(3000, 3000, 1)));
+    }
+
+    @Test
+    @DisplayName("Should not touch balances when every completed lesson was already credited")
+    void shouldNotCreditWhenAllCredited() throws SQLException {
+        completeReturns(row(1, 100, 10, true, false, 2625));
+        when(progressRepository.findByStudentIdIn(any())).thenReturn(List.of());
+
+        scheduler.autoCompleteLessons(List.of(1L));
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    @DisplayName("Should record every completed lesson in the student's progress")
+    void shouldRecordStudentProgress() throws SQLException {
+        completeReturns(
+                row(1, 100, 10, false, false, 2625),
+                row(2, 200, 10, false, false, 2625),
+                row(3, 200, 11, false, false, 2625));
+        Progress first = progress(10);
+        Progress second = progress(11);
+        when(progressRepository.findByStudentIdIn(any())).thenReturn(List.of(first, second));
+
+        scheduler.autoCompleteLessons(List.of(1L, 2L, 3L));
+
+        assertThat(first.getTotalLessonsCompleted()).isEqualTo(2);
+        assertThat(second.getTotalLessonsCompleted()).isEqualTo(1);
+        verify(progressRepository).saveAll(List.of(first, second));
+    }
+
+    @Test
+    @DisplayName("Should bind one placeholder per lesson and leave lessons that are not due untouched")
+    void shouldBindLessonIds() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenReturn(List.of());
+
+        int completed = scheduler.autoCompleteLessons(List.of(7L, 8L));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).query(sql.capture(), any(RowMapper.class), args.capture());
+        assertThat(sql.getValue()).contains("WHERE id IN (?,?) AND status = 'CONFIRMED'");
+        assertThat(args.getValue()).hasSize(4).startsWith(7L, 8L);
+        assertThat(completed).isZero();
+        verifyNoInteractions(progressRepository);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    @DisplayName("Should not query anything for an empty chunk")
+    void shouldSkipEmptyChunk() {
+        assertThat(scheduler.autoCompleteLessons(List.of())).isZero();
+
+        verifyNoInteractions(jdbcTemplate, progressRepository);
+    }
+}
@@ -0,0 +1,219 @@
+package com.chessconnect.scheduler;
+
+import com.chessconnect.model.enums.LessonTimerType;
+import com.chessconnect.scheduler.LessonTimerDispatcher.LessonTimer;
+import com.chessconnect.service.GroupLessonService;
+import com.chessconnect.service.LessonReminderService;
+import com.chessconnect.service.LessonService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LessonTimerDispatcher Tests")
+class LessonTimerDispatcherTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private LessonService lessonService;
+
+    @Mock
+    private LessonReminderService lessonReminderService;
+
+    @Mock
+    private GroupLessonService groupLessonService;
+
+    @Mock
+    private LessonCompletionScheduler lessonCompletionScheduler;
+
+    @Mock
+    private ScheduledJobRunner jobRunner;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LessonTimerDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new LessonTimerDispatcher(jdbcTemplate, lessonService, lessonReminderService,
+                groupLessonService, lessonCompletionScheduler, meterRegistry, jobRunner);
+    }
+
+    private void runJobsInline() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(jobRunner).runLocal(anyString(), any(Runnable.class));
+    }
+
+    private void claimReturns(List<LessonTimer> batch) {
+        when(jdbcTemplate.<LessonTimer>query(startsWith("UPDATE lesson_timers"), any(RowMapper.class), any(), any(), any()))
+                .thenReturn(batch);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> deletedIds() {
+        ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq("DELETE FROM lesson_timers WHERE id = ?"), args.capture());
+        return args.getValue().stream().map(row -> (Long) row[0]).toList();
+    }
+
+    private double counter(String name) {
+        return meterRegistry.counter(name).count();
+    }
+
+    @Nested
+    @DisplayName("claim")
+    class Claim {
+
+        @Test
+        @DisplayName("Should claim due timers under a lease, run each one and delete them")
+        void shouldClaimRunAndDelete() {
+            runJobsInline();
+            claimReturns(List.of(
+                    new LessonTimer(1, 10, LessonTimerType.CONFIRMATION_TIMEOUT, 1),
+                    new LessonTimer(2, 11, LessonTimerType.REMINDER, 1),
+                    new LessonTimer(3, 12, LessonTimerType.GROUP_DEADLINE, 1),
+                    new LessonTimer(4, 13, LessonTimerType.AUTO_COMPLETE, 1)));
+
+            dispatcher.dispatch();
+
+            ArgumentCaptor<Object> leaseUntil = ArgumentCaptor.forClass(Object.class);
+            ArgumentCaptor<Object> dueBefore = ArgumentCaptor.forClass(Object.class);
+            verify(jdbcTemplate).query(contains("FOR UPDATE SKIP LOCKED"), any(RowMapper.class),
+                    leaseUntil.capture(), dueBefore.capture(), eq(LessonTimerDispatcher.BATCH_SIZE));
+            assertThat((Timestamp) leaseUntil.getValue()).isAfter((Timestamp) dueBefore.getValue());
+
+            verify(lessonService).autoCancelIfUnconfirmed(10L);
+            verify(lessonReminderService).sendLessonReminder(11L);
+            verify(groupLessonService).handleGroupDeadline(12L);
+            verify(lessonCompletionScheduler).autoCompleteLesson(13L);
+            verify(lessonCompletionScheduler, never()).autoCompleteLessons(anyList());
+            assertThat(deletedIds()).containsExactly(1L, 2L, 3L, 4L);
+            assertThat(counter("lesson_timers_fired")).isEqualTo(4);
+        }
+
+        @Test
+        @DisplayName("Should claim again while batches come back full")
+        void shouldDrainFullBatches() {
+            runJobsInline();
+            List<LessonTimer> full = LongStream.rangeClosed(1, LessonTimerDispatcher.BATCH_SIZE)
+                    .mapToObj(id -> new LessonTimer(id, 1000 + id, LessonTimerType.REMINDER, 1))
+                    .toList();
+            when(jdbcTemplate.<LessonTimer>query(startsWith("UPDATE lesson_timers"), any(RowMapper.class), any(), any(), any()))
+                    .thenReturn(full, List.of());
+
+            dispatcher.dispatch();
+
+            verify(jdbcTemplate, times(2)).query(startsWith("UPDATE lesson_timers"), any(RowMapper.class), any(), any(), any());
+            verify(lessonReminderService, times(LessonTimerDispatcher.BATCH_SIZE)).sendLessonReminder(anyLong());
+        }
+    }
+
+    @Nested
+    @DisplayName("retry and give-up")
+    class RetryAndGiveUp {
+
+        @Test
+        @DisplayName("Should keep a failed timer for another claim while attempts remain")
+        void shouldKeepFailedTimerForRetry() {
+            runJobsInline();
+            claimReturns(List.of(
+                    new LessonTimer(1, 10, LessonTimerType.REMINDER, 1),
+                    new LessonTimer(2, 11, LessonTimerType.REMINDER, 2)));
+            lenient().doThrow(new IllegalStateException("SMTP down")).when(lessonReminderService).sendLessonReminder(10L);
+
+            dispatcher.dispatch();
+
+            assertThat(deletedIds()).containsExactly(2L);
+            assertThat(counter("lesson_timers_failed")).isZero();
+        }
+
+        @Test
+        @DisplayName("Should drop a timer that fails on its last attempt")
+        void shouldGiveUpAfterLastAttempt() {
+            doThrow(new IllegalStateException("boom")).when(groupLessonService).handleGroupDeadline(10L);
+
+            boolean delete = dispatcher.fire(
+                    new LessonTimer(1, 10, LessonTimerType.GROUP_DEADLINE, LessonTimerDispatcher.MAX_ATTEMPTS));
+
+            assertThat(delete).isTrue();
+            assertThat(counter("lesson_timers_failed")).isEqualTo(1);
+            assertThat(counter("lesson_timers_fired")).isZero();
+        }
+
+        @Test
+        @DisplayName("Should not delete anything when every timer of the batch fails")
+        void shouldNotDeleteWhenAllFail() {
+            runJobsInline();
+            claimReturns(List.of(new LessonTimer(1, 10, LessonTimerType.CONFIRMATION_TIMEOUT, 1)));
+            doThrow(new IllegalStateException("boom")).when(lessonService).autoCancelIfUnconfirmed(10L);
+
+            dispatcher.dispatch();
+
+            verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        }
+    }
+
+    @Nested
+    @DisplayName("bulk completion")
+    class BulkCompletion {
+
+        @Test
+        @DisplayName("Should complete the lessons of a batch in one chunk")
+        void shouldCompleteInOneChunk() {
+            runJobsInline();
+            claimReturns(List.of(
+                    new LessonTimer(1, 10, LessonTimerType.AUTO_COMPLETE, 1),
+                    new LessonTimer(2, 11, LessonTimerType.AUTO_COMPLETE, 1),
+                    new LessonTimer(3, 12, LessonTimerType.REMINDER, 1)));
+
+            dispatcher.dispatch();
+
+            verify(lessonCompletionScheduler).autoCompleteLessons(List.of(10L, 11L));
+            verify(lessonCompletionScheduler, never()).autoCompleteLesson(anyLong());
+            verify(lessonReminderService).sendLessonReminder(12L);
+            assertThat(deletedIds()).containsExactly(1L, 2L, 3L);
+        }
+
+        @Test
+        @DisplayName("Should complete the lessons one by one when the chunk fails")
+        void shouldFallBackWhenChunkFails() {
+            runJobsInline();
+            claimReturns(List.of(
+                    new LessonTimer(1, 10, LessonTimerType.AUTO_COMPLETE, 1),
+                    new LessonTimer(2, 11, LessonTimerType.AUTO_COMPLETE, 1)));
+            when(lessonCompletionScheduler.autoCompleteLessons(anyList()))
+                    .thenThrow(new IllegalStateException("deadlock"));
+            lenient().doThrow(new IllegalStateException("bad lesson")).when(lessonCompletionScheduler).autoCompleteLesson(11L);
+
+            dispatcher.dispatch();
+
+            verify(lessonCompletionScheduler).autoCompleteLesson(10L);
+            verify(lessonCompletionScheduler).autoCompleteLesson(11L);
+            assertThat(deletedIds()).containsExactly(1L);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.chessconnect.scheduler;
+
+import com.chessconnect.event.cluster.ClusterMessageBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ScheduledJobRunner Tests")
+class ScheduledJobRunnerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ClusterMessageBus messageBus;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ScheduledJobRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        when(messageBus.nodeId()).thenReturn("node-a");
+        meterRegistry = new SimpleMeterRegistry();
+        runner = new ScheduledJobRunner(jdbcTemplate, transactionManager, messageBus, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should skip the job when another node holds the lease")
+    void shouldSkipWhenLeaseHeld() {
+        when(jdbcTemplate.update(startsWith("INSERT INTO scheduler_locks"), any(Object[].class))).thenReturn(0);
+        AtomicInteger runs = new AtomicInteger();
+
+        runner.runLocked("Job.run", Duration.ofMinutes(5), runs::incrementAndGet);
+
+        assertThat(runs).hasValue(0);
+        assertThat(meterRegistry.get("scheduler_job_skipped").tag("job", "Job.run").counter().count()).isEqualTo(1.0);
+        verify(jdbcTemplate, never()).update(startsWith("UPDATE scheduler_locks"), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Should run the job, record the failure and release the lease before rethrowing")
+    void shouldReleaseLeaseWhenJobFails() {
+        when(jdbcTemplate.update(startsWith("INSERT INTO scheduler_locks"), any(Object[].class))).thenReturn(1);
+
+        assertThatThrownBy(() -> runner.runLocked("Job.run", Duration.ofMinutes(5), () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        verify(jdbcTemplate).update(startsWith("UPDATE scheduler_locks"), any(Object[].class));
+        assertThat(runner.getLastRuns().get("Job.run").status()).isEqualTo("FAILED");
+        assertThat(runner.getLastRuns().get("Job.run").error()).isEqualTo("boom");
+    }
+
+    @Test
+    @DisplayName("Should judge the lease with the database clock rather than the node's")
+    void shouldUseDatabaseClockForLease() {
+        when(jdbcTemplate.update(startsWith("INSERT INTO scheduler_locks"), any(Object[].class))).thenReturn(1);
+
+        runner.runLocked("Job.run", Duration.ofMinutes(5), () -> {});
+
+        verify(jdbcTemplate).update(ScheduledJobRunner.ACQUIRE_SQL, "Job.run", 300.0, "node-a");
+        assertThat(ScheduledJobRunner.ACQUIRE_SQL).endsWith("WHERE scheduler_locks.locked_until <= now()");
+        verify(jdbcTemplate).update(eq(ScheduledJobRunner.RELEASE_SQL), eq(30.0), any(), any(), anyLong(),
+                eq("SUCCESS"), isNull(), eq("Job.run"), eq("node-a"));
+    }
+}
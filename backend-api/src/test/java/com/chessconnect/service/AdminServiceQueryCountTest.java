@@ -0,0 +1,108 @@
+package com.chessconnect.service;
+
+import com.chessconnect.dto.admin.TeacherBalanceListResponse;
+import com.chessconnect.model.TeacherBalance;
+import com.chessconnect.model.User;
+import com.chessconnect.model.enums.UserRole;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Counts the statements the admin balance list prepares against the in-memory database,
+ * so that a lazy association loaded once per teacher shows up as a growing count.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import(AdminService.class)
+@DisplayName("AdminService query count")
+class AdminServiceQueryCountTest {
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private StripeConnectService stripeConnectService;
+
+    @MockBean
+    private InvoiceService invoiceService;
+
+    @MockBean
+    private WalletService walletService;
+
+    @MockBean
+    private UserNotificationService userNotificationService;
+
+    @MockBean
+    private EntitlementService entitlementService;
+
+    @MockBean
+    private LessonTimerService lessonTimerService;
+
+    private Statistics statistics;
+
+    private int teachers;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private void addTeachers(int count) {
+        for (int i = 0; i < count; i++) {
+            teachers++;
+            User teacher = new User();
+            teacher.setEmail("coach" + teachers + "@example.com");
+            teacher.setPassword("secret");
+            teacher.setFirstName("Coach");
+            teacher.setLastName("N" + teachers);
+            teacher.setRole(UserRole.TEACHER);
+            entityManager.persist(teacher);
+
+            TeacherBalance balance = new TeacherBalance();
+            balance.setTeacher(teacher);
+            entityManager.persist(balance);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private long statementsForBalanceList(int expectedTeachers) {
+        statistics.clear();
+        List<TeacherBalanceListResponse> balances = adminService.getTeacherBalances();
+        assertThat(balances).hasSize(expectedTeachers);
+        entityManager.clear();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    @DisplayName("Should prepare the same number of statements whatever the number of teachers")
+    void shouldNotQueryPerTeacher() {
+        addTeachers(2);
+        long withTwo = statementsForBalanceList(2);
+
+        addTeachers(8);
+        long withTen = statementsForBalanceList(10);
+
+        assertThat(withTen).isEqualTo(withTwo);
+    }
+}
@@ -0,0 +1,105 @@
+package com.chessconnect.service;
+
+import com.chessconnect.dto.admin.TeacherBalanceListResponse;
+import com.chessconnect.model.TeacherBalance;
+import com.chessconnect.model.User;
+import com.chessconnect.repository.LessonRepository;
+import com.chessconnect.repository.TeacherBalanceRepository;
+import com.chessconnect.repository.TeacherPayoutRepository;
+import com.chessconnect.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AdminService Tests")
+class AdminServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private LessonRepository lessonRepository;
+
+    @Mock
+    private TeacherBalanceRepository teacherBalanceRepository;
+
+    @Mock
+    private TeacherPayoutRepository teacherPayoutRepository;
+
+    @Mock
+    private StripeConnectService stripeConnectService;
+
+    @InjectMocks
+    private AdminService adminService;
+
+    private static TeacherBalance balance(long teacherId) {
+        User teacher = new User();
+        teacher.setId(teacherId);
+        teacher.setFirstName("Coach");
+        teacher.setLastName("#" + teacherId);
+        teacher.setStripeConnectAccountId(teacherId % 2 == 0 ? "acct_" + teacherId : null);
+        teacher.setStripeConnectOnboardingComplete(teacherId % 2 == 0);
+
+        TeacherBalance balance = new TeacherBalance();
+        balance.setTeacher(teacher);
+        balance.setAvailableBalanceCents(1000);
+        balance.setTotalEarnedCents(1000);
+        return balance;
+    }
+
+    @Nested
+    @DisplayName("getTeacherBalances")
+    class GetTeacherBalances {
+
+        @Test
+        @DisplayName("Should build the dashboard from three queries whatever the number of teachers")
+        void shouldUseConstantNumberOfQueries() {
+            List<TeacherBalance> balances = LongStream.rangeClosed(1, 50).mapToObj(AdminServiceTest::balance).toList();
+            when(teacherBalanceRepository.findAllWithTeacher()).thenReturn(balances);
+            when(lessonRepository.sumEarningsAndCountCompletedByTeacherBetween(any(), any()))
+                    .thenReturn(List.of(new Object[] { 2L, 4500L, 3L }, new Object[] { 7L, 1500L, 1L }));
+            when(teacherPayoutRepository.findPaidTeacherIdsByYearMonth(anyString())).thenReturn(List.of(7L));
+
+            List<TeacherBalanceListResponse> dashboard = adminService.getTeacherBalances();
+
+            assertThat(dashboard).hasSize(50);
+            verify(teacherBalanceRepository).findAllWithTeacher();
+            verify(lessonRepository).sumEarningsAndCountCompletedByTeacherBetween(any(), any());
+            verify(teacherPayoutRepository).findPaidTeacherIdsByYearMonth(anyString());
+            verifyNoMoreInteractions(teacherBalanceRepository, lessonRepository, teacherPayoutRepository);
+            verifyNoInteractions(userRepository, stripeConnectService);
+        }
+
+        @Test
+        @DisplayName("Should attach each teacher's month totals and payout status")
+        void shouldMapMonthTotals() {
+            when(teacherBalanceRepository.findAllWithTeacher()).thenReturn(List.of(balance(2L), balance(3L)));
+            when(lessonRepository.sumEarningsAndCountCompletedByTeacherBetween(any(), any()))
+                    .thenReturn(List.<Object[]>of(new Object[] { 2L, 4500L, 3L }));
+            when(teacherPayoutRepository.findPaidTeacherIdsByYearMonth(anyString())).thenReturn(List.of(2L));
+
+            List<TeacherBalanceListResponse> dashboard = adminService.getTeacherBalances();
+
+            assertThat(dashboard.get(0).currentMonthEarningsCents()).isEqualTo(4500);
+            assertThat(dashboard.get(0).currentMonthLessonsCount()).isEqualTo(3);
+            assertThat(dashboard.get(0).currentMonthPaid()).isTrue();
+            assertThat(dashboard.get(0).stripeConnectReady()).isTrue();
+            assertThat(dashboard.get(1).currentMonthEarningsCents()).isZero();
+            assertThat(dashboard.get(1).currentMonthLessonsCount()).isZero();
+            assertThat(dashboard.get(1).currentMonthPaid()).isFalse();
+            assertThat(dashboard.get(1).stripeConnectEnabled()).isFalse();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.chessconnect.service;
+
+import com.chessconnect.event.AvailabilityCreatedEvent;
+import com.chessconnect.event.cluster.ClusterSseRouter;
+import com.chessconnect.event.payload.AvailabilityPayload;
+import com.chessconnect.model.FavoriteTeacher;
+import com.chessconnect.model.User;
+import com.chessconnect.repository.FavoriteTeacherRepository;
+import com.chessconnect.scheduler.ScheduledJobRunner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AvailabilityFanoutService Tests")
+class AvailabilityFanoutServiceTest {
+
+    private static final Long TEACHER_ID = 5L;
+
+    @Mock
+    private FavoriteTeacherRepository favoriteRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private PushDispatcher pushDispatcher;
+
+    @Mock
+    private ClusterSseRouter sseRouter;
+
+    @Mock
+    private ScheduledJobRunner jobRunner;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TestClock clock;
+    private AvailabilityFanoutService fanoutService;
+
+    /**
+     * A fixed clock.
+     */
+    static class TestClock extends Clock {
+
+        private final Instant now = Instant.parse("2026-03-10T10:00:00Z");
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        clock = new TestClock();
+        fanoutService = new AvailabilityFanoutService(favoriteRepository, emailService, pushDispatcher,
+                sseRouter, jobRunner, jdbcTemplate, transactionManager, clock);
+        ReflectionTestUtils.setField(fanoutService, "frontendUrl", "https://mychess.fr");
+    }
+
+    private static FavoriteTeacher subscriber(long studentId) {
+        User student = new User();
+        student.setId(studentId);
+        student.setFirstName("Eleve" + studentId);
+        student.setEmail("eleve" + studentId + "@test.com");
+        FavoriteTeacher favorite = new FavoriteTeacher();
+        favorite.setStudent(student);
+        return favorite;
+    }
+
+    private static AvailabilityCreatedEvent slot(long availabilityId, String info) {
+        return new AvailabilityCreatedEvent(TEACHER_ID, "Magnus", availabilityId, info, "18:00 - 19:00");
+    }
+
+    private void runJobsInline() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(2).run();
+            return null;
+        }).when(jobRunner).runLocked(anyString(), any(Duration.class), any(Runnable.class));
+    }
+
+    private void dueTeachers(Long... teacherIds) {
+        when(jdbcTemplate.queryForList(eq(AvailabilityFanoutService.DUE_TEACHERS_SQL), eq(Long.class),
+                any(Timestamp.class), eq(AvailabilityFanoutService.MAX_DIGESTS_PER_RUN))).thenReturn(List.of(teacherIds));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void storedSlots(AvailabilityFanoutService.DigestSlot... slots) {
+        when(jdbcTemplate.query(eq(AvailabilityFanoutService.CLAIM_SQL), any(RowMapper.class), eq(TEACHER_ID)))
+                .thenReturn((List) List.of(slots));
+    }
+
+    private static AvailabilityFanoutService.DigestSlot stored(long id, String info) {
+        return new AvailabilityFanoutService.DigestSlot(id, "Magnus", info);
+    }
+
+    @Nested
+    @DisplayName("live events")
+    class LiveEvents {
+
+        @Test
+        @DisplayName("Should push every slot to connected subscribers as soon as it is committed")
+        void shouldPublishSseImmediately() {
+            when(favoriteRepository.findSlotSubscribersWithStudent(TEACHER_ID))
+                    .thenReturn(List.of(subscriber(1), subscriber(2)));
+
+            fanoutService.onAvailabilityCreated(slot(100, "Lundi 18h"));
+            fanoutService.onAvailabilityCreated(slot(101, "Mardi 18h"));
+
+            ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+            verify(sseRouter, times(4)).sendToUser(anyLong(), eq("availability"), payloads.capture());
+            assertThat(payloads.getAllValues())
+                    .extracting(payload -> ((AvailabilityPayload) payload).availabilityId())
+                    .containsExactly(100L, 100L, 101L, 101L);
+            verifyNoInteractions(emailService, pushDispatcher);
+        }
+
+        @Test
+        @DisplayName("Should still store the slot for the digest when the live event fails")
+        void shouldStoreSlotWhenSseFails() {
+            when(favoriteRepository.findSlotSubscribersWithStudent(TEACHER_ID)).thenThrow(new IllegalStateException("db down"));
+
+            fanoutService.onAvailabilityCreated(slot(100, "Lundi 18h"));
+
+            verify(jdbcTemplate).update(AvailabilityFanoutService.INSERT_SQL, TEACHER_ID, "Magnus", 100L, "Lundi 18h",
+                    Timestamp.from(clock.instant()));
+        }
+
+        @Test
+        @DisplayName("Should not fail the caller when the slot can't be stored")
+        void shouldSwallowStoreFailure() {
+            when(favoriteRepository.findSlotSubscribersWithStudent(TEACHER_ID)).thenReturn(List.of());
+            when(jdbcTemplate.update(eq(AvailabilityFanoutService.INSERT_SQL), any(Object[].class)))
+                    .thenThrow(new DataAccessResourceFailureException("db down"));
+
+            assertThatCode(() -> fanoutService.onAvailabilityCreated(slot(100, "Lundi 18h"))).doesNotThrowAnyException();
+        }
+    }
+
+    @Nested
+    @DisplayName("digests")
+    class Digests {
+
+        @Test
+        @DisplayName("Should only claim teachers whose oldest slot has waited for the whole window")
+        void shouldUseWindowCutoff() {
+            runJobsInline();
+            dueTeachers();
+
+            fanoutService.sendDueDigests();
+
+            verify(jdbcTemplate).queryForList(AvailabilityFanoutService.DUE_TEACHERS_SQL, Long.class,
+                    Timestamp.from(clock.instant().minus(AvailabilityFanoutService.COALESCE_WINDOW)),
+                    AvailabilityFanoutService.MAX_DIGESTS_PER_RUN);
+            verifyNoInteractions(emailService, pushDispatcher);
+        }
+
+        @Test
+        @DisplayName("Should merge the stored slots of one teacher into a single email and push per student")
+        @SuppressWarnings("unchecked")
+        void shouldMergeSlotsIntoOneDigest() {
+            runJobsInline();
+            dueTeachers(TEACHER_ID);
+            // DELETE ... RETURNING has no order: the digest lists slots by creation
+            storedSlots(stored(8, "Mardi 18h"), stored(7, "Lundi 18h"));
+            when(favoriteRepository.findSlotSubscribersWithStudent(TEACHER_ID))
+                    .thenReturn(List.of(subscriber(1), subscriber(2)));
+
+            fanoutService.sendDueDigests();
+
+            ArgumentCaptor<List<EmailService.BatchRecipient>> recipients = ArgumentCaptor.forClass(List.class);
+            verify(emailService).enqueueBatch(eq("Magnus a publie de nouveaux creneaux - Mychess"),
+                    eq("new-availability-notification"), recipients.capture());
+            assertThat(recipients.getValue()).hasSize(2);
+            assertThat(recipients.getValue().get(0).variables().get("availabilityInfo"))
+                    .isEqualTo("Lundi 18h<br>Mardi 18h");
+
+            ArgumentCaptor<PushDispatcher.PushMessage> push = ArgumentCaptor.forClass(PushDispatcher.PushMessage.class);
+            verify(pushDispatcher).multicast(eq(List.of(1L, 2L)), push.capture(), anyBoolean());
+            assertThat(push.getValue().body()).startsWith("2 nouveaux creneaux, dont : Lundi 18h");
+        }
+
+        @Test
+        @DisplayName("Should skip a teacher whose slots another run already claimed")
+        void shouldSkipAlreadyClaimed() {
+            runJobsInline();
+            dueTeachers(TEACHER_ID);
+            storedSlots();
+
+            fanoutService.sendDueDigests();
+
+            verifyNoInteractions(favoriteRepository, emailService, pushDispatcher);
+        }
+
+        @Test
+        @DisplayName("Should skip the digest when the teacher has no subscribers")
+        void shouldSkipWithoutSubscribers() {
+            runJobsInline();
+            dueTeachers(TEACHER_ID);
+            storedSlots(stored(7, "Lundi 18h"));
+            when(favoriteRepository.findSlotSubscribersWithStudent(TEACHER_ID)).thenReturn(List.of());
+
+            fanoutService.sendDueDigests();
+
+            verifyNoInteractions(sseRouter, emailService, pushDispatcher);
+        }
+
+        @Test
+        @DisplayName("Should not send anything when another node holds the lease")
+        void shouldWaitForLease() {
+            fanoutService.sendDueDigests();
+
+            verifyNoInteractions(jdbcTemplate, emailService, pushDispatcher);
+        }
+    }
+}
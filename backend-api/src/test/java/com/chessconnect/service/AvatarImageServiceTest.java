@@ -0,0 +1,144 @@
+package com.chessconnect.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("AvatarImageService Tests")
+class AvatarImageServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private AvatarImageService avatarImageService;
+
+    @BeforeEach
+    void setUp() {
+        avatarImageService = new AvatarImageService();
+        ReflectionTestUtils.setField(avatarImageService, "uploadDir", uploadDir.toString());
+    }
+
+    @Nested
+    @DisplayName("storeAvatar")
+    class StoreAvatar {
+
+        @Test
+        @DisplayName("Should crop to a square and write every variant size")
+        void shouldWriteSquareVariants() throws Exception {
+            String url = avatarImageService.storeAvatar(png(600, 400, Color.BLUE));
+
+            assertThat(url).matches("/api/uploads/avatars/[a-f0-9]{32}_256\\.jpg");
+            for (int size : AvatarImageService.VARIANT_SIZES) {
+                Path variant = avatarFile(AvatarImageService.variantUrl(url, size));
+                BufferedImage image = ImageIO.read(variant.toFile());
+                assertThat(image.getWidth()).isEqualTo(size);
+                assertThat(image.getHeight()).isEqualTo(size);
+            }
+        }
+
+        @Test
+        @DisplayName("Should address the same content with the same URL and different content with another")
+        void shouldAddressByContent() throws Exception {
+            byte[] blue = png(300, 300, Color.BLUE);
+
+            String first = avatarImageService.storeAvatar(blue);
+            String again = avatarImageService.storeAvatar(blue.clone());
+            String other = avatarImageService.storeAvatar(png(300, 300, Color.RED));
+
+            assertThat(again).isEqualTo(first);
+            assertThat(other).isNotEqualTo(first);
+        }
+
+        @Test
+        @DisplayName("Should reject an image declaring huge dimensions without decoding it")
+        void shouldRejectDecompressionBomb() throws Exception {
+            byte[] bomb = pngHeaderOnly(100_000, 100_000);
+
+            assertThatThrownBy(() -> avatarImageService.storeAvatar(bomb))
+                    .isInstanceOf(AvatarImageService.ImageTooLargeException.class);
+            try (Stream<Path> written = Files.list(uploadDir.resolve("avatars"))) {
+                assertThat(written).isEmpty();
+            }
+        }
+
+        @Test
+        @DisplayName("Should reject bytes that are not an image")
+        void shouldRejectUnknownFormat() {
+            assertThatThrownBy(() -> avatarImageService.storeAvatar("not an image".getBytes(StandardCharsets.UTF_8)))
+                    .isInstanceOf(IOException.class)
+                    .isNotInstanceOf(AvatarImageService.ImageTooLargeException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("variantUrl")
+    class VariantUrl {
+
+        @Test
+        @DisplayName("Should rewrite variant URLs and leave legacy ones untouched")
+        void shouldRewriteOnlyVariantUrls() {
+            String url = "/api/uploads/avatars/0123456789abcdef0123456789abcdef_256.jpg";
+
+            assertThat(AvatarImageService.variantUrl(url, 64))
+                    .isEqualTo("/api/uploads/avatars/0123456789abcdef0123456789abcdef_64.jpg");
+            assertThat(AvatarImageService.variantUrl("/api/uploads/avatars/legacy.png", 64))
+                    .isEqualTo("/api/uploads/avatars/legacy.png");
+            assertThat(AvatarImageService.variantUrl(null, 64)).isNull();
+        }
+    }
+
+    private Path avatarFile(String url) {
+        return uploadDir.resolve("avatars").resolve(url.substring(url.lastIndexOf('/') + 1));
+    }
+
+    private static byte[] png(int width, int height, Color color) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * A few dozen bytes: PNG signature and an IHDR chunk declaring the given size, no pixel data.
+     */
+    private static byte[] pngHeaderOnly(int width, int height) throws IOException {
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+        DataOutputStream ihdr = new DataOutputStream(chunk);
+        ihdr.writeBytes("IHDR");
+        ihdr.writeInt(width);
+        ihdr.writeInt(height);
+        ihdr.write(new byte[]{8, 2, 0, 0, 0});
+        CRC32 crc = new CRC32();
+        crc.update(chunk.toByteArray());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream png = new DataOutputStream(out);
+        png.write(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'});
+        png.writeInt(13);
+        png.write(chunk.toByteArray());
+        png.writeInt((int) crc.getValue());
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,129 @@
+package com.chessconnect.service;
+
+import com.chessconnect.scheduler.ScheduledJobRunner;
+import com.chessconnect.service.EmailOutboxDispatcher.Delivery;
+import com.chessconnect.service.EmailOutboxDispatcher.OutboxEmail;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.IContext;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EmailOutboxDispatcher Tests")
+class EmailOutboxDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TemplateEngine templateEngine;
+
+    @Mock
+    private ScheduledJobRunner jobRunner;
+
+    private JavaMailSenderImpl mailSender;
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+
+        dispatcher = new EmailOutboxDispatcher(jdbcTemplate, mailSender, templateEngine,
+                new ObjectMapper(), new SimpleMeterRegistry(), jobRunner);
+        ReflectionTestUtils.setField(dispatcher, "fromEmail", "support@mychess.fr");
+        ReflectionTestUtils.setField(dispatcher, "appName", "Mychess");
+        ReflectionTestUtils.setField(dispatcher, "logoUrl", "https://mychess.fr/assets/logo.png");
+    }
+
+    private static OutboxEmail email(long id, String to) {
+        return new OutboxEmail(id, to, "Sujet " + id, "password-reset",
+                "{\"firstName\":\"Alice\",\"resetLink\":\"https://mychess.fr/reset\"}", 1);
+    }
+
+    @Nested
+    @DisplayName("deliver")
+    class Deliver {
+
+        @Test
+        @DisplayName("Should deliver the whole batch over SMTP")
+        void shouldDeliverWholeBatch() throws Exception {
+            when(templateEngine.process(eq("email/password-reset"), any(IContext.class)))
+                    .thenReturn("<p>Bonjour Alice</p>");
+
+            Delivery delivery = dispatcher.deliver(List.of(
+                    email(1, "a@test.com"), email(2, "b@test.com"), email(3, "c@test.com")));
+
+            assertThat(delivery.sent()).containsExactly(1L, 2L, 3L);
+            assertThat(delivery.retry()).isEmpty();
+            assertThat(delivery.rejected()).isEmpty();
+
+            MimeMessage[] received = greenMail.getReceivedMessages();
+            assertThat(received).hasSize(3);
+            assertThat(received[0].getSubject()).isEqualTo("Sujet 1");
+            assertThat(received[0].getAllRecipients()[0].toString()).isEqualTo("a@test.com");
+        }
+
+        @Test
+        @DisplayName("Should reject emails whose template fails to render and still send the others")
+        void shouldRejectUnrenderableEmails() {
+            when(templateEngine.process(eq("email/password-reset"), any(IContext.class)))
+                    .thenReturn("<p>ok</p>");
+            OutboxEmail broken = new OutboxEmail(2, "b@test.com", "Sujet 2", "password-reset", "not json", 1);
+
+            Delivery delivery = dispatcher.deliver(List.of(email(1, "a@test.com"), broken));
+
+            assertThat(delivery.sent()).containsExactly(1L);
+            assertThat(delivery.rejected()).containsOnlyKeys(broken);
+            assertThat(greenMail.getReceivedMessages()).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("Should schedule the whole batch for retry when the SMTP server is unreachable")
+        void shouldRetryWhenServerUnreachable() {
+            when(templateEngine.process(eq("email/password-reset"), any(IContext.class)))
+                    .thenReturn("<p>ok</p>");
+            mailSender.setPort(ServerSetupTest.SMTP.getPort() + 1);
+
+            Delivery delivery = dispatcher.deliver(List.of(email(1, "a@test.com"), email(2, "b@test.com")));
+
+            assertThat(delivery.sent()).isEmpty();
+            assertThat(delivery.retry()).hasSize(2);
+        }
+    }
+
+    @Test
+    @DisplayName("Retry delay should double from 30 seconds and cap at one hour")
+    void retryDelayShouldBackOff() {
+        assertThat(EmailOutboxDispatcher.retryDelay(1)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(EmailOutboxDispatcher.retryDelay(2)).isEqualTo(Duration.ofMinutes(1));
+        assertThat(EmailOutboxDispatcher.retryDelay(3)).isEqualTo(Duration.ofMinutes(2));
+        assertThat(EmailOutboxDispatcher.retryDelay(12)).isEqualTo(Duration.ofHours(1));
+    }
+}
@@ -0,0 +1,88 @@
+package com.chessconnect.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EmailService Tests")
+class EmailServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        emailService = new EmailService(jdbcTemplate, new ObjectMapper(), transactionManager);
+        ReflectionTestUtils.setField(emailService, "emailEnabled", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void commit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    @DisplayName("Should log a failed outbox write instead of failing the caller")
+    void shouldSwallowEnqueueFailure() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new DataIntegrityViolationException("boom"));
+
+        assertThatCode(() -> emailService.sendPasswordResetEmail("alice@example.com", "Alice", "https://mychess.fr/reset"))
+                .doesNotThrowAnyException();
+        assertThat(emailService.enqueueBatch("Sujet", "template",
+                List.of(new EmailService.BatchRecipient("bob@example.com", Map.of())))).isZero();
+    }
+
+    @Test
+    @DisplayName("Should queue the email only once the caller's transaction commits")
+    void shouldQueueAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        emailService.sendEmail("alice@example.com", "Sujet", "template", Map.of("firstName", "Alice"));
+        verifyNoInteractions(jdbcTemplate);
+
+        commit();
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    @DisplayName("Should not fail the commit of the caller when the after-commit write fails")
+    void shouldSwallowAfterCommitFailure() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new DataIntegrityViolationException("boom"));
+        TransactionSynchronizationManager.initSynchronization();
+        emailService.sendEmail("alice@example.com", "Sujet", "template", Map.of());
+
+        assertThatCode(EmailServiceTest::commit).doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,111 @@
+package com.chessconnect.service;
+
+import com.chessconnect.model.Subscription;
+import com.chessconnect.model.User;
+import com.chessconnect.model.enums.SubscriptionPlan;
+import com.chessconnect.repository.SubscriptionRepository;
+import com.chessconnect.repository.UserRepository;
+import com.chessconnect.service.EntitlementService.Entitlement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EntitlementService Tests")
+class EntitlementServiceTest {
+
+    @Mock
+    private SubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private EntitlementService entitlementService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        entitlementService = new EntitlementService(subscriptionRepository, userRepository, meterRegistry);
+    }
+
+    private static User student(LocalDate trialEnd) {
+        User user = new User();
+        user.setId(1L);
+        user.setPremiumTrialEnd(trialEnd);
+        return user;
+    }
+
+    @Nested
+    @DisplayName("isPremium")
+    class IsPremium {
+
+        @Test
+        @DisplayName("Should load the entitlement once and serve repeated checks from the cache")
+        void shouldCacheEntitlement() {
+            Subscription subscription = new Subscription();
+            subscription.setPlanType(SubscriptionPlan.PREMIUM);
+            when(subscriptionRepository.findActiveSubscriptionsByStudentId(1L)).thenReturn(List.of(subscription));
+
+            assertThat(entitlementService.isPremium(1L)).isTrue();
+            assertThat(entitlementService.isPremium(1L)).isTrue();
+            assertThat(entitlementService.isPremium(1L)).isTrue();
+
+            verify(subscriptionRepository, times(1)).findActiveSubscriptionsByStudentId(1L);
+            verifyNoInteractions(userRepository);
+            assertThat(meterRegistry.get("cache.gets").tag("cache", "entitlements").tag("result", "hit")
+                    .functionCounter().count()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should reload after an invalidation")
+        void shouldReloadAfterInvalidation() {
+            when(subscriptionRepository.findActiveSubscriptionsByStudentId(1L)).thenReturn(List.of());
+            when(userRepository.findById(1L))
+                    .thenReturn(Optional.of(student(null)))
+                    .thenReturn(Optional.of(student(LocalDate.now().plusDays(14))));
+
+            assertThat(entitlementService.isPremium(1L)).isFalse();
+            entitlementService.invalidate(1L);
+
+            Entitlement entitlement = entitlementService.getEntitlement(1L);
+            assertThat(entitlement.premium()).isTrue();
+            assertThat(entitlement.expiresAt()).isEqualTo(LocalDate.now().plusDays(15).atStartOfDay());
+        }
+    }
+
+    @Nested
+    @DisplayName("ttl")
+    class Ttl {
+
+        private final LocalDateTime now = LocalDateTime.of(2026, 3, 31, 23, 55);
+
+        @Test
+        @DisplayName("Should expire with the subscription or trial, within the TTL bounds")
+        void shouldAlignWithExpiry() {
+            Entitlement endsSoon = new Entitlement(true, SubscriptionPlan.PREMIUM, null, LocalDate.of(2026, 4, 1).atStartOfDay());
+            Entitlement endsLater = new Entitlement(true, SubscriptionPlan.PREMIUM, null, LocalDate.of(2026, 5, 1).atStartOfDay());
+            Entitlement overdue = new Entitlement(true, SubscriptionPlan.PREMIUM, null, now.minusHours(1));
+            Entitlement none = new Entitlement(false, null, null, null);
+
+            assertThat(EntitlementService.ttl(endsSoon, now)).isEqualTo(Duration.ofMinutes(5));
+            assertThat(EntitlementService.ttl(endsLater, now)).isEqualTo(EntitlementService.PREMIUM_TTL);
+            assertThat(EntitlementService.ttl(overdue, now)).isEqualTo(EntitlementService.MIN_TTL);
+            assertThat(EntitlementService.ttl(none, now)).isEqualTo(EntitlementService.NON_PREMIUM_TTL);
+        }
+    }
+}
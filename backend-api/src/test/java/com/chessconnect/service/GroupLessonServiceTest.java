@@ -45,6 +45,7 @@ class GroupLessonServiceTest {
     @Mock private TeacherBalanceService teacherBalanceService;
     @Mock private ProgressRepository progressRepository;
     @Mock private ApplicationEventPublisher eventPublisher;
+    @Mock private LessonTimerService lessonTimerService;
 
     @InjectMocks
     private GroupLessonService groupLessonService;
@@ -420,6 +421,7 @@ class GroupLessonServiceTest {
 
             assertThat(groupLesson.getStatus()).isEqualTo(LessonStatus.CANCELLED);
             assertThat(groupLesson.getCancelledBy()).isEqualTo("SYSTEM");
+            verify(lessonTimerService).cancelAll(100L);
         }
 
         @Test
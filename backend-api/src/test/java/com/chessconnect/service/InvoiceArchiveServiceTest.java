@@ -0,0 +1,201 @@
+package com.chessconnect.service;
+
+import com.chessconnect.repository.InvoiceRepository;
+import com.chessconnect.repository.projection.InvoiceListView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("InvoiceArchiveService Tests")
+class InvoiceArchiveServiceTest {
+
+    @Mock
+    private InvoiceRepository invoiceRepository;
+
+    @Mock
+    private InvoiceService invoiceService;
+
+    @TempDir
+    Path storage;
+
+    private InvoiceArchiveService archiveService;
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 3, 1, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        // Run renders inline so the test stays deterministic
+        archiveService = new InvoiceArchiveService(invoiceRepository, invoiceService, Runnable::run);
+    }
+
+    @Nested
+    @DisplayName("writeArchive")
+    class WriteArchive {
+
+        @Test
+        @DisplayName("Should copy stored PDFs, render missing ones and list every invoice in the manifest")
+        void shouldArchiveWithManifest() throws Exception {
+            Path stored = Files.writeString(storage.resolve("FAC-1.pdf"), "%PDF stored");
+            Path rendered = storage.resolve("FAC-2.pdf");
+            when(invoiceRepository.findIssuedBetween(any(), any(), isNull(), isNull(), anyInt()))
+                    .thenReturn(List.of(row(1L, stored.toString()), row(2L, null), row(3L, storage.resolve("gone.pdf").toString())));
+            when(invoiceService.ensurePdf(2L)).thenAnswer(invocation -> Files.writeString(rendered, "%PDF rendered"));
+            when(invoiceService.ensurePdf(3L)).thenThrow(new IOException("Failed to generate PDF"));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int count = archiveService.writeArchive(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31), out);
+
+            Map<String, String> entries = unzip(out.toByteArray());
+            assertThat(count).isEqualTo(3);
+            assertThat(entries.keySet()).containsExactly("FAC-1.pdf", "FAC-2.pdf", InvoiceArchiveService.MANIFEST_NAME);
+            assertThat(entries.get("FAC-1.pdf")).isEqualTo("%PDF stored");
+            assertThat(entries.get("FAC-2.pdf")).isEqualTo("%PDF rendered");
+
+            List<String> manifest = entries.get(InvoiceArchiveService.MANIFEST_NAME).lines().toList();
+            assertThat(manifest).hasSize(4);
+            assertThat(manifest.get(0)).startsWith("file,invoiceNumber,");
+            assertThat(manifest.get(1)).startsWith("FAC-1.pdf,FAC-1,").endsWith(",OK");
+            assertThat(manifest.get(3)).startsWith(",FAC-3,").endsWith(",MANQUANT");
+            verify(invoiceService, never()).ensurePdf(1L);
+        }
+
+        @Test
+        @DisplayName("Should mark an invoice whose PDF can't be read as missing and keep archiving the others")
+        void shouldSkipUnreadablePdf() throws Exception {
+            Path stored = Files.writeString(storage.resolve("FAC-2.pdf"), "%PDF stored");
+            when(invoiceRepository.findIssuedBetween(any(), any(), isNull(), isNull(), anyInt()))
+                    .thenReturn(List.of(row(1L, null), row(2L, stored.toString())));
+            // Rendered, then removed before the archive could copy it
+            when(invoiceService.ensurePdf(1L)).thenReturn(storage.resolve("deleted.pdf"));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int count = archiveService.writeArchive(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31), out);
+
+            Map<String, String> entries = unzip(out.toByteArray());
+            assertThat(count).isEqualTo(2);
+            assertThat(entries.keySet()).containsExactly("FAC-2.pdf", InvoiceArchiveService.MANIFEST_NAME);
+            List<String> manifest = entries.get(InvoiceArchiveService.MANIFEST_NAME).lines().toList();
+            assertThat(manifest.get(1)).startsWith(",FAC-1,").endsWith(",MANQUANT");
+            assertThat(manifest.get(2)).startsWith("FAC-2.pdf,FAC-2,").endsWith(",OK");
+        }
+
+        @Test
+        @DisplayName("Should leave no truncated entry when a PDF fails while being read")
+        void shouldNotKeepPartialEntryOnReadFailure() throws Exception {
+            // A directory passes the size check and then fails the read itself
+            Path broken = Files.createDirectory(storage.resolve("FAC-1.pdf"));
+            Path empty = Files.createFile(storage.resolve("FAC-2.pdf"));
+            Path stored = Files.writeString(storage.resolve("FAC-3.pdf"), "%PDF stored");
+            when(invoiceRepository.findIssuedBetween(any(), any(), isNull(), isNull(), anyInt()))
+                    .thenReturn(List.of(row(1L, broken.toString()), row(2L, empty.toString()), row(3L, stored.toString())));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            archiveService.writeArchive(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31), out);
+
+            Map<String, String> entries = unzip(out.toByteArray());
+            assertThat(entries.keySet()).containsExactly("FAC-3.pdf", InvoiceArchiveService.MANIFEST_NAME);
+            List<String> manifest = entries.get(InvoiceArchiveService.MANIFEST_NAME).lines().toList();
+            assertThat(manifest.get(1)).startsWith(",FAC-1,").endsWith(",MANQUANT");
+            assertThat(manifest.get(2)).startsWith(",FAC-2,").endsWith(",MANQUANT");
+        }
+
+        @Test
+        @DisplayName("Should abort the archive when the response stream fails")
+        void shouldAbortWhenOutputFails() throws Exception {
+            Path stored = Files.writeString(storage.resolve("FAC-1.pdf"), "%PDF stored");
+            when(invoiceRepository.findIssuedBetween(any(), any(), isNull(), isNull(), anyInt()))
+                    .thenReturn(List.of(row(1L, stored.toString())));
+            OutputStream broken = new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    throw new IOException("Broken pipe");
+                }
+            };
+
+            assertThatThrownBy(() -> archiveService.writeArchive(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31), broken))
+                    .isInstanceOf(IOException.class);
+        }
+
+        @Test
+        @DisplayName("Should read the period in keyset batches, resuming after the last row")
+        void shouldResumeAfterLastRow() throws Exception {
+            Path stored = Files.writeString(storage.resolve("shared.pdf"), "%PDF");
+            List<InvoiceListView> fullBatch = LongStream.rangeClosed(1, InvoiceArchiveService.ARCHIVE_BATCH_SIZE)
+                    .mapToObj(id -> row(id, stored.toString()))
+                    .toList();
+            when(invoiceRepository.findIssuedBetween(any(), any(), isNull(), isNull(), anyInt())).thenReturn(fullBatch);
+            when(invoiceRepository.findIssuedBetween(any(), any(), eq(BASE.plusMinutes(InvoiceArchiveService.ARCHIVE_BATCH_SIZE)),
+                    eq((long) InvoiceArchiveService.ARCHIVE_BATCH_SIZE), anyInt()))
+                    .thenReturn(List.of());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int count = archiveService.writeArchive(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31), out);
+
+            assertThat(count).isEqualTo(InvoiceArchiveService.ARCHIVE_BATCH_SIZE);
+            assertThat(unzip(out.toByteArray())).hasSize(InvoiceArchiveService.ARCHIVE_BATCH_SIZE + 1);
+            verify(invoiceRepository, times(2)).findIssuedBetween(any(), any(), any(), any(), anyInt());
+            verifyNoInteractions(invoiceService);
+        }
+    }
+
+    private static Map<String, String> unzip(byte[] archive) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    private static InvoiceListView row(long id, String pdfPath) {
+        LocalDateTime at = BASE.plusMinutes(id);
+        return new InvoiceListView() {
+            public Long getId() { return id; }
+            public String getInvoiceNumber() { return "FAC-" + id; }
+            public String getInvoiceType() { return "LESSON_INVOICE"; }
+            public Long getCustomerId() { return 1L; }
+            public String getCustomerName() { return "Alice"; }
+            public String getIssuerName() { return "Coach"; }
+            public String getDescription() { return "Cours"; }
+            public Integer getSubtotalCents() { return 5000; }
+            public Integer getVatCents() { return 0; }
+            public Integer getTotalCents() { return 5000; }
+            public Integer getVatRate() { return 0; }
+            public Double getCommissionRate() { return null; }
+            public Boolean getPromoApplied() { return false; }
+            public String getStatus() { return "PAID"; }
+            public LocalDateTime getIssuedAt() { return at; }
+            public LocalDateTime getCreatedAt() { return at; }
+            public Long getLessonId() { return null; }
+            public String getPdfPath() { return pdfPath; }
+        };
+    }
+}
@@ -0,0 +1,152 @@
+package com.chessconnect.service;
+
+import com.chessconnect.dto.CursorPage;
+import com.chessconnect.dto.payment.InvoiceSummaryResponse;
+import com.chessconnect.repository.InvoiceRepository;
+import com.chessconnect.repository.projection.InvoiceListView;
+import com.chessconnect.service.InvoiceListingService.ExportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("InvoiceListingService Tests")
+class InvoiceListingServiceTest {
+
+    @Mock
+    private InvoiceRepository invoiceRepository;
+
+    private InvoiceListingService listingService;
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 3, 1, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        listingService = new InvoiceListingService(invoiceRepository, new ObjectMapper());
+    }
+
+    @Nested
+    @DisplayName("getInvoicePageForUser")
+    class UserPage {
+
+        @Test
+        @DisplayName("Should return one page from a single query, with a cursor when more rows exist")
+        void shouldPageWithCursor() {
+            // 3 rows for a page of 2: the extra one only signals a next page
+            when(invoiceRepository.findUserInvoicePage(eq(7L), isNull(), isNull(), eq(3)))
+                    .thenReturn(List.of(row(30L, 7L, "Alice"), row(20L, 9L, "Bob, SARL"), row(10L, 7L, "Alice")));
+
+            CursorPage<InvoiceSummaryResponse> page = listingService.getInvoicePageForUser(7L, null, 2);
+
+            assertThat(page.items()).extracting(InvoiceSummaryResponse::id).containsExactly(30L, 20L);
+            assertThat(page.items()).extracting(InvoiceSummaryResponse::isReceived).containsExactly(true, false);
+            assertThat(CursorPage.Cursor.decode(page.nextCursor())).isEqualTo(new CursorPage.Cursor(BASE.plusMinutes(20), 20L));
+            verifyNoMoreInteractions(invoiceRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("export")
+    class Export {
+
+        @Test
+        @DisplayName("Should stream every batch of the period as CSV, resuming after the last row")
+        void shouldExportCsvInBatches() throws Exception {
+            List<InvoiceListView> fullBatch = LongStream.rangeClosed(1, InvoiceListingService.EXPORT_BATCH_SIZE)
+                    .mapToObj(id -> row(id, 1L, "Alice"))
+                    .toList();
+            when(invoiceRepository.findIssuedBetween(any(), any(), isNull(), isNull(), anyInt())).thenReturn(fullBatch);
+            when(invoiceRepository.findIssuedBetween(any(), any(), eq(BASE.plusMinutes(InvoiceListingService.EXPORT_BATCH_SIZE)),
+                    eq((long) InvoiceListingService.EXPORT_BATCH_SIZE), anyInt()))
+                    .thenReturn(List.of(row(9999L, 2L, "Bob, \"SARL\"")));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int count = listingService.export(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31), ExportFormat.CSV, out);
+
+            List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+            assertThat(count).isEqualTo(InvoiceListingService.EXPORT_BATCH_SIZE + 1);
+            assertThat(lines).hasSize(count + 1);
+            assertThat(lines.get(0)).startsWith("invoiceNumber,");
+            assertThat(lines.get(lines.size() - 1)).contains("\"Bob, \"\"SARL\"\"\"");
+            verify(invoiceRepository).findIssuedBetween(eq(LocalDate.of(2026, 3, 1).atStartOfDay()),
+                    eq(LocalDate.of(2026, 4, 1).atStartOfDay()), isNull(), isNull(), anyInt());
+        }
+
+        @Test
+        @DisplayName("Should write one JSON object per line as NDJSON")
+        void shouldExportNdjson() throws Exception {
+            when(invoiceRepository.findIssuedBetween(any(), any(), any(), any(), anyInt()))
+                    .thenReturn(List.of(row(1L, 1L, "Alice"), row(2L, 1L, "Alice")));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            listingService.export(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31), ExportFormat.NDJSON, out);
+
+            List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+            assertThat(lines).hasSize(2);
+            assertThat(new ObjectMapper().readTree(lines.get(1)).get("invoiceNumber").asText()).isEqualTo("FAC-2");
+        }
+    }
+
+    @Nested
+    @DisplayName("csvField")
+    class CsvField {
+
+        @Test
+        @DisplayName("Should neutralise text that a spreadsheet would evaluate as a formula")
+        void shouldPrefixFormulas() {
+            assertThat(InvoiceListingService.csvField("=HYPERLINK(\"http://x\")")).isEqualTo("\"'=HYPERLINK(\"\"http://x\"\")\"");
+            assertThat(InvoiceListingService.csvField("+33 6 12")).isEqualTo("'+33 6 12");
+            assertThat(InvoiceListingService.csvField("-Alice")).isEqualTo("'-Alice");
+            assertThat(InvoiceListingService.csvField("@SUM(A1)")).isEqualTo("'@SUM(A1)");
+        }
+
+        @Test
+        @DisplayName("Should leave numbers, plain text and empty values alone")
+        void shouldKeepOtherValues() {
+            assertThat(InvoiceListingService.csvField(-5000)).isEqualTo("-5000");
+            assertThat(InvoiceListingService.csvField("Alice")).isEqualTo("Alice");
+            assertThat(InvoiceListingService.csvField("")).isEmpty();
+            assertThat(InvoiceListingService.csvField(null)).isEmpty();
+        }
+    }
+
+    private static InvoiceListView row(long id, Long customerId, String customerName) {
+        LocalDateTime at = BASE.plusMinutes(id);
+        return new InvoiceListView() {
+            public Long getId() { return id; }
+            public String getInvoiceNumber() { return "FAC-" + id; }
+            public String getInvoiceType() { return "LESSON_INVOICE"; }
+            public Long getCustomerId() { return customerId; }
+            public String getCustomerName() { return customerName; }
+            public String getIssuerName() { return "Coach"; }
+            public String getDescription() { return "Cours"; }
+            public Integer getSubtotalCents() { return 5000; }
+            public Integer getVatCents() { return 0; }
+            public Integer getTotalCents() { return 5000; }
+            public Integer getVatRate() { return 0; }
+            public Double getCommissionRate() { return null; }
+            public Boolean getPromoApplied() { return false; }
+            public String getStatus() { return "PAID"; }
+            public LocalDateTime getIssuedAt() { return at; }
+            public LocalDateTime getCreatedAt() { return at; }
+            public Long getLessonId() { return null; }
+            public String getPdfPath() { return null; }
+        };
+    }
+}
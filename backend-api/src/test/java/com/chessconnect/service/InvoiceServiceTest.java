@@ -0,0 +1,161 @@
+package com.chessconnect.service;
+
+import com.chessconnect.model.Invoice;
+import com.chessconnect.model.User;
+import com.chessconnect.model.enums.InvoiceType;
+import com.chessconnect.repository.InvoiceRepository;
+import com.chessconnect.repository.LessonRepository;
+import com.chessconnect.repository.PaymentRepository;
+import com.chessconnect.repository.UserRepository;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("InvoiceService Tests")
+class InvoiceServiceTest {
+
+    @Mock
+    private InvoiceRepository invoiceRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private LessonRepository lessonRepository;
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @InjectMocks
+    private InvoiceService invoiceService;
+
+    @TempDir
+    Path storage;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(invoiceService, "invoiceStoragePath", storage.toString());
+    }
+
+    private static Invoice invoice(long id, InvoiceType type) {
+        User customer = new User();
+        customer.setId(100 + id);
+        customer.setFirstName("Alice");
+        customer.setLastName("Martin");
+        customer.setEmail("alice@example.com");
+
+        User issuer = new User();
+        issuer.setId(200 + id);
+        issuer.setFirstName("Coach");
+        issuer.setLastName("Dupont");
+        issuer.setEmail("coach@example.com");
+
+        Invoice invoice = new Invoice();
+        invoice.setId(id);
+        invoice.setInvoiceNumber("FAC-2026-" + String.format("%06d", id));
+        invoice.setInvoiceType(type);
+        invoice.setCustomer(customer);
+        invoice.setIssuer(type == InvoiceType.LESSON_INVOICE ? issuer : null);
+        invoice.setSubtotalCents(5000);
+        invoice.setTotalCents(5000);
+        invoice.setCommissionRate(0.125);
+        invoice.setDescription("Virement des gains - 2026-03");
+        invoice.setIssuedAt(LocalDateTime.of(2026, 3, 15, 10, 0));
+        return invoice;
+    }
+
+    @Nested
+    @DisplayName("ensurePdf")
+    class EnsurePdf {
+
+        @ParameterizedTest
+        @EnumSource(value = InvoiceType.class, names = { "LESSON_INVOICE", "COMMISSION_INVOICE", "SUBSCRIPTION", "PAYOUT_INVOICE" })
+        @DisplayName("Should render and store a missing PDF for each invoice type")
+        void shouldRenderMissingPdf(InvoiceType type) throws Exception {
+            Invoice invoice = invoice(1L, type);
+            when(invoiceRepository.findById(1L)).thenReturn(Optional.of(invoice));
+
+            Path pdf = invoiceService.ensurePdf(1L);
+
+            assertThat(pdf).isEqualTo(storage.resolve("FAC-2026-000001.pdf"));
+            assertThat(new String(Files.readAllBytes(pdf), 0, 5)).isEqualTo("%PDF-");
+            assertThat(invoice.getPdfPath()).isEqualTo(pdf.toString());
+            verify(invoiceRepository).save(invoice);
+        }
+
+        @Test
+        @DisplayName("Should return the stored PDF without rendering it again")
+        void shouldReuseStoredPdf() throws Exception {
+            Path stored = Files.writeString(storage.resolve("stored.pdf"), "%PDF stored");
+            Invoice invoice = invoice(1L, InvoiceType.LESSON_INVOICE);
+            invoice.setPdfPath(stored.toString());
+            when(invoiceRepository.findById(1L)).thenReturn(Optional.of(invoice));
+
+            assertThat(invoiceService.ensurePdf(1L)).isEqualTo(stored);
+            verify(invoiceRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Should render identical PDFs concurrently with the shared fonts and logo")
+        void shouldRenderConcurrently() throws Exception {
+            List<Invoice> invoices = LongStream.rangeClosed(1, 16)
+                    .mapToObj(id -> invoice(id, id % 2 == 0 ? InvoiceType.LESSON_INVOICE : InvoiceType.COMMISSION_INVOICE))
+                    .toList();
+            invoices.forEach(invoice -> when(invoiceRepository.findById(invoice.getId())).thenReturn(Optional.of(invoice)));
+
+            ExecutorService pool = Executors.newFixedThreadPool(4);
+            try {
+                List<CompletableFuture<Path>> renders = invoices.stream()
+                        .map(invoice -> CompletableFuture.supplyAsync(() -> {
+                            try {
+                                return invoiceService.ensurePdf(invoice.getId());
+                            } catch (Exception e) {
+                                throw new IllegalStateException(e);
+                            }
+                        }, pool))
+                        .toList();
+
+                for (int i = 0; i < renders.size(); i++) {
+                    PdfReader reader = new PdfReader(renders.get(i).join().toString());
+                    try {
+                        assertThat(reader.getNumberOfPages()).isEqualTo(1);
+                        assertThat(new PdfTextExtractor(reader).getTextFromPage(1)).contains(invoices.get(i).getInvoiceNumber());
+                        assertThat(reader.getPageN(1).getAsDict(PdfName.RESOURCES).getAsDict(PdfName.XOBJECT).size())
+                                .as("logo").isPositive();
+                    } finally {
+                        reader.close();
+                    }
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.chessconnect.service;
+
+import com.chessconnect.repository.LessonParticipantRepository;
+import com.chessconnect.repository.LessonRepository;
+import com.chessconnect.service.LessonAccessService.Access;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the service behind Spring's cache proxy, since what is cached is decided by the annotation.
+ */
+@SpringJUnitConfig
+@DisplayName("LessonAccessService Tests")
+class LessonAccessServiceTest {
+
+    @Configuration
+    @EnableCaching
+    @Import(LessonAccessService.class)
+    static class Config {
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("lessonAccess");
+        }
+    }
+
+    @MockBean
+    private LessonRepository lessonRepository;
+
+    @MockBean
+    private LessonParticipantRepository participantRepository;
+
+    @Autowired
+    private LessonAccessService accessService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache("lessonAccess").clear();
+        // Group lesson 1 taught by 100, no individual student
+        List<Object[]> rows = List.<Object[]>of(new Object[] { null, 100L, true });
+        when(lessonRepository.findParticipantIdsById(1L)).thenReturn(rows);
+    }
+
+    @Test
+    @DisplayName("Should let a student in right after joining a lesson they were refused")
+    void shouldNotCacheDenial() {
+        when(participantRepository.existsActiveByLessonIdAndStudentId(1L, 7L)).thenReturn(false, true);
+
+        assertThat(accessService.getAccess(1L, 7L)).isEqualTo(Access.DENIED);
+        assertThat(accessService.getAccess(1L, 7L)).isEqualTo(Access.ALLOWED);
+    }
+
+    @Test
+    @DisplayName("Should serve a granted access from the cache")
+    void shouldCacheGrantedAccess() {
+        assertThat(accessService.getAccess(1L, 100L)).isEqualTo(Access.ALLOWED);
+        assertThat(accessService.getAccess(1L, 100L)).isEqualTo(Access.ALLOWED);
+
+        verify(lessonRepository, times(1)).findParticipantIdsById(1L);
+    }
+
+    @Test
+    @DisplayName("Should not cache a lesson that does not exist yet")
+    void shouldNotCacheNotFound() {
+        when(lessonRepository.findParticipantIdsById(2L)).thenReturn(List.of());
+
+        accessService.getAccess(2L, 7L);
+        accessService.getAccess(2L, 7L);
+
+        verify(lessonRepository, times(2)).findParticipantIdsById(2L);
+    }
+}
@@ -0,0 +1,96 @@
+package com.chessconnect.service;
+
+import com.chessconnect.model.Lesson;
+import com.chessconnect.model.enums.LessonTimerType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LessonTimerService Tests")
+class LessonTimerServiceTest {
+
+    private static final LocalDateTime SCHEDULED_AT = LocalDateTime.of(2026, 3, 10, 18, 0);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private LessonTimerService lessonTimerService;
+
+    @BeforeEach
+    void setUp() {
+        lessonTimerService = new LessonTimerService(jdbcTemplate);
+    }
+
+    private static Lesson lesson(boolean group) {
+        Lesson lesson = new Lesson();
+        lesson.setId(7L);
+        lesson.setScheduledAt(SCHEDULED_AT);
+        lesson.setDurationMinutes(60);
+        lesson.setIsGroupLesson(group);
+        return lesson;
+    }
+
+    @Test
+    @DisplayName("Should schedule only the confirmation timeout for a private booking")
+    void shouldScheduleConfirmationTimeoutOnBooking() {
+        LocalDateTime before = LocalDateTime.now();
+
+        lessonTimerService.onBooked(lesson(false));
+
+        ArgumentCaptor<Timestamp> fireAt = ArgumentCaptor.forClass(Timestamp.class);
+        verify(jdbcTemplate).update(startsWith("INSERT INTO lesson_timers"), eq(7L),
+                eq("CONFIRMATION_TIMEOUT"), fireAt.capture());
+        assertThat(fireAt.getValue().toLocalDateTime())
+                .isAfterOrEqualTo(before.plusHours(LessonTimerService.CONFIRMATION_TIMEOUT_HOURS));
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should also schedule the fill deadline for a group booking")
+    void shouldScheduleGroupDeadlineOnBooking() {
+        lessonTimerService.onBooked(lesson(true));
+
+        verify(jdbcTemplate).update(startsWith("INSERT INTO lesson_timers"), eq(7L),
+                eq("CONFIRMATION_TIMEOUT"), any(Timestamp.class));
+        verify(jdbcTemplate).update(startsWith("INSERT INTO lesson_timers"), eq(7L),
+                eq("GROUP_DEADLINE"), eq(Timestamp.valueOf(SCHEDULED_AT.minusHours(24))));
+    }
+
+    @Test
+    @DisplayName("Should swap the confirmation timeout for the reminder and auto-completion on confirmation")
+    void shouldScheduleReminderAndCompletionOnConfirmation() {
+        lessonTimerService.onConfirmed(lesson(false));
+
+        verify(jdbcTemplate).update(startsWith("DELETE FROM lesson_timers"), eq(7L), eq("CONFIRMATION_TIMEOUT"));
+        verify(jdbcTemplate).update(startsWith("INSERT INTO lesson_timers"), eq(7L),
+                eq("REMINDER"), eq(Timestamp.valueOf(SCHEDULED_AT.minusMinutes(60))));
+        verify(jdbcTemplate).update(startsWith("INSERT INTO lesson_timers"), eq(7L),
+                eq("AUTO_COMPLETE"), eq(Timestamp.valueOf(SCHEDULED_AT.plusMinutes(60))));
+    }
+
+    @Test
+    @DisplayName("Should upsert so that scheduling a timer again moves it and resets its attempts")
+    void shouldUpsertTimers() {
+        lessonTimerService.schedule(7L, LessonTimerType.REMINDER, SCHEDULED_AT);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).update(sql.capture(), eq(7L), eq("REMINDER"), eq(Timestamp.valueOf(SCHEDULED_AT)));
+        assertThat(sql.getValue())
+                .contains("ON CONFLICT (lesson_id, timer_type) DO UPDATE SET fire_at = EXCLUDED.fire_at, attempts = 0");
+    }
+}
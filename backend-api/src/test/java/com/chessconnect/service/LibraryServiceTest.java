@@ -0,0 +1,142 @@
+package com.chessconnect.service;
+
+import com.chessconnect.dto.CursorPage;
+import com.chessconnect.dto.VideoDTO;
+import com.chessconnect.repository.LessonRepository;
+import com.chessconnect.repository.projection.LibraryVideoView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LibraryService Tests")
+class LibraryServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 10, 18, 0);
+    private static final LibraryService.DateRange ANY_TIME = new LibraryService.DateRange(null, null);
+
+    @Mock
+    private LessonRepository lessonRepository;
+
+    @Mock
+    private SubscriptionService subscriptionService;
+
+    private LibraryService libraryService;
+
+    @BeforeEach
+    void setUp() {
+        libraryService = new LibraryService(lessonRepository, subscriptionService);
+    }
+
+    private static LibraryVideoView video(long id) {
+        return new LibraryVideoView() {
+            public Long getId() { return id; }
+            public LocalDateTime getScheduledAt() { return NOW.minusDays(id); }
+            public String getRecordingUrl() { return "https://cdn.mychess.fr/recordings/" + id + ".mp4"; }
+            public Integer getDurationMinutes() { return 45; }
+            public String getThumbnailUrl() { return null; }
+            public String getTeacherFirstName() { return "Magnus"; }
+            public String getTeacherLastName() { return "Carlsen"; }
+            public String getTeacherAvatar() { return null; }
+            public String getStudentFirstName() { return "Alice"; }
+            public String getStudentLastName() { return "Martin"; }
+            public String getCourseTitle() { return "Les ouvertures"; }
+        };
+    }
+
+    private static List<LibraryVideoView> videos(int count) {
+        return LongStream.rangeClosed(1, count).mapToObj(LibraryServiceTest::video).toList();
+    }
+
+    @Nested
+    @DisplayName("plain lists")
+    class PlainLists {
+
+        @Test
+        @DisplayName("Should return the whole student library without a row limit")
+        void shouldListWholeStudentLibrary() {
+            when(subscriptionService.isPremium(1L)).thenReturn(true);
+            when(lessonRepository.findLibraryVideoPage(1L, true, null, null, null, null, null,
+                    Integer.MAX_VALUE)).thenReturn(videos(3));
+
+            List<VideoDTO> list = libraryService.getAllStudentVideos(1L, null, ANY_TIME);
+
+            assertThat(list).hasSize(3);
+            assertThat(list.get(0).getTeacherName()).isEqualTo("Magnus C.");
+            assertThat(list.get(0).getStudentName()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should return every recording to the admin without a row limit")
+        void shouldListEveryRecording() {
+            when(lessonRepository.findAllLibraryVideoPage(null, null, null, null, null,
+                    Integer.MAX_VALUE)).thenReturn(videos(2));
+
+            List<VideoDTO> list = libraryService.getAllVideosList(null, ANY_TIME);
+
+            assertThat(list).hasSize(2);
+            assertThat(list.get(0).getTeacherName()).isEqualTo("Magnus Carlsen");
+            assertThat(list.get(0).getStudentName()).isEqualTo("Alice Martin");
+        }
+    }
+
+    @Nested
+    @DisplayName("pages")
+    class Pages {
+
+        @Test
+        @DisplayName("Should hide group recordings from non-premium students in the query and return a cursor")
+        void shouldPageStudentLibrary() {
+            when(subscriptionService.isPremium(1L)).thenReturn(false);
+            when(lessonRepository.findLibraryVideoPage(1L, false, "ouv", null, null, null, null, 3))
+                    .thenReturn(videos(3));
+
+            CursorPage<VideoDTO> page = libraryService.getStudentVideos(1L, "ouv", ANY_TIME, null, 2);
+
+            assertThat(page.items()).extracting(VideoDTO::getId).containsExactly(1L, 2L);
+            assertThat(page.nextCursor()).isEqualTo(new CursorPage.Cursor(NOW.minusDays(2), 2L).encode());
+            assertThat(page.items().get(0).getDurationSeconds()).isEqualTo(45 * 60);
+            assertThat(page.items().get(0).getThumbnailUrl()).isEqualTo("/assets/images/video-thumbnail-placeholder.svg");
+        }
+
+        @Test
+        @DisplayName("Should continue after the cursor and cap the page size")
+        void shouldContinueAfterCursor() {
+            String cursor = new CursorPage.Cursor(NOW.minusDays(2), 2L).encode();
+            when(lessonRepository.findAllLibraryVideoPage(isNull(), isNull(), isNull(),
+                    eq(NOW.minusDays(2)), eq(2L), anyInt())).thenReturn(List.of(video(3)));
+
+            CursorPage<VideoDTO> page = libraryService.getAllVideos(null, ANY_TIME, cursor, 10_000);
+
+            verify(lessonRepository).findAllLibraryVideoPage(null, null, null, NOW.minusDays(2), 2L,
+                    LibraryService.MAX_PAGE_SIZE + 1);
+            assertThat(page.items()).hasSize(1);
+            assertThat(page.nextCursor()).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Should turn explicit dates into an inclusive range")
+    void shouldBuildDateRange() {
+        LibraryService.DateRange range = LibraryService.DateRange.of(null,
+                LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 10));
+
+        assertThat(range.from()).isEqualTo(LocalDateTime.of(2026, 3, 1, 0, 0));
+        assertThat(range.to()).isAfter(LocalDateTime.of(2026, 3, 10, 23, 59));
+    }
+}
@@ -0,0 +1,65 @@
+package com.chessconnect.service;
+
+import com.chessconnect.repository.UserNotificationRepository;
+import com.chessconnect.scheduler.ScheduledJobRunner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NotificationCleanupService Tests")
+class NotificationCleanupServiceTest {
+
+    @Mock
+    private UserNotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationCounterService counterService;
+
+    @Mock
+    private ScheduledJobRunner jobRunner;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationCleanupService cleanupService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cleanupService = new NotificationCleanupService(notificationRepository, counterService, meterRegistry, jobRunner);
+    }
+
+    @Test
+    @DisplayName("Should keep deleting chunks until one comes back short")
+    void shouldDeleteInChunks() {
+        int chunk = NotificationCleanupService.CHUNK_SIZE;
+        when(notificationRepository.deleteUnreadOlderThan(any(), eq(chunk))).thenReturn(chunk, chunk, 12);
+        when(notificationRepository.deleteExcessPerUser(20, chunk)).thenReturn(3);
+
+        NotificationCleanupService.CleanupResult result = cleanupService.runManualCleanup();
+
+        assertThat(result.expiredDeleted()).isEqualTo(2 * chunk + 12);
+        assertThat(result.excessDeleted()).isEqualTo(3);
+        verify(notificationRepository, times(3)).deleteUnreadOlderThan(any(), eq(chunk));
+        assertThat(meterRegistry.get("notification_cleanup_deleted").tag("reason", "expired").counter().count())
+                .isEqualTo(2.0 * chunk + 12);
+        verify(counterService).invalidateAll();
+    }
+
+    @Test
+    @DisplayName("Should leave unread counters alone when nothing was deleted")
+    void shouldNotInvalidateCountersWhenNothingDeleted() {
+        when(notificationRepository.deleteUnreadOlderThan(any(), anyInt())).thenReturn(0);
+        when(notificationRepository.deleteExcessPerUser(anyInt(), anyInt())).thenReturn(0);
+
+        assertThat(cleanupService.runManualCleanup().total()).isZero();
+        verifyNoInteractions(counterService);
+    }
+}
@@ -0,0 +1,175 @@
+package com.chessconnect.service;
+
+import com.chessconnect.event.NotificationEvent;
+import com.chessconnect.event.cluster.ClusterSseRouter;
+import com.chessconnect.event.cluster.LocalClusterMessageBus;
+import com.chessconnect.event.payload.UnreadCountPayload;
+import com.chessconnect.repository.UserNotificationRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NotificationCounterService Tests")
+class NotificationCounterServiceTest {
+
+    @Mock
+    private UserNotificationRepository notificationRepository;
+
+    @Mock
+    private ClusterSseRouter sseRouter;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private SseConnectionManager connectionManager;
+
+    private LocalClusterMessageBus.Network network;
+    private NotificationCounterService counterService;
+
+    @BeforeEach
+    void setUp() {
+        network = new LocalClusterMessageBus.Network();
+        counterService = counterServiceOn(network);
+    }
+
+    private NotificationCounterService counterServiceOn(LocalClusterMessageBus.Network network) {
+        return new NotificationCounterService(notificationRepository, sseRouter, eventPublisher, connectionManager,
+                new LocalClusterMessageBus(network), new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void commit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    @DisplayName("Should load the count once and serve later reads from memory")
+    void shouldCacheLoadedCount() {
+        when(notificationRepository.countByUserIdAndIsReadFalse(1L)).thenReturn(3L);
+
+        assertThat(counterService.getUnreadCount(1L)).isEqualTo(3);
+        assertThat(counterService.getUnreadCount(1L)).isEqualTo(3);
+
+        verify(notificationRepository, times(1)).countByUserIdAndIsReadFalse(1L);
+    }
+
+    @Test
+    @DisplayName("Should reload the count after an invalidation")
+    void shouldReloadAfterInvalidate() {
+        when(notificationRepository.countByUserIdAndIsReadFalse(1L)).thenReturn(3L, 4L);
+        counterService.getUnreadCount(1L);
+
+        counterService.invalidate(1L);
+
+        assertThat(counterService.getUnreadCount(1L)).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should keep the cached count until the transaction commits")
+    void shouldWaitForCommit() {
+        when(notificationRepository.countByUserIdAndIsReadFalse(1L)).thenReturn(3L, 4L);
+        counterService.getUnreadCount(1L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        counterService.invalidate(1L);
+        assertThat(counterService.getUnreadCount(1L)).isEqualTo(3);
+
+        commit();
+        assertThat(counterService.getUnreadCount(1L)).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should not count a notification twice when a cold load runs between commit and the after-commit hook")
+    void shouldNotDoubleCountColdLoad() {
+        // The database already holds the new notification when the cold load runs
+        when(notificationRepository.countByUserIdAndIsReadFalse(1L)).thenReturn(4L);
+        TransactionSynchronizationManager.initSynchronization();
+        counterService.invalidate(1L);
+
+        assertThat(counterService.getUnreadCount(1L)).isEqualTo(4);
+        commit();
+
+        assertThat(counterService.getUnreadCount(1L)).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should send the reloaded count to a connected user")
+    void shouldPublishToConnectedUser() {
+        when(sseRouter.isConnected(1L)).thenReturn(true);
+        when(notificationRepository.countByUserIdAndIsReadFalse(1L)).thenReturn(2L);
+
+        counterService.invalidate(1L);
+
+        ArgumentCaptor<NotificationEvent> event = ArgumentCaptor.forClass(NotificationEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getEventType()).isEqualTo(NotificationEvent.EventType.UNREAD_COUNT_CHANGED);
+        assertThat(event.getValue().getTargetUserId()).isEqualTo(1L);
+        assertThat(event.getValue().getPayload()).isEqualTo(new UnreadCountPayload(2));
+    }
+
+    @Test
+    @DisplayName("Should neither count nor publish for a user who is not connected")
+    void shouldSkipDisconnectedUser() {
+        when(sseRouter.isConnected(1L)).thenReturn(false);
+
+        counterService.invalidate(1L);
+
+        verifyNoInteractions(eventPublisher, notificationRepository);
+    }
+
+    @Test
+    @DisplayName("Should give a freshly connected client its badge value")
+    void shouldPublishOnConnect() {
+        when(sseRouter.isConnected(1L)).thenReturn(true);
+        when(notificationRepository.countByUserIdAndIsReadFalse(1L)).thenReturn(5L);
+
+        counterService.onUserConnected(1L);
+
+        verify(eventPublisher).publishEvent(any(NotificationEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should drop the counter cached by another node when a notification changes here")
+    void shouldInvalidateOtherNodes() {
+        NotificationCounterService otherNode = counterServiceOn(network);
+        when(notificationRepository.countByUserIdAndIsReadFalse(1L)).thenReturn(3L, 4L);
+        assertThat(otherNode.getUnreadCount(1L)).isEqualTo(3);
+
+        counterService.invalidate(1L);
+
+        assertThat(otherNode.getUnreadCount(1L)).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should drop every counter of another node after a bulk invalidation")
+    void shouldInvalidateAllOnOtherNodes() {
+        NotificationCounterService otherNode = counterServiceOn(network);
+        when(notificationRepository.countByUserIdAndIsReadFalse(1L)).thenReturn(3L, 0L);
+        otherNode.getUnreadCount(1L);
+
+        counterService.invalidateAll();
+
+        assertThat(otherNode.getUnreadCount(1L)).isZero();
+    }
+}
@@ -0,0 +1,350 @@
+package com.chessconnect.service;
+
+import com.chessconnect.dto.CursorPage;
+import com.chessconnect.dto.promo.PromoCodeResponse;
+import com.chessconnect.dto.promo.PromoCodeUsageResponse;
+import com.chessconnect.dto.promo.ReferralEarningsSummaryResponse;
+import com.chessconnect.dto.promo.ValidatePromoCodeResponse;
+import com.chessconnect.model.PromoCode;
+import com.chessconnect.model.PromoCodeUsage;
+import com.chessconnect.model.User;
+import com.chessconnect.model.enums.DiscountType;
+import com.chessconnect.model.enums.PromoCodeType;
+import com.chessconnect.repository.*;
+import com.chessconnect.repository.projection.PromoCodeTotalsView;
+import com.chessconnect.repository.projection.PromoCodeUsageView;
+import com.chessconnect.repository.projection.ReferralEarningMonthView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PromoCodeService Tests")
+class PromoCodeServiceTest {
+
+    @Mock
+    private PromoCodeRepository promoCodeRepository;
+
+    @Mock
+    private PromoCodeUsageRepository promoCodeUsageRepository;
+
+    @Mock
+    private ReferralEarningRepository referralEarningRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private LessonRepository lessonRepository;
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private EntitlementService entitlementService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private PromoCodeService promoCodeService;
+
+    @BeforeEach
+    void setUp() {
+        promoCodeService = new PromoCodeService(promoCodeRepository, promoCodeUsageRepository, referralEarningRepository,
+                userRepository, lessonRepository, paymentRepository, entitlementService, jdbcTemplate, new SimpleMeterRegistry());
+    }
+
+    private static PromoCode promo(Integer maxUses) {
+        PromoCode promo = new PromoCode();
+        promo.setId(5L);
+        promo.setCode("CHESS20");
+        promo.setCodeType(PromoCodeType.PROMO);
+        promo.setDiscountType(DiscountType.STUDENT_DISCOUNT);
+        promo.setDiscountPercent(20.0);
+        promo.setMaxUses(maxUses);
+        return promo;
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private void givenReservations(List<Integer> result) {
+        when(jdbcTemplate.queryForList(eq(PromoCodeService.RESERVE_USE_SQL), eq(Integer.class), any(), any(), any()))
+                .thenReturn(result);
+    }
+
+    @Nested
+    @DisplayName("validateCode")
+    class ValidateCode {
+
+        @Test
+        @DisplayName("Should look the code up once and serve later checkouts from the snapshot")
+        void shouldCacheSnapshot() {
+            when(promoCodeRepository.findByCodeIgnoreCase("CHESS20")).thenReturn(Optional.of(promo(null)));
+
+            ValidatePromoCodeResponse first = promoCodeService.validateCode("chess20", 1L, 5000);
+            ValidatePromoCodeResponse second = promoCodeService.validateCode("CHESS20", 2L, 5000);
+
+            assertThat(first.valid()).isTrue();
+            assertThat(first.finalPriceCents()).isEqualTo(4000);
+            assertThat(second.valid()).isTrue();
+            verify(promoCodeRepository, times(1)).findByCodeIgnoreCase(anyString());
+        }
+
+        @Test
+        @DisplayName("Should reload the code after it is deactivated")
+        void shouldReloadAfterToggle() {
+            PromoCode promo = promo(null);
+            when(promoCodeRepository.findByCodeIgnoreCase("CHESS20")).thenReturn(Optional.of(promo));
+            when(promoCodeRepository.findById(5L)).thenReturn(Optional.of(promo));
+            assertThat(promoCodeService.validateCode("CHESS20", 1L, 5000).valid()).isTrue();
+
+            promoCodeService.toggleActive(5L, false);
+
+            assertThat(promoCodeService.validateCode("CHESS20", 1L, 5000).message()).isEqualTo("Ce code n'est plus actif");
+            verify(promoCodeRepository, times(2)).findByCodeIgnoreCase("CHESS20");
+        }
+
+        @Test
+        @DisplayName("Should not cache unknown codes")
+        void shouldNotCacheUnknownCodes() {
+            when(promoCodeRepository.findByCodeIgnoreCase("NOPE")).thenReturn(Optional.empty());
+
+            assertThat(promoCodeService.validateCode("NOPE", 1L, 5000).valid()).isFalse();
+            assertThat(promoCodeService.validateCode("NOPE", 1L, 5000).valid()).isFalse();
+
+            verify(promoCodeRepository, times(2)).findByCodeIgnoreCase("NOPE");
+        }
+    }
+
+    @Nested
+    @DisplayName("reserve, recordUsage and release")
+    class Redemption {
+
+        @Test
+        @DisplayName("Should refuse the checkout when no use can be reserved")
+        void shouldRefuseWhenUsedUp() {
+            when(promoCodeRepository.findByCodeIgnoreCase("CHESS20")).thenReturn(Optional.of(promo(10)));
+            givenReservations(List.of());
+
+            assertThatThrownBy(() -> promoCodeService.reserve("CHESS20", 1L))
+                    .isInstanceOf(IllegalStateException.class);
+
+            verify(promoCodeUsageRepository, never()).existsByPromoCodeIdAndUserId(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should refuse a second redemption by the same user after reserving")
+        void shouldRefuseRepeatRedemption() {
+            when(promoCodeRepository.findByCodeIgnoreCase("CHESS20")).thenReturn(Optional.of(promo(10)));
+            givenReservations(List.of(3));
+            when(promoCodeUsageRepository.existsByPromoCodeIdAndUserId(5L, 1L)).thenReturn(true);
+
+            assertThatThrownBy(() -> promoCodeService.reserve("CHESS20", 1L))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("deja utilise");
+        }
+
+        @Test
+        @DisplayName("Should record the discount of a reserved use and update the cached use count")
+        void shouldRecordUsage() {
+            when(promoCodeRepository.findByCodeIgnoreCase("CHESS20")).thenReturn(Optional.of(promo(10)));
+            when(promoCodeRepository.getReferenceById(5L)).thenReturn(promo(10));
+            givenReservations(List.of(10));
+            when(userRepository.findById(1L)).thenReturn(Optional.of(user(1L)));
+            when(promoCodeUsageRepository.save(any(PromoCodeUsage.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            promoCodeService.reserve("CHESS20", 1L);
+            PromoCodeUsage usage = promoCodeService.recordUsage("CHESS20", 1L, null, null, 5000);
+
+            assertThat(usage.getDiscountAmountCents()).isEqualTo(1000);
+            // The reservation took the last use: the next checkout is told before paying
+            assertThat(promoCodeService.validateCode("CHESS20", 2L, 5000).valid()).isFalse();
+            verify(promoCodeRepository, times(1)).findByCodeIgnoreCase(anyString());
+            verify(jdbcTemplate, times(1)).queryForList(eq(PromoCodeService.RESERVE_USE_SQL), eq(Integer.class), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should give a released use back and reload the code")
+        void shouldReleaseUse() {
+            when(promoCodeRepository.findByCodeIgnoreCase("CHESS20")).thenReturn(Optional.of(promo(10)));
+            givenReservations(List.of(10));
+            promoCodeService.reserve("CHESS20", 1L);
+            when(jdbcTemplate.update(eq(PromoCodeService.RELEASE_USE_SQL), any(), eq("CHESS20"))).thenReturn(1);
+
+            promoCodeService.release("CHESS20");
+
+            assertThat(promoCodeService.validateCode("CHESS20", 2L, 5000).valid()).isTrue();
+            verify(promoCodeRepository, times(2)).findByCodeIgnoreCase("CHESS20");
+        }
+
+        @Test
+        @DisplayName("Should never reserve past the maximum number of uses when the conditional UPDATE is stubbed by a compare-and-set")
+        void shouldHoldMaxUsesAgainstStubbedUpdate() throws Exception {
+            int maxUses = 25;
+            int checkouts = 200;
+            when(promoCodeRepository.findByCodeIgnoreCase("CHESS20")).thenReturn(Optional.of(promo(maxUses)));
+
+            // Stands in for the conditional UPDATE: one row, incremented only while below max_uses
+            AtomicInteger currentUses = new AtomicInteger();
+            when(jdbcTemplate.queryForList(eq(PromoCodeService.RESERVE_USE_SQL), eq(Integer.class), any(), any(), any()))
+                    .thenAnswer(invocation -> {
+                        int uses;
+                        do {
+                            uses = currentUses.get();
+                            if (uses >= maxUses) {
+                                return List.of();
+                            }
+                        } while (!currentUses.compareAndSet(uses, uses + 1));
+                        return List.of(uses + 1);
+                    });
+
+            ExecutorService pool = Executors.newFixedThreadPool(16);
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger redeemed = new AtomicInteger();
+            AtomicInteger refused = new AtomicInteger();
+            try {
+                List<CompletableFuture<Void>> attempts = new ArrayList<>();
+                IntStream.rangeClosed(1, checkouts).forEach(userId -> attempts.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        start.await();
+                        promoCodeService.reserve("CHESS20", (long) userId);
+                        redeemed.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        refused.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, pool)));
+                start.countDown();
+                CompletableFuture.allOf(attempts.toArray(CompletableFuture[]::new)).join();
+            } finally {
+                pool.shutdown();
+            }
+
+            assertThat(redeemed.get()).isEqualTo(maxUses);
+            assertThat(refused.get()).isEqualTo(checkouts - maxUses);
+            assertThat(currentUses.get()).isEqualTo(maxUses);
+        }
+    }
+
+    @Nested
+    @DisplayName("Admin totals and details")
+    class AdminDetails {
+
+        @Test
+        @DisplayName("Should aggregate the totals of every listed code in one query")
+        void shouldLoadTotalsOnceForTheList() {
+            PromoCode first = promo(null);
+            PromoCode second = promo(null);
+            second.setId(6L);
+            second.setCode("OTHER");
+            when(promoCodeRepository.findAllByOrderByCreatedAtDesc()).thenReturn(List.of(first, second));
+            when(promoCodeRepository.findTotalsByIds(List.of(5L, 6L))).thenReturn(List.of(totals(5L, 800, 1500, 300)));
+
+            List<PromoCodeResponse> codes = promoCodeService.getAllPromoCodes();
+
+            assertThat(codes).extracting(PromoCodeResponse::totalEarningsCents).containsExactly(1500L, 0L);
+            assertThat(codes.get(0).unpaidEarningsCents()).isEqualTo(300L);
+            verify(promoCodeRepository, times(1)).findTotalsByIds(anyCollection());
+            verifyNoInteractions(promoCodeUsageRepository, referralEarningRepository);
+        }
+
+        @Test
+        @DisplayName("Should page usages by keyset, fetching one extra row")
+        void shouldPageUsages() {
+            LocalDateTime at = LocalDateTime.of(2026, 3, 1, 10, 0);
+            CursorPage.Cursor after = new CursorPage.Cursor(at, 90L);
+            when(promoCodeUsageRepository.findUsagePage(1L, at, 90L, 3))
+                    .thenReturn(List.of(usage(80L, at.minusHours(1)), usage(70L, at.minusHours(2)), usage(60L, at.minusHours(3))));
+
+            CursorPage<PromoCodeUsageResponse> page = promoCodeService.getUsagePage(1L, after.encode(), 2);
+
+            assertThat(page.items()).extracting(PromoCodeUsageResponse::id).containsExactly(80L, 70L);
+            assertThat(page.items().get(0).userName()).isEqualTo("Eleve 80");
+            assertThat(CursorPage.Cursor.decode(page.nextCursor())).isEqualTo(new CursorPage.Cursor(at.minusHours(2), 70L));
+        }
+
+        @Test
+        @DisplayName("Should total the monthly earnings aggregates")
+        void shouldSummarizeEarnings() {
+            when(referralEarningRepository.summarizeByMonth(1L))
+                    .thenReturn(List.of(month("2026-03", 4, 2000, 500), month("2026-02", 10, 5000, 0)));
+
+            ReferralEarningsSummaryResponse summary = promoCodeService.getEarningsSummary(1L);
+
+            assertThat(summary.earningsCount()).isEqualTo(14);
+            assertThat(summary.totalEarnedCents()).isEqualTo(7000);
+            assertThat(summary.unpaidCents()).isEqualTo(500);
+            assertThat(summary.months()).extracting(ReferralEarningsSummaryResponse.MonthlyEarnings::month)
+                    .containsExactly("2026-03", "2026-02");
+        }
+
+        @Test
+        @DisplayName("Should mark earnings as paid with a single UPDATE")
+        void shouldMarkPaidInBulk() {
+            when(referralEarningRepository.markUnpaidAsPaid(eq(1L), any(LocalDateTime.class), eq("VIR-42"))).thenReturn(37);
+
+            int updated = promoCodeService.markEarningsAsPaid(1L, "VIR-42");
+
+            assertThat(updated).isEqualTo(37);
+            verify(referralEarningRepository).markUnpaidAsPaid(eq(1L), any(LocalDateTime.class), eq("VIR-42"));
+            verifyNoMoreInteractions(referralEarningRepository);
+        }
+    }
+
+    private static PromoCodeTotalsView totals(long promoCodeId, long discount, long earned, long unpaid) {
+        return new PromoCodeTotalsView() {
+            public Long getPromoCodeId() { return promoCodeId; }
+            public Long getTotalDiscountCents() { return discount; }
+            public Long getTotalEarningsCents() { return earned; }
+            public Long getUnpaidEarningsCents() { return unpaid; }
+        };
+    }
+
+    private static PromoCodeUsageView usage(long id, LocalDateTime usedAt) {
+        return new PromoCodeUsageView() {
+            public Long getId() { return id; }
+            public Long getUserId() { return id + 1000; }
+            public String getUserName() { return "Eleve " + id; }
+            public Long getLessonId() { return null; }
+            public Integer getOriginalAmountCents() { return 5000; }
+            public Integer getDiscountAmountCents() { return 1000; }
+            public Integer getCommissionSavedCents() { return 0; }
+            public LocalDateTime getUsedAt() { return usedAt; }
+        };
+    }
+
+    private static ReferralEarningMonthView month(String month, long count, long earned, long unpaid) {
+        return new ReferralEarningMonthView() {
+            public String getMonth() { return month; }
+            public Long getEarningsCount() { return count; }
+            public Long getEarnedCents() { return earned; }
+            public Long getUnpaidCents() { return unpaid; }
+        };
+    }
+}
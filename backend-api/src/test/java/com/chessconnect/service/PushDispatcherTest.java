@@ -0,0 +1,173 @@
+package com.chessconnect.service;
+
+import com.chessconnect.event.cluster.ClusterSseRouter;
+import com.chessconnect.model.PushSubscription;
+import com.chessconnect.repository.PushSubscriptionRepository;
+import com.chessconnect.service.PushDispatcher.ChunkResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.martijndwars.webpush.PushService;
+import org.bouncycastle.jce.ECNamedCurveTable;
+import org.bouncycastle.jce.interfaces.ECPublicKey;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PushDispatcher Tests")
+class PushDispatcherTest {
+
+    @Mock
+    private PushSubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private ClusterSseRouter sseRouter;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private HttpServer server;
+    private final Map<String, String> authorizations = new ConcurrentHashMap<>();
+    private PushDispatcher dispatcher;
+    private String baseUrl;
+
+    @BeforeAll
+    static void registerProvider() {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            authorizations.put(exchange.getRequestURI().getPath(), exchange.getRequestHeaders().getFirst("Authorization"));
+            exchange.getRequestBody().readAllBytes();
+            int status = switch (exchange.getRequestURI().getPath()) {
+                case "/gone" -> 410;
+                case "/broken" -> 500;
+                default -> 201;
+            };
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        PushService pushService = new PushService(generateKeyPair(), "mailto:support@mychess.fr");
+        // Direct executor: chunks run on the test thread
+        dispatcher = new PushDispatcher(pushService, subscriptionRepository, sseRouter, jdbcTemplate,
+                new ObjectMapper(), Runnable::run, new SimpleMeterRegistry(),
+                HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private static KeyPair generateKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("ECDH", BouncyCastleProvider.PROVIDER_NAME);
+        generator.initialize(ECNamedCurveTable.getParameterSpec("prime256v1"));
+        return generator.generateKeyPair();
+    }
+
+    private PushSubscription subscription(long id, String path) throws Exception {
+        KeyPair browserKeys = generateKeyPair();
+        byte[] auth = new byte[16];
+        new SecureRandom().nextBytes(auth);
+
+        PushSubscription sub = new PushSubscription();
+        sub.setId(id);
+        sub.setEndpoint(baseUrl + path);
+        sub.setP256dh(Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(((ECPublicKey) browserKeys.getPublic()).getQ().getEncoded(false)));
+        sub.setAuth(Base64.getUrlEncoder().withoutPadding().encodeToString(auth));
+        return sub;
+    }
+
+    @Nested
+    @DisplayName("send")
+    class Send {
+
+        @Test
+        @DisplayName("Should sort responses into delivered, expired and failed")
+        void shouldClassifyResponses() throws Exception {
+            byte[] payload = "{\"title\":\"t\"}".getBytes(StandardCharsets.UTF_8);
+
+            ChunkResult result = dispatcher.send(List.of(
+                    subscription(1, "/ok"), subscription(2, "/gone"), subscription(3, "/broken")), payload);
+
+            assertThat(result.delivered()).containsExactly(1L);
+            assertThat(result.expired()).containsExactly(2L);
+            assertThat(result.failed()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should reuse the VAPID token for every request to the same push service")
+        void shouldReuseVapidToken() throws Exception {
+            byte[] payload = "{}".getBytes(StandardCharsets.UTF_8);
+
+            dispatcher.send(List.of(subscription(1, "/a"), subscription(2, "/b")), payload);
+
+            assertThat(authorizations.get("/a")).startsWith("vapid t=");
+            assertThat(authorizations.get("/a")).isEqualTo(authorizations.get("/b"));
+        }
+    }
+
+    @Nested
+    @DisplayName("multicast")
+    class Multicast {
+
+        @Test
+        @DisplayName("Should skip users connected via SSE and write results back in batches")
+        void shouldSkipConnectedUsersAndBatchResults() throws Exception {
+            when(sseRouter.isConnected(10L)).thenReturn(true);
+            when(sseRouter.isConnected(11L)).thenReturn(false);
+            when(subscriptionRepository.findDeliverableByUserIdIn(List.of(11L)))
+                    .thenReturn(List.of(subscription(1, "/ok"), subscription(2, "/gone")));
+
+            dispatcher.multicast(List.of(10L, 11L), new PushDispatcher.PushMessage("Titre", "Corps", "/link"), false);
+
+            verify(subscriptionRepository).findDeliverableByUserIdIn(List.of(11L));
+            verify(jdbcTemplate).batchUpdate(startsWith("UPDATE push_subscriptions SET last_used_at"), anyList());
+            verify(jdbcTemplate).batchUpdate(startsWith("DELETE FROM push_subscriptions"), anyList());
+        }
+
+        @Test
+        @DisplayName("Should not query subscriptions when every user is connected")
+        void shouldDoNothingWhenAllConnected() {
+            when(sseRouter.isConnected(10L)).thenReturn(true);
+
+            dispatcher.multicast(List.of(10L), new PushDispatcher.PushMessage("Titre", "Corps", "/link"), false);
+
+            verifyNoInteractions(subscriptionRepository, jdbcTemplate);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.chessconnect.service;
+
+import com.chessconnect.scheduler.ScheduledJobRunner;
+import com.chessconnect.service.StripeAccountSnapshotService.AccountSnapshot;
+import com.stripe.exception.ApiConnectionException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StripeAccountSnapshotService Tests")
+class StripeAccountSnapshotServiceTest {
+
+    /**
+     * In-process stand-in for the Stripe API.
+     */
+    static class StubAccountClient implements StripeAccountClient {
+        final Map<String, AccountSnapshot> accounts = new HashMap<>();
+        final List<String> retrieved = new ArrayList<>();
+
+        @Override
+        public AccountSnapshot retrieve(String accountId) throws ApiConnectionException {
+            retrieved.add(accountId);
+            AccountSnapshot account = accounts.get(accountId);
+            if (account == null) {
+                throw new ApiConnectionException("Connection reset");
+            }
+            return account;
+        }
+    }
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ScheduledJobRunner jobRunner;
+
+    private StubAccountClient stripe;
+    private StripeAccountSnapshotService service;
+
+    @BeforeEach
+    void setUp() {
+        stripe = new StubAccountClient();
+        service = new StripeAccountSnapshotService(jdbcTemplate, stripe, new SimpleMeterRegistry(), jobRunner);
+    }
+
+    private static AccountSnapshot account(String id, boolean ready, List<String> currentlyDue) {
+        return new AccountSnapshot(id, id + "@example.com", null, ready, ready, ready, currentlyDue, LocalDateTime.now());
+    }
+
+    @Nested
+    @DisplayName("reconcileStale")
+    class ReconcileStale {
+
+        @Test
+        @DisplayName("Should refresh stale accounts and skip the ones Stripe fails on")
+        void shouldRefreshStaleAccounts() {
+            stripe.accounts.put("acct_ready", account("acct_ready", true, List.of()));
+            stripe.accounts.put("acct_pending", account("acct_pending", false, List.of("individual.id_number", "external_account")));
+            when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(), eq(StripeAccountSnapshotService.RECONCILE_BATCH_SIZE)))
+                    .thenReturn(List.of("acct_ready", "acct_down", "acct_pending"));
+
+            int refreshed = service.reconcileStale();
+
+            assertThat(refreshed).isEqualTo(2);
+            assertThat(stripe.retrieved).containsExactly("acct_ready", "acct_down", "acct_pending");
+            verify(jdbcTemplate).update(anyString(), eq("acct_ready"), eq("acct_ready@example.com"), isNull(),
+                    eq(true), eq(true), eq(true), isNull(), eq(StripeAccountSnapshotService.SOURCE_RECONCILER), any());
+            verify(jdbcTemplate).update(anyString(), eq("acct_pending"), eq("acct_pending@example.com"), isNull(),
+                    eq(false), eq(false), eq(false), eq("individual.id_number,external_account"),
+                    eq(StripeAccountSnapshotService.SOURCE_RECONCILER), any());
+            verify(jdbcTemplate, never()).update(anyString(), eq("acct_down"), any(), any(), any(), any(), any(), any(), any(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("save")
+    class Save {
+
+        @Test
+        @DisplayName("Should only replace a snapshot observed no later than the new one")
+        void shouldNotOverwriteNewerSnapshot() {
+            LocalDateTime eventTime = LocalDateTime.of(2026, 3, 1, 11, 0);
+            AccountSnapshot snapshot = new AccountSnapshot("acct_1", null, null, true, true, true, List.of(), eventTime);
+
+            service.save(snapshot, StripeAccountSnapshotService.SOURCE_WEBHOOK);
+
+            verify(jdbcTemplate).update(endsWith("WHERE EXCLUDED.synced_at >= stripe_account_snapshots.synced_at"),
+                    eq("acct_1"), isNull(), isNull(), eq(true), eq(true), eq(true), isNull(),
+                    eq(StripeAccountSnapshotService.SOURCE_WEBHOOK), eq(Timestamp.valueOf(eventTime)));
+        }
+    }
+
+    @Nested
+    @DisplayName("find")
+    class Find {
+
+        @SuppressWarnings("unchecked")
+        private void stored(AccountSnapshot... snapshots) {
+            when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenReturn(List.of(snapshots));
+        }
+
+        @Test
+        @DisplayName("Should ask Stripe for an account not synced yet, once per interval")
+        void shouldRefreshMissingAccountOnce() {
+            stored();
+            stripe.accounts.put("acct_new", account("acct_new", true, List.of()));
+
+            assertThat(service.findOrRefresh("acct_new")).get().extracting(AccountSnapshot::isReady).isEqualTo(true);
+            assertThat(service.findOrRefresh("acct_new")).isEmpty();
+
+            assertThat(stripe.retrieved).containsExactly("acct_new");
+        }
+
+        @Test
+        @DisplayName("Should serve a ready account from its snapshot")
+        void shouldNotRefreshReadyAccount() {
+            stored(account("acct_ready", true, List.of()));
+
+            assertThat(service.findOrRefresh("acct_ready")).isPresent();
+
+            assertThat(stripe.retrieved).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should fall back to the stored snapshot when Stripe is down")
+        void shouldFallBackWhenStripeDown() {
+            AccountSnapshot pending = account("acct_down", false, List.of("external_account"));
+            stored(pending);
+
+            assertThat(service.findOrRefresh("acct_down")).contains(pending);
+        }
+
+        @Test
+        @DisplayName("Should not query or call Stripe for a coach without an account")
+        void shouldIgnoreMissingAccount() {
+            assertThat(service.find(null)).isEmpty();
+            assertThat(service.find(" ")).isEmpty();
+            verifyNoInteractions(jdbcTemplate);
+            assertThat(stripe.retrieved).isEmpty();
+        }
+    }
+}
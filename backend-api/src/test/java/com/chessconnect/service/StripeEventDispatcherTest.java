@@ -0,0 +1,261 @@
+package com.chessconnect.service;
+
+import com.chessconnect.model.Subscription;
+import com.chessconnect.model.User;
+import com.chessconnect.model.enums.SubscriptionPlan;
+import com.chessconnect.repository.SubscriptionRepository;
+import com.chessconnect.scheduler.ScheduledJobRunner;
+import com.chessconnect.service.StripeAccountSnapshotService.AccountSnapshot;
+import com.chessconnect.service.StripeEventDispatcher.InboxEvent;
+import com.chessconnect.service.StripeEventDispatcher.Outcome;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StripeEventDispatcher Tests")
+class StripeEventDispatcherTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private StripeService stripeService;
+
+    @Mock
+    private SubscriptionService subscriptionService;
+
+    @Mock
+    private SubscriptionRepository subscriptionRepository;
+
+    @Mock
+    private StripeAccountSnapshotService accountSnapshotService;
+
+    @Mock
+    private EntitlementService entitlementService;
+
+    @Mock
+    private PromoCodeService promoCodeService;
+
+    @Mock
+    private ScheduledJobRunner jobRunner;
+
+    private StripeEventDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        StripeWebhookService webhookService =
+                new StripeWebhookService(stripeService, subscriptionService, subscriptionRepository,
+                        accountSnapshotService, entitlementService, promoCodeService);
+        // Runs each event on the calling thread, so verifications see every handler call
+        dispatcher = new StripeEventDispatcher(jdbcTemplate, webhookService, Runnable::run,
+                new SimpleMeterRegistry(), jobRunner);
+    }
+
+    /**
+     * Replay a recorded Stripe event from src/test/resources/stripe/events.
+     */
+    static InboxEvent replay(String fixture, int attempts) throws IOException {
+        try (InputStream in = StripeEventDispatcherTest.class.getResourceAsStream("/stripe/events/" + fixture + ".json")) {
+            assertThat(in).as("fixture %s", fixture).isNotNull();
+            String payload = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return new InboxEvent(fixture, "replay", payload, LocalDateTime.now().minusSeconds(5), attempts);
+        }
+    }
+
+    @Nested
+    @DisplayName("process")
+    class Process {
+
+        @Test
+        @DisplayName("Should activate the subscription of a completed subscription checkout")
+        void shouldActivateSubscription() throws Exception {
+            when(subscriptionRepository.findByStripeSubscriptionId("sub_1OqPremiumAlice")).thenReturn(Optional.empty());
+            InboxEvent event = replay("checkout_session_completed_subscription", 1);
+
+            Outcome outcome = dispatcher.process(List.of(event));
+
+            assertThat(outcome.processed()).containsExactly(event);
+            assertThat(outcome.failed()).isEmpty();
+            verify(subscriptionService).activateSubscription("sub_1OqPremiumAlice", 42L, SubscriptionPlan.PREMIUM);
+            verifyNoInteractions(stripeService);
+        }
+
+        @Test
+        @DisplayName("Should not activate a subscription twice when an event is replayed")
+        void shouldBeIdempotentOnReplay() throws Exception {
+            when(subscriptionRepository.findByStripeSubscriptionId("sub_1OqPremiumAlice"))
+                    .thenReturn(Optional.of(new Subscription()));
+
+            Outcome outcome = dispatcher.process(List.of(replay("checkout_session_completed_subscription", 2)));
+
+            assertThat(outcome.failed()).isEmpty();
+            verify(subscriptionService, never()).activateSubscription(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should process a whole batch and leave lesson checkouts to the confirm endpoint")
+        void shouldProcessBatch() throws Exception {
+            when(subscriptionRepository.findByStripeSubscriptionId("sub_1OqPremiumAlice")).thenReturn(Optional.empty());
+            List<InboxEvent> batch = List.of(
+                    replay("checkout_session_completed_subscription", 1),
+                    replay("checkout_session_completed_lesson", 1),
+                    replay("invoice_paid", 1));
+
+            Outcome outcome = dispatcher.process(batch);
+
+            assertThat(outcome.processed()).containsExactlyElementsOf(batch);
+            verify(subscriptionService, times(1)).activateSubscription(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should release the promo code use held by an expired lesson checkout")
+        void shouldReleasePromoOfExpiredCheckout() throws Exception {
+            Outcome outcome = dispatcher.process(List.of(replay("checkout_session_expired_lesson", 1)));
+
+            assertThat(outcome.failed()).isEmpty();
+            verify(promoCodeService).release("CHESS20");
+        }
+
+        @Test
+        @DisplayName("Should snapshot a Connect account from account.updated")
+        void shouldSnapshotUpdatedAccount() throws Exception {
+            Outcome outcome = dispatcher.process(List.of(replay("account_updated", 1)));
+
+            assertThat(outcome.failed()).isEmpty();
+            ArgumentCaptor<AccountSnapshot> snapshot = ArgumentCaptor.forClass(AccountSnapshot.class);
+            verify(accountSnapshotService).save(snapshot.capture(), eq(StripeAccountSnapshotService.SOURCE_WEBHOOK));
+            assertThat(snapshot.getValue().accountId()).isEqualTo("acct_1OqCoachBob");
+            assertThat(snapshot.getValue().businessName()).isEqualTo("Bob Echecs");
+            assertThat(snapshot.getValue().isReady()).isTrue();
+            assertThat(snapshot.getValue().currentlyDue()).isEmpty();
+            assertThat(snapshot.getValue().syncedAt())
+                    .isEqualTo(LocalDateTime.ofInstant(Instant.ofEpochSecond(1709290800), ZoneId.systemDefault()));
+        }
+
+        @Test
+        @DisplayName("Should drop the cached entitlement of a subscription deleted on Stripe")
+        void shouldInvalidateEntitlementOnDeletion() throws Exception {
+            User student = new User();
+            student.setId(42L);
+            Subscription subscription = new Subscription();
+            subscription.setStudent(student);
+            when(subscriptionRepository.findByStripeSubscriptionId("sub_1OqPremiumAlice")).thenReturn(Optional.of(subscription));
+
+            Outcome outcome = dispatcher.process(List.of(replay("customer_subscription_deleted", 1)));
+
+            assertThat(outcome.failed()).isEmpty();
+            verify(entitlementService).invalidate(42L);
+            verifyNoInteractions(stripeService);
+        }
+
+        @Test
+        @DisplayName("Should retrieve the subscription when the event was sent with another API version")
+        void shouldRetrieveSubscriptionOfOlderApiVersion() throws Exception {
+            User student = new User();
+            student.setId(42L);
+            Subscription subscription = new Subscription();
+            subscription.setStudent(student);
+            when(subscriptionRepository.findByStripeSubscriptionId("sub_1OqPremiumAlice")).thenReturn(Optional.of(subscription));
+            com.stripe.model.Subscription retrieved = new com.stripe.model.Subscription();
+            retrieved.setId("sub_1OqPremiumAlice");
+            when(stripeService.retrieveSubscription("sub_1OqPremiumAlice")).thenReturn(retrieved);
+
+            Outcome outcome = dispatcher.process(List.of(replay("customer_subscription_updated_older_api", 1)));
+
+            assertThat(outcome.failed()).isEmpty();
+            verify(entitlementService).invalidate(42L);
+        }
+
+        @Test
+        @DisplayName("Should report a failing event without failing the rest of the batch")
+        void shouldIsolateFailures() throws Exception {
+            when(subscriptionRepository.findByStripeSubscriptionId("sub_1OqPremiumAlice")).thenReturn(Optional.empty());
+            when(subscriptionService.activateSubscription(any(), any(), any()))
+                    .thenThrow(new RuntimeException("User not found"));
+            InboxEvent failing = replay("checkout_session_completed_subscription", 1);
+            InboxEvent other = replay("invoice_paid", 1);
+
+            Outcome outcome = dispatcher.process(List.of(failing, other));
+
+            assertThat(outcome.processed()).containsExactly(other);
+            assertThat(outcome.failed()).containsEntry(failing, "User not found");
+        }
+
+        @Test
+        @DisplayName("Should skip a subscription checkout without user_id instead of retrying it")
+        void shouldSkipMissingUserId() throws Exception {
+            InboxEvent event = replay("checkout_session_completed_subscription_no_user", 1);
+
+            Outcome outcome = dispatcher.process(List.of(event));
+
+            assertThat(outcome.processed()).isEmpty();
+            assertThat(outcome.failed()).isEmpty();
+            assertThat(outcome.skipped()).containsEntry(event, "Missing user_id in checkout metadata");
+            verifyNoInteractions(subscriptionService, subscriptionRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("dispatch")
+    class Dispatch {
+
+        @Test
+        @DisplayName("Should mark an unusable event SKIPPED without scheduling a retry")
+        @SuppressWarnings("unchecked")
+        void shouldMarkSkipped() throws Exception {
+            doAnswer(invocation -> {
+                invocation.<Runnable>getArgument(1).run();
+                return null;
+            }).when(jobRunner).runLocal(anyString(), any(Runnable.class));
+            InboxEvent event = replay("checkout_session_completed_subscription_no_user", 1);
+            when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any(), any())).thenReturn(List.of(event));
+
+            dispatcher.dispatch();
+
+            ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+            verify(jdbcTemplate).batchUpdate(startsWith("UPDATE stripe_events SET status = 'SKIPPED'"), rows.capture());
+            assertThat(rows.getValue()).singleElement()
+                    .satisfies(row -> assertThat(row).endsWith("Missing user_id in checkout metadata", event.eventId()));
+            verify(jdbcTemplate, never()).batchUpdate(startsWith("UPDATE stripe_events SET next_attempt_at"), anyList());
+        }
+    }
+
+    @Nested
+    @DisplayName("retryDelay")
+    class RetryDelay {
+
+        @Test
+        @DisplayName("Should back off exponentially up to one hour")
+        void shouldBackOff() {
+            assertThat(StripeEventDispatcher.retryDelay(1)).isEqualTo(Duration.ofSeconds(30));
+            assertThat(StripeEventDispatcher.retryDelay(2)).isEqualTo(Duration.ofMinutes(1));
+            assertThat(StripeEventDispatcher.retryDelay(StripeEventDispatcher.MAX_ATTEMPTS)).isEqualTo(Duration.ofHours(1));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.chessconnect.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripe.model.Event;
+import com.stripe.net.ApiResource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StripeEventInbox Tests")
+class StripeEventInboxTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private StripeEventInbox inbox;
+
+    @BeforeEach
+    void setUp() {
+        inbox = new StripeEventInbox(jdbcTemplate, new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Should key events by Stripe customer, Connect account, or user when there is neither")
+    void shouldKeyEventsByCustomer() throws Exception {
+        assertThat(inbox.customerKey(StripeEventDispatcherTest.replay("invoice_paid", 0).payload()))
+                .isEqualTo("cus_PremiumAlice");
+        assertThat(inbox.customerKey(StripeEventDispatcherTest.replay("checkout_session_completed_subscription", 0).payload()))
+                .isEqualTo("cus_PremiumAlice");
+        assertThat(inbox.customerKey(StripeEventDispatcherTest.replay("checkout_session_completed_lesson", 0).payload()))
+                .isEqualTo("user:7");
+        assertThat(inbox.customerKey(StripeEventDispatcherTest.replay("account_updated", 0).payload()))
+                .isEqualTo("account:acct_1OqCoachBob");
+    }
+
+    @Test
+    @DisplayName("Should ignore a redelivered event")
+    void shouldIgnoreRedelivery() throws Exception {
+        String payload = StripeEventDispatcherTest.replay("invoice_paid", 0).payload();
+        Event event = ApiResource.GSON.fromJson(payload, Event.class);
+        when(jdbcTemplate.update(anyString(), eq("evt_1OqInvoicePaid001"), eq("invoice.paid"),
+                eq("cus_PremiumAlice"), eq(payload), any(), any(), any()))
+                .thenReturn(1, 0);
+
+        assertThat(inbox.record(event, payload)).isTrue();
+        assertThat(inbox.record(event, payload)).isFalse();
+    }
+}
@@ -6,6 +6,7 @@ import com.chessconnect.model.enums.UserRole;
 import com.chessconnect.model.enums.SubscriptionPlan;
 import com.chessconnect.repository.SubscriptionRepository;
 import com.chessconnect.repository.UserRepository;
+import com.chessconnect.scheduler.ScheduledJobRunner;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -14,13 +15,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,6 +45,18 @@ class SubscriptionServiceTest {
     @Mock
     private com.chessconnect.repository.PaymentRepository paymentRepository;
 
+    @Mock
+    private ScheduledJobRunner jobRunner;
+
+    @Mock
+    private EntitlementService entitlementService;
+
+    @Mock
+    private UserNotificationService userNotificationService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
     @InjectMocks
     private SubscriptionService subscriptionService;
 
@@ -195,4 +213,45 @@ class SubscriptionServiceTest {
             assertThat(activeSubscription.getStudent().getRole()).isEqualTo(UserRole.STUDENT);
         }
     }
+
+    @Nested
+    @DisplayName("Deactivate Expired Subscriptions Tests")
+    class DeactivateExpiredTests {
+
+        @BeforeEach
+        void runJobInline() {
+            doAnswer(invocation -> {
+                invocation.<Runnable>getArgument(2).run();
+                return null;
+            }).when(jobRunner).runLocked(anyString(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should deactivate in chunks until a chunk comes back short")
+        void shouldDeactivateInChunks() {
+            List<Long> fullChunk = LongStream.rangeClosed(1, SubscriptionService.EXPIRY_CHUNK_SIZE).boxed().toList();
+            when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(), eq(SubscriptionService.EXPIRY_CHUNK_SIZE)))
+                    .thenReturn(fullChunk)
+                    .thenReturn(List.of(5000L));
+
+            subscriptionService.deactivateExpiredSubscriptions();
+
+            verify(jdbcTemplate, times(2)).queryForList(anyString(), eq(Long.class), any(), any());
+            verify(entitlementService, times(SubscriptionService.EXPIRY_CHUNK_SIZE + 1)).invalidate(any());
+            verify(entitlementService).invalidate(5000L);
+            verify(userNotificationService).createNotification(eq(5000L), any(), anyString(), anyString(), eq("/subscription"));
+            verify(subscriptionRepository, never()).findAllByIsActiveTrue();
+            verify(subscriptionRepository, never()).saveAll(any());
+        }
+
+        @Test
+        @DisplayName("Should do nothing when no subscription has expired")
+        void shouldDoNothingWhenNoneExpired() {
+            when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(), any())).thenReturn(List.of());
+
+            subscriptionService.deactivateExpiredSubscriptions();
+
+            verifyNoInteractions(entitlementService, userNotificationService);
+        }
+    }
 }
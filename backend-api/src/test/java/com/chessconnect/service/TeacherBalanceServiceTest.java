@@ -0,0 +1,185 @@
+package com.chessconnect.service;
+
+import com.chessconnect.dto.admin.TeacherBalanceCheckResponse;
+import com.chessconnect.repository.TeacherBalanceRepository;
+import com.chessconnect.repository.UserRepository;
+import com.chessconnect.model.Lesson;
+import com.chessconnect.model.User;
+import com.chessconnect.service.TeacherBalanceService.CreditedLessons;
+import com.chessconnect.service.TeacherBalanceService.StoredBalance;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TeacherBalanceService Tests")
+class TeacherBalanceServiceTest {
+
+    @Mock
+    private TeacherBalanceRepository teacherBalanceRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private TeacherBalanceService teacherBalanceService;
+
+    // Teacher 1 is up to date, teacher 2 missed a lesson, teacher 3 has no balance row yet
+    private static final List<StoredBalance> STORED = List.of(
+            new StoredBalance(1L, 3000, 1000, 2000, 2),
+            new StoredBalance(2L, 1500, 1500, 0, 1));
+
+    private static final List<CreditedLessons> CREDITED = List.of(
+            new CreditedLessons(1L, true, 0, null, null, 2),
+            new CreditedLessons(2L, true, 0, null, null, 1),
+            new CreditedLessons(2L, false, 1700, 2000, null, 1),
+            new CreditedLessons(3L, true, 0, null, null, 1));
+
+    @SuppressWarnings("unchecked")
+    private void given(List<StoredBalance> stored, List<CreditedLessons> credited) {
+        when(jdbcTemplate.query(startsWith("SELECT teacher_id"), any(RowMapper.class))).thenReturn(stored);
+        when(jdbcTemplate.query(startsWith("SELECT l.teacher_id"), any(RowMapper.class))).thenReturn(credited);
+    }
+
+    @Nested
+    @DisplayName("recalculateAllBalances")
+    class RecalculateAll {
+
+        @Test
+        @DisplayName("Should lock the balances and rewrite only those that differ, in batches")
+        @SuppressWarnings("unchecked")
+        void shouldBatchStaleBalances() {
+            given(STORED, CREDITED);
+
+            int corrected = teacherBalanceService.recalculateAllBalances();
+
+            assertThat(corrected).isEqualTo(2);
+            verify(jdbcTemplate).query(eq(TeacherBalanceService.STORED_BALANCES_SQL.formatted(" FOR UPDATE")),
+                    any(RowMapper.class));
+            ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+            verify(jdbcTemplate).batchUpdate(eq(TeacherBalanceService.UPDATE_BALANCE_SQL), updates.capture());
+            assertThat(updates.getValue()).singleElement()
+                    .satisfies(row -> assertThat(row).startsWith(3200, 3200, 2).endsWith(2L));
+            ArgumentCaptor<List<Object[]>> inserts = ArgumentCaptor.forClass(List.class);
+            verify(jdbcTemplate).batchUpdate(eq(TeacherBalanceService.INSERT_BALANCE_SQL), inserts.capture());
+            assertThat(inserts.getValue()).singleElement()
+                    .satisfies(row -> assertThat(row).startsWith(3L, 1500, 1500, 1));
+            verifyNoInteractions(teacherBalanceRepository);
+        }
+
+        @Test
+        @DisplayName("Should write nothing when every balance matches")
+        void shouldSkipWhenUpToDate() {
+            given(List.of(STORED.get(0)), List.of(CREDITED.get(0)));
+
+            assertThat(teacherBalanceService.recalculateAllBalances()).isZero();
+
+            verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        }
+    }
+
+    @Nested
+    @DisplayName("verifyBalances")
+    class VerifyBalances {
+
+        @Test
+        @DisplayName("Should report each mismatch with the expected available balance")
+        void shouldReportDiscrepancies() {
+            given(STORED, CREDITED);
+
+            TeacherBalanceCheckResponse report = teacherBalanceService.verifyBalances();
+
+            assertThat(report.teachersChecked()).isEqualTo(3);
+            assertThat(report.discrepancies()).extracting(TeacherBalanceCheckResponse.Discrepancy::teacherId)
+                    .containsExactly(2L, 3L);
+            assertThat(report.discrepancies().get(0).expectedAvailableBalanceCents()).isEqualTo(3200);
+            assertThat(report.discrepancies().get(1).storedTotalEarnedCents()).isNull();
+            verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        }
+
+        @Test
+        @DisplayName("Should find no discrepancy after crediting lessons that fall back on price or hourly rate")
+        void shouldMatchWhatWasCredited() {
+            User teacher = new User();
+            teacher.setId(5L);
+            teacher.setHourlyRateCents(4000);
+            Lesson priced = lesson(teacher, 5000);
+            Lesson unpriced = lesson(teacher, null);
+
+            teacherBalanceService.creditEarningsForCompletedLesson(priced);
+            teacherBalanceService.creditEarningsForCompletedLesson(unpriced);
+
+            ArgumentCaptor<Integer> earnings = ArgumentCaptor.forClass(Integer.class);
+            verify(jdbcTemplate, times(2)).update(eq(TeacherBalanceService.CREDIT_SQL),
+                    eq(5L), earnings.capture(), any(), eq(1), any(), any());
+            assertThat(earnings.getAllValues()).containsExactly(4375, 3500);
+            int credited = earnings.getAllValues().stream().mapToInt(Integer::intValue).sum();
+
+            given(List.of(new StoredBalance(5L, credited, credited, 0, 2)), List.of(
+                    new CreditedLessons(5L, false, 0, 5000, 4000, 1),
+                    new CreditedLessons(5L, false, 0, null, 4000, 1)));
+
+            assertThat(teacherBalanceService.verifyBalances().discrepancies()).isEmpty();
+        }
+
+        private Lesson lesson(User teacher, Integer priceCents) {
+            Lesson lesson = new Lesson();
+            lesson.setTeacher(teacher);
+            lesson.setIsFromSubscription(false);
+            lesson.setPriceCents(priceCents);
+            lesson.setTeacherEarningsCents(0);
+            return lesson;
+        }
+    }
+
+    @Nested
+    @DisplayName("migrateUncreditedLessons")
+    class MigrateUncredited {
+
+        @Test
+        @DisplayName("Should credit each teacher once with the sum of their lessons")
+        @SuppressWarnings("unchecked")
+        void shouldAggregatePerTeacher() throws Exception {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("teacher_id")).thenReturn(7L, 7L, 8L);
+            when(rs.getBoolean("is_from_subscription")).thenReturn(true, false, false);
+            when(rs.getInt("teacher_earnings_cents")).thenReturn(0, 4000, 0);
+            when(rs.getInt("price_cents")).thenReturn(0, 5000, 2000);
+            when(rs.getObject("hourly_rate_cents")).thenReturn(null, null, 3000);
+            doAnswer(invocation -> {
+                RowCallbackHandler handler = invocation.getArgument(1);
+                for (int i = 0; i < 3; i++) {
+                    handler.processRow(rs);
+                }
+                return null;
+            }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+            int count = teacherBalanceService.migrateUncreditedLessons();
+
+            assertThat(count).isEqualTo(3);
+            ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+            verify(jdbcTemplate).batchUpdate(eq(TeacherBalanceService.CREDIT_SQL), rows.capture());
+            assertThat(rows.getValue()).hasSize(2);
+            assertThat(rows.getValue()).anySatisfy(row -> assertThat(row).startsWith(7L, 5500, 5500, 2));
+            assertThat(rows.getValue()).anySatisfy(row -> assertThat(row).startsWith(8L, 1750, 1750, 1));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.chessconnect.service;
+
+import com.chessconnect.repository.LessonRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ThumbnailService Tests")
+class ThumbnailServiceTest {
+
+    @Mock
+    private LessonRepository lessonRepository;
+
+    @Mock
+    private BunnyStorageService bunnyStorageService;
+
+    // Stands in for the bounded thumbnail executor: tasks wait here until the test runs them
+    private final Queue<Runnable> queued = new ArrayDeque<>();
+
+    private ThumbnailService thumbnailService;
+
+    @BeforeEach
+    void setUp() {
+        thumbnailService = spy(new ThumbnailService(lessonRepository, bunnyStorageService, queued::add));
+        lenient().doReturn(true).when(thumbnailService).isFfmpegAvailable();
+    }
+
+    @Nested
+    @DisplayName("generateMissingThumbnails")
+    class Backfill {
+
+        @Test
+        @DisplayName("Should process a large backfill while holding at most two executor slots")
+        void shouldBoundQueuedTasks() {
+            List<Long> ids = LongStream.rangeClosed(1, 1500).boxed().toList();
+            when(lessonRepository.findLessonIdsMissingThumbnail()).thenReturn(ids);
+            when(lessonRepository.findById(anyLong())).thenReturn(Optional.empty());
+
+            thumbnailService.generateMissingThumbnails();
+
+            int maxQueued = queued.size();
+            while (!queued.isEmpty()) {
+                queued.poll().run();
+                maxQueued = Math.max(maxQueued, queued.size());
+            }
+
+            assertThat(maxQueued).isEqualTo(2);
+            verify(lessonRepository, times(ids.size())).findById(anyLong());
+        }
+
+        @Test
+        @DisplayName("Should queue nothing when no lesson is missing a thumbnail")
+        void shouldDoNothingWhenUpToDate() {
+            when(lessonRepository.findLessonIdsMissingThumbnail()).thenReturn(List.of());
+
+            thumbnailService.generateMissingThumbnails();
+
+            assertThat(queued).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("hasOutput")
+    class Output {
+
+        @TempDir
+        Path dir;
+
+        @Test
+        @DisplayName("Should only accept a frame file that exists and is not empty")
+        void shouldRejectMissingOrEmptyFrame() throws Exception {
+            Path empty = Files.createFile(dir.resolve("empty.png"));
+            Path frame = Files.write(dir.resolve("frame.png"), new byte[] { 1 });
+
+            assertThat(ThumbnailService.hasOutput(dir.resolve("missing.png"))).isFalse();
+            assertThat(ThumbnailService.hasOutput(empty)).isFalse();
+            assertThat(ThumbnailService.hasOutput(dir)).isFalse();
+            assertThat(ThumbnailService.hasOutput(frame)).isTrue();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.chessconnect.service;
+
+import com.chessconnect.dto.CursorPage;
+import com.chessconnect.model.User;
+import com.chessconnect.model.UserNotification;
+import com.chessconnect.model.enums.NotificationType;
+import com.chessconnect.repository.UserNotificationRepository;
+import com.chessconnect.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserNotificationService Tests")
+class UserNotificationServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 10, 18, 0);
+
+    @Mock
+    private UserNotificationRepository notificationRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private WebPushService webPushService;
+
+    @Mock
+    private NotificationCounterService counterService;
+
+    private UserNotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        notificationService = new UserNotificationService(notificationRepository, userRepository,
+                eventPublisher, webPushService, counterService);
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private static UserNotification notification(long id, boolean read) {
+        UserNotification notification = new UserNotification(user(1), NotificationType.REFUND, "Titre", "Message");
+        notification.setId(id);
+        notification.setIsRead(read);
+        notification.setCreatedAt(NOW.minusMinutes(id));
+        return notification;
+    }
+
+    private static List<UserNotification> notifications(int count) {
+        return LongStream.rangeClosed(1, count).mapToObj(id -> notification(id, false)).toList();
+    }
+
+    @Nested
+    @DisplayName("getInbox")
+    class GetInbox {
+
+        @Test
+        @DisplayName("Should fetch one extra row and return a cursor on the last item when more rows exist")
+        void shouldReturnCursorWhenMoreRows() {
+            when(notificationRepository.findInboxPage(1L, false, null, null, 21)).thenReturn(notifications(21));
+
+            CursorPage<UserNotification> page = notificationService.getInbox(1L, false, null, null);
+
+            assertThat(page.items()).hasSize(20);
+            assertThat(page.nextCursor()).isEqualTo(new CursorPage.Cursor(NOW.minusMinutes(20), 20L).encode());
+        }
+
+        @Test
+        @DisplayName("Should continue after the decoded cursor and end without a cursor on the last page")
+        void shouldContinueAfterCursor() {
+            String cursor = new CursorPage.Cursor(NOW.minusMinutes(20), 20L).encode();
+            when(notificationRepository.findInboxPage(1L, true, NOW.minusMinutes(20), 20L, 6))
+                    .thenReturn(notifications(3));
+
+            CursorPage<UserNotification> page = notificationService.getInbox(1L, true, cursor, 5);
+
+            assertThat(page.items()).hasSize(3);
+            assertThat(page.nextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should cap the page size")
+        void shouldCapPageSize() {
+            when(notificationRepository.findInboxPage(eq(1L), anyBoolean(), isNull(), isNull(), anyInt()))
+                    .thenReturn(List.of());
+
+            notificationService.getInbox(1L, false, null, 10_000);
+
+            verify(notificationRepository).findInboxPage(1L, false, null, null, UserNotificationService.MAX_PAGE_SIZE + 1);
+        }
+
+        @Test
+        @DisplayName("Should return the whole list to clients that expect a plain list")
+        void shouldNotCapLegacyLists() {
+            when(notificationRepository.findInboxPage(1L, false, null, null, Integer.MAX_VALUE)).thenReturn(notifications(150));
+            when(notificationRepository.findInboxPage(1L, true, null, null, Integer.MAX_VALUE)).thenReturn(notifications(120));
+
+            assertThat(notificationService.getNotificationsForUser(1L)).hasSize(150);
+            assertThat(notificationService.getUnreadNotificationsForUser(1L)).hasSize(120);
+        }
+
+        @Test
+        @DisplayName("Should reject a malformed cursor")
+        void shouldRejectMalformedCursor() {
+            assertThatThrownBy(() -> notificationService.getInbox(1L, false, "pas-un-curseur", null))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Curseur de pagination invalide");
+        }
+    }
+
+    @Nested
+    @DisplayName("unread counter")
+    class UnreadCounter {
+
+        @Test
+        @DisplayName("Should invalidate the counter when a notification is created")
+        void shouldInvalidateOnCreate() {
+            when(userRepository.findById(1L)).thenReturn(Optional.of(user(1)));
+            when(notificationRepository.save(any(UserNotification.class))).thenAnswer(invocation -> {
+                UserNotification saved = invocation.getArgument(0);
+                saved.setId(9L);
+                saved.setCreatedAt(NOW);
+                return saved;
+            });
+
+            notificationService.createNotification(1L, NotificationType.REFUND, "Titre", "Message");
+
+            verify(counterService).invalidate(1L);
+        }
+
+        @Test
+        @DisplayName("Should invalidate the counter only when an unread notification is read")
+        void shouldInvalidateOnlyForUnread() {
+            when(notificationRepository.findById(9L)).thenReturn(Optional.of(notification(9, true)));
+            when(notificationRepository.findById(10L)).thenReturn(Optional.of(notification(10, false)));
+
+            notificationService.markAsRead(9L, 1L);
+            verify(counterService, never()).invalidate(any());
+
+            notificationService.markAsRead(10L, 1L);
+            verify(counterService).invalidate(1L);
+        }
+
+        @Test
+        @DisplayName("Should invalidate the counter after marking everything read")
+        void shouldInvalidateOnMarkAll() {
+            when(notificationRepository.deleteUnreadForUser(1L)).thenReturn(4);
+
+            notificationService.markAllAsRead(1L);
+
+            verify(counterService).invalidate(1L);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.chessconnect.service;
+
+import com.chessconnect.model.VideoWatchProgress;
+import com.chessconnect.repository.VideoWatchProgressRepository;
+import com.chessconnect.scheduler.ScheduledJobRunner;
+import com.chessconnect.service.VideoProgressService.Progress;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("VideoProgressService Tests")
+class VideoProgressServiceTest {
+
+    @Mock
+    private VideoWatchProgressRepository progressRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ScheduledJobRunner jobRunner;
+
+    private SimpleMeterRegistry meterRegistry;
+    private VideoProgressService progressService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        progressService = new VideoProgressService(progressRepository, jdbcTemplate, meterRegistry, jobRunner);
+    }
+
+    private void runJobsInline() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(jobRunner).runLocal(anyString(), any(Runnable.class));
+    }
+
+    private double pendingWrites() {
+        return meterRegistry.get("video_progress_pending_writes").gauge().value();
+    }
+
+    private static VideoWatchProgress stored(double position) {
+        VideoWatchProgress progress = new VideoWatchProgress();
+        progress.setWatchPosition(position);
+        progress.setDuration(3600.0);
+        progress.setCompleted(false);
+        progress.setUpdatedAt(LocalDateTime.of(2026, 3, 10, 18, 0));
+        return progress;
+    }
+
+    @Nested
+    @DisplayName("reads")
+    class Reads {
+
+        @Test
+        @DisplayName("Should serve an unflushed write from memory")
+        void shouldServePendingWriteFromMemory() {
+            progressService.save(1L, 10L, 42.0, 3600.0, false);
+
+            Optional<Progress> progress = progressService.get(1L, 10L);
+
+            assertThat(progress).get().extracting(Progress::watchPosition).isEqualTo(42.0);
+            verifyNoInteractions(progressRepository);
+        }
+
+        @Test
+        @DisplayName("Should read flushed progress from the database so writes from other nodes are seen")
+        void shouldReadThroughOnceFlushed() {
+            runJobsInline();
+            progressService.save(1L, 10L, 42.0, 3600.0, false);
+            progressService.flush();
+            when(progressRepository.findByUserIdAndLessonId(1L, 10L))
+                    .thenReturn(Optional.of(stored(50.0)), Optional.of(stored(75.0)));
+
+            assertThat(progressService.get(1L, 10L)).get().extracting(Progress::watchPosition).isEqualTo(50.0);
+            assertThat(progressService.get(1L, 10L)).get().extracting(Progress::watchPosition).isEqualTo(75.0);
+        }
+
+        @Test
+        @DisplayName("Should return empty when there is no progress anywhere")
+        void shouldReturnEmptyWithoutProgress() {
+            when(progressRepository.findByUserIdAndLessonId(1L, 10L)).thenReturn(Optional.empty());
+
+            assertThat(progressService.get(1L, 10L)).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("flush")
+    class Flush {
+
+        @Test
+        @DisplayName("Should write the latest position of each key in one batch and drop it from memory")
+        @SuppressWarnings("unchecked")
+        void shouldBatchLatestPositions() {
+            runJobsInline();
+            progressService.save(1L, 10L, 10.0, 3600.0, false);
+            progressService.save(1L, 10L, 20.0, null, false);
+            progressService.save(2L, 10L, 5.0, 3600.0, false);
+            assertThat(pendingWrites()).isEqualTo(2);
+
+            progressService.flush();
+
+            verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO video_watch_progress"),
+                    argThat((Collection<?> rows) -> rows.size() == 2), eq(2), any(ParameterizedPreparedStatementSetter.class));
+            assertThat(pendingWrites()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should keep an entry that was overwritten while the flush was running")
+        @SuppressWarnings("unchecked")
+        void shouldKeepEntryUpdatedDuringFlush() {
+            runJobsInline();
+            progressService.save(1L, 10L, 10.0, 3600.0, false);
+            when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                    .thenAnswer(invocation -> {
+                        progressService.save(1L, 10L, 15.0, null, false);
+                        return new int[0][];
+                    });
+
+            progressService.flush();
+
+            assertThat(progressService.get(1L, 10L)).get().extracting(Progress::watchPosition).isEqualTo(15.0);
+            assertThat(pendingWrites()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should retry row by row when the batch fails and drop only the bad rows")
+        @SuppressWarnings("unchecked")
+        void shouldRetryRowByRow() {
+            runJobsInline();
+            progressService.save(1L, 10L, 10.0, 3600.0, false);
+            progressService.save(2L, 11L, 20.0, 3600.0, false);
+            when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                    .thenThrow(new DataIntegrityViolationException("lesson deleted"));
+            when(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class)))
+                    .thenReturn(1)
+                    .thenThrow(new DataIntegrityViolationException("lesson deleted"));
+
+            progressService.flush();
+
+            verify(jdbcTemplate, times(2)).update(anyString(), any(PreparedStatementSetter.class));
+            assertThat(pendingWrites()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should skip the database when nothing is pending")
+        void shouldSkipWhenNothingPending() {
+            runJobsInline();
+
+            progressService.flush();
+
+            verifyNoInteractions(jdbcTemplate);
+        }
+    }
+
+    @Nested
+    @DisplayName("delete")
+    class Delete {
+
+        @Test
+        @DisplayName("Should drop the pending write and the stored row")
+        void shouldDropPendingAndStored() {
+            runJobsInline();
+            progressService.save(1L, 10L, 10.0, 3600.0, false);
+
+            progressService.delete(1L, 10L);
+            progressService.flush();
+
+            verify(progressRepository).deleteByUserIdAndLessonId(1L, 10L);
+            verifyNoInteractions(jdbcTemplate);
+        }
+
+        @Test
+        @DisplayName("Should wait for a running flush so the flushed row can't outlive the delete")
+        @SuppressWarnings("unchecked")
+        void shouldWaitForRunningFlush() throws Exception {
+            runJobsInline();
+            progressService.save(1L, 10L, 10.0, 3600.0, false);
+            Thread[] deleter = new Thread[1];
+            Thread.State[] deleterDuringFlush = new Thread.State[1];
+            when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                    .thenAnswer(invocation -> {
+                        deleter[0] = new Thread(() -> progressService.delete(1L, 10L));
+                        deleter[0].start();
+                        // The delete must stay blocked while the flush holds its snapshot
+                        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                        while (deleter[0].getState() != Thread.State.BLOCKED && System.nanoTime() < deadline) {
+                            Thread.sleep(5);
+                        }
+                        deleterDuringFlush[0] = deleter[0].getState();
+                        return new int[0][];
+                    });
+
+            progressService.flush();
+            deleter[0].join(5000);
+
+            assertThat(deleterDuringFlush[0]).isEqualTo(Thread.State.BLOCKED);
+            InOrder order = inOrder(jdbcTemplate, progressRepository);
+            order.verify(jdbcTemplate).batchUpdate(anyString(), any(Collection.class), anyInt(),
+                    any(ParameterizedPreparedStatementSetter.class));
+            order.verify(progressRepository).deleteByUserIdAndLessonId(1L, 10L);
+            assertThat(pendingWrites()).isZero();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.chessconnect.service;
 
 import com.chessconnect.model.CreditTransaction;
+import com.chessconnect.model.Lesson;
 import com.chessconnect.model.StudentWallet;
 import com.chessconnect.model.User;
 import com.chessconnect.model.enums.UserRole;
@@ -8,20 +9,26 @@ import com.chessconnect.model.enums.CreditTransactionType;
 import com.chessconnect.repository.CreditTransactionRepository;
 import com.chessconnect.repository.StudentWalletRepository;
 import com.chessconnect.repository.UserRepository;
+import com.chessconnect.scheduler.ScheduledJobRunner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,6 +47,15 @@ class WalletServiceTest {
     @Mock
     private StripeService stripeService;
 
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ScheduledJobRunner jobRunner;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private WalletService walletService;
 
@@ -232,4 +248,90 @@ class WalletServiceTest {
             assertThat(result).isEqualTo(0);
         }
     }
+
+    @Nested
+    @DisplayName("checkAndDeductCredit Tests")
+    class CheckAndDeductCreditTests {
+
+        @Test
+        @DisplayName("Should deduct with one conditional update and no row lock")
+        void shouldDeductWithConditionalUpdate() {
+            // Given
+            when(jdbcTemplate.queryForList(contains("balance_cents >= ?"), eq(Integer.class), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(2000));
+
+            // When
+            walletService.checkAndDeductCredit(1L, 3000);
+
+            // Then
+            verify(jdbcTemplate).queryForList(anyString(), eq(Integer.class), eq(3000), eq(3000), any(), eq(1L), eq(3000));
+            verify(walletRepository, never()).findByUserIdForUpdate(any());
+            verify(walletRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Should reject when the balance doesn't cover the amount")
+        void shouldRejectInsufficientBalance() {
+            // Given
+            when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any(), any(), any(), any(), any()))
+                .thenReturn(List.of());
+            when(walletRepository.findByUserId(1L)).thenReturn(Optional.of(wallet));
+
+            // When/Then
+            assertThatThrownBy(() -> walletService.checkAndDeductCredit(1L, 10000))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("50.00");
+            verify(walletRepository, never()).save(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("refundCreditForLesson Tests")
+    class RefundCreditForLessonTests {
+
+        @Test
+        @DisplayName("Should credit the wallet in SQL and append a REFUND entry to the ledger")
+        void shouldAppendRefundToLedger() {
+            // Given
+            Lesson lesson = new Lesson();
+            lesson.setId(10L);
+            when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any(), any(), any(), any()))
+                .thenReturn(List.of(6500));
+            when(userRepository.getReferenceById(1L)).thenReturn(studentUser);
+
+            // When
+            walletService.refundCreditForLesson(1L, lesson, 3000, 50);
+
+            // Then
+            ArgumentCaptor<CreditTransaction> entry = ArgumentCaptor.forClass(CreditTransaction.class);
+            verify(transactionRepository).save(entry.capture());
+            assertThat(entry.getValue().getTransactionType()).isEqualTo(CreditTransactionType.REFUND);
+            assertThat(entry.getValue().getAmountCents()).isEqualTo(1500);
+            verify(walletRepository, never()).save(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("reconcileLedger Tests")
+    class ReconcileLedgerTests {
+
+        @Test
+        @DisplayName("Should export the number of wallets that differ from their ledger")
+        @SuppressWarnings("unchecked")
+        void shouldExportMismatches() {
+            // Given
+            doAnswer(invocation -> {
+                invocation.<Runnable>getArgument(2).run();
+                return null;
+            }).when(jobRunner).runLocked(anyString(), any(), any());
+            when(jdbcTemplate.query(anyString(), any(RowMapper.class)))
+                .thenReturn(List.of(new WalletService.LedgerMismatch(1L, 5000, 4500L)));
+
+            // When
+            walletService.reconcileLedger();
+
+            // Then
+            assertThat(meterRegistry.get("wallet_ledger_mismatches").gauge().value()).isEqualTo(1.0);
+        }
+    }
 }